@@ -0,0 +1,285 @@
+package de.governikus.identification.report.constants;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.networknt.schema.JsonSchema;
+
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * loads JSON schemas from a directory of the filesystem so that new schema versions can be deployed without
+ * releasing the application. A schema location is resolved relative to the directory, e.g. the location
+ * "/subjects/person-ref.json" is read from "&lt;directory&gt;/subjects/person-ref.json". The files are read
+ * with memory-mapped reads and compiled on first access. If watching is enabled a background thread watches
+ * the directory for changes, recompiles the changed schemas and replaces them atomically. Running validations
+ * are never blocked and keep the schema instance they have started with. A changed schema that cannot be
+ * compiled is logged and the previous version stays in use
+ *
+ * @see SchemaConstants#setFileSystemSchemaSource(FileSystemSchemaSource)
+ */
+@Slf4j
+public class FileSystemSchemaSource implements Closeable
+{
+
+  /**
+   * the directory that contains the schemas
+   */
+  @Getter
+  private final Path directory;
+
+  /**
+   * the compiled schemas by their locations. The entries are replaced as a whole if a schema is reloaded
+   */
+  private final Map<String, JsonSchema> schemas = new ConcurrentHashMap<>();
+
+  /**
+   * the locations that were looked up but that do not exist within the directory. The locations are only
+   * remembered while the directory is watched and are forgotten whenever a change of the directory is reported
+   */
+  private final Set<String> missingLocations = ConcurrentHashMap.newKeySet();
+
+  /**
+   * the service that watches the directory and its subdirectories or null if the directory is not watched
+   */
+  private final WatchService watchService;
+
+  /**
+   * @param directory the directory that contains the schemas
+   * @param watch if the directory should be watched for changes. Defaults to true
+   * @throws IllegalArgumentException if the directory does not exist
+   */
+  @SneakyThrows
+  @Builder
+  public FileSystemSchemaSource(Path directory, Boolean watch)
+  {
+    if (directory == null || !Files.isDirectory(directory))
+    {
+      throw new IllegalArgumentException(String.format("Schema directory '%s' does not exist", directory));
+    }
+    this.directory = directory.toAbsolutePath().normalize();
+    if (Optional.ofNullable(watch).orElse(true))
+    {
+      this.watchService = this.directory.getFileSystem().newWatchService();
+      registerDirectories(this.directory);
+      Thread watcherThread = new Thread(this::watch, "schema-directory-watcher");
+      watcherThread.setDaemon(true);
+      watcherThread.start();
+    }
+    else
+    {
+      this.watchService = null;
+    }
+  }
+
+  /**
+   * @param schemaLocation the location of the schema relative to the {@link #directory}
+   * @return the compiled schema or null if the directory does not contain a file under the given location
+   * @throws IllegalArgumentException if the location points outside of the directory
+   */
+  public JsonSchema getSchema(String schemaLocation)
+  {
+    JsonSchema schema = schemas.get(schemaLocation);
+    if (schema != null)
+    {
+      return schema;
+    }
+    if (missingLocations.contains(schemaLocation))
+    {
+      return null;
+    }
+    Path file = resolve(schemaLocation);
+    if (!Files.isRegularFile(file))
+    {
+      if (watchService == null)
+      {
+        return null;
+      }
+      missingLocations.add(schemaLocation);
+      // checked again since the change event of a file that was created meanwhile might already be handled
+      if (!Files.isRegularFile(file))
+      {
+        return null;
+      }
+      missingLocations.remove(schemaLocation);
+    }
+    return schemas.computeIfAbsent(schemaLocation, location -> compile(file));
+  }
+
+  /**
+   * stops watching the directory. The already compiled schemas remain available
+   */
+  @Override
+  public void close() throws IOException
+  {
+    if (watchService != null)
+    {
+      watchService.close();
+    }
+  }
+
+  /**
+   * @return the file of the given schema location
+   * @throws IllegalArgumentException if the location points outside of the directory
+   */
+  Path resolve(String schemaLocation)
+  {
+    Path file = directory.resolve(schemaLocation.replaceFirst("^/+", "")).normalize();
+    if (!file.startsWith(directory))
+    {
+      throw new IllegalArgumentException(String.format("Schema location '%s' is outside of the schema directory",
+                                                       schemaLocation));
+    }
+    return file;
+  }
+
+  /**
+   * reads the given file with a memory-mapped read and compiles its content
+   */
+  @SneakyThrows
+  private static JsonSchema compile(Path file)
+  {
+    final JsonNode node;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+    {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      node = ObjectMapperUtil.getObjectMapper().readTree(new ByteBufferBackedInputStream(buffer));
+    }
+    if (node == null || !node.isObject())
+    {
+      throw new IllegalArgumentException(String.format("File '%s' does not contain a JSON schema", file));
+    }
+    return SchemaConstants.compileSchema(node);
+  }
+
+  /**
+   * takes the change events of the watched directories until the watch service is closed. A failure while
+   * handling an event is logged and does not stop the watching, e.g. if a file is truncated while it is read
+   */
+  private void watch()
+  {
+    try
+    {
+      while (true)
+      {
+        WatchKey watchKey = watchService.take();
+        Path watchedDirectory = (Path)watchKey.watchable();
+        for ( WatchEvent<?> event : watchKey.pollEvents() )
+        {
+          try
+          {
+            handleEvent(watchedDirectory, event);
+          }
+          catch (ClosedWatchServiceException ex)
+          {
+            throw ex;
+          }
+          catch (Throwable ex)
+          {
+            log.warn("Cannot handle change of schema directory '{}'", watchedDirectory, ex);
+          }
+        }
+        // forgotten after the events were handled so that the files of newly registered directories are found
+        missingLocations.clear();
+        watchKey.reset();
+      }
+    }
+    catch (InterruptedException ex)
+    {
+      Thread.currentThread().interrupt();
+    }
+    catch (ClosedWatchServiceException ex)
+    {
+      log.debug("Stopped watching schema directory '{}'", directory);
+    }
+  }
+
+  /**
+   * reloads the schemas that are affected by the given event and watches newly created directories
+   */
+  private void handleEvent(Path watchedDirectory, WatchEvent<?> event)
+  {
+    if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+    {
+      schemas.keySet().forEach(this::reload);
+      return;
+    }
+    Path changedFile = watchedDirectory.resolve((Path)event.context());
+    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changedFile))
+    {
+      registerDirectories(changedFile);
+      return;
+    }
+    schemas.keySet().stream().filter(location -> resolve(location).equals(changedFile)).forEach(this::reload);
+  }
+
+  /**
+   * recompiles the schema under the given location and replaces the previous version. The schema is removed if
+   * its file was deleted
+   */
+  private void reload(String schemaLocation)
+  {
+    Path file = resolve(schemaLocation);
+    if (!Files.isRegularFile(file))
+    {
+      schemas.remove(schemaLocation);
+      return;
+    }
+    try
+    {
+      schemas.put(schemaLocation, compile(file));
+    }
+    catch (Exception | InternalError ex)
+    {
+      // an InternalError is raised if the mapped file is truncated by another process while it is read
+      log.warn("Keeping previous version of schema '{}' because the changed file cannot be compiled: {}",
+               schemaLocation,
+               ex.getMessage());
+    }
+  }
+
+  /**
+   * registers the given directory and all of its subdirectories at the {@link #watchService}
+   */
+  private void registerDirectories(Path root)
+  {
+    try (Stream<Path> paths = Files.walk(root))
+    {
+      for ( Path path : (Iterable<Path>)paths.filter(Files::isDirectory)::iterator )
+      {
+        path.register(watchService,
+                      StandardWatchEventKinds.ENTRY_CREATE,
+                      StandardWatchEventKinds.ENTRY_MODIFY,
+                      StandardWatchEventKinds.ENTRY_DELETE);
+      }
+    }
+    catch (IOException | UncheckedIOException ex)
+    {
+      // the walk fails with an unchecked exception if a directory disappears while it is walked
+      log.warn("Cannot watch schema directory '{}': {}", root, ex.getMessage());
+    }
+  }
+}
@@ -1,18 +1,18 @@
 package de.governikus.identification.report.constants;
 
 import java.io.InputStream;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.networknt.schema.JsonSchema;
 import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.SpecVersion;
 
-import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
-import de.governikus.identification.report.objects.subjects.FinkPersonRefMinimal;
 import de.governikus.identification.report.objects.subjects.SubjectRef;
+import de.governikus.identification.report.objects.subjects.SubjectRefType;
+import de.governikus.identification.report.objects.subjects.SubjectRefTypeRegistry;
 import de.governikus.identification.report.utils.ObjectMapperUtil;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -24,43 +24,45 @@ public final class SchemaConstants
 {
 
   /**
-   * this map will remember each schema in order to prevent the schemas from being parsed over and over again
+   * this map will remember each schema in order to prevent the schemas from being parsed over and over again.
+   * The schemas are added with {@link ConcurrentHashMap#computeIfAbsent(Object, java.util.function.Function)}
+   * so that each schema is compiled exactly once even if several threads request it concurrently
    */
-  private static final Map<String, JsonSchema> SCHEMA_MAP = new HashMap<>();
+  private static final Map<String, JsonSchema> SCHEMA_MAP = new ConcurrentHashMap<>();
 
   /**
-   * contains references to subtype-classes of {@link SubjectRef}. These will be used to identify a fitting
-   * subtype-class based on a schema identifier ($id-attribute). The natural-person-schema.json for example is
-   * identified by the schema-id
-   * "https://raw.githubusercontent.com/Governikus/IdentificationReport/2.0.0/schema/eid-authentication.json",
-   * wich points to the subtype-class {@link EidCardPersonRef}.
+   * the factory is thread-safe and is therefore shared for all schemas
    */
-  private static final Map<String, Class<? extends SubjectRef>> AUTH_OBJECT_SUB_TYPE_REFERENCES = new HashMap<>();
+  private static final JsonSchemaFactory SCHEMA_FACTORY = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012);
 
-  /*
-   * registers the schema-ids with their corresponding subject-ref class types
+  /**
+   * the locations of all schemas that are shipped with this library
    */
-  static
-  {
-    AUTH_OBJECT_SUB_TYPE_REFERENCES.put("https://raw.githubusercontent.com/Governikus/IdentificationReport/2.0.0"
-                                        + "/schema/eid-card.json",
-                                        EidCardPersonRef.class);
-    AUTH_OBJECT_SUB_TYPE_REFERENCES.put("https://raw.githubusercontent.com/Governikus/IdentificationReport/2.0.0"
-                                        + "/schema/fink-user-account-minimal.json",
-                                        FinkPersonRefMinimal.class);
-  }
+  private static final List<String> SCHEMA_LOCATIONS = List.of(Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION,
+                                                               Locations.EID_CARD_SCHEMA_LOCATION,
+                                                               Locations.FINK_USER_ACCOUNT_MINIMAL_SCHEMA_LOCATION);
+
+  /**
+   * the optional source of schemas that are not shipped with this library
+   */
+  private static volatile FileSystemSchemaSource fileSystemSchemaSource;
+
+  /**
+   * tells if {@link #warmUp()} has been completed successfully
+   */
+  private static volatile boolean warmedUp;
 
   /**
-   * adds new custom references to the {@link #AUTH_OBJECT_SUB_TYPE_REFERENCES} map to be able to automatically
-   * resolve the subtypes of an identification-report if the schemas id is present within the
-   * subjectRefType-attribute
+   * adds an identifier to the given subtype of {@link SubjectRef} to be able to automatically resolve the
+   * subtypes of an identification-report if the identifier is present within the subjectRefType-attribute
    *
    * @param schemaId the id of the schema that is referenced
    * @param authType the subytpe of {@link SubjectRef}
+   * @see SubjectRefTypeRegistry#registerAlias(String, Class)
    */
   public static void addSchemaSubTypeReference(String schemaId, Class<? extends SubjectRef> authType)
   {
-    AUTH_OBJECT_SUB_TYPE_REFERENCES.put(schemaId, authType);
+    SubjectRefTypeRegistry.registerAlias(schemaId, authType);
   }
 
   /**
@@ -69,40 +71,113 @@ public final class SchemaConstants
    */
   public static Class<? extends SubjectRef> getSubType(String schemaId)
   {
-    return AUTH_OBJECT_SUB_TYPE_REFERENCES.get(schemaId);
+    return SubjectRefTypeRegistry.getType(schemaId);
   }
 
   /**
    * Reads the schema from the given location and stores it within a static map in order to prevent continuous
-   * parsing of the file
+   * parsing of the file. Each schema is compiled exactly once even under concurrent first access. If a
+   * {@link FileSystemSchemaSource} is set, locations other than the ones of the schemas that are shipped with
+   * this library are looked up within its directory first
    *
    * @param schemaLocation the location of the schema file that should be retrieved as json schema instance
    */
-  @SneakyThrows
   public static JsonSchema getSchema(String schemaLocation)
   {
-    JsonSchema schemaOptional = SCHEMA_MAP.get(schemaLocation);
-    if (schemaOptional != null)
+    FileSystemSchemaSource schemaSource = fileSystemSchemaSource;
+    if (schemaSource != null && !SCHEMA_LOCATIONS.contains(schemaLocation))
+    {
+      JsonSchema externalSchema = schemaSource.getSchema(schemaLocation);
+      if (externalSchema != null)
+      {
+        return externalSchema;
+      }
+    }
+    JsonSchema schema = SCHEMA_MAP.get(schemaLocation);
+    if (schema != null)
     {
-      return schemaOptional;
+      return schema;
     }
+    return SCHEMA_MAP.computeIfAbsent(schemaLocation, SchemaConstants::loadSchema);
+  }
+
+  /**
+   * sets the source of the schemas that are not shipped with this library. The schemas that are shipped with
+   * this library are compiled into validators during the build and are therefore never read from this source
+   *
+   * @param schemaSource the source of the schemas or null to read all schemas from the classpath only
+   */
+  public static void setFileSystemSchemaSource(FileSystemSchemaSource schemaSource)
+  {
+    fileSystemSchemaSource = schemaSource;
+  }
 
-    final String jsonSchemaString;
+  /**
+   * @return the source of the schemas that are not shipped with this library or null if all schemas are read
+   *         from the classpath
+   */
+  public static FileSystemSchemaSource getFileSystemSchemaSource()
+  {
+    return fileSystemSchemaSource;
+  }
+
+  /**
+   * eagerly compiles all schemas of {@link Locations} and the schemas of all registered {@link SubjectRef}
+   * subtypes so that the first validation does not have to pay the compilation costs. This method should be
+   * called during the application startup and readiness probes may wait for {@link #isWarmedUp()}. The
+   * registered subtypes without a known schema location must provide a no-arguments constructor
+   */
+  @SneakyThrows
+  public static void warmUp()
+  {
+    for ( String schemaLocation : SCHEMA_LOCATIONS )
+    {
+      getSchema(schemaLocation);
+    }
+    for ( SubjectRefType subjectRefType : SubjectRefTypeRegistry.getSubjectRefTypes() )
+    {
+      if (subjectRefType.getSchemaLocation() == null)
+      {
+        subjectRefType.getType().getDeclaredConstructor().newInstance().getSchema();
+      }
+      else
+      {
+        getSchema(subjectRefType.getSchemaLocation());
+      }
+    }
+    warmedUp = true;
+  }
+
+  /**
+   * @return true if {@link #warmUp()} has been completed successfully
+   */
+  public static boolean isWarmedUp()
+  {
+    return warmedUp;
+  }
+
+  /**
+   * reads and compiles the schema at the given location
+   */
+  @SneakyThrows
+  private static JsonSchema loadSchema(String schemaLocation)
+  {
     try (InputStream inputStream = SchemaConstants.class.getResourceAsStream(schemaLocation))
     {
       if (inputStream == null)
       {
         throw new IllegalArgumentException("Schema not found in given location: " + schemaLocation);
       }
-      Scanner s = new Scanner(inputStream).useDelimiter("\\A");
-      jsonSchemaString = s.hasNext() ? s.next() : "";
+      return compileSchema(ObjectMapperUtil.getObjectMapper().readTree(inputStream));
     }
-    JsonNode node = ObjectMapperUtil.getObjectMapper().readTree(jsonSchemaString);
-    JsonSchemaFactory factory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012);
-    JsonSchema schema = factory.getSchema(node);
+  }
 
-    SCHEMA_MAP.put(schemaLocation, schema);
-    return schema;
+  /**
+   * compiles the given schema with the shared factory
+   */
+  static JsonSchema compileSchema(JsonNode schemaNode)
+  {
+    return SCHEMA_FACTORY.getSchema(schemaNode);
   }
 
   /**
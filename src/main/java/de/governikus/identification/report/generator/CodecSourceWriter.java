@@ -0,0 +1,475 @@
+package de.governikus.identification.report.generator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+
+/**
+ * writes the java sources of the serializer and the deserializer of a single type. The serializer writes the
+ * properties in the order of their declaration or in alphabetical order if
+ * {@code MapperFeature.SORT_PROPERTIES_ALPHABETICALLY} is enabled. The entries of the any-getter are written
+ * last. Strings and enums are written and read directly, all other values are delegated to the serializers
+ * and deserializers of the object mapper
+ */
+class CodecSourceWriter
+{
+
+  /**
+   * the suffix of the generated serializer classes
+   */
+  static final String SERIALIZER_SUFFIX = "JsonSerializer";
+
+  /**
+   * the suffix of the generated deserializer classes
+   */
+  static final String DESERIALIZER_SUFFIX = "JsonDeserializer";
+
+  private final String generator;
+
+  private final String packageName;
+
+  private final String simpleName;
+
+  private final String typeName;
+
+  private final List<Property> properties;
+
+  /**
+   * the getter of the map whose entries are written as flattened properties or null
+   */
+  private final String anyGetter;
+
+  /**
+   * the method that receives unknown properties or null
+   */
+  private final String anySetter;
+
+  /**
+   * if null values are omitted
+   */
+  private final boolean nonNull;
+
+  CodecSourceWriter(String generator,
+                    String packageName,
+                    String simpleName,
+                    String typeName,
+                    List<Property> properties,
+                    String anyGetter,
+                    String anySetter,
+                    boolean nonNull)
+  {
+    this.generator = generator;
+    this.packageName = packageName;
+    this.simpleName = simpleName;
+    this.typeName = typeName;
+    this.properties = properties;
+    this.anyGetter = anyGetter;
+    this.anySetter = anySetter;
+    this.nonNull = nonNull;
+  }
+
+  /**
+   * @return true if the generated deserializer can read all properties of the type on its own
+   */
+  boolean isSelfContained()
+  {
+    return properties.stream().noneMatch(property -> property.kind == Kind.TYPE_VARIABLE);
+  }
+
+  /**
+   * @return the java source of the serializer
+   */
+  String writeSerializer()
+  {
+    String className = simpleName + SERIALIZER_SUFFIX;
+    StringBuilder source = new StringBuilder();
+    source.append("package ").append(packageName).append(";\n\n");
+    source.append("import java.io.IOException;\n\n");
+    source.append("import javax.annotation.processing.Generated;\n\n");
+    source.append("import com.fasterxml.jackson.core.JsonGenerator;\n");
+    source.append("import com.fasterxml.jackson.core.io.SerializedString;\n");
+    source.append("import com.fasterxml.jackson.databind.MapperFeature;\n");
+    source.append("import com.fasterxml.jackson.databind.SerializationFeature;\n");
+    source.append("import com.fasterxml.jackson.databind.SerializerProvider;\n");
+    source.append("import com.fasterxml.jackson.databind.ser.std.StdSerializer;\n\n\n");
+    source.append("/**\n * writes a {@link ").append(simpleName).append("} without reflection\n */\n");
+    source.append("@Generated(\"").append(generator).append("\")\n");
+    source.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+    source.append("public final class ")
+          .append(className)
+          .append(" extends StdSerializer<")
+          .append(typeName)
+          .append(">\n{\n\n");
+    for ( Property property : properties )
+    {
+      source.append("  private static final SerializedString ")
+            .append(property.getConstantName())
+            .append(" = new SerializedString(")
+            .append(SourceLiterals.literal(property.name))
+            .append(");\n\n");
+    }
+    source.append("  public ").append(className).append("()\n  {\n");
+    source.append("    super(").append(typeName).append(".class);\n  }\n\n");
+    source.append("  @Override\n");
+    source.append("  public void serialize(")
+          .append(typeName)
+          .append(" value, JsonGenerator gen, SerializerProvider provider) throws IOException\n  {\n");
+    source.append("    gen.writeStartObject(value);\n");
+    List<Property> sortedProperties = new ArrayList<>(properties);
+    sortedProperties.sort(Comparator.comparing(property -> property.name));
+    if (!sortedProperties.equals(properties))
+    {
+      source.append("    if (provider.isEnabled(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY))\n    {\n");
+      appendWriteCalls(source, sortedProperties, "      ");
+      source.append("    }\n    else\n    {\n");
+      appendWriteCalls(source, properties, "      ");
+      source.append("    }\n");
+    }
+    else
+    {
+      appendWriteCalls(source, properties, "    ");
+    }
+    if (anyGetter != null)
+    {
+      source.append("    java.util.Map<?, ?> anyProperties = value.").append(anyGetter).append("();\n");
+      source.append("    if (anyProperties != null)\n    {\n");
+      source.append("      if (provider.isEnabled(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS))\n      {\n");
+      source.append("        anyProperties = new java.util.TreeMap<>(anyProperties);\n      }\n");
+      source.append("      for ( java.util.Map.Entry<?, ?> entry : anyProperties.entrySet() )\n      {\n");
+      source.append("        provider.defaultSerializeField(String.valueOf(entry.getKey()), entry.getValue(), gen);\n");
+      source.append("      }\n    }\n");
+    }
+    source.append("    gen.writeEndObject();\n  }\n");
+    for ( Property property : properties )
+    {
+      appendWriteMethod(source, property);
+    }
+    source.append("}\n");
+    return source.toString();
+  }
+
+  private void appendWriteCalls(StringBuilder source, List<Property> orderedProperties, String indent)
+  {
+    for ( Property property : orderedProperties )
+    {
+      source.append(indent).append("write").append(property.accessorSuffix).append("(value, gen, provider);\n");
+    }
+  }
+
+  private void appendWriteMethod(StringBuilder source, Property property)
+  {
+    String localType = property.kind == Kind.STRING || property.kind == Kind.ENUM ? property.typeName : "Object";
+    source.append("\n  private static void write")
+          .append(property.accessorSuffix)
+          .append("(")
+          .append(typeName)
+          .append(" value, JsonGenerator gen, SerializerProvider provider)\n    throws IOException\n  {\n");
+    source.append("    ")
+          .append(localType)
+          .append(" propertyValue = value.get")
+          .append(property.accessorSuffix)
+          .append("();\n");
+    source.append("    if (propertyValue != null)\n    {\n");
+    source.append("      gen.writeFieldName(").append(property.getConstantName()).append(");\n");
+    switch (property.kind)
+    {
+      case STRING:
+        source.append("      gen.writeString(propertyValue);\n");
+        break;
+      case ENUM:
+        source.append("      gen.writeString(propertyValue.").append(property.enumValueAccessor).append(");\n");
+        break;
+      default:
+        source.append("      provider.defaultSerializeValue(propertyValue, gen);\n");
+    }
+    source.append("    }\n");
+    if (!nonNull)
+    {
+      source.append("    else\n    {\n");
+      source.append("      gen.writeFieldName(").append(property.getConstantName()).append(");\n");
+      source.append("      gen.writeNull();\n    }\n");
+    }
+    source.append("  }\n");
+  }
+
+  /**
+   * @return the java source of the deserializer. The type must provide a public no-argument constructor. The
+   *         deserializers of the properties that are not read directly are resolved once when the deserializer
+   *         is registered within the object mapper
+   */
+  String writeDeserializer()
+  {
+    String className = simpleName + DESERIALIZER_SUFFIX;
+    List<Property> resolvedProperties = new ArrayList<>();
+    for ( Property property : properties )
+    {
+      if (property.kind == Kind.OTHER || property.kind == Kind.ENUM && property.enumCreator == null)
+      {
+        resolvedProperties.add(property);
+      }
+    }
+    StringBuilder source = new StringBuilder();
+    source.append("package ").append(packageName).append(";\n\n");
+    source.append("import java.io.IOException;\n\n");
+    source.append("import javax.annotation.processing.Generated;\n\n");
+    source.append("import com.fasterxml.jackson.core.JsonParser;\n");
+    source.append("import com.fasterxml.jackson.core.JsonToken;\n");
+    source.append("import com.fasterxml.jackson.databind.DeserializationContext;\n");
+    source.append("import com.fasterxml.jackson.databind.JavaType;\n");
+    source.append("import com.fasterxml.jackson.databind.JsonDeserializer;\n");
+    source.append("import com.fasterxml.jackson.databind.JsonMappingException;\n");
+    source.append("import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;\n");
+    source.append("import com.fasterxml.jackson.databind.deser.std.StdDeserializer;\n");
+    source.append("import com.fasterxml.jackson.databind.type.TypeFactory;\n\n\n");
+    source.append("/**\n * reads a {@link ").append(simpleName).append("} without reflection\n */\n");
+    source.append("@Generated(\"").append(generator).append("\")\n");
+    source.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+    source.append("public final class ")
+          .append(className)
+          .append(" extends StdDeserializer<")
+          .append(typeName)
+          .append("> implements ResolvableDeserializer\n{\n\n");
+    for ( Property property : resolvedProperties )
+    {
+      if (property.isParameterized())
+      {
+        source.append("  private static final JavaType ")
+              .append(property.getConstantName())
+              .append("_TYPE = TypeFactory.defaultInstance().constructFromCanonical(")
+              .append(SourceLiterals.literal(property.typeName))
+              .append(");\n\n");
+      }
+    }
+    for ( Property property : resolvedProperties )
+    {
+      source.append("  private JsonDeserializer<Object> ").append(property.getDeserializerName()).append(";\n\n");
+    }
+    if (anySetter != null)
+    {
+      source.append("  private JsonDeserializer<Object> anyDeserializer;\n\n");
+    }
+    source.append("  public ").append(className).append("()\n  {\n");
+    source.append("    super(").append(typeName).append(".class);\n  }\n\n");
+    source.append("  @Override\n");
+    source.append("  public void resolve(DeserializationContext ctxt) throws JsonMappingException\n  {\n");
+    for ( Property property : resolvedProperties )
+    {
+      String type = property.isParameterized() ? property.getConstantName() + "_TYPE"
+        : "ctxt.constructType(" + property.rawTypeName + ".class)";
+      source.append("    ")
+            .append(property.getDeserializerName())
+            .append(" = ctxt.findContextualValueDeserializer(")
+            .append(type)
+            .append(", null);\n");
+    }
+    if (anySetter != null)
+    {
+      source.append("    anyDeserializer = ctxt.findContextualValueDeserializer(ctxt.constructType(Object.class), null);\n");
+    }
+    source.append("  }\n\n");
+    source.append("  @Override\n");
+    source.append("  public boolean isCachable()\n  {\n    return true;\n  }\n\n");
+    source.append("  @Override\n");
+    source.append("  public ")
+          .append(typeName)
+          .append(" deserialize(JsonParser p, DeserializationContext ctxt) throws IOException\n  {\n");
+    source.append("    String name;\n");
+    source.append("    if (p.isExpectedStartObjectToken())\n    {\n      name = p.nextFieldName();\n    }\n");
+    source.append("    else if (p.hasToken(JsonToken.FIELD_NAME) || p.hasToken(JsonToken.END_OBJECT))\n");
+    source.append("    {\n      name = p.currentName();\n    }\n");
+    source.append("    else\n    {\n");
+    source.append("      return (")
+          .append(typeName)
+          .append(")ctxt.handleUnexpectedToken(")
+          .append(typeName)
+          .append(".class, p);\n    }\n");
+    source.append("    ").append(typeName).append(" bean = new ").append(typeName).append("();\n");
+    source.append("    p.assignCurrentValue(bean);\n");
+    source.append("    for ( ; name != null ; name = p.nextFieldName() )\n    {\n");
+    source.append("      p.nextToken();\n");
+    source.append("      if (!deserializeProperty(p, ctxt, bean, name))\n      {\n");
+    if (anySetter == null)
+    {
+      source.append("        handleUnknownProperty(p, ctxt, bean, name);\n");
+    }
+    else
+    {
+      source.append("        bean.")
+            .append(anySetter)
+            .append("(name, p.hasToken(JsonToken.VALUE_NULL) ? null : anyDeserializer.deserialize(p, ctxt));\n");
+    }
+    source.append("      }\n    }\n");
+    source.append("    return bean;\n  }\n\n");
+    source.append("  /**\n");
+    source.append("   * reads the value of a single declared property. The parser must point to the first token of the value\n");
+    source.append("   *\n");
+    source.append("   * @return false if the property is unknown or has a generic type. The value has not been read in this\n");
+    source.append("   *         case\n");
+    source.append("   */\n");
+    source.append("  public boolean deserializeProperty(JsonParser p,\n");
+    source.append("                                     DeserializationContext ctxt,\n");
+    source.append("                                     ").append(typeName).append(" bean,\n");
+    source.append("                                     String name)\n    throws IOException\n  {\n");
+    source.append("    switch (name)\n    {\n");
+    for ( Property property : properties )
+    {
+      if (property.kind == Kind.TYPE_VARIABLE)
+      {
+        continue;
+      }
+      source.append("      case ").append(SourceLiterals.literal(property.name)).append(":\n");
+      source.append("        bean.set").append(property.accessorSuffix).append("(").append(getReadExpression(property));
+      source.append(");\n        return true;\n");
+    }
+    source.append("      default:\n        return false;\n    }\n  }\n");
+    appendReadMethods(source);
+    source.append("}\n");
+    return source.toString();
+  }
+
+  private String getReadExpression(Property property)
+  {
+    switch (property.kind)
+    {
+      case STRING:
+        return "readString(p, ctxt)";
+      case ENUM:
+        if (property.enumCreator != null)
+        {
+          return "read" + property.getEnumSimpleName() + "(p, ctxt)";
+        }
+        // fall through
+      default:
+        return "p.hasToken(JsonToken.VALUE_NULL) ? null : (" + property.typeName + ")" + property.getDeserializerName()
+               + ".deserialize(p, ctxt)";
+    }
+  }
+
+  private void appendReadMethods(StringBuilder source)
+  {
+    if (properties.stream().anyMatch(property -> property.kind == Kind.STRING))
+    {
+      source.append("\n  private static String readString(JsonParser p, DeserializationContext ctxt) throws IOException\n");
+      source.append("  {\n");
+      source.append("    if (p.hasToken(JsonToken.VALUE_STRING))\n    {\n      return p.getText();\n    }\n");
+      source.append("    if (p.hasToken(JsonToken.VALUE_NULL))\n    {\n      return null;\n    }\n");
+      source.append("    return ctxt.readValue(p, String.class);\n  }\n");
+    }
+    Map<String, Property> enumsWithCreator = new LinkedHashMap<>();
+    for ( Property property : properties )
+    {
+      if (property.kind == Kind.ENUM && property.enumCreator != null)
+      {
+        enumsWithCreator.putIfAbsent(property.rawTypeName, property);
+      }
+    }
+    for ( Property property : enumsWithCreator.values() )
+    {
+      String enumType = property.rawTypeName;
+      source.append("\n  private static ")
+            .append(enumType)
+            .append(" read")
+            .append(property.getEnumSimpleName())
+            .append("(JsonParser p, DeserializationContext ctxt) throws IOException\n  {\n");
+      source.append("    if (p.hasToken(JsonToken.VALUE_NULL))\n    {\n      return null;\n    }\n");
+      source.append("    if (!p.hasToken(JsonToken.VALUE_STRING))\n    {\n");
+      source.append("      return ctxt.readValue(p, ").append(enumType).append(".class);\n    }\n");
+      source.append("    String text = p.getText();\n");
+      source.append("    try\n    {\n");
+      source.append("      return ").append(enumType).append(".").append(property.enumCreator).append("(text);\n");
+      source.append("    }\n    catch (IllegalArgumentException | IllegalStateException ex)\n    {\n");
+      source.append("      throw ctxt.weirdStringException(text, ")
+            .append(enumType)
+            .append(".class, ex.getMessage());\n");
+      source.append("    }\n  }\n");
+    }
+  }
+
+  /**
+   * the kind of a property that determines how it is written and read
+   */
+  enum Kind
+  {
+    STRING, ENUM, TYPE_VARIABLE, OTHER
+  }
+
+  /**
+   * a single property of the type
+   */
+  static class Property
+  {
+
+    /**
+     * the name of the property within the JSON document
+     */
+    private final String name;
+
+    /**
+     * the capitalized field name that follows "get" and "set"
+     */
+    private final String accessorSuffix;
+
+    private final Kind kind;
+
+    /**
+     * the qualified type including its type arguments
+     */
+    private final String typeName;
+
+    /**
+     * the qualified type without its type arguments
+     */
+    private final String rawTypeName;
+
+    /**
+     * the expression that returns the JSON value of an enum constant
+     */
+    private final String enumValueAccessor;
+
+    /**
+     * the static factory method that returns the enum constant for its JSON value or null
+     */
+    private final String enumCreator;
+
+    Property(String name,
+             String accessorSuffix,
+             Kind kind,
+             String typeName,
+             String rawTypeName,
+             String enumValueAccessor,
+             String enumCreator)
+    {
+      this.name = name;
+      this.accessorSuffix = accessorSuffix;
+      this.kind = kind;
+      this.typeName = typeName;
+      this.rawTypeName = rawTypeName;
+      this.enumValueAccessor = enumValueAccessor;
+      this.enumCreator = enumCreator;
+    }
+
+    private boolean isParameterized()
+    {
+      return !typeName.equals(rawTypeName);
+    }
+
+    private String getConstantName()
+    {
+      return accessorSuffix.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+    }
+
+    private String getDeserializerName()
+    {
+      return Character.toLowerCase(accessorSuffix.charAt(0)) + accessorSuffix.substring(1) + "Deserializer";
+    }
+
+    private String getEnumSimpleName()
+    {
+      return rawTypeName.substring(rawTypeName.lastIndexOf('.') + 1);
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package de.governikus.identification.report.generator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * requests a {@link de.governikus.identification.report.validation.CompiledSchemaValidator} that is generated
+ * from the given JSON schema by the {@link SchemaValidatorProcessor} during the build. The validator is
+ * generated into the package of the annotated type
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+@Repeatable(CompileSchemas.class)
+public @interface CompileSchema
+{
+
+  /**
+   * the classpath location of the JSON schema
+   */
+  String location();
+
+  /**
+   * the simple name of the generated validator class
+   */
+  String className();
+}
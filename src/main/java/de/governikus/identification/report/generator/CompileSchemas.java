@@ -0,0 +1,18 @@
+package de.governikus.identification.report.generator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * the container of repeated {@link CompileSchema} annotations
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface CompileSchemas
+{
+
+  CompileSchema[] value();
+}
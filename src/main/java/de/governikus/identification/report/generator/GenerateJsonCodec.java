@@ -0,0 +1,17 @@
+package de.governikus.identification.report.generator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * generates a serializer and a deserializer for the annotated type with the {@link JsonCodecProcessor} during
+ * the build so that the properties are not accessed by reflection at runtime. The properties are taken from
+ * the fields of the type and its superclasses and are accessed with their lombok style getters and setters
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface GenerateJsonCodec
+{}
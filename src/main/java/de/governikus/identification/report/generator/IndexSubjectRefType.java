@@ -0,0 +1,28 @@
+package de.governikus.identification.report.generator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * adds the annotated subtype of {@link de.governikus.identification.report.objects.subjects.SubjectRef} to
+ * the index that is generated by the {@link SubjectRefTypeIndexProcessor} during the build. The schema id is
+ * read from the given schema so that it does not need to be parsed at runtime
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface IndexSubjectRefType
+{
+
+  /**
+   * the classpath location of the JSON schema that defines the subtype
+   */
+  String location();
+
+  /**
+   * other identifiers that are used for the schema within the {@code subjectRefType} attribute of a report
+   */
+  String[] aliases() default {};
+}
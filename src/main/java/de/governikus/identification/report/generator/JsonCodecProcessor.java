@@ -0,0 +1,347 @@
+package de.governikus.identification.report.generator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+
+/**
+ * generates a serializer and a deserializer for each type that is annotated with {@link GenerateJsonCodec}
+ * and a jackson module named {@value #MODULE_CLASS_NAME} that registers them. The module is written into the
+ * common package of the annotated types and uses the serializers only for the exact types so that subclasses
+ * are still serialized with all of their properties. Deserializers are only registered for types whose
+ * properties can all be read without further context and are created for each object mapper because they hold
+ * the deserializers of their properties. This processor is compiled before the main sources and is not part
+ * of the released artifact
+ */
+public class JsonCodecProcessor extends AbstractProcessor
+{
+
+  /**
+   * the simple name of the generated module
+   */
+  static final String MODULE_CLASS_NAME = "JsonCodecModule";
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes()
+  {
+    return Set.of(GenerateJsonCodec.class.getCanonicalName());
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion()
+  {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment)
+  {
+    List<TypeElement> types = new ArrayList<>();
+    StringJoiner serializers = new StringJoiner(",\n");
+    StringJoiner deserializers = new StringJoiner(",\n");
+    for ( TypeElement type : ElementFilter.typesIn(roundEnvironment.getElementsAnnotatedWith(GenerateJsonCodec.class)) )
+    {
+      String qualifiedName = type.getQualifiedName().toString();
+      String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+      try
+      {
+        CodecSourceWriter sourceWriter = createSourceWriter(type, packageName);
+        writeSource(packageName + "." + type.getSimpleName() + CodecSourceWriter.SERIALIZER_SUFFIX,
+                    sourceWriter.writeSerializer(),
+                    type);
+        serializers.add(String.format("      java.util.Map.entry(%s.class, new %s%s())",
+                                      qualifiedName,
+                                      qualifiedName,
+                                      CodecSourceWriter.SERIALIZER_SUFFIX));
+        if (!type.getModifiers().contains(Modifier.ABSTRACT))
+        {
+          writeSource(packageName + "." + type.getSimpleName() + CodecSourceWriter.DESERIALIZER_SUFFIX,
+                      sourceWriter.writeDeserializer(),
+                      type);
+          if (sourceWriter.isSelfContained())
+          {
+            deserializers.add(String.format("      java.util.Map.entry(%s.class, (java.util.function.Supplier<com.fasterxml.jackson.databind.JsonDeserializer<?>>)%s%s::new)",
+                                            qualifiedName,
+                                            qualifiedName,
+                                            CodecSourceWriter.DESERIALIZER_SUFFIX));
+          }
+        }
+        types.add(type);
+      }
+      catch (IOException | IllegalArgumentException ex)
+      {
+        processingEnv.getMessager()
+                     .printMessage(Diagnostic.Kind.ERROR,
+                                   String.format("Cannot generate the JSON codec of '%s': %s",
+                                                 qualifiedName,
+                                                 ex.getMessage()),
+                                   type);
+      }
+    }
+    if (!types.isEmpty())
+    {
+      writeModule(types, serializers.toString(), deserializers.toString());
+    }
+    return true;
+  }
+
+  /**
+   * reads the properties of the type from its fields and the fields of its superclasses
+   */
+  private CodecSourceWriter createSourceWriter(TypeElement type, String packageName)
+  {
+    List<TypeElement> hierarchy = new ArrayList<>();
+    for ( TypeElement current = type ; current != null ; current = getSuperclass(current) )
+    {
+      hierarchy.add(current);
+    }
+    boolean nonNull = false;
+    for ( TypeElement current : hierarchy )
+    {
+      JsonInclude jsonInclude = current.getAnnotation(JsonInclude.class);
+      if (jsonInclude != null)
+      {
+        nonNull = jsonInclude.value() == JsonInclude.Include.NON_NULL;
+        break;
+      }
+    }
+    Collections.reverse(hierarchy);
+
+    List<CodecSourceWriter.Property> properties = new ArrayList<>();
+    String anyGetter = null;
+    String anySetter = null;
+    for ( TypeElement current : hierarchy )
+    {
+      for ( VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements()) )
+      {
+        if (field.getModifiers().contains(Modifier.STATIC) || field.getModifiers().contains(Modifier.TRANSIENT))
+        {
+          continue;
+        }
+        String accessorSuffix = capitalize(field.getSimpleName().toString());
+        if (field.getAnnotation(JsonAnyGetter.class) != null)
+        {
+          anyGetter = "get" + accessorSuffix;
+          continue;
+        }
+        JsonIgnore jsonIgnore = field.getAnnotation(JsonIgnore.class);
+        if (jsonIgnore != null && jsonIgnore.value())
+        {
+          continue;
+        }
+        properties.add(createProperty(field, accessorSuffix));
+      }
+      for ( ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements()) )
+      {
+        if (method.getAnnotation(JsonAnySetter.class) != null)
+        {
+          anySetter = method.getSimpleName().toString();
+        }
+      }
+    }
+    return new CodecSourceWriter(getClass().getName(), packageName, type.getSimpleName().toString(),
+                                 type.getQualifiedName().toString(), properties, anyGetter, anySetter, nonNull);
+  }
+
+  private CodecSourceWriter.Property createProperty(VariableElement field, String accessorSuffix)
+  {
+    String name = field.getSimpleName().toString();
+    JsonProperty jsonProperty = field.getAnnotation(JsonProperty.class);
+    if (jsonProperty != null && !jsonProperty.value().isEmpty())
+    {
+      name = jsonProperty.value();
+    }
+    TypeMirror fieldType = field.asType();
+    if (fieldType.getKind() == TypeKind.TYPEVAR)
+    {
+      return new CodecSourceWriter.Property(name, accessorSuffix, CodecSourceWriter.Kind.TYPE_VARIABLE, "Object",
+                                            "Object", null, null);
+    }
+    if (fieldType.getKind() != TypeKind.DECLARED && fieldType.getKind() != TypeKind.ARRAY)
+    {
+      throw new IllegalArgumentException(String.format("The property '%s' of type '%s' is not supported",
+                                                       name,
+                                                       fieldType));
+    }
+    String typeName = fieldType.toString();
+    String rawTypeName = processingEnv.getTypeUtils().erasure(fieldType).toString();
+    if ("java.lang.String".equals(typeName))
+    {
+      return new CodecSourceWriter.Property(name, accessorSuffix, CodecSourceWriter.Kind.STRING, typeName, rawTypeName,
+                                            null, null);
+    }
+    Element typeElement = fieldType.getKind() == TypeKind.DECLARED ? ((DeclaredType)fieldType).asElement() : null;
+    if (typeElement != null && typeElement.getKind() == ElementKind.ENUM)
+    {
+      return new CodecSourceWriter.Property(name, accessorSuffix, CodecSourceWriter.Kind.ENUM, typeName, rawTypeName,
+                                            getEnumValueAccessor((TypeElement)typeElement),
+                                            getEnumCreator((TypeElement)typeElement));
+    }
+    return new CodecSourceWriter.Property(name, accessorSuffix, CodecSourceWriter.Kind.OTHER, typeName, rawTypeName,
+                                          null, null);
+  }
+
+  /**
+   * @return the expression that returns the value of the method or the field that is annotated with
+   *         {@link JsonValue} or the name of the constant
+   */
+  private String getEnumValueAccessor(TypeElement enumType)
+  {
+    for ( Element member : enumType.getEnclosedElements() )
+    {
+      if (member.getAnnotation(JsonValue.class) == null)
+      {
+        continue;
+      }
+      if (member.getKind() == ElementKind.METHOD)
+      {
+        return member.getSimpleName() + "()";
+      }
+      if (member.getKind() == ElementKind.FIELD)
+      {
+        return "get" + capitalize(member.getSimpleName().toString()) + "()";
+      }
+    }
+    return "name()";
+  }
+
+  /**
+   * @return the name of the static method with a single parameter that is annotated with {@link JsonCreator} or
+   *         null
+   */
+  private String getEnumCreator(TypeElement enumType)
+  {
+    for ( ExecutableElement method : ElementFilter.methodsIn(enumType.getEnclosedElements()) )
+    {
+      if (method.getAnnotation(JsonCreator.class) != null && method.getModifiers().contains(Modifier.STATIC)
+          && method.getParameters().size() == 1)
+      {
+        return method.getSimpleName().toString();
+      }
+    }
+    return null;
+  }
+
+  private TypeElement getSuperclass(TypeElement type)
+  {
+    TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind() != TypeKind.DECLARED)
+    {
+      return null;
+    }
+    TypeElement superElement = (TypeElement)((DeclaredType)superclass).asElement();
+    return superElement.getQualifiedName().contentEquals(Object.class.getName()) ? null : superElement;
+  }
+
+  /**
+   * writes the module into the longest common package of the given types
+   */
+  private void writeModule(List<TypeElement> types, String serializers, String deserializers)
+  {
+    List<String> packageName = null;
+    for ( TypeElement type : types )
+    {
+      List<String> segments = Arrays.asList(processingEnv.getElementUtils()
+                                                         .getPackageOf(type)
+                                                         .getQualifiedName()
+                                                         .toString()
+                                                         .split("\\."));
+      int common = 0;
+      while (packageName != null && common < Math.min(packageName.size(), segments.size())
+             && packageName.get(common).equals(segments.get(common)))
+      {
+        common++;
+      }
+      packageName = packageName == null ? segments : packageName.subList(0, common);
+    }
+    if (packageName.isEmpty() || packageName.get(0).isEmpty())
+    {
+      processingEnv.getMessager()
+                   .printMessage(Diagnostic.Kind.ERROR,
+                                 "The types annotated with @GenerateJsonCodec do not share a common package");
+      return;
+    }
+    String modulePackage = String.join(".", packageName);
+    String source = "package " + modulePackage + ";\n\n" + "import javax.annotation.processing.Generated;\n\n\n"
+                    + "/**\n * registers the serializers and deserializers that were generated during the build\n */\n"
+                    + "@Generated(\"" + getClass().getName() + "\")\n" + "public final class " + MODULE_CLASS_NAME
+                    + " extends com.fasterxml.jackson.databind.Module\n{\n\n"
+                    + "  private static final java.util.Map<Class<?>, com.fasterxml.jackson.databind.JsonSerializer<?>> SERIALIZERS = java.util.Map.ofEntries(\n"
+                    + serializers + ");\n\n"
+                    + "  private static final java.util.Map<Class<?>, java.util.function.Supplier<com.fasterxml.jackson.databind.JsonDeserializer<?>>> DESERIALIZERS = java.util.Map.ofEntries(\n"
+                    + deserializers + ");\n\n" + "  @Override\n" + "  public String getModuleName()\n" + "  {\n"
+                    + "    return \"" + MODULE_CLASS_NAME + "\";\n" + "  }\n\n" + "  @Override\n"
+                    + "  public com.fasterxml.jackson.core.Version version()\n" + "  {\n"
+                    + "    return com.fasterxml.jackson.core.Version.unknownVersion();\n" + "  }\n\n" + "  @Override\n"
+                    + "  public void setupModule(SetupContext context)\n" + "  {\n"
+                    + "    context.addSerializers(new com.fasterxml.jackson.databind.ser.Serializers.Base()\n"
+                    + "    {\n\n" + "      @Override\n"
+                    + "      public com.fasterxml.jackson.databind.JsonSerializer<?> findSerializer(com.fasterxml.jackson.databind.SerializationConfig config,\n"
+                    + "                                                                             com.fasterxml.jackson.databind.JavaType type,\n"
+                    + "                                                                             com.fasterxml.jackson.databind.BeanDescription beanDesc)\n"
+                    + "      {\n" + "        return SERIALIZERS.get(type.getRawClass());\n" + "      }\n" + "    });\n"
+                    + "    context.addDeserializers(new com.fasterxml.jackson.databind.deser.Deserializers.Base()\n"
+                    + "    {\n\n" + "      @Override\n"
+                    + "      public com.fasterxml.jackson.databind.JsonDeserializer<?> findBeanDeserializer(com.fasterxml.jackson.databind.JavaType type,\n"
+                    + "                                                                                     com.fasterxml.jackson.databind.DeserializationConfig config,\n"
+                    + "                                                                                     com.fasterxml.jackson.databind.BeanDescription beanDesc)\n"
+                    + "      {\n"
+                    + "        java.util.function.Supplier<com.fasterxml.jackson.databind.JsonDeserializer<?>> deserializer = DESERIALIZERS.get(type.getRawClass());\n"
+                    + "        return deserializer == null ? null : deserializer.get();\n" + "      }\n" + "    });\n"
+                    + "  }\n" + "}\n";
+    try
+    {
+      writeSource(modulePackage + "." + MODULE_CLASS_NAME, source, types.toArray(new Element[0]));
+    }
+    catch (IOException ex)
+    {
+      processingEnv.getMessager()
+                   .printMessage(Diagnostic.Kind.ERROR,
+                                 String.format("Cannot write the JSON codec module: %s", ex.getMessage()));
+    }
+  }
+
+  private void writeSource(String qualifiedName, String source, Element... originatingElements) throws IOException
+  {
+    JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(qualifiedName, originatingElements);
+    try (Writer writer = sourceFile.openWriter())
+    {
+      writer.write(source);
+    }
+  }
+
+  private static String capitalize(String name)
+  {
+    return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+  }
+}
@@ -0,0 +1,139 @@
+package de.governikus.identification.report.generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * generates a {@link de.governikus.identification.report.validation.CompiledSchemaValidator} for each
+ * {@link CompileSchema} annotation and a registry class named {@value #REGISTRY_CLASS_NAME} that maps the
+ * schema locations to the generated validators. The schemas are read from the classpath so the resources must
+ * have been copied into the output directory before the annotated classes are compiled. This processor is
+ * compiled before the main sources and is not part of the released artifact
+ */
+public class SchemaValidatorProcessor extends AbstractProcessor
+{
+
+  /**
+   * the simple name of the generated registry class
+   */
+  static final String REGISTRY_CLASS_NAME = "CompiledSchemaValidators";
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes()
+  {
+    return Set.of(CompileSchema.class.getCanonicalName(), CompileSchemas.class.getCanonicalName());
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion()
+  {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment)
+  {
+    Map<String, List<String>> validatorsByPackage = new LinkedHashMap<>();
+    Set<Element> annotatedElements = new LinkedHashSet<>();
+    annotatedElements.addAll(roundEnvironment.getElementsAnnotatedWith(CompileSchema.class));
+    annotatedElements.addAll(roundEnvironment.getElementsAnnotatedWith(CompileSchemas.class));
+    for ( Element element : annotatedElements )
+    {
+      String packageName = getPackageName(element);
+      for ( CompileSchema compileSchema : element.getAnnotationsByType(CompileSchema.class) )
+      {
+        try
+        {
+          JsonNode schema = readSchema(compileSchema.location());
+          String source = new ValidatorSourceWriter(packageName, compileSchema.className(), compileSchema.location(),
+                                                    schema).write();
+          writeSource(packageName, compileSchema.className(), source, element);
+          validatorsByPackage.computeIfAbsent(packageName, key -> new ArrayList<>()).add(compileSchema.className());
+        }
+        catch (IOException | IllegalArgumentException ex)
+        {
+          processingEnv.getMessager()
+                       .printMessage(Diagnostic.Kind.ERROR,
+                                     String.format("Cannot compile schema '%s': %s",
+                                                   compileSchema.location(),
+                                                   ex.getMessage()),
+                                     element);
+        }
+      }
+    }
+    validatorsByPackage.forEach((packageName, classNames) -> {
+      try
+      {
+        writeSource(packageName,
+                    REGISTRY_CLASS_NAME,
+                    ValidatorSourceWriter.writeRegistry(packageName, REGISTRY_CLASS_NAME, classNames),
+                    annotatedElements.toArray(new Element[0]));
+      }
+      catch (IOException ex)
+      {
+        processingEnv.getMessager()
+                     .printMessage(Diagnostic.Kind.ERROR,
+                                   String.format("Cannot write the schema validator registry: %s", ex.getMessage()));
+      }
+    });
+    return true;
+  }
+
+  /**
+   * @return the name of the package that contains the given element
+   */
+  private String getPackageName(Element element)
+  {
+    PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(element);
+    return packageElement.getQualifiedName().toString();
+  }
+
+  /**
+   * reads the schema from the classpath
+   */
+  private JsonNode readSchema(String location) throws IOException
+  {
+    String relativeName = location.startsWith("/") ? location.substring(1) : location;
+    FileObject resource = processingEnv.getFiler().getResource(StandardLocation.CLASS_PATH, "", relativeName);
+    try (InputStream inputStream = resource.openInputStream())
+    {
+      return new ObjectMapper().readTree(inputStream);
+    }
+  }
+
+  /**
+   * writes a generated source file
+   */
+  private void writeSource(String packageName, String className, String source, Element... originatingElements)
+    throws IOException
+  {
+    JavaFileObject sourceFile = processingEnv.getFiler()
+                                             .createSourceFile(packageName + "." + className, originatingElements);
+    try (Writer writer = sourceFile.openWriter())
+    {
+      writer.write(source);
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package de.governikus.identification.report.generator;
+
+/**
+ * creates the literals of generated java sources
+ */
+final class SourceLiterals
+{
+
+  private SourceLiterals()
+  {}
+
+  /**
+   * @return the given string as java string literal
+   */
+  static String literal(String value)
+  {
+    StringBuilder literal = new StringBuilder("\"");
+    for ( char character : value.toCharArray() )
+    {
+      switch (character)
+      {
+        case '"':
+          literal.append("\\\"");
+          break;
+        case '\\':
+          literal.append("\\\\");
+          break;
+        case '\n':
+          literal.append("\\n");
+          break;
+        case '\r':
+          literal.append("\\r");
+          break;
+        case '\t':
+          literal.append("\\t");
+          break;
+        default:
+          if (character < 0x20 || character > 0x7e)
+          {
+            literal.append(String.format("\\u%04x", (int)character));
+          }
+          else
+          {
+            literal.append(character);
+          }
+      }
+    }
+    return literal.append('"').toString();
+  }
+}
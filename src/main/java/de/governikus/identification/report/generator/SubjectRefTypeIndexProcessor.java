@@ -0,0 +1,190 @@
+package de.governikus.identification.report.generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * generates a {@code SubjectRefTypeProvider} named {@value #INDEX_CLASS_NAME} for each package that contains
+ * types annotated with {@link IndexSubjectRefType} and lists the generated providers within the
+ * {@link java.util.ServiceLoader} configuration. The schema ids are read from the schemas on the classpath so
+ * the resources must have been copied into the output directory before the annotated classes are compiled.
+ * This processor is compiled before the main sources and is not part of the released artifact
+ */
+public class SubjectRefTypeIndexProcessor extends AbstractProcessor
+{
+
+  /**
+   * the simple name of the generated index classes
+   */
+  static final String INDEX_CLASS_NAME = "SubjectRefTypeIndex";
+
+  /**
+   * the service interface that is implemented by the generated index classes
+   */
+  static final String PROVIDER_INTERFACE = "de.governikus.identification.report.objects.subjects.SubjectRefTypeProvider";
+
+  /**
+   * the description of a single subtype
+   */
+  private static final String SUBJECT_REF_TYPE = "de.governikus.identification.report.objects.subjects.SubjectRefType";
+
+  /**
+   * the qualified names of the index classes that were generated within all rounds
+   */
+  private final List<String> generatedIndexes = new ArrayList<>();
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes()
+  {
+    return Set.of(IndexSubjectRefType.class.getCanonicalName());
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion()
+  {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment)
+  {
+    Map<String, List<String>> entriesByPackage = new LinkedHashMap<>();
+    Map<String, List<Element>> elementsByPackage = new LinkedHashMap<>();
+    for ( Element element : roundEnvironment.getElementsAnnotatedWith(IndexSubjectRefType.class) )
+    {
+      IndexSubjectRefType indexSubjectRefType = element.getAnnotation(IndexSubjectRefType.class);
+      String packageName = processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+      try
+      {
+        String schemaId = readSchemaId(indexSubjectRefType.location());
+        StringJoiner aliases = new StringJoiner(", ", "java.util.List.of(", ")");
+        for ( String alias : indexSubjectRefType.aliases() )
+        {
+          aliases.add(SourceLiterals.literal(alias));
+        }
+        entriesByPackage.computeIfAbsent(packageName, key -> new ArrayList<>())
+                        .add(String.format("new %s(%s, %s, %s, %s.class)",
+                                           SUBJECT_REF_TYPE,
+                                           SourceLiterals.literal(schemaId),
+                                           aliases,
+                                           SourceLiterals.literal(indexSubjectRefType.location()),
+                                           ((TypeElement)element).getQualifiedName()));
+        elementsByPackage.computeIfAbsent(packageName, key -> new ArrayList<>()).add(element);
+      }
+      catch (IOException | IllegalArgumentException ex)
+      {
+        processingEnv.getMessager()
+                     .printMessage(Diagnostic.Kind.ERROR,
+                                   String.format("Cannot index schema '%s': %s",
+                                                 indexSubjectRefType.location(),
+                                                 ex.getMessage()),
+                                   element);
+      }
+    }
+    entriesByPackage.forEach((packageName, entries) -> {
+      try
+      {
+        writeIndex(packageName, entries, elementsByPackage.get(packageName).toArray(new Element[0]));
+        generatedIndexes.add(packageName + "." + INDEX_CLASS_NAME);
+      }
+      catch (IOException ex)
+      {
+        processingEnv.getMessager()
+                     .printMessage(Diagnostic.Kind.ERROR,
+                                   String.format("Cannot write the subject reference type index: %s", ex.getMessage()));
+      }
+    });
+    if (roundEnvironment.processingOver() && !generatedIndexes.isEmpty())
+    {
+      writeServiceConfiguration();
+    }
+    return true;
+  }
+
+  /**
+   * reads the "$id" of the schema from the classpath
+   */
+  private String readSchemaId(String location) throws IOException
+  {
+    String relativeName = location.startsWith("/") ? location.substring(1) : location;
+    FileObject resource = processingEnv.getFiler().getResource(StandardLocation.CLASS_PATH, "", relativeName);
+    try (InputStream inputStream = resource.openInputStream())
+    {
+      JsonNode id = new ObjectMapper().readTree(inputStream).get("$id");
+      if (id == null || !id.isTextual())
+      {
+        throw new IllegalArgumentException("The schema does not declare an '$id'");
+      }
+      return id.textValue();
+    }
+  }
+
+  /**
+   * writes the index class of a single package
+   */
+  private void writeIndex(String packageName, List<String> entries, Element... originatingElements) throws IOException
+  {
+    String source = "package " + packageName + ";\n\n" + "import javax.annotation.processing.Generated;\n\n\n" + "/**\n"
+                    + " * the subject reference types of this package whose schema ids were read from their schemas\n"
+                    + " * during the build\n" + " */\n" + "@Generated(\"" + getClass().getName() + "\")\n"
+                    + "public final class " + INDEX_CLASS_NAME + " implements " + PROVIDER_INTERFACE + "\n{\n\n"
+                    + "  @Override\n" + "  public java.util.List<" + SUBJECT_REF_TYPE + "> getSubjectRefTypes()\n"
+                    + "  {\n" + "    return java.util.List.of("
+                    + String.join(",\n                             ", entries) + ");\n" + "  }\n" + "}\n";
+    JavaFileObject sourceFile = processingEnv.getFiler()
+                                             .createSourceFile(packageName + "." + INDEX_CLASS_NAME,
+                                                               originatingElements);
+    try (Writer writer = sourceFile.openWriter())
+    {
+      writer.write(source);
+    }
+  }
+
+  /**
+   * lists the generated index classes as implementations of the {@link #PROVIDER_INTERFACE}
+   */
+  private void writeServiceConfiguration()
+  {
+    try
+    {
+      FileObject resource = processingEnv.getFiler()
+                                         .createResource(StandardLocation.CLASS_OUTPUT,
+                                                         "",
+                                                         "META-INF/services/" + PROVIDER_INTERFACE);
+      try (Writer writer = resource.openWriter())
+      {
+        for ( String generatedIndex : generatedIndexes )
+        {
+          writer.write(generatedIndex + "\n");
+        }
+      }
+    }
+    catch (IOException ex)
+    {
+      processingEnv.getMessager()
+                   .printMessage(Diagnostic.Kind.ERROR,
+                                 String.format("Cannot write the service configuration: %s", ex.getMessage()));
+    }
+  }
+}
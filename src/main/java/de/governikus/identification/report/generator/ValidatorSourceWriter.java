@@ -0,0 +1,473 @@
+package de.governikus.identification.report.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+
+/**
+ * writes the java source of a validator for a single JSON schema. Each subschema is translated into a static
+ * method that evaluates the keywords in the same order as the networknt validator does: "properties" first
+ * and all other keywords in the order of the schema. Keywords that the networknt validator treats as
+ * annotations only are ignored. Any other keyword that is not supported results in an
+ * {@link IllegalArgumentException} so that the build fails instead of generating a validator with different
+ * semantics
+ */
+class ValidatorSourceWriter
+{
+
+  /**
+   * keywords that never produce a validation error
+   */
+  private static final Set<String> ANNOTATION_KEYWORDS = Set.of("$schema",
+                                                                "$id",
+                                                                "$comment",
+                                                                "title",
+                                                                "description",
+                                                                "default",
+                                                                "examples",
+                                                                "format");
+
+  /**
+   * the types that can be checked by the generated code
+   */
+  private static final Set<String> SUPPORTED_TYPES = Set.of("object", "array", "string", "number", "boolean", "null");
+
+  private final String packageName;
+
+  private final String className;
+
+  private final String schemaLocation;
+
+  private final JsonNode schema;
+
+  /**
+   * the base uri of the schema locations that are reported within the validation messages
+   */
+  private final String schemaId;
+
+  /**
+   * the declarations of the constants that are used by the generated methods
+   */
+  private final List<String> constants = new ArrayList<>();
+
+  /**
+   * the generated methods. The list is filled with placeholders first so that the methods are written in the
+   * order of the schema. Subschemas without any assertion leave their placeholder empty
+   */
+  private final List<String> methods = new ArrayList<>();
+
+  ValidatorSourceWriter(String packageName, String className, String schemaLocation, JsonNode schema)
+  {
+    this.packageName = packageName;
+    this.className = className;
+    this.schemaLocation = schemaLocation;
+    this.schema = schema;
+    JsonNode id = schema.get("$id");
+    if (id == null || !id.isTextual())
+    {
+      throw new IllegalArgumentException("The schema must declare an '$id'");
+    }
+    this.schemaId = id.textValue();
+  }
+
+  /**
+   * @return the java source of the validator
+   */
+  String write()
+  {
+    String rootMethod = writeSubschema(schema, new ArrayList<>(), "");
+    StringBuilder source = new StringBuilder();
+    source.append("package ").append(packageName).append(";\n\n");
+    source.append("import java.util.List;\n");
+    source.append("import java.util.Set;\n");
+    source.append("import java.util.regex.Pattern;\n\n");
+    source.append("import javax.annotation.processing.Generated;\n\n");
+    source.append("import com.fasterxml.jackson.databind.JsonNode;\n");
+    source.append("import com.networknt.schema.JsonNodePath;\n");
+    source.append("import com.networknt.schema.SchemaLocation;\n");
+    source.append("import com.networknt.schema.ValidationMessage;\n\n");
+    source.append("import de.governikus.identification.report.validation.CompiledSchemaValidator;\n\n\n");
+    source.append("/**\n");
+    source.append(" * validates json nodes against the JSON schema ").append(schemaId).append('\n');
+    source.append(" */\n");
+    source.append("@Generated(\"").append(SchemaValidatorProcessor.class.getName()).append("\")\n");
+    source.append("@SuppressWarnings(\"unused\")\n");
+    source.append("public final class ").append(className).append(" extends CompiledSchemaValidator\n{\n\n");
+    source.append("  /**\n   * the classpath location of the schema this validator was generated from\n   */\n");
+    source.append("  public static final String SCHEMA_LOCATION = ")
+          .append(SourceLiterals.literal(schemaLocation))
+          .append(";\n\n");
+    source.append("  private static final String SCHEMA_ID = ")
+          .append(SourceLiterals.literal(schemaId))
+          .append(";\n\n");
+    for ( String constant : constants )
+    {
+      source.append("  ").append(constant).append("\n\n");
+    }
+    source.append("  @Override\n  public String getSchemaLocation()\n  {\n    return SCHEMA_LOCATION;\n  }\n\n");
+    source.append("  @Override\n");
+    source.append("  protected boolean validate(JsonNode node, JsonNodePath instanceLocation, "
+                  + "Set<ValidationMessage> errors)\n  {\n");
+    source.append("    return ")
+          .append(rootMethod == null ? "true" : rootMethod + "(node, instanceLocation, errors)")
+          .append(";\n  }\n");
+    for ( String method : methods )
+    {
+      if (method != null)
+      {
+        source.append('\n').append(method);
+      }
+    }
+    source.append("}\n");
+    return source.toString();
+  }
+
+  /**
+   * writes the source of the registry that maps the schema locations to the generated validators
+   */
+  static String writeRegistry(String packageName, String registryClassName, List<String> validatorClassNames)
+  {
+    StringJoiner entries = new StringJoiner(",\n");
+    for ( String validatorClassName : validatorClassNames )
+    {
+      entries.add(String.format("                   Map.entry(%s.SCHEMA_LOCATION, new %s())",
+                                validatorClassName,
+                                validatorClassName));
+    }
+    return "package " + packageName + ";\n\n" + "import java.util.Map;\n\n"
+           + "import javax.annotation.processing.Generated;\n\n"
+           + "import de.governikus.identification.report.validation.CompiledSchemaValidator;\n\n\n" + "/**\n"
+           + " * the validators that were generated from JSON schemas during the build\n" + " */\n" + "@Generated(\""
+           + SchemaValidatorProcessor.class.getName() + "\")\n" + "final class " + registryClassName + "\n{\n\n"
+           + "  private static final Map<String, CompiledSchemaValidator> VALIDATORS = Map.ofEntries(\n" + entries
+           + ");\n\n" + "  private " + registryClassName + "()\n  {}\n\n" + "  /**\n"
+           + "   * @return the generated validator of the schema with the given location or null if the schema was\n"
+           + "   *         not compiled\n" + "   */\n" + "  static CompiledSchemaValidator get(String schemaLocation)\n"
+           + "  {\n" + "    return schemaLocation == null ? null : VALIDATORS.get(schemaLocation);\n" + "  }\n" + "}\n";
+  }
+
+  /**
+   * writes the method that validates a node against the given subschema
+   *
+   * @param subschema the subschema to translate
+   * @param evaluationPath the property names and array indexes that lead to the subschema
+   * @param pointer the json pointer of the subschema within the root schema
+   * @return the name of the generated method or null if the subschema does not contain any assertion
+   */
+  private String writeSubschema(JsonNode subschema, List<Object> evaluationPath, String pointer)
+  {
+    if (!subschema.isObject())
+    {
+      throw new IllegalArgumentException(String.format("Unsupported subschema at '#%s'", pointer));
+    }
+    int methodIndex = methods.size();
+    methods.add(null);
+    String methodName = "validate" + methodIndex;
+    StringBuilder body = new StringBuilder();
+    for ( String keyword : getOrderedKeywords(subschema) )
+    {
+      if (ANNOTATION_KEYWORDS.contains(keyword))
+      {
+        continue;
+      }
+      JsonNode value = subschema.get(keyword);
+      List<Object> keywordPath = append(evaluationPath, keyword);
+      String keywordPointer = pointer + "/" + escapePointer(keyword);
+      switch (keyword)
+      {
+        case "properties":
+          writeProperties(body, value, keywordPath, keywordPointer);
+          break;
+        case "type":
+          if (!value.isTextual() || !SUPPORTED_TYPES.contains(value.textValue()))
+          {
+            throw new IllegalArgumentException(String.format("Unsupported type at '#%s'", keywordPointer));
+          }
+          appendCheck(body,
+                      "    ",
+                      String.format("!checkType(node, instanceLocation, %s, %s, errors)",
+                                    addKeywordConstants(keywordPath, keywordPointer),
+                                    SourceLiterals.literal(value.textValue())));
+          break;
+        case "required":
+          appendCheck(body,
+                      "    ",
+                      String.format("!checkRequired(node, instanceLocation, %s, %s, errors)",
+                                    addKeywordConstants(keywordPath, keywordPointer),
+                                    addConstant("List<String>", "REQUIRED", "List.of(" + joinStrings(value) + ")")));
+          break;
+        case "additionalProperties":
+          writeAdditionalProperties(body, subschema, value, keywordPath, keywordPointer);
+          break;
+        case "enum":
+          appendCheck(body,
+                      "    ",
+                      String.format("!checkEnum(node, instanceLocation, %s, %s, %s, errors)",
+                                    addKeywordConstants(keywordPath, keywordPointer),
+                                    addConstant("Set<String>", "ENUM", "Set.of(" + joinStrings(value) + ")"),
+                                    SourceLiterals.literal(describeEnum(value))));
+          break;
+        case "pattern":
+          appendCheck(body,
+                      "    ",
+                      String.format("!checkPattern(node, instanceLocation, %s, %s, errors)",
+                                    addKeywordConstants(keywordPath, keywordPointer),
+                                    addConstant("Pattern",
+                                                "PATTERN",
+                                                "Pattern.compile(" + SourceLiterals.literal(value.textValue()) + ")")));
+          break;
+        case "items":
+          writeItems(body, value, keywordPath, keywordPointer);
+          break;
+        case "oneOf":
+          writeOneOf(body, value, keywordPath, keywordPointer);
+          break;
+        default:
+          throw new IllegalArgumentException(String.format("Unsupported keyword at '#%s'", keywordPointer));
+      }
+    }
+    if (body.length() == 0)
+    {
+      return null;
+    }
+    methods.set(methodIndex,
+                "  private static boolean " + methodName
+                             + "(JsonNode node, JsonNodePath instanceLocation, Set<ValidationMessage> errors)\n"
+                             + "  {\n    boolean valid = true;\n" + body + "    return valid;\n  }\n");
+    return methodName;
+  }
+
+  /**
+   * the "properties" keyword validates each present property against its own subschema
+   */
+  private void writeProperties(StringBuilder body, JsonNode properties, List<Object> keywordPath, String pointer)
+  {
+    StringBuilder propertyChecks = new StringBuilder();
+    for ( Map.Entry<String, JsonNode> entry : properties.properties() )
+    {
+      String propertyMethod = writeSubschema(entry.getValue(),
+                                             append(keywordPath, entry.getKey()),
+                                             pointer + "/" + escapePointer(entry.getKey()));
+      if (propertyMethod == null)
+      {
+        continue;
+      }
+      String propertyName = SourceLiterals.literal(entry.getKey());
+      propertyChecks.append(String.format("      property = node.get(%s);\n", propertyName));
+      appendCheck(propertyChecks,
+                  "      ",
+                  String.format("property != null && !%s(property, errors == null ? null : instanceLocation.append(%s), "
+                                + "errors)",
+                                propertyMethod,
+                                propertyName));
+    }
+    if (propertyChecks.length() == 0)
+    {
+      return;
+    }
+    body.append("    if (node.isObject())\n    {\n      JsonNode property;\n");
+    body.append(propertyChecks);
+    body.append("    }\n");
+  }
+
+  /**
+   * the "additionalProperties" keyword is supported with a boolean value only
+   */
+  private void writeAdditionalProperties(StringBuilder body,
+                                         JsonNode subschema,
+                                         JsonNode value,
+                                         List<Object> keywordPath,
+                                         String pointer)
+  {
+    if (!value.isBoolean())
+    {
+      throw new IllegalArgumentException(String.format("Unsupported additionalProperties at '#%s'", pointer));
+    }
+    if (value.booleanValue())
+    {
+      return;
+    }
+    List<String> declaredProperties = new ArrayList<>();
+    JsonNode properties = subschema.get("properties");
+    if (properties != null)
+    {
+      properties.fieldNames().forEachRemaining(declaredProperties::add);
+    }
+    String declaredPropertiesConstant = addConstant("Set<String>",
+                                                    "PROPERTIES",
+                                                    "Set.of(" + joinStrings(declaredProperties) + ")");
+    appendCheck(body,
+                "    ",
+                String.format("!checkNoAdditionalProperties(node, instanceLocation, %s, %s, errors)",
+                              addKeywordConstants(keywordPath, pointer),
+                              declaredPropertiesConstant));
+  }
+
+  /**
+   * the "items" keyword validates each element of an array against the same subschema
+   */
+  private void writeItems(StringBuilder body, JsonNode items, List<Object> keywordPath, String pointer)
+  {
+    String itemMethod = writeSubschema(items, keywordPath, pointer);
+    if (itemMethod == null)
+    {
+      return;
+    }
+    body.append("    if (node.isArray())\n    {\n");
+    body.append("      for ( int i = 0 ; i < node.size() ; i++ )\n      {\n");
+    appendCheck(body,
+                "        ",
+                String.format("!%s(node.get(i), errors == null ? null : instanceLocation.append(i), errors)",
+                              itemMethod));
+    body.append("      }\n    }\n");
+  }
+
+  /**
+   * the "oneOf" keyword requires exactly one matching subschema
+   */
+  private void writeOneOf(StringBuilder body, JsonNode subschemas, List<Object> keywordPath, String pointer)
+  {
+    if (!subschemas.isArray() || subschemas.isEmpty())
+    {
+      throw new IllegalArgumentException(String.format("Unsupported oneOf at '#%s'", pointer));
+    }
+    StringJoiner subschemaReferences = new StringJoiner(", ", "List.of(", ")");
+    for ( int i = 0 ; i < subschemas.size() ; i++ )
+    {
+      String subschemaMethod = writeSubschema(subschemas.get(i), append(keywordPath, i), pointer + "/" + i);
+      subschemaReferences.add(subschemaMethod == null ? "(node, instanceLocation, errors) -> true"
+        : className + "::" + subschemaMethod);
+    }
+    appendCheck(body,
+                "    ",
+                String.format("!checkOneOf(node, instanceLocation, %s, %s, errors)",
+                              addKeywordConstants(keywordPath, pointer),
+                              addConstant("List<Subschema>", "ONE_OF", subschemaReferences.toString())));
+  }
+
+  /**
+   * appends a check that marks the node as invalid if the given condition is true. If no further errors are
+   * collected the generated method returns immediately
+   */
+  private static void appendCheck(StringBuilder body, String indent, String failureCondition)
+  {
+    body.append(indent).append("if (").append(failureCondition).append(")\n");
+    body.append(indent).append("{\n");
+    body.append(indent).append("  if (isComplete(errors))\n");
+    body.append(indent).append("  {\n");
+    body.append(indent).append("    return false;\n");
+    body.append(indent).append("  }\n");
+    body.append(indent).append("  valid = false;\n");
+    body.append(indent).append("}\n");
+  }
+
+  /**
+   * adds the constants of the evaluation path and the schema location of a keyword
+   *
+   * @return the names of both constants separated by a comma
+   */
+  private String addKeywordConstants(List<Object> keywordPath, String pointer)
+  {
+    StringJoiner pathElements = new StringJoiner(", ", "evaluationPath(", ")");
+    for ( Object element : keywordPath )
+    {
+      pathElements.add(element instanceof Integer ? element.toString() : SourceLiterals.literal((String)element));
+    }
+    String evaluationPath = addConstant("JsonNodePath", "EVALUATION_PATH", pathElements.toString());
+    String schemaLocationConstant = addConstant("SchemaLocation",
+                                                "SCHEMA_LOCATION",
+                                                "SchemaLocation.of(SCHEMA_ID + " + SourceLiterals.literal("#" + pointer)
+                                                                   + ")");
+    return evaluationPath + ", " + schemaLocationConstant;
+  }
+
+  /**
+   * adds a constant declaration
+   *
+   * @return the name of the constant
+   */
+  private String addConstant(String type, String prefix, String initializer)
+  {
+    String name = prefix + "_" + constants.size();
+    constants.add(String.format("private static final %s %s = %s;", type, name, initializer));
+    return name;
+  }
+
+  /**
+   * @return the keywords of the subschema with "properties" moved to the front
+   */
+  private static List<String> getOrderedKeywords(JsonNode subschema)
+  {
+    List<String> keywords = new ArrayList<>();
+    subschema.fieldNames().forEachRemaining(keywords::add);
+    if (keywords.remove("properties"))
+    {
+      keywords.add(0, "properties");
+    }
+    return keywords;
+  }
+
+  /**
+   * @return the allowed values of an enum as the networknt validator shows them within its error message
+   */
+  private static String describeEnum(JsonNode values)
+  {
+    StringJoiner description = new StringJoiner(", ", "[", "]");
+    values.forEach(value -> description.add(value.toString()));
+    return description.toString();
+  }
+
+  /**
+   * @return the given string values as comma separated java literals
+   */
+  private static String joinStrings(JsonNode values)
+  {
+    if (!values.isArray())
+    {
+      throw new IllegalArgumentException("Expected an array of strings but found " + values);
+    }
+    List<String> strings = new ArrayList<>();
+    for ( JsonNode value : values )
+    {
+      if (!value.isTextual())
+      {
+        throw new IllegalArgumentException("Expected an array of strings but found " + values);
+      }
+      strings.add(value.textValue());
+    }
+    return joinStrings(strings);
+  }
+
+  /**
+   * @return the given strings as comma separated java literals
+   */
+  private static String joinStrings(List<String> strings)
+  {
+    StringJoiner literals = new StringJoiner(", ");
+    strings.forEach(string -> literals.add(SourceLiterals.literal(string)));
+    return literals.toString();
+  }
+
+  /**
+   * @return a new list with the given element appended
+   */
+  private static List<Object> append(List<Object> path, Object element)
+  {
+    List<Object> newPath = new ArrayList<>(path);
+    newPath.add(element);
+    return newPath;
+  }
+
+  /**
+   * escapes a property name for the usage within a json pointer
+   */
+  private static String escapePointer(String name)
+  {
+    return name.replace("~", "~0").replace("/", "~1");
+  }
+}
@@ -0,0 +1,88 @@
+package de.governikus.identification.report.jwt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
+
+import lombok.experimental.UtilityClass;
+
+
+/**
+ * executes a function on each element of a list on a given {@link ForkJoinPool} and collects the results in
+ * the order of the input elements
+ */
+@UtilityClass
+class BatchExecutor
+{
+
+  /**
+   * lists with at most this number of elements are not split any further into subtasks
+   */
+  private static final int SEQUENTIAL_THRESHOLD = 16;
+
+  /**
+   * applies the given function to all inputs. The function must handle its own errors because an exception
+   * aborts the whole batch
+   *
+   * @param inputs the elements to process
+   * @param forkJoinPool the pool that executes the function
+   * @param function the function that is applied to the index and the value of each input element
+   * @return the results in the same order as the input elements
+   */
+  public static <T, R> List<R> execute(List<T> inputs, ForkJoinPool forkJoinPool, BiFunction<Integer, T, R> function)
+  {
+    if (inputs.isEmpty())
+    {
+      return new ArrayList<>();
+    }
+    // each task sets only the elements of its own index range
+    List<R> results = new ArrayList<>(Collections.nCopies(inputs.size(), null));
+    forkJoinPool.invoke(new BatchTask<>(inputs, results, function, 0, inputs.size()));
+    return results;
+  }
+
+  /**
+   * splits the given index range into halves until the range is small enough to be processed sequentially
+   */
+  private static class BatchTask<T, R> extends RecursiveAction
+  {
+
+    private final List<T> inputs;
+
+    private final List<R> results;
+
+    private final BiFunction<Integer, T, R> function;
+
+    private final int fromIndex;
+
+    private final int toIndex;
+
+    public BatchTask(List<T> inputs, List<R> results, BiFunction<Integer, T, R> function, int fromIndex, int toIndex)
+    {
+      this.inputs = inputs;
+      this.results = results;
+      this.function = function;
+      this.fromIndex = fromIndex;
+      this.toIndex = toIndex;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (toIndex - fromIndex <= SEQUENTIAL_THRESHOLD)
+      {
+        for ( int i = fromIndex ; i < toIndex ; i++ )
+        {
+          results.set(i, function.apply(i, inputs.get(i)));
+        }
+        return;
+      }
+      int middle = (fromIndex + toIndex) >>> 1;
+      invokeAll(new BatchTask<>(inputs, results, function, fromIndex, middle),
+                new BatchTask<>(inputs, results, function, middle, toIndex));
+    }
+  }
+}
@@ -0,0 +1,268 @@
+package de.governikus.identification.report.jwt;
+
+import java.io.ByteArrayInputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertificateFactory;
+import java.security.cert.PKIXParameters;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.util.Base64;
+import com.nimbusds.jose.util.Base64URL;
+
+import de.governikus.identification.report.utils.BoundedCache;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * validates the certificate chains of the x5c header of a JWS against a set of trust anchors with the PKIX
+ * algorithm. Successfully validated chains are cached by the sha-256 thumbprint of their leaf certificate
+ * until the first certificate of the chain expires or until the optional maximum age of a cached chain is
+ * reached. If the revocation status is checked, the maximum age is mandatory so that a revoked certificate is
+ * noticed after this time at the latest. So repeated tokens of the same issuer pay neither the parsing of the
+ * certificates nor the path validation again but only the signature check. The leaf certificate must permit
+ * digital signatures if it has a key usage extension and must match the x5t#S256 header if it is present
+ */
+@Slf4j
+public class CertificateChainValidator
+{
+
+  /**
+   * the default maximum number of cached chains
+   */
+  public static final int DEFAULT_MAXIMUM_CACHE_SIZE = 1_000;
+
+  /**
+   * the default maximum age of a cached chain if the revocation status is checked
+   */
+  public static final Duration DEFAULT_REVOCATION_EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
+
+  /**
+   * the trusted root certificates
+   */
+  @Getter
+  private final Set<TrustAnchor> trustAnchors;
+
+  /**
+   * if the revocation status of the certificates should be checked by the PKIX validation
+   */
+  private final boolean revocationEnabled;
+
+  /**
+   * the maximum age of a cached chain or null if chains are cached until their first certificate expires
+   */
+  @Getter
+  private final Duration expireAfterWrite;
+
+  /**
+   * the verifiers of the leaf certificates of already validated chains by the thumbprint of the leaf
+   */
+  private final BoundedCache<String, ValidatedChain> validatedChains;
+
+  /**
+   * the source of the current time
+   */
+  private final Clock clock;
+
+  /**
+   * @param trustAnchors the trusted root certificates
+   * @param revocationEnabled if the revocation status of the certificates should be checked. Defaults to false
+   * @param maximumCacheSize the maximum number of cached chains. Defaults to
+   *          {@link #DEFAULT_MAXIMUM_CACHE_SIZE}
+   * @param expireAfterWrite the maximum time after which a chain is validated again even if its certificates
+   *          are still valid. A revocation of a certificate is noticed after this time at the latest, so a
+   *          shorter time reacts faster to revocations while a longer time saves the repeated and possibly
+   *          remote revocation checks. Optional if the revocation status is not checked, otherwise it must be
+   *          positive and defaults to {@link #DEFAULT_REVOCATION_EXPIRE_AFTER_WRITE}
+   * @param clock the source of the current time. Defaults to the system clock
+   */
+  @Builder
+  public CertificateChainValidator(Collection<X509Certificate> trustAnchors,
+                                   Boolean revocationEnabled,
+                                   Integer maximumCacheSize,
+                                   Duration expireAfterWrite,
+                                   Clock clock)
+  {
+    if (trustAnchors == null || trustAnchors.isEmpty())
+    {
+      throw new IllegalArgumentException("At least one trust anchor is required");
+    }
+    this.trustAnchors = trustAnchors.stream()
+                                    .map(certificate -> new TrustAnchor(certificate, null))
+                                    .collect(Collectors.toUnmodifiableSet());
+    this.revocationEnabled = Optional.ofNullable(revocationEnabled).orElse(false);
+    if (this.revocationEnabled)
+    {
+      expireAfterWrite = Optional.ofNullable(expireAfterWrite).orElse(DEFAULT_REVOCATION_EXPIRE_AFTER_WRITE);
+    }
+    if (expireAfterWrite != null && (expireAfterWrite.isZero() || expireAfterWrite.isNegative()))
+    {
+      throw new IllegalArgumentException(String.format("Expire after write must be positive but was '%s'",
+                                                       expireAfterWrite));
+    }
+    this.expireAfterWrite = expireAfterWrite;
+    this.validatedChains = new BoundedCache<>(Optional.ofNullable(maximumCacheSize).orElse(DEFAULT_MAXIMUM_CACHE_SIZE),
+                                              null);
+    this.clock = Optional.ofNullable(clock).orElseGet(Clock::systemUTC);
+  }
+
+  /**
+   * @return the number of chains that were found within the cache
+   */
+  public long getCacheHitCount()
+  {
+    return validatedChains.getHitCount();
+  }
+
+  /**
+   * @return the number of chains that had to be validated
+   */
+  public long getCacheMissCount()
+  {
+    return validatedChains.getMissCount();
+  }
+
+  /**
+   * removes all cached chains
+   */
+  public void clearCache()
+  {
+    validatedChains.clear();
+  }
+
+  /**
+   * retrieves the verifier for the leaf certificate of the given chain. The chain is validated only if it is
+   * not already cached
+   *
+   * @param x5c the certificate chain of the x5c header starting with the leaf certificate
+   * @param x5tS256 the optional x5t#S256 header that must match the thumbprint of the leaf certificate
+   * @return the verifier for the leaf certificate or null if the chain is missing or is not trusted
+   */
+  JWSVerifier getVerifier(List<Base64> x5c, Base64URL x5tS256)
+  {
+    if (x5c == null || x5c.isEmpty())
+    {
+      return null;
+    }
+    String leafThumbprint = getSha256Thumbprint(x5c.get(0).decode());
+    if (x5tS256 != null && !leafThumbprint.equals(x5tS256.toString()))
+    {
+      log.debug("The x5t#S256 header does not match the thumbprint of the leaf certificate of the x5c header");
+      return null;
+    }
+    long now = clock.millis();
+    ValidatedChain validatedChain = validatedChains.get(leafThumbprint, chain -> now < chain.getExpiresAt());
+    if (validatedChain != null)
+    {
+      return validatedChain.getJwsVerifier();
+    }
+    validatedChain = validate(x5c, new Date(now));
+    if (validatedChain == null)
+    {
+      return null;
+    }
+    validatedChains.put(leafThumbprint, validatedChain);
+    return validatedChain.getJwsVerifier();
+  }
+
+  /**
+   * parses the given chain and validates it with the PKIX algorithm
+   *
+   * @return the validated chain or null if the chain is not trusted
+   */
+  private ValidatedChain validate(List<Base64> x5c, Date validationDate)
+  {
+    try
+    {
+      CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+      List<X509Certificate> certificates = new ArrayList<>(x5c.size());
+      for ( Base64 encodedCertificate : x5c )
+      {
+        X509Certificate certificate = (X509Certificate)certificateFactory.generateCertificate(new ByteArrayInputStream(encodedCertificate.decode()));
+        // a trust anchor at the end of the chain is not part of the certification path
+        if (certificates.isEmpty() || !isTrustAnchor(certificate))
+        {
+          certificates.add(certificate);
+        }
+      }
+      CertPath certPath = certificateFactory.generateCertPath(certificates);
+      PKIXParameters pkixParameters = new PKIXParameters(trustAnchors);
+      pkixParameters.setRevocationEnabled(revocationEnabled);
+      pkixParameters.setDate(validationDate);
+      CertPathValidator.getInstance("PKIX").validate(certPath, pkixParameters);
+
+      long notAfter = certificates.stream()
+                                  .mapToLong(certificate -> certificate.getNotAfter().getTime())
+                                  .min()
+                                  .getAsLong();
+      long expiresAt = expireAfterWrite == null ? notAfter
+        : Math.min(notAfter, validationDate.getTime() + expireAfterWrite.toMillis());
+      X509Certificate leaf = certificates.get(0);
+      // the first bit of the key usage is digitalSignature
+      boolean[] keyUsage = leaf.getKeyUsage();
+      if (keyUsage != null && !keyUsage[0])
+      {
+        log.debug("Leaf certificate of x5c header is not allowed to create digital signatures");
+        return null;
+      }
+      return new ValidatedChain(JwsKeyUtil.createVerifier(leaf.getPublicKey()), expiresAt);
+    }
+    catch (GeneralSecurityException | IllegalArgumentException ex)
+    {
+      log.debug("Certificate chain of x5c header is not trusted: {}", ex.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * @return true if the given certificate is one of the configured trust anchors
+   */
+  private boolean isTrustAnchor(X509Certificate certificate)
+  {
+    return trustAnchors.stream().anyMatch(trustAnchor -> certificate.equals(trustAnchor.getTrustedCert()));
+  }
+
+  /**
+   * @return the base64url encoded sha-256 thumbprint of the given DER encoded certificate
+   */
+  @SneakyThrows
+  private static String getSha256Thumbprint(byte[] encodedCertificate)
+  {
+    return Base64URL.encode(MessageDigest.getInstance("SHA-256").digest(encodedCertificate)).toString();
+  }
+
+  /**
+   * the verifier of the leaf certificate of a validated chain together with the time at which the chain must be
+   * validated again
+   */
+  @Getter
+  private static class ValidatedChain
+  {
+
+    private final JWSVerifier jwsVerifier;
+
+    private final long expiresAt;
+
+    public ValidatedChain(JWSVerifier jwsVerifier, long expiresAt)
+    {
+      this.jwsVerifier = jwsVerifier;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
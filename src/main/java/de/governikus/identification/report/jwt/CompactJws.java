@@ -0,0 +1,283 @@
+package de.governikus.identification.report.jwt;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * the offsets of the three parts of a compact serialized JWS. The token is scanned exactly once to find the
+ * two separating dots and to make sure that each part contains base64url characters only. The parts are not
+ * copied during the scan. Tokens can be given as {@link String} or directly as bytes e.g. read from a socket
+ * or a file so that no UTF-16 decoding is necessary.
+ */
+final class CompactJws
+{
+
+  /**
+   * the token if it was given as string. Either this value or {@link #bytes} is set
+   */
+  private final String token;
+
+  /**
+   * the token if it was given as bytes. Either this value or {@link #token} is set
+   */
+  private final byte[] bytes;
+
+  /**
+   * the index of the first character of the token
+   */
+  private final int start;
+
+  /**
+   * the index of the dot between the header and the payload
+   */
+  private final int firstDot;
+
+  /**
+   * the index of the dot between the payload and the signature
+   */
+  private final int secondDot;
+
+  /**
+   * the index after the last character of the token
+   */
+  private final int end;
+
+  private CompactJws(String token, byte[] bytes, int start, int firstDot, int secondDot, int end)
+  {
+    this.token = token;
+    this.bytes = bytes;
+    this.start = start;
+    this.firstDot = firstDot;
+    this.secondDot = secondDot;
+    this.end = end;
+  }
+
+  /**
+   * scans the given token
+   *
+   * @param token the compact serialized JWS
+   * @return the parsed structure or null if the token is not a compact serialized JWS
+   */
+  public static CompactJws parse(String token)
+  {
+    if (token == null)
+    {
+      return null;
+    }
+    int firstDot = -1;
+    int secondDot = -1;
+    for ( int i = 0 ; i < token.length() ; i++ )
+    {
+      char character = token.charAt(i);
+      if (character == '.')
+      {
+        if (firstDot == -1)
+        {
+          firstDot = i;
+        }
+        else if (secondDot == -1)
+        {
+          secondDot = i;
+        }
+        else
+        {
+          return null;
+        }
+      }
+      else if (!isBase64UrlCharacter(character))
+      {
+        return null;
+      }
+    }
+    if (!isValidStructure(0, firstDot, secondDot, token.length()))
+    {
+      return null;
+    }
+    return new CompactJws(token, null, 0, firstDot, secondDot, token.length());
+  }
+
+  /**
+   * scans the given token
+   *
+   * @param bytes the ASCII bytes of the compact serialized JWS
+   * @return the parsed structure or null if the token is not a compact serialized JWS
+   */
+  public static CompactJws parse(byte[] bytes)
+  {
+    if (bytes == null)
+    {
+      return null;
+    }
+    return parse(bytes, 0, bytes.length);
+  }
+
+  /**
+   * scans the remaining bytes of the given buffer. The position of the buffer is not changed. Buffers that are
+   * not backed by an accessible array are copied once
+   *
+   * @param buffer the ASCII bytes of the compact serialized JWS
+   * @return the parsed structure or null if the token is not a compact serialized JWS
+   */
+  public static CompactJws parse(ByteBuffer buffer)
+  {
+    if (buffer == null)
+    {
+      return null;
+    }
+    if (buffer.hasArray())
+    {
+      int offset = buffer.arrayOffset() + buffer.position();
+      return parse(buffer.array(), offset, offset + buffer.remaining());
+    }
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    return parse(bytes, 0, bytes.length);
+  }
+
+  /**
+   * scans the token within the given range of the byte array
+   */
+  private static CompactJws parse(byte[] bytes, int start, int end)
+  {
+    int firstDot = -1;
+    int secondDot = -1;
+    for ( int i = start ; i < end ; i++ )
+    {
+      byte character = bytes[i];
+      if (character == '.')
+      {
+        if (firstDot == -1)
+        {
+          firstDot = i;
+        }
+        else if (secondDot == -1)
+        {
+          secondDot = i;
+        }
+        else
+        {
+          return null;
+        }
+      }
+      else if (!isBase64UrlCharacter((char)character))
+      {
+        return null;
+      }
+    }
+    if (!isValidStructure(start, firstDot, secondDot, end))
+    {
+      return null;
+    }
+    return new CompactJws(null, bytes, start, firstDot, secondDot, end);
+  }
+
+  /**
+   * checks that both dots were found, that the header and the signature are not empty and that the length of
+   * each part is a possible length of an unpadded base64url value. The payload may be empty
+   */
+  private static boolean isValidStructure(int start, int firstDot, int secondDot, int end)
+  {
+    if (firstDot == -1 || secondDot == -1)
+    {
+      return false;
+    }
+    int headerLength = firstDot - start;
+    int payloadLength = secondDot - firstDot - 1;
+    int signatureLength = end - secondDot - 1;
+    return headerLength > 0 && signatureLength > 0 && headerLength % 4 != 1 && payloadLength % 4 != 1
+           && signatureLength % 4 != 1;
+  }
+
+  /**
+   * @return true if the given character is part of the base64url alphabet
+   */
+  private static boolean isBase64UrlCharacter(char character)
+  {
+    return (character >= 'A' && character <= 'Z') || (character >= 'a' && character <= 'z')
+           || (character >= '0' && character <= '9') || character == '-' || character == '_';
+  }
+
+  /**
+   * @return the base64url encoded header
+   */
+  public Base64URL getEncodedHeader()
+  {
+    return new Base64URL(getPart(start, firstDot));
+  }
+
+  /**
+   * @return the decoded header as json string
+   */
+  public String getDecodedHeader()
+  {
+    if (bytes == null)
+    {
+      return new String(Base64.getUrlDecoder().decode(token.substring(start, firstDot)), StandardCharsets.UTF_8);
+    }
+    ByteBuffer decodedHeader = Base64.getUrlDecoder().decode(ByteBuffer.wrap(bytes, start, firstDot - start));
+    return new String(decodedHeader.array(), decodedHeader.arrayOffset() + decodedHeader.position(),
+                      decodedHeader.remaining(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return the base64url encoded payload
+   */
+  public Base64URL getEncodedPayload()
+  {
+    return new Base64URL(getPart(firstDot + 1, secondDot));
+  }
+
+  /**
+   * @return true if the token contains a payload. The payload is empty if it was detached from the token
+   */
+  public boolean hasPayload()
+  {
+    return secondDot - firstDot > 1;
+  }
+
+  /**
+   * @return the base64url encoded signature
+   */
+  public Base64URL getEncodedSignature()
+  {
+    return new Base64URL(getPart(secondDot + 1, end));
+  }
+
+  /**
+   * the signing input is the encoded header and the encoded payload together with the separating dot. The
+   * signature verifiers expect the signing input as a separate array so this range is copied exactly once
+   *
+   * @return the ASCII bytes of the signing input
+   */
+  public byte[] getSigningInput()
+  {
+    if (bytes != null)
+    {
+      return Arrays.copyOfRange(bytes, start, secondDot);
+    }
+    byte[] signingInput = new byte[secondDot - start];
+    for ( int i = 0 ; i < signingInput.length ; i++ )
+    {
+      signingInput[i] = (byte)token.charAt(start + i);
+    }
+    return signingInput;
+  }
+
+  /**
+   * @return the characters within the given range. Bytes are decoded with ISO-8859-1 which results in a compact
+   *         latin-1 string without any UTF-16 decoding
+   */
+  private String getPart(int from, int to)
+  {
+    if (bytes == null)
+    {
+      return token.substring(from, to);
+    }
+    return new String(bytes, from, to - from, StandardCharsets.ISO_8859_1);
+  }
+}
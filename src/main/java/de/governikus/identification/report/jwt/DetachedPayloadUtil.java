@@ -0,0 +1,149 @@
+package de.governikus.identification.report.jwt;
+
+import java.security.InvalidKeyException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import com.nimbusds.jose.CriticalHeaderParamsAware;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.crypto.impl.ECDSA;
+import com.nimbusds.jose.crypto.impl.RSASSA;
+import com.nimbusds.jose.util.Base64URL;
+
+import lombok.experimental.UtilityClass;
+
+
+/**
+ * verifies the signatures of JWS with detached payload. The signing input is the encoded header followed by
+ * the payload. The verifiers of nimbus only accept the signing input as a single array, so for the verifiers
+ * that are created by {@link JwsKeyUtil#createVerifier(PublicKey)} the {@link Signature} is created here with
+ * the same checks as within these verifiers and the header and the payload are handed to it separately. Only
+ * unknown verifiers still receive a concatenated copy of the signing input
+ */
+@UtilityClass
+class DetachedPayloadUtil
+{
+
+  /**
+   * @param jwsVerifier the verifier that knows the public key of the JWS
+   * @param header the parsed header of the JWS
+   * @param signingInputPrefix the encoded header followed by the '.' separator
+   * @param payload the detached payload. It is base64url encoded within the signing input unless the header
+   *          contains {@code b64=false}
+   * @param signature the encoded signature of the JWS
+   * @return true if the signature is valid
+   */
+  public static boolean verify(JWSVerifier jwsVerifier,
+                               JWSHeader header,
+                               byte[] signingInputPrefix,
+                               byte[] payload,
+                               Base64URL signature)
+    throws JOSEException
+  {
+    JWSAlgorithm algorithm = header.getAlgorithm();
+    if (!jwsVerifier.supportedJWSAlgorithms().contains(algorithm))
+    {
+      throw new JOSEException(String.format("Unsupported algorithm found '%s'", algorithm));
+    }
+    if (jwsVerifier instanceof CriticalHeaderParamsAware
+        && !isCriticalHeaderAccepted((CriticalHeaderParamsAware)jwsVerifier, header))
+    {
+      return false;
+    }
+    byte[] signatureBytes = signature.decode();
+    PublicKey publicKey;
+    Signature verifier;
+    if (jwsVerifier instanceof RSASSAVerifier)
+    {
+      publicKey = ((RSASSAVerifier)jwsVerifier).getPublicKey();
+      verifier = RSASSA.getSignerAndVerifier(algorithm, jwsVerifier.getJCAContext().getProvider());
+    }
+    else if (jwsVerifier instanceof ECDSAVerifier)
+    {
+      try
+      {
+        // the same checks as within the nimbus verifier e.g. against CVE-2022-21449
+        ECDSA.ensureLegalSignature(signatureBytes, algorithm);
+        signatureBytes = ECDSA.transcodeSignatureToDER(signatureBytes);
+      }
+      catch (JOSEException ex)
+      {
+        return false;
+      }
+      publicKey = ((ECDSAVerifier)jwsVerifier).getPublicKey();
+      verifier = ECDSA.getSignerAndVerifier(algorithm, jwsVerifier.getJCAContext().getProvider());
+    }
+    else if (jwsVerifier instanceof EdDsaVerifier)
+    {
+      publicKey = ((EdDsaVerifier)jwsVerifier).getPublicKey();
+      if (signatureBytes.length != JwsKeyUtil.getSignatureLength(publicKey))
+      {
+        return false;
+      }
+      verifier = JwsKeyUtil.getEd25519Signature(jwsVerifier.getJCAContext().getProvider());
+    }
+    else
+    {
+      return jwsVerifier.verify(header, concatenate(signingInputPrefix, payload, header), signature);
+    }
+
+    try
+    {
+      verifier.initVerify(publicKey);
+    }
+    catch (InvalidKeyException ex)
+    {
+      throw new JOSEException("Invalid public key: " + ex.getMessage(), ex);
+    }
+    try
+    {
+      JwsSigningContext.updateSigningInput(verifier,
+                                           signingInputPrefix,
+                                           payload,
+                                           0,
+                                           payload.length,
+                                           header.isBase64URLEncodePayload());
+      return verifier.verify(signatureBytes);
+    }
+    catch (SignatureException ex)
+    {
+      return false;
+    }
+  }
+
+  /**
+   * @return true if all critical header parameters are either processed or deferred by the verifier
+   */
+  private static boolean isCriticalHeaderAccepted(CriticalHeaderParamsAware verifier, JWSHeader header)
+  {
+    if (header.getCriticalParams() == null)
+    {
+      return true;
+    }
+    return header.getCriticalParams()
+                 .stream()
+                 .allMatch(parameter -> verifier.getProcessedCriticalHeaderParams().contains(parameter)
+                                        || verifier.getDeferredCriticalHeaderParams().contains(parameter));
+  }
+
+  /**
+   * @return the encoded header followed by the payload that is base64url encoded unless the header contains
+   *         {@code b64=false}
+   */
+  private static byte[] concatenate(byte[] signingInputPrefix, byte[] payload, JWSHeader header)
+  {
+    byte[] encodedPayload = header.isBase64URLEncodePayload() ? Base64.getUrlEncoder().withoutPadding().encode(payload)
+      : payload;
+    byte[] signingInput = Arrays.copyOf(signingInputPrefix, signingInputPrefix.length + encodedPayload.length);
+    System.arraycopy(encodedPayload, 0, signingInput, signingInputPrefix.length, encodedPayload.length);
+    return signingInput;
+  }
+}
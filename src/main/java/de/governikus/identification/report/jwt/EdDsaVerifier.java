@@ -0,0 +1,113 @@
+package de.governikus.identification.report.jwt;
+
+import java.security.InvalidKeyException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Collections;
+import java.util.Set;
+
+import com.nimbusds.jose.CriticalHeaderParamsAware;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.impl.BaseJWSProvider;
+import com.nimbusds.jose.crypto.impl.CriticalHeaderParamsDeferral;
+import com.nimbusds.jose.util.Base64URL;
+
+
+/**
+ * verifies Ed25519 signatures (RFC 8037) with the EdDSA implementation of the JDK. A new {@link Signature}
+ * instance is created for each verification so that a single instance can be shared between several threads
+ */
+class EdDsaVerifier extends BaseJWSProvider implements JWSVerifier, CriticalHeaderParamsAware
+{
+
+  /**
+   * the length of a raw Ed25519 signature in bytes
+   */
+  private static final int SIGNATURE_LENGTH = 64;
+
+  /**
+   * accepts the critical header parameters that are processed by nimbus e.g. b64
+   */
+  private final CriticalHeaderParamsDeferral critPolicy = new CriticalHeaderParamsDeferral();
+
+  /**
+   * the public Ed25519 key
+   */
+  private final PublicKey publicKey;
+
+  public EdDsaVerifier(PublicKey publicKey)
+  {
+    super(Collections.singleton(JWSAlgorithm.EdDSA));
+    if (!JwsKeyUtil.isEd25519Key(publicKey))
+    {
+      throw new IllegalArgumentException("The public key must be an Ed25519 key");
+    }
+    this.publicKey = publicKey;
+  }
+
+  /**
+   * @return the public Ed25519 key
+   */
+  public PublicKey getPublicKey()
+  {
+    return publicKey;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Set<String> getProcessedCriticalHeaderParams()
+  {
+    return critPolicy.getProcessedCriticalHeaderParams();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Set<String> getDeferredCriticalHeaderParams()
+  {
+    return critPolicy.getDeferredCriticalHeaderParams();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean verify(JWSHeader header, byte[] signingInput, Base64URL signature) throws JOSEException
+  {
+    if (!supportedJWSAlgorithms().contains(header.getAlgorithm()))
+    {
+      throw new JOSEException(String.format("Unsupported algorithm found '%s'", header.getAlgorithm()));
+    }
+    if (!critPolicy.headerPasses(header))
+    {
+      return false;
+    }
+    byte[] signatureBytes = signature.decode();
+    if (signatureBytes.length != SIGNATURE_LENGTH)
+    {
+      return false;
+    }
+    Signature verifier = JwsKeyUtil.getEd25519Signature(getJCAContext().getProvider());
+    try
+    {
+      verifier.initVerify(publicKey);
+      verifier.update(signingInput);
+      return verifier.verify(signatureBytes);
+    }
+    catch (InvalidKeyException ex)
+    {
+      throw new JOSEException("Invalid Ed25519 public key: " + ex.getMessage(), ex);
+    }
+    catch (SignatureException ex)
+    {
+      return false;
+    }
+  }
+}
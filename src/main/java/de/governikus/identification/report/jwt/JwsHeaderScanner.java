@@ -0,0 +1,428 @@
+package de.governikus.identification.report.jwt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.nimbusds.jose.Algorithm;
+import com.nimbusds.jose.Header;
+import com.nimbusds.jose.HeaderParameterNames;
+
+
+/**
+ * a structural pre-check of decoded JWS headers that never throws. Rejecting a header with a parse exception
+ * captures a complete stack trace which dominates the costs of rejecting garbage tokens. So the header is
+ * scanned once by this class and only handed to nimbus if it is a syntactically valid JSON object without
+ * duplicate parameters, if it contains a JWS algorithm and if the registered parameters have the JSON types
+ * that nimbus expects. The check never rejects a header that
+ * {@link com.nimbusds.jose.JWSHeader#parse(String)} accepts. The contents of the "jku", "x5u" and "jwk"
+ * parameters and very deeply nested custom parameters are left to nimbus, so such headers may still be
+ * rejected by nimbus with an exception
+ */
+final class JwsHeaderScanner
+{
+
+  /**
+   * values that are nested deeper than this are not scanned but left to nimbus
+   */
+  private static final int MAX_DEPTH = 32;
+
+  /**
+   * the parameters that must be strings if present. Whether the URIs are valid is checked by nimbus
+   */
+  private static final Set<String> STRING_PARAMETERS = Set.of(HeaderParameterNames.TYPE,
+                                                              HeaderParameterNames.CONTENT_TYPE,
+                                                              HeaderParameterNames.KEY_ID,
+                                                              HeaderParameterNames.JWK_SET_URL,
+                                                              HeaderParameterNames.X_509_CERT_URL,
+                                                              HeaderParameterNames.X_509_CERT_SHA_1_THUMBPRINT,
+                                                              HeaderParameterNames.X_509_CERT_SHA_256_THUMBPRINT);
+
+  /**
+   * represents the JSON value null within the scanned values
+   */
+  private static final Object NULL = new Object();
+
+  /**
+   * returned by the scan methods if the header is not valid
+   */
+  private static final Object INVALID = new Object();
+
+  /**
+   * returned by the scan methods if the header is nested too deeply to be scanned
+   */
+  private static final Object DEFERRED = new Object();
+
+  private final String json;
+
+  private int position;
+
+  private JwsHeaderScanner(String json)
+  {
+    this.json = json;
+  }
+
+  /**
+   * @param decodedHeader the decoded header of a JWS
+   * @return false if the header is certainly rejected by {@link com.nimbusds.jose.JWSHeader#parse(String)}
+   */
+  static boolean isValid(String decodedHeader)
+  {
+    if (decodedHeader == null || decodedHeader.length() > Header.MAX_HEADER_STRING_LENGTH)
+    {
+      return false;
+    }
+    JwsHeaderScanner scanner = new JwsHeaderScanner(decodedHeader);
+    scanner.skipWhitespace();
+    if (!scanner.peek('{'))
+    {
+      return false;
+    }
+    Object header = scanner.scanValue(0);
+    if (header == DEFERRED)
+    {
+      return true;
+    }
+    scanner.skipWhitespace();
+    if (header == INVALID || scanner.position != decodedHeader.length())
+    {
+      return false;
+    }
+    @SuppressWarnings("unchecked")
+    Map<String, Object> parameters = (Map<String, Object>)header;
+    return isValidHeader(parameters);
+  }
+
+  /**
+   * checks the algorithm and the types of the registered parameters as nimbus reads them
+   */
+  private static boolean isValidHeader(Map<String, Object> header)
+  {
+    Object algorithm = header.get(HeaderParameterNames.ALGORITHM);
+    if (!(algorithm instanceof String) || Algorithm.NONE.getName().equals(algorithm)
+        || header.containsKey(HeaderParameterNames.ENCRYPTION_ALGORITHM))
+    {
+      return false;
+    }
+    for ( Map.Entry<String, Object> parameter : header.entrySet() )
+    {
+      String name = parameter.getKey();
+      Object value = parameter.getValue();
+      boolean valid;
+      if (STRING_PARAMETERS.contains(name))
+      {
+        valid = value == NULL || value instanceof String;
+      }
+      else if (HeaderParameterNames.CRITICAL.equals(name) || HeaderParameterNames.X_509_CERT_CHAIN.equals(name))
+      {
+        valid = value == NULL || isStringList(value);
+      }
+      else if (HeaderParameterNames.BASE64_URL_ENCODE_PAYLOAD.equals(name))
+      {
+        valid = value instanceof Boolean;
+      }
+      else if (HeaderParameterNames.JWK.equals(name))
+      {
+        valid = value == NULL || value instanceof Map;
+      }
+      else
+      {
+        valid = true;
+      }
+      if (!valid)
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isStringList(Object value)
+  {
+    if (!(value instanceof List<?> list))
+    {
+      return false;
+    }
+    for ( Object element : list )
+    {
+      if (!(element instanceof String))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * scans the value at the current position
+   *
+   * @param depth the number of enclosing objects and arrays
+   * @return the scanned value, {@link #INVALID} or {@link #DEFERRED}
+   */
+  private Object scanValue(int depth)
+  {
+    skipWhitespace();
+    if (position >= json.length())
+    {
+      return INVALID;
+    }
+    char character = json.charAt(position);
+    switch (character)
+    {
+      case '{':
+        return depth < MAX_DEPTH ? scanObject(depth + 1) : DEFERRED;
+      case '[':
+        return depth < MAX_DEPTH ? scanArray(depth + 1) : DEFERRED;
+      case '"':
+        return scanString();
+      case 't':
+        return scanLiteral("true", Boolean.TRUE);
+      case 'f':
+        return scanLiteral("false", Boolean.FALSE);
+      case 'n':
+        return scanLiteral("null", NULL);
+      default:
+        return character == '-' || isDigit(character) ? scanNumber() : INVALID;
+    }
+  }
+
+  /**
+   * scans an object. Duplicate names are only rejected within the header itself since nimbus accepts them
+   * within nested objects
+   */
+  private Object scanObject(int depth)
+  {
+    position++;
+    Map<String, Object> object = new HashMap<>();
+    skipWhitespace();
+    if (peek('}'))
+    {
+      position++;
+      return object;
+    }
+    while (true)
+    {
+      skipWhitespace();
+      if (!peek('"'))
+      {
+        return INVALID;
+      }
+      Object name = scanString();
+      skipWhitespace();
+      if (name == INVALID || !peek(':') || depth == 1 && object.containsKey(name))
+      {
+        return INVALID;
+      }
+      position++;
+      Object value = scanValue(depth);
+      if (value == INVALID || value == DEFERRED)
+      {
+        return value;
+      }
+      object.put((String)name, value);
+      skipWhitespace();
+      if (peek('}'))
+      {
+        position++;
+        return object;
+      }
+      if (!peek(','))
+      {
+        return INVALID;
+      }
+      position++;
+    }
+  }
+
+  private Object scanArray(int depth)
+  {
+    position++;
+    List<Object> array = new ArrayList<>();
+    skipWhitespace();
+    if (peek(']'))
+    {
+      position++;
+      return array;
+    }
+    while (true)
+    {
+      Object value = scanValue(depth);
+      if (value == INVALID || value == DEFERRED)
+      {
+        return value;
+      }
+      array.add(value);
+      skipWhitespace();
+      if (peek(']'))
+      {
+        position++;
+        return array;
+      }
+      if (!peek(','))
+      {
+        return INVALID;
+      }
+      position++;
+    }
+  }
+
+  private Object scanString()
+  {
+    position++;
+    StringBuilder value = new StringBuilder();
+    while (position < json.length())
+    {
+      char character = json.charAt(position++);
+      if (character == '"')
+      {
+        return value.toString();
+      }
+      if (character < 0x20)
+      {
+        return INVALID;
+      }
+      if (character != '\\')
+      {
+        value.append(character);
+        continue;
+      }
+      if (position >= json.length())
+      {
+        return INVALID;
+      }
+      char escaped = json.charAt(position++);
+      switch (escaped)
+      {
+        case '"', '\\', '/':
+          value.append(escaped);
+          break;
+        case 'b':
+          value.append('\b');
+          break;
+        case 'f':
+          value.append('\f');
+          break;
+        case 'n':
+          value.append('\n');
+          break;
+        case 'r':
+          value.append('\r');
+          break;
+        case 't':
+          value.append('\t');
+          break;
+        case 'u':
+          int codeUnit = 0;
+          for ( int i = 0 ; i < 4 ; i++ )
+          {
+            if (position >= json.length() || !isHexDigit(json.charAt(position)))
+            {
+              return INVALID;
+            }
+            codeUnit = codeUnit * 16 + Character.digit(json.charAt(position++), 16);
+          }
+          value.append((char)codeUnit);
+          break;
+        default:
+          return INVALID;
+      }
+    }
+    return INVALID;
+  }
+
+  /**
+   * scans a number as defined by RFC 8259. Numbers that exceed the range of a double are rejected as the strict
+   * JSON parser of nimbus rejects them
+   */
+  private Object scanNumber()
+  {
+    int start = position;
+    if (peek('-'))
+    {
+      position++;
+    }
+    if (peek('0'))
+    {
+      position++;
+    }
+    else if (!skipDigits())
+    {
+      return INVALID;
+    }
+    if (peek('.'))
+    {
+      position++;
+      if (!skipDigits())
+      {
+        return INVALID;
+      }
+    }
+    if (peek('e') || peek('E'))
+    {
+      position++;
+      if (peek('+') || peek('-'))
+      {
+        position++;
+      }
+      if (!skipDigits())
+      {
+        return INVALID;
+      }
+    }
+    double value = Double.parseDouble(json.substring(start, position));
+    return Double.isFinite(value) ? value : INVALID;
+  }
+
+  /**
+   * @return true if at least one digit was skipped
+   */
+  private boolean skipDigits()
+  {
+    int start = position;
+    while (position < json.length() && isDigit(json.charAt(position)))
+    {
+      position++;
+    }
+    return position > start;
+  }
+
+  private Object scanLiteral(String literal, Object value)
+  {
+    if (!json.startsWith(literal, position))
+    {
+      return INVALID;
+    }
+    position += literal.length();
+    return value;
+  }
+
+  private void skipWhitespace()
+  {
+    while (position < json.length())
+    {
+      char character = json.charAt(position);
+      if (character != ' ' && character != '\t' && character != '\n' && character != '\r')
+      {
+        return;
+      }
+      position++;
+    }
+  }
+
+  private boolean peek(char character)
+  {
+    return position < json.length() && json.charAt(position) == character;
+  }
+
+  private static boolean isDigit(char character)
+  {
+    return character >= '0' && character <= '9';
+  }
+
+  private static boolean isHexDigit(char character)
+  {
+    return isDigit(character) || (character >= 'a' && character <= 'f') || (character >= 'A' && character <= 'F');
+  }
+}
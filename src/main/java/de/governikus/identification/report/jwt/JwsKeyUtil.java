@@ -0,0 +1,149 @@
+package de.governikus.identification.report.jwt;
+
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.EdECKey;
+import java.security.interfaces.RSAKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.NamedParameterSpec;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.util.Base64URL;
+
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+
+/**
+ * key related helper methods that are shared by the {@link JwtHandler} and the
+ * {@link VerificationKeyRegistry}
+ */
+@UtilityClass
+class JwsKeyUtil
+{
+
+  /**
+   * the length of a raw Ed25519 signature in bytes
+   */
+  private static final int ED25519_SIGNATURE_LENGTH = 64;
+
+  /**
+   * calculates the sha-256 thumbprint of the given certificate as it is used within the x5t#S256 header
+   *
+   * @param certificate the certificate to calculate the thumbprint for
+   * @return the base64url encoded sha-256 thumbprint of the DER encoded certificate
+   */
+  @SneakyThrows
+  public static Base64URL getSha256Thumbprint(X509Certificate certificate)
+  {
+    return Base64URL.encode(MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded()));
+  }
+
+  /**
+   * creates a signature verifier for the given public key. The created verifiers create a new
+   * {@link java.security.Signature} instance for each verification and can therefore be shared between several
+   * threads
+   *
+   * @param publicKey the public key to verify signatures with
+   * @return the verifier that fits the given key type
+   */
+  @SneakyThrows
+  public static JWSVerifier createVerifier(PublicKey publicKey)
+  {
+    switch (publicKey.getAlgorithm())
+    {
+      case "RSA":
+        return new RSASSAVerifier((RSAPublicKey)publicKey);
+      case "EC":
+        return new ECDSAVerifier((ECPublicKey)publicKey);
+      case "EdDSA":
+      case "Ed25519":
+        return new EdDsaVerifier(publicKey);
+      default:
+        throw new IllegalArgumentException(String.format("Unsupported key type '%s'", publicKey.getAlgorithm()));
+    }
+  }
+
+  /**
+   * @param algorithm the JWS algorithm of an RSA, EC or Ed25519 key
+   * @return a new signature instance that creates and verifies the signatures of the given algorithm in their
+   *         JWS representation. EC signatures are the concatenated r and s values as required by RFC 7518
+   */
+  @SneakyThrows
+  public static Signature getSignature(JWSAlgorithm algorithm)
+  {
+    switch (algorithm.getName())
+    {
+      case "RS256":
+        return Signature.getInstance("SHA256withRSA");
+      case "RS384":
+        return Signature.getInstance("SHA384withRSA");
+      case "RS512":
+        return Signature.getInstance("SHA512withRSA");
+      case "ES256":
+        return Signature.getInstance("SHA256withECDSAinP1363Format");
+      case "ES384":
+        return Signature.getInstance("SHA384withECDSAinP1363Format");
+      case "ES512":
+        return Signature.getInstance("SHA512withECDSAinP1363Format");
+      case "EdDSA":
+      case "Ed25519":
+        return getEd25519Signature(null);
+      default:
+        throw new IllegalArgumentException(String.format("Unsupported algorithm '%s'", algorithm));
+    }
+  }
+
+  /**
+   * @param key an RSA, EC or Ed25519 key
+   * @return the length in bytes of the signatures in their JWS representation that are created with the key
+   */
+  public static int getSignatureLength(Key key)
+  {
+    if (key instanceof RSAKey)
+    {
+      return (((RSAKey)key).getModulus().bitLength() + 7) / 8;
+    }
+    if (key instanceof ECKey)
+    {
+      return 2 * ((((ECKey)key).getParams().getCurve().getField().getFieldSize() + 7) / 8);
+    }
+    if (isEd25519Key(key))
+    {
+      return ED25519_SIGNATURE_LENGTH;
+    }
+    throw new IllegalArgumentException(String.format("Unsupported key type '%s'", key.getAlgorithm()));
+  }
+
+  /**
+   * @param key a public or private key
+   * @return true if the given key is an Edwards-curve key on curve Ed25519
+   */
+  public static boolean isEd25519Key(Key key)
+  {
+    return key instanceof EdECKey && NamedParameterSpec.ED25519.getName().equals(((EdECKey)key).getParams().getName());
+  }
+
+  /**
+   * @param provider an optional specific JCA provider
+   * @return a new Ed25519 signature instance
+   */
+  @SneakyThrows
+  public static Signature getEd25519Signature(Provider provider)
+  {
+    if (provider == null)
+    {
+      return Signature.getInstance(NamedParameterSpec.ED25519.getName());
+    }
+    return Signature.getInstance(NamedParameterSpec.ED25519.getName(), provider);
+  }
+}
@@ -0,0 +1,48 @@
+package de.governikus.identification.report.jwt;
+
+import lombok.Getter;
+
+
+/**
+ * defines how the payload is represented within a compact serialized JWS
+ */
+public enum JwsPayloadMode
+{
+
+  /**
+   * the payload is base64url encoded and embedded into the JWS as defined by RFC 7515
+   */
+  ENCODED(true, false),
+
+  /**
+   * the payload is base64url encoded for the signature but is omitted from the JWS. The JWS has the form
+   * {@code header..signature} and the payload must be transferred separately
+   */
+  DETACHED(true, true),
+
+  /**
+   * the payload is signed as it is without base64url encoding (RFC 7797, {@code b64=false}) and is omitted from
+   * the JWS. This avoids the encoding overhead for large payloads on the signer and on the verifier. An
+   * unencoded payload is always detached because json bodies may contain '.' characters that would break the
+   * compact serialization
+   */
+  UNENCODED_DETACHED(false, true);
+
+  /**
+   * if the payload is base64url encoded before it is signed
+   */
+  @Getter
+  private final boolean encoded;
+
+  /**
+   * if the payload is omitted from the compact serialization
+   */
+  @Getter
+  private final boolean detached;
+
+  JwsPayloadMode(boolean encoded, boolean detached)
+  {
+    this.encoded = encoded;
+    this.detached = detached;
+  }
+}
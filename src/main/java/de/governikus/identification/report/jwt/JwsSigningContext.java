@@ -0,0 +1,223 @@
+package de.governikus.identification.report.jwt;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.PrivateKey;
+import java.security.Signature;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+
+/**
+ * contains everything that is needed to create a compact JWS with a single key. All values are computed once
+ * and are immutable afterwards so that a single instance can be shared between several threads. The
+ * signatures are created with the {@link Signature} implementations of the JDK directly, a new instance is
+ * created for each signature. Unlike the signers of nimbus these can sign a region of an array, so the whole
+ * JWS is written into a single array that is sized up front: the payload is base64url encoded directly behind
+ * the header and the signature is computed over this region of the array
+ */
+class JwsSigningContext
+{
+
+  /**
+   * the base64url alphabet of RFC 4648
+   */
+  private static final byte[] BASE64_URL_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * the number of payload bytes that are encoded at once for a detached payload. Must be a multiple of 3 so
+   * that the encoded chunks can be concatenated
+   */
+  private static final int DETACHED_CHUNK_LENGTH = 3 * 1024;
+
+  /**
+   * the header that is added to each JWS
+   */
+  @Getter
+  private final JWSHeader header;
+
+  /**
+   * the key that is used to create the signatures
+   */
+  private final PrivateKey privateKey;
+
+  /**
+   * the length of the base64url encoded signatures
+   */
+  private final int encodedSignatureLength;
+
+  /**
+   * the base64url encoded header followed by the '.' separator. This is the first part of each signing input
+   */
+  private final byte[] signingInputPrefix;
+
+  public JwsSigningContext(JWSHeader header, PrivateKey privateKey)
+  {
+    if (privateKey == null)
+    {
+      throw new IllegalStateException("A private key is required to create signatures");
+    }
+    this.header = header;
+    this.privateKey = privateKey;
+    this.encodedSignatureLength = getEncodedLength(JwsKeyUtil.getSignatureLength(privateKey));
+    this.signingInputPrefix = (header.toBase64URL().toString() + ".").getBytes(StandardCharsets.US_ASCII);
+    // fails early for keys and algorithms that are not supported
+    JwsKeyUtil.getSignature(header.getAlgorithm());
+  }
+
+  /**
+   * @return the algorithm that is used to create the signatures
+   */
+  public JWSAlgorithm getAlgorithm()
+  {
+    return header.getAlgorithm();
+  }
+
+  /**
+   * creates a compact JWS for the given body
+   *
+   * @param body the body to sign
+   * @return the compact serialized JWS
+   */
+  public String sign(String body)
+  {
+    byte[] payload = body.getBytes(StandardCharsets.UTF_8);
+    return new String(sign(payload, 0, payload.length, false), StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * creates a compact JWS for the given range of UTF-8 bytes. The payload is base64url encoded exactly once
+   * directly into the returned array unless it is detached
+   *
+   * @param payload the array that contains the payload
+   * @param offset the index of the first byte of the payload
+   * @param length the number of bytes of the payload
+   * @param detached if the payload should be omitted from the JWS
+   * @return the ASCII bytes of the compact serialized JWS
+   */
+  @SneakyThrows
+  public byte[] sign(byte[] payload, int offset, int length, boolean detached)
+  {
+    boolean encodePayload = header.isBase64URLEncodePayload();
+    if (!encodePayload && !detached)
+    {
+      throw new IllegalStateException("An unencoded payload must be detached from the compact serialized JWS");
+    }
+    int contentLength = signingInputPrefix.length + (detached ? 0 : getEncodedLength(length));
+    byte[] jws = new byte[contentLength + 1 + encodedSignatureLength];
+    System.arraycopy(signingInputPrefix, 0, jws, 0, signingInputPrefix.length);
+
+    Signature signature = JwsKeyUtil.getSignature(header.getAlgorithm());
+    signature.initSign(privateKey);
+    if (!detached)
+    {
+      encode(payload, offset, length, jws, signingInputPrefix.length);
+      signature.update(jws, 0, contentLength);
+    }
+    else
+    {
+      updateSigningInput(signature, signingInputPrefix, payload, offset, length, encodePayload);
+    }
+    jws[contentLength] = '.';
+    byte[] signatureBytes = signature.sign();
+    if (getEncodedLength(signatureBytes.length) != encodedSignatureLength)
+    {
+      throw new IllegalStateException(String.format("Unexpected signature length of %s bytes", signatureBytes.length));
+    }
+    encode(signatureBytes, 0, signatureBytes.length, jws, contentLength + 1);
+    return jws;
+  }
+
+  /**
+   * creates a compact JWS for the given range of UTF-8 bytes and writes it into the given stream
+   *
+   * @param payload the array that contains the payload
+   * @param offset the index of the first byte of the payload
+   * @param length the number of bytes of the payload
+   * @param detached if the payload should be omitted from the JWS
+   * @param outputStream the stream to write the ASCII bytes of the compact serialized JWS to
+   */
+  @SneakyThrows
+  public void sign(byte[] payload, int offset, int length, boolean detached, OutputStream outputStream)
+  {
+    outputStream.write(sign(payload, offset, length, detached));
+  }
+
+  /**
+   * adds the signing input of a detached payload to the given signature without concatenating its parts. An
+   * encoded payload is base64url encoded in chunks so that it is not encoded into a single temporary array
+   *
+   * @param signature the signature that is initialized for signing or verification
+   * @param signingInputPrefix the encoded header followed by the '.' separator
+   * @param payload the array that contains the payload
+   * @param offset the index of the first byte of the payload
+   * @param length the number of bytes of the payload
+   * @param encodePayload if the payload is base64url encoded within the signing input
+   */
+  @SneakyThrows
+  static void updateSigningInput(Signature signature,
+                                 byte[] signingInputPrefix,
+                                 byte[] payload,
+                                 int offset,
+                                 int length,
+                                 boolean encodePayload)
+  {
+    signature.update(signingInputPrefix);
+    if (!encodePayload)
+    {
+      signature.update(payload, offset, length);
+      return;
+    }
+    byte[] chunk = new byte[getEncodedLength(Math.min(length, DETACHED_CHUNK_LENGTH))];
+    for ( int start = 0 ; start < length ; start += DETACHED_CHUNK_LENGTH )
+    {
+      int chunkLength = Math.min(length - start, DETACHED_CHUNK_LENGTH);
+      int encodedLength = encode(payload, offset + start, chunkLength, chunk, 0);
+      signature.update(chunk, 0, encodedLength);
+    }
+  }
+
+  /**
+   * @return the length of the base64url encoding without padding of the given number of bytes
+   */
+  private static int getEncodedLength(int length)
+  {
+    return (length * 4 + 2) / 3;
+  }
+
+  /**
+   * base64url encodes the given range without padding into the given array
+   *
+   * @return the number of encoded bytes
+   */
+  private static int encode(byte[] source, int offset, int length, byte[] target, int targetOffset)
+  {
+    int position = targetOffset;
+    int end = offset + length;
+    int index = offset;
+    for ( ; index + 2 < end ; index += 3 )
+    {
+      int bits = (source[index] & 0xff) << 16 | (source[index + 1] & 0xff) << 8 | source[index + 2] & 0xff;
+      target[position++] = BASE64_URL_ALPHABET[bits >>> 18];
+      target[position++] = BASE64_URL_ALPHABET[bits >>> 12 & 0x3f];
+      target[position++] = BASE64_URL_ALPHABET[bits >>> 6 & 0x3f];
+      target[position++] = BASE64_URL_ALPHABET[bits & 0x3f];
+    }
+    int remaining = end - index;
+    if (remaining > 0)
+    {
+      int bits = (source[index] & 0xff) << 16 | (remaining == 2 ? (source[index + 1] & 0xff) << 8 : 0);
+      target[position++] = BASE64_URL_ALPHABET[bits >>> 18];
+      target[position++] = BASE64_URL_ALPHABET[bits >>> 12 & 0x3f];
+      if (remaining == 2)
+      {
+        target[position++] = BASE64_URL_ALPHABET[bits >>> 6 & 0x3f];
+      }
+    }
+    return position - targetOffset;
+  }
+}
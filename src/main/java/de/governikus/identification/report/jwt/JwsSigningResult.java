@@ -0,0 +1,37 @@
+package de.governikus.identification.report.jwt;
+
+import lombok.Builder;
+import lombok.Getter;
+
+
+/**
+ * the result of signing a single element within a batch
+ */
+@Getter
+@Builder
+public class JwsSigningResult
+{
+
+  /**
+   * the position of the signed element within the input of the batch
+   */
+  private final int index;
+
+  /**
+   * the compact serialized JWS or null if the signature could not be created
+   */
+  private final String jws;
+
+  /**
+   * the error that prevented the creation of the JWS or null if the JWS was created successfully
+   */
+  private final Exception error;
+
+  /**
+   * @return true if the JWS was created successfully
+   */
+  public boolean isSuccessful()
+  {
+    return error == null;
+  }
+}
@@ -0,0 +1,82 @@
+package de.governikus.identification.report.jwt;
+
+import lombok.Builder;
+import lombok.Getter;
+
+
+/**
+ * the result of verifying a single JWS. A rejected JWS is described by an error code and a reason only so
+ * that no exception and no stack trace is created when invalid tokens are rejected.
+ */
+@Getter
+@Builder
+public class JwsVerificationResult
+{
+
+  /**
+   * the position of the JWS within the input of a batch or 0 for single verifications
+   */
+  private final int index;
+
+  /**
+   * the verified data of the JWS or null if the JWS was rejected
+   */
+  private final JwtHandler.PlainJwtData plainJwtData;
+
+  /**
+   * the reason category why the JWS was rejected or null if the JWS was verified successfully
+   */
+  private final ErrorCode errorCode;
+
+  /**
+   * a human-readable description why the JWS was rejected or null if the JWS was verified successfully
+   */
+  private final String reason;
+
+  /**
+   * @return true if the signature of the JWS was verified successfully
+   */
+  public boolean isVerified()
+  {
+    return errorCode == null;
+  }
+
+  /**
+   * creates the result for a rejected JWS
+   */
+  static JwsVerificationResult rejected(int index, ErrorCode errorCode, String reason)
+  {
+    return JwsVerificationResult.builder().index(index).errorCode(errorCode).reason(reason).build();
+  }
+
+  /**
+   * the reasons why a JWS can be rejected
+   */
+  public static enum ErrorCode
+  {
+    /**
+     * the given token is not a compact serialized JWS
+     */
+    MALFORMED,
+
+    /**
+     * the algorithm within the header does not fit the verification key
+     */
+    UNSUPPORTED_ALGORITHM,
+
+    /**
+     * no certificate is known that could be used to verify the signature
+     */
+    UNKNOWN_KEY,
+
+    /**
+     * the signature does not match the signed content
+     */
+    INVALID_SIGNATURE,
+
+    /**
+     * the signature verification could not be executed
+     */
+    VERIFICATION_FAILED
+  }
+}
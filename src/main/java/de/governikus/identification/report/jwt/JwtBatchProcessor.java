@@ -0,0 +1,185 @@
+package de.governikus.identification.report.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import de.governikus.identification.report.objects.IdentificationReport;
+import lombok.Builder;
+import lombok.Getter;
+
+
+/**
+ * processes large numbers of JWS in parallel with a single {@link JwtHandler}. The results are always
+ * returned in the order of the given input and a failure of a single element does not abort the whole batch.
+ * The threads of the processor are kept for all batches and are released by {@link #close()}
+ */
+public class JwtBatchProcessor implements AutoCloseable
+{
+
+  /**
+   * the handler that is used for each single element of a batch
+   */
+  @Getter
+  private final JwtHandler jwtHandler;
+
+  /**
+   * the number of threads that are used to process a batch
+   */
+  @Getter
+  private final int parallelism;
+
+  /**
+   * the pool that processes all batches of this processor
+   */
+  private final ForkJoinPool forkJoinPool;
+
+  /**
+   * @param jwtHandler the handler that is used for each single element of a batch
+   * @param parallelism the number of threads that are used to process a batch. Defaults to the number of
+   *          available processors
+   */
+  @Builder
+  public JwtBatchProcessor(JwtHandler jwtHandler, Integer parallelism)
+  {
+    this.jwtHandler = jwtHandler;
+    this.parallelism = Optional.ofNullable(parallelism).orElseGet(Runtime.getRuntime()::availableProcessors);
+    if (this.parallelism < 1)
+    {
+      throw new IllegalArgumentException(String.format("Parallelism must be at least 1 but was '%s'",
+                                                       this.parallelism));
+    }
+    this.forkJoinPool = new ForkJoinPool(this.parallelism);
+  }
+
+  /**
+   * creates a compact JWS for each of the given bodies
+   *
+   * @param bodies the bodies to sign
+   * @return the signing results in the order of the given bodies
+   */
+  public List<JwsSigningResult> createJws(Collection<String> bodies)
+  {
+    return sign(new ArrayList<>(bodies), jwtHandler::createJws);
+  }
+
+  /**
+   * creates a compact JWS for each of the given bodies
+   *
+   * @param bodies the bodies to sign
+   * @return the signing results in the order of the given bodies
+   */
+  public List<JwsSigningResult> createJws(Stream<String> bodies)
+  {
+    return sign(bodies.collect(Collectors.toList()), jwtHandler::createJws);
+  }
+
+  /**
+   * serializes each of the given reports and creates a compact JWS from it
+   *
+   * @param reports the reports to sign
+   * @return the signing results in the order of the given reports
+   */
+  public List<JwsSigningResult> createJwsFromReports(Collection<? extends IdentificationReport<?>> reports)
+  {
+    return signReports(new ArrayList<>(reports));
+  }
+
+  /**
+   * serializes each of the given reports and creates a compact JWS from it
+   *
+   * @param reports the reports to sign
+   * @return the signing results in the order of the given reports
+   */
+  public List<JwsSigningResult> createJwsFromReports(Stream<? extends IdentificationReport<?>> reports)
+  {
+    return signReports(reports.collect(Collectors.toList()));
+  }
+
+  /**
+   * verifies the signatures of all given JWS. Rejected JWS are reported by an error code and a reason within
+   * their result so that flooding the verification with invalid tokens does not create any exceptions
+   *
+   * @param jwsList the compact serialized JWS to verify
+   * @return the verification results in the order of the given JWS
+   */
+  public List<JwsVerificationResult> verifyJws(Collection<String> jwsList)
+  {
+    return BatchExecutor.execute(new ArrayList<>(jwsList), forkJoinPool, this::verify);
+  }
+
+  /**
+   * verifies the signatures of all given JWS. Rejected JWS are reported by an error code and a reason within
+   * their result so that flooding the verification with invalid tokens does not create any exceptions
+   *
+   * @param jwsStream the compact serialized JWS to verify
+   * @return the verification results in the order of the given JWS
+   */
+  public List<JwsVerificationResult> verifyJws(Stream<String> jwsStream)
+  {
+    return BatchExecutor.execute(jwsStream.collect(Collectors.toList()), forkJoinPool, this::verify);
+  }
+
+  /**
+   * releases the threads of this processor. Batches that are started afterwards are rejected
+   */
+  @Override
+  public void close()
+  {
+    forkJoinPool.shutdown();
+  }
+
+  /**
+   * signs all given elements in parallel
+   *
+   * @param inputs the elements to sign
+   * @param signFunction creates the compact serialized JWS of a single element
+   * @return the signing results in the order of the given elements
+   */
+  private <T> List<JwsSigningResult> sign(List<T> inputs, Function<T, String> signFunction)
+  {
+    return BatchExecutor.execute(inputs, forkJoinPool, (index, input) -> {
+      try
+      {
+        return JwsSigningResult.builder().index(index).jws(signFunction.apply(input)).build();
+      }
+      catch (Exception ex)
+      {
+        return JwsSigningResult.builder().index(index).error(ex).build();
+      }
+    });
+  }
+
+  /**
+   * verifies a single JWS of a batch. Unexpected errors are reported within the result to not abort the batch
+   */
+  private JwsVerificationResult verify(int index, String jws)
+  {
+    try
+    {
+      return jwtHandler.verifyJws(index, jws);
+    }
+    catch (RuntimeException ex)
+    {
+      return JwsVerificationResult.rejected(index,
+                                            JwsVerificationResult.ErrorCode.VERIFICATION_FAILED,
+                                            ex.getMessage());
+    }
+  }
+
+  /**
+   * signs all given reports in parallel. The reports are serialized directly into the signing buffer of the
+   * handler
+   */
+  private List<JwsSigningResult> signReports(List<? extends IdentificationReport<?>> reports)
+  {
+    return sign(reports,
+                report -> new String(jwtHandler.createJws((IdentificationReport<?>)report), StandardCharsets.US_ASCII));
+  }
+}
@@ -1,31 +1,31 @@
 package de.governikus.identification.report.jwt;
 
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPublicKey;
-import java.security.spec.ECParameterSpec;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import com.nimbusds.jose.Header;
+import com.nimbusds.jose.HeaderParameterNames;
+import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.JWSSigner;
 import com.nimbusds.jose.JWSVerifier;
 import com.nimbusds.jose.Payload;
-import com.nimbusds.jose.crypto.ECDSAVerifier;
-import com.nimbusds.jose.crypto.RSASSAVerifier;
-import com.nimbusds.jose.crypto.factories.DefaultJWSSignerFactory;
-import com.nimbusds.jose.jwk.Curve;
-import com.nimbusds.jose.jwk.ECKey;
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.util.Base64URL;
-import com.nimbusds.jwt.SignedJWT;
 
+import de.governikus.identification.report.objects.IdentificationReport;
+import de.governikus.identification.report.utils.ObjectMapperUtil;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.SneakyThrows;
@@ -38,6 +38,12 @@ import lombok.SneakyThrows;
 public class JwtHandler
 {
 
+  /**
+   * a buffer per thread into which the reports are serialized before they are signed. This avoids building a
+   * json tree and an intermediate string for each report
+   */
+  private static final ThreadLocal<ReusableByteArrayOutputStream> SERIALIZATION_BUFFER = ThreadLocal.withInitial(ReusableByteArrayOutputStream::new);
+
   /**
    * key for signing or decrypting a jwt.
    */
@@ -48,14 +54,83 @@ public class JwtHandler
    */
   private final X509Certificate certificate;
 
+  /**
+   * if true the signature algorithm, the signature length and the encoded header are computed only once and are
+   * reused for all subsequent signatures. If false all of these values are computed again for each signature.
+   */
+  private final boolean reuseSigningContext;
+
+  /**
+   * the lazily created signing context that is shared between all threads if {@link #reuseSigningContext} is
+   * enabled
+   */
+  private volatile JwsSigningContext signingContext;
+
+  /**
+   * the lazily created signing context for unencoded payloads ({@code b64=false}) that is shared between all
+   * threads if {@link #reuseSigningContext} is enabled
+   */
+  private volatile JwsSigningContext unencodedSigningContext;
+
+  /**
+   * an optional registry of further certificates that are accepted for signature verification. The fitting
+   * certificate is selected by the x5t#S256 header of the JWS
+   */
+  private final VerificationKeyRegistry verificationKeyRegistry;
+
+  /**
+   * an optional cache of already verified tokens. Tokens that are found within the cache are returned without
+   * verifying their signature again
+   */
+  private final VerifiedTokenCache verifiedTokenCache;
+
+  /**
+   * an optional validator that accepts any certificate of the x5c header of a JWS that chains to one of its
+   * trust anchors
+   */
+  private final CertificateChainValidator certificateChainValidator;
+
+  /**
+   * the lazily created verifier for the public key of {@link #certificate}
+   */
+  private volatile JWSVerifier certificateVerifier;
+
   /**
    * Do not mix keys together that do not belong together or unexpected results will occur
    */
-  @Builder
   public JwtHandler(PrivateKey privateKey, X509Certificate certificate)
+  {
+    this(privateKey, certificate, null, null, null, null);
+  }
+
+  /**
+   * Do not mix keys together that do not belong together or unexpected results will occur
+   *
+   * @param privateKey key for signing or decrypting a jwt
+   * @param certificate key for encrypting or validating a signature of a jwt
+   * @param reuseSigningContext if the precomputed signing context should be reused for all signatures. Defaults
+   *          to true
+   * @param verificationKeyRegistry an optional registry of further certificates that are accepted for signature
+   *          verification
+   * @param verifiedTokenCache an optional cache that skips the signature verification of tokens that were
+   *          already verified successfully
+   * @param certificateChainValidator an optional validator that accepts the leaf certificates of x5c headers
+   *          that chain to one of its trust anchors
+   */
+  @Builder
+  public JwtHandler(PrivateKey privateKey,
+                    X509Certificate certificate,
+                    Boolean reuseSigningContext,
+                    VerificationKeyRegistry verificationKeyRegistry,
+                    VerifiedTokenCache verifiedTokenCache,
+                    CertificateChainValidator certificateChainValidator)
   {
     this.privateKey = privateKey;
     this.certificate = certificate;
+    this.reuseSigningContext = Optional.ofNullable(reuseSigningContext).orElse(true);
+    this.verificationKeyRegistry = verificationKeyRegistry;
+    this.verifiedTokenCache = verifiedTokenCache;
+    this.certificateChainValidator = certificateChainValidator;
   }
 
   /**
@@ -64,12 +139,99 @@ public class JwtHandler
    * @param body the body that should either be encrypted or signed
    * @return the signed or encrypted JWT
    */
-  @SneakyThrows
   public String createJws(String body)
   {
-    JWSAlgorithm signatureAlgorithm = selectSignatureAlgorithm();
-    JWSHeader jwsHeader = buildJwsHeader(signatureAlgorithm);
-    return createSignedJwt(jwsHeader, body);
+    return getSigningContext(true).sign(body);
+  }
+
+  /**
+   * creates a signed JWT (JWS) with the given payload representation. In the detached modes the JWS has the
+   * form {@code header..signature} and the body must be transferred next to it
+   *
+   * @param body the body that should be signed
+   * @param payloadMode defines how the payload is represented within the JWS
+   * @return the compact serialized JWS
+   */
+  public String createJws(String body, JwsPayloadMode payloadMode)
+  {
+    return createJws(body.getBytes(StandardCharsets.UTF_8), payloadMode);
+  }
+
+  /**
+   * creates a signed JWT (JWS) with the given payload representation. In the detached modes the JWS has the
+   * form {@code header..signature} and the payload must be transferred next to it
+   *
+   * @param payload the UTF-8 bytes of the body that should be signed
+   * @param payloadMode defines how the payload is represented within the JWS
+   * @return the compact serialized JWS
+   */
+  public String createJws(byte[] payload, JwsPayloadMode payloadMode)
+  {
+    byte[] jws = getSigningContext(payloadMode.isEncoded()).sign(payload, 0, payload.length, payloadMode.isDetached());
+    return new String(jws, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * creates a signed JWT (JWS) from the given report. The report is serialized directly into a reusable UTF-8
+   * buffer and is base64url encoded exactly once without creating a json tree or an intermediate string
+   *
+   * @param report the report that should be signed
+   * @return the ASCII bytes of the compact serialized JWS
+   */
+  public byte[] createJws(IdentificationReport<?> report)
+  {
+    ReusableByteArrayOutputStream buffer = serialize(report);
+    try
+    {
+      return getSigningContext(true).sign(buffer.getBuffer(), 0, buffer.size(), false);
+    }
+    finally
+    {
+      releaseBuffer(buffer);
+    }
+  }
+
+  /**
+   * creates a signed JWT (JWS) from the given report and writes it into the given stream. The stream is neither
+   * flushed nor closed
+   *
+   * @param report the report that should be signed
+   * @param outputStream the stream to write the ASCII bytes of the compact serialized JWS to
+   */
+  public void writeJws(IdentificationReport<?> report, OutputStream outputStream)
+  {
+    ReusableByteArrayOutputStream buffer = serialize(report);
+    try
+    {
+      getSigningContext(true).sign(buffer.getBuffer(), 0, buffer.size(), false, outputStream);
+    }
+    finally
+    {
+      releaseBuffer(buffer);
+    }
+  }
+
+  /**
+   * serializes the given report into the buffer of the current thread
+   */
+  @SneakyThrows
+  private static ReusableByteArrayOutputStream serialize(IdentificationReport<?> report)
+  {
+    ReusableByteArrayOutputStream buffer = SERIALIZATION_BUFFER.get();
+    buffer.reset();
+    ObjectMapperUtil.getWriter(IdentificationReport.class).writeValue(buffer, report);
+    return buffer;
+  }
+
+  /**
+   * drops the buffer of the current thread if it has grown too large to be kept
+   */
+  private static void releaseBuffer(ReusableByteArrayOutputStream buffer)
+  {
+    if (!buffer.isReusable())
+    {
+      SERIALIZATION_BUFFER.remove();
+    }
   }
 
   /**
@@ -78,29 +240,131 @@ public class JwtHandler
    * @param jwt the signed or encrypted JWT
    * @return the payload of the verified or decrypted content
    */
-  @SneakyThrows
   public PlainJwtData handleJwt(String jwt)
   {
-    final int numberOfJwtParts = jwt.split("\\.").length;
-    if (numberOfJwtParts == 3)
+    return toPlainJwtData(verifyJws(jwt));
+  }
+
+  /**
+   * @return the verified data of the given result
+   * @throws IllegalArgumentException if the algorithm of the JWS is not supported
+   * @throws IllegalStateException if the JWS was rejected for any other reason
+   */
+  private static PlainJwtData toPlainJwtData(JwsVerificationResult verificationResult)
+  {
+    if (verificationResult.isVerified())
+    {
+      return verificationResult.getPlainJwtData();
+    }
+    if (verificationResult.getErrorCode() == JwsVerificationResult.ErrorCode.UNSUPPORTED_ALGORITHM)
+    {
+      throw new IllegalArgumentException(verificationResult.getReason());
+    }
+    throw new IllegalStateException(verificationResult.getReason());
+  }
+
+  /**
+   * verifies the signature of a signed JWT (JWS) without throwing an exception if the JWS is rejected. This
+   * makes the rejection of invalid tokens cheap because no stack traces are created
+   *
+   * @param jws the compact serialized JWS
+   * @return the verified data or the reason why the JWS was rejected
+   */
+  public JwsVerificationResult verifyJws(String jws)
+  {
+    return verifyJws(0, jws);
+  }
+
+  /**
+   * verifies the signature of a signed JWT (JWS) and returns its plain data
+   *
+   * @param jwt the ASCII bytes of the compact serialized JWS e.g. read from a socket or a file
+   * @return the payload of the verified content
+   */
+  public PlainJwtData handleJwt(byte[] jwt)
+  {
+    return toPlainJwtData(verifyJws(jwt));
+  }
+
+  /**
+   * verifies the signature of a signed JWT (JWS) without throwing an exception if the JWS is rejected
+   *
+   * @param jws the ASCII bytes of the compact serialized JWS e.g. read from a socket or a file
+   * @return the verified data or the reason why the JWS was rejected
+   */
+  public JwsVerificationResult verifyJws(byte[] jws)
+  {
+    if (verifiedTokenCache != null && jws != null)
     {
-      return verifySignature(jwt);
+      return verifyCachedJws(0, VerifiedTokenCache.getKey(jws), () -> CompactJws.parse(jws));
     }
-    else
+    return verifyJws(0, CompactJws.parse(jws), null);
+  }
+
+  /**
+   * verifies the signature of a signed JWT (JWS) without throwing an exception if the JWS is rejected
+   *
+   * @param jws the ASCII bytes of the compact serialized JWS between the position and the limit of the buffer.
+   *          The position of the buffer is not changed
+   * @return the verified data or the reason why the JWS was rejected
+   */
+  public JwsVerificationResult verifyJws(ByteBuffer jws)
+  {
+    if (verifiedTokenCache != null && jws != null)
     {
-      throw new IllegalStateException("Unsupported JWT. Only compact JWS structures are supported for "
-                                      + "signature verification.");
+      return verifyCachedJws(0, VerifiedTokenCache.getKey(jws), () -> CompactJws.parse(jws));
     }
+    return verifyJws(0, CompactJws.parse(jws), null);
+  }
+
+  /**
+   * verifies the signature of a JWS with detached payload and returns its plain data
+   *
+   * @param jws the compact serialized JWS in the form {@code header..signature}
+   * @param payload the UTF-8 bytes of the payload that was transferred next to the JWS
+   * @return the payload of the verified content
+   */
+  public PlainJwtData handleDetachedJwt(String jws, byte[] payload)
+  {
+    return toPlainJwtData(verifyDetachedJws(jws, payload));
+  }
+
+  /**
+   * verifies the signature of a JWS with detached payload without throwing an exception if the JWS is rejected.
+   * The header of the JWS decides if the payload was signed base64url encoded or as it is ({@code b64=false}).
+   * In the latter case the raw payload bytes are verified directly without any encoding
+   *
+   * @param jws the compact serialized JWS in the form {@code header..signature}
+   * @param payload the UTF-8 bytes of the payload that was transferred next to the JWS
+   * @return the verified data or the reason why the JWS was rejected
+   */
+  public JwsVerificationResult verifyDetachedJws(String jws, byte[] payload)
+  {
+    CompactJws compactJws = CompactJws.parse(jws);
+    if (compactJws != null && compactJws.hasPayload())
+    {
+      return JwsVerificationResult.rejected(0,
+                                            JwsVerificationResult.ErrorCode.MALFORMED,
+                                            "A JWS with detached payload must not contain an embedded payload");
+    }
+    return verifyJws(0, compactJws, Objects.requireNonNull(payload));
   }
 
   /**
    * Create a jws header with the given algorithm and a certificate sha-256 thumbprint.
    */
   @SneakyThrows
-  private JWSHeader buildJwsHeader(JWSAlgorithm signatureAlgorithm)
+  private JWSHeader buildJwsHeader(JWSAlgorithm signatureAlgorithm, boolean encodePayload)
   {
     Base64URL sha256Thumbprint = getSha256Thumbprint();
-    return new JWSHeader.Builder(signatureAlgorithm).x509CertSHA256Thumbprint(sha256Thumbprint).build();
+    JWSHeader.Builder builder = new JWSHeader.Builder(signatureAlgorithm).x509CertSHA256Thumbprint(sha256Thumbprint);
+    if (!encodePayload)
+    {
+      // RFC 7797 requires the b64 parameter to be marked as critical
+      builder.base64URLEncodePayload(false)
+             .criticalParams(Collections.singleton(HeaderParameterNames.BASE64_URL_ENCODE_PAYLOAD));
+    }
+    return builder.build();
   }
 
   /**
@@ -126,6 +390,13 @@ public class JwtHandler
             throw new IllegalArgumentException(String.format("Unsupported key length for EC key type: %s-bit",
                                                              keyLength));
         }
+      case "EdDSA":
+      case "Ed25519":
+        if (!JwsKeyUtil.isEd25519Key(certificate.getPublicKey()))
+        {
+          throw new IllegalArgumentException("Unsupported curve for EdDSA key type. Only Ed25519 is supported");
+        }
+        return JWSAlgorithm.EdDSA;
       default:
         throw new IllegalArgumentException(String.format("Unsupported key type '%s'",
                                                          certificate.getPublicKey().getAlgorithm()));
@@ -135,111 +406,272 @@ public class JwtHandler
   /**
    * adds the sha-256 thumbprint to the JWT header
    */
-  @SneakyThrows
   private Base64URL getSha256Thumbprint()
   {
-    return Base64URL.encode(MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded()));
+    return JwsKeyUtil.getSha256Thumbprint(certificate);
   }
 
   /**
    * verifies the signature based on the data within the header
+   *
+   * @param index the position of the JWS within a batch
+   * @param jws the compact serialized JWS
+   * @return the verified data or the reason why the JWS was rejected
    */
-  @SneakyThrows
-  private PlainJwtData verifySignature(String jws)
+  JwsVerificationResult verifyJws(int index, String jws)
   {
-    SignedJWT signedJwt = SignedJWT.parse(jws);
-    JWSVerifier jwsVerifier = getVerifier(signedJwt.getHeader());
-    boolean isValid = signedJwt.verify(jwsVerifier);
-    if (!isValid)
+    if (verifiedTokenCache != null && jws != null)
     {
-      throw new IllegalStateException("Signature validation has failed with signature key");
+      return verifyCachedJws(index, VerifiedTokenCache.getKey(jws), () -> CompactJws.parse(jws));
     }
-    return PlainJwtData.builder()
-                       .operationExecuted(OperationExecuted.SIGNATURE_VERIFIED)
-                       .header(signedJwt.getHeader())
-                       .body(signedJwt.getPayload())
-                       .build();
+    return verifyJws(index, CompactJws.parse(jws), null);
   }
 
   /**
-   * builds a signature with the given key and builds the signed JWT from it
+   * returns the result of an already verified token from the {@link #verifiedTokenCache} or verifies the token
+   * and caches it if its signature is valid. A cached token is only accepted if the verifier that would be
+   * selected for it today is still the verifier that has verified it. So removing a certificate from the
+   * {@link #verificationKeyRegistry} invalidates the tokens that were verified with it
    *
-   * @param jwsHeader contains the algorithm to use for signature
-   * @param body the body to sign together with the header
-   * @return the signed JWT
+   * @param index the position of the JWS within a batch
+   * @param cacheKey the hash of the compact serialized JWS
+   * @param compactJwsSupplier scans the token if it is not found within the cache
+   * @return the verified data or the reason why the JWS was rejected
    */
-  @SneakyThrows
-  private String createSignedJwt(JWSHeader jwsHeader, String body)
+  private JwsVerificationResult verifyCachedJws(int index, String cacheKey, Supplier<CompactJws> compactJwsSupplier)
   {
+    VerifiedTokenCache.VerifiedToken verifiedToken = verifiedTokenCache.get(cacheKey, token -> {
+      return token.getJwsVerifier() == getVerifier((JWSHeader)token.getPlainJwtData().getHeader());
+    });
+    if (verifiedToken != null)
+    {
+      return JwsVerificationResult.builder().index(index).plainJwtData(verifiedToken.getPlainJwtData()).build();
+    }
+    JWSVerifier[] usedVerifier = new JWSVerifier[1];
+    JwsVerificationResult verificationResult = verifyJws(index,
+                                                         compactJwsSupplier.get(),
+                                                         null,
+                                                         jwsVerifier -> usedVerifier[0] = jwsVerifier);
+    if (verificationResult.isVerified())
+    {
+      verifiedTokenCache.put(cacheKey, verificationResult.getPlainJwtData(), usedVerifier[0]);
+    }
+    return verificationResult;
+  }
 
-    JWK jwk = toJwk();
-    JWSSigner jwsSigner = new DefaultJWSSignerFactory().createJWSSigner(jwk, jwsHeader.getAlgorithm());
-    Payload payload = new Payload(body);
-    String headerAndBody = jwsHeader.toBase64URL().toString() + "." + payload.toBase64URL().toString();
-    Base64URL signature = jwsSigner.sign(jwsHeader, headerAndBody.getBytes(StandardCharsets.UTF_8));
-    SignedJWT jws = new SignedJWT(jwsHeader.toBase64URL(), Base64URL.encode(body), signature);
-    return jws.serialize();
+  /**
+   * verifies the signature based on the data within the header. The header is parsed from the scanned token and
+   * the signature is verified directly over the signing input of the token without creating an intermediate
+   * nimbus JWS object
+   *
+   * @param index the position of the JWS within a batch
+   * @param compactJws the scanned JWS or null if the token did not have a compact JWS structure
+   * @param detachedPayload the payload of a JWS with detached payload or null if the payload is embedded
+   * @return the verified data or the reason why the JWS was rejected
+   */
+  private JwsVerificationResult verifyJws(int index, CompactJws compactJws, byte[] detachedPayload)
+  {
+    return verifyJws(index, compactJws, detachedPayload, jwsVerifier -> {});
   }
 
   /**
-   * parsed an RSA or EC key to its JWK representation
+   * verifies the signature based on the data within the header
+   *
+   * @param index the position of the JWS within a batch
+   * @param compactJws the scanned JWS or null if the token did not have a compact JWS structure
+   * @param detachedPayload the payload of a JWS with detached payload or null if the payload is embedded
+   * @param verifiedBy receives the verifier that has verified the signature if the signature is valid
+   * @return the verified data or the reason why the JWS was rejected
    */
-  private JWK toJwk()
+  private JwsVerificationResult verifyJws(int index,
+                                          CompactJws compactJws,
+                                          byte[] detachedPayload,
+                                          Consumer<JWSVerifier> verifiedBy)
   {
-    switch (certificate.getPublicKey().getAlgorithm())
+    if (compactJws == null)
     {
-      case "RSA":
-        return toRsaJwk();
-      case "EC":
-        return toEcJwk();
-      default:
-        return null; // should not happen due to previous validation
+      return JwsVerificationResult.rejected(index,
+                                            JwsVerificationResult.ErrorCode.MALFORMED,
+                                            "Unsupported JWT. Only compact JWS structures are supported for "
+                                                                                       + "signature verification.");
+    }
+
+    JWSHeader header = parseHeader(compactJws);
+    if (header == null)
+    {
+      return JwsVerificationResult.rejected(index,
+                                            JwsVerificationResult.ErrorCode.MALFORMED,
+                                            "The header of the JWS is not a valid JWS header");
     }
+    JWSVerifier jwsVerifier = getVerifier(header);
+    if (jwsVerifier == null)
+    {
+      return JwsVerificationResult.rejected(index,
+                                            JwsVerificationResult.ErrorCode.UNKNOWN_KEY,
+                                            "No certificate found to verify the signature of the JWS");
+    }
+    if (!jwsVerifier.supportedJWSAlgorithms().contains(header.getAlgorithm()))
+    {
+      return JwsVerificationResult.rejected(index,
+                                            JwsVerificationResult.ErrorCode.UNSUPPORTED_ALGORITHM,
+                                            String.format("Unsupported algorithm found '%s'", header.getAlgorithm()));
+    }
+
+    boolean isValid;
+    try
+    {
+      // the payload of a detached token is empty so its signing input consists of the encoded header and the dot
+      isValid = detachedPayload == null
+        ? jwsVerifier.verify(header, compactJws.getSigningInput(), compactJws.getEncodedSignature())
+        : DetachedPayloadUtil.verify(jwsVerifier,
+                                     header,
+                                     compactJws.getSigningInput(),
+                                     detachedPayload,
+                                     compactJws.getEncodedSignature());
+    }
+    catch (JOSEException ex)
+    {
+      return JwsVerificationResult.rejected(index,
+                                            JwsVerificationResult.ErrorCode.VERIFICATION_FAILED,
+                                            ex.getMessage());
+    }
+    if (!isValid)
+    {
+      return JwsVerificationResult.rejected(index,
+                                            JwsVerificationResult.ErrorCode.INVALID_SIGNATURE,
+                                            "Signature validation has failed with signature key");
+    }
+    verifiedBy.accept(jwsVerifier);
+    PlainJwtData plainJwtData = PlainJwtData.builder()
+                                            .operationExecuted(OperationExecuted.SIGNATURE_VERIFIED)
+                                            .header(header)
+                                            .body(getPayload(compactJws, header, detachedPayload))
+                                            .build();
+    return JwsVerificationResult.builder().index(index).plainJwtData(plainJwtData).build();
   }
 
   /**
-   * parses an EC key pair into its EC JWK representation
+   * @return the verified payload of the JWS
    */
-  private ECKey toEcJwk()
+  private static Payload getPayload(CompactJws compactJws, JWSHeader header, byte[] detachedPayload)
   {
-    ECPublicKey ecPublicKey = (ECPublicKey)certificate.getPublicKey();
-    ECParameterSpec ecParameterSpec = ecPublicKey.getParams();
-    Curve curve = Curve.forECParameterSpec(ecParameterSpec);
-    ECKey.Builder builder = new ECKey.Builder(curve, ecPublicKey);
-    Optional.ofNullable(privateKey).ifPresent(builder::privateKey);
-    return builder.build();
+    if (detachedPayload != null)
+    {
+      return new Payload(detachedPayload);
+    }
+    if (!header.isBase64URLEncodePayload())
+    {
+      return new Payload(compactJws.getEncodedPayload().toString());
+    }
+    return new Payload(compactJws.getEncodedPayload());
   }
 
   /**
-   * parses an RSA key pair into its RSA JWK representation
+   * parses the header of the given JWS. Most headers that would be rejected by the nimbus parser are detected
+   * by the {@link JwsHeaderScanner} first so that rejecting them does not create an exception
+   *
+   * @return the parsed header or null if the header is not a valid JWS header
    */
-  private RSAKey toRsaJwk()
+  private static JWSHeader parseHeader(CompactJws compactJws)
   {
-    RSAKey.Builder builder = new RSAKey.Builder((RSAPublicKey)certificate.getPublicKey());
-    Optional.ofNullable(privateKey).ifPresent(builder::privateKey);
-    return builder.build();
+    String decodedHeader = compactJws.getDecodedHeader();
+    if (!JwsHeaderScanner.isValid(decodedHeader))
+    {
+      return null;
+    }
+    try
+    {
+      return JWSHeader.parse(decodedHeader, compactJws.getEncodedHeader());
+    }
+    catch (ParseException ex)
+    {
+      // only reachable for the parameters that the scanner leaves to nimbus
+      return null;
+    }
   }
 
   /**
-   * retrieves the signature verifier based on the data within the JWS header
+   * @param encodePayload if the context should sign base64url encoded payloads or unencoded payloads
+   * @return the shared signing context if {@link #reuseSigningContext} is enabled or a new signing context else
    */
-  @SneakyThrows
-  private JWSVerifier getVerifier(JWSHeader header)
+  private JwsSigningContext getSigningContext(boolean encodePayload)
   {
-    boolean isRsaAlgorithm = JWSAlgorithm.Family.RSA.stream().anyMatch(rsa -> rsa.equals(header.getAlgorithm()));
-    if (isRsaAlgorithm)
+    if (!reuseSigningContext)
     {
-      return new RSASSAVerifier((RSAPublicKey)certificate.getPublicKey());
+      return createSigningContext(encodePayload);
     }
+    JwsSigningContext jwsSigningContext = encodePayload ? signingContext : unencodedSigningContext;
+    if (jwsSigningContext == null)
+    {
+      // the context is immutable so it does not matter if several threads create it concurrently on first use
+      jwsSigningContext = createSigningContext(encodePayload);
+      if (encodePayload)
+      {
+        signingContext = jwsSigningContext;
+      }
+      else
+      {
+        unencodedSigningContext = jwsSigningContext;
+      }
+    }
+    return jwsSigningContext;
+  }
 
-    boolean isEcAlgorithm = JWSAlgorithm.Family.EC.stream().anyMatch(ec -> ec.equals(header.getAlgorithm()));
-    if (isEcAlgorithm)
+  /**
+   * selects the signature algorithm and builds the header for the given key material
+   */
+  private JwsSigningContext createSigningContext(boolean encodePayload)
+  {
+    JWSAlgorithm signatureAlgorithm = selectSignatureAlgorithm();
+    JWSHeader jwsHeader = buildJwsHeader(signatureAlgorithm, encodePayload);
+    return new JwsSigningContext(jwsHeader, privateKey);
+  }
+
+  /**
+   * retrieves the signature verifier based on the data within the JWS header. If a
+   * {@link #verificationKeyRegistry} is present the verifier is selected by the x5t#S256 header. If the
+   * registry does not know the thumbprint and a {@link #certificateChainValidator} is present the leaf
+   * certificate of the x5c header is used if its chain is trusted. Otherwise the verifier of the
+   * {@link #certificate} is used
+   *
+   * @return the verifier or null if no certificate is known to verify the signature
+   */
+  private JWSVerifier getVerifier(JWSHeader header)
+  {
+    JWSVerifier jwsVerifier = null;
+    if (verificationKeyRegistry != null)
+    {
+      jwsVerifier = verificationKeyRegistry.getVerifier(header.getX509CertSHA256Thumbprint());
+    }
+    if (jwsVerifier == null && certificateChainValidator != null)
     {
-      return new ECDSAVerifier((ECPublicKey)certificate.getPublicKey());
+      jwsVerifier = certificateChainValidator.getVerifier(header.getX509CertChain(),
+                                                          header.getX509CertSHA256Thumbprint());
     }
+    if (jwsVerifier == null)
+    {
+      jwsVerifier = getCertificateVerifier();
+    }
+    return jwsVerifier;
+  }
 
-    String errorMessage = String.format("Unsupported algorithm found '%s'", header.getAlgorithm());
-    throw new IllegalArgumentException(errorMessage);
+  /**
+   * @return the lazily created verifier for the public key of the {@link #certificate} or null if no
+   *         certificate is present
+   */
+  private JWSVerifier getCertificateVerifier()
+  {
+    if (certificate == null)
+    {
+      return null;
+    }
+    JWSVerifier jwsVerifier = certificateVerifier;
+    if (jwsVerifier == null)
+    {
+      jwsVerifier = JwsKeyUtil.createVerifier(certificate.getPublicKey());
+      certificateVerifier = jwsVerifier;
+    }
+    return jwsVerifier;
   }
 
   /**
@@ -0,0 +1,235 @@
+package de.governikus.identification.report.jwt;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.Payload;
+
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+
+/**
+ * extracts the values of a fixed set of JSON pointers from verified JWS payloads without deserializing the
+ * whole payload. The payload is scanned once with a streaming parser, values that are not requested are
+ * skipped and the scan stops as soon as every pointer has either been found or can no longer occur. If an
+ * attribute occurs more than once within an object the first occurrence is used unless a value that encloses
+ * the attribute is requested as well, in which case both values are taken from the enclosing value as jackson
+ * reads it. A projection is immutable and can be shared between threads
+ *
+ * <pre>
+ *
+ * PayloadProjection projection = PayloadProjection.builder()
+ *                                                 .pointers(List.of("/reportId", "/subjectRef/restrictedId"))
+ *                                                 .build();
+ *
+ * Map&lt;String, JsonNode&gt; values = projection.extract(jwtHandler.handleJwt(jws).getBody());
+ * </pre>
+ */
+public class PayloadProjection
+{
+
+  /**
+   * the requested pointers in the order they were given
+   */
+  @Getter
+  private final Set<String> pointers;
+
+  /**
+   * the requested pointers as a tree of their reference tokens
+   */
+  private final Segment root = new Segment(-1);
+
+  /**
+   * @param pointers the JSON pointers whose values should be extracted e.g. "/subjectRef/restrictedId"
+   */
+  @Builder
+  public PayloadProjection(Collection<String> pointers)
+  {
+    if (pointers == null || pointers.isEmpty())
+    {
+      throw new IllegalArgumentException("At least one JSON pointer must be given");
+    }
+    this.pointers = Collections.unmodifiableSet(new LinkedHashSet<>(pointers));
+    for ( String pointer : this.pointers )
+    {
+      Segment segment = root;
+      segment.pointerCount++;
+      for ( JsonPointer tail = JsonPointer.compile(pointer) ; !tail.matches() ; tail = tail.tail() )
+      {
+        int index = tail.getMatchingIndex();
+        segment = segment.children.computeIfAbsent(tail.getMatchingProperty(), name -> new Segment(index));
+        segment.pointerCount++;
+      }
+      segment.pointer = pointer;
+    }
+  }
+
+  /**
+   * @param payload the payload of a verified JWS e.g. {@link JwtHandler.PlainJwtData#getBody()}
+   * @return the values of the requested pointers that are present within the payload by their pointers
+   */
+  public Map<String, JsonNode> extract(Payload payload)
+  {
+    return extract(payload.toBytes());
+  }
+
+  /**
+   * @param json the UTF-8 encoded JSON document
+   * @return the values of the requested pointers that are present within the document by their pointers
+   */
+  @SneakyThrows
+  public Map<String, JsonNode> extract(byte[] json)
+  {
+    Map<String, JsonNode> values = new HashMap<>();
+    try (JsonParser parser = getObjectMapper().createParser(json))
+    {
+      if (parser.nextToken() != null)
+      {
+        visit(parser, root, values, new int[1]);
+      }
+    }
+    Map<String, JsonNode> orderedValues = new LinkedHashMap<>();
+    for ( String pointer : pointers )
+    {
+      JsonNode value = values.get(pointer);
+      if (value != null)
+      {
+        orderedValues.put(pointer, value);
+      }
+    }
+    return orderedValues;
+  }
+
+  /**
+   * visits the value at the current token of the parser
+   *
+   * @param segment the segment that corresponds to the current value
+   * @param values the values that were found so far
+   * @param resolved the number of pointers that were found or that can no longer occur
+   * @return true if all pointers are resolved and the scan can be stopped
+   */
+  private boolean visit(JsonParser parser, Segment segment, Map<String, JsonNode> values, int[] resolved)
+    throws IOException
+  {
+    if (segment.pointer != null)
+    {
+      collect(getObjectMapper().readTree(parser), segment, values);
+      resolved[0] += segment.pointerCount;
+      return resolved[0] == root.pointerCount;
+    }
+    if (parser.currentToken() == JsonToken.START_OBJECT)
+    {
+      int visitedPointers = 0;
+      Set<String> visitedNames = null;
+      for ( String name = parser.nextFieldName() ; name != null ; name = parser.nextFieldName() )
+      {
+        parser.nextToken();
+        Segment child = segment.children.get(name);
+        if (child == null || visitedNames != null && visitedNames.contains(name))
+        {
+          parser.skipChildren();
+          continue;
+        }
+        if (visit(parser, child, values, resolved))
+        {
+          return true;
+        }
+        visitedPointers += child.pointerCount;
+        visitedNames = visitedNames == null ? new HashSet<>() : visitedNames;
+        visitedNames.add(name);
+      }
+      resolved[0] += segment.pointerCount - visitedPointers;
+      return resolved[0] == root.pointerCount;
+    }
+    if (parser.currentToken() == JsonToken.START_ARRAY)
+    {
+      int visitedPointers = 0;
+      for ( int index = 0 ; parser.nextToken() != JsonToken.END_ARRAY ; index++ )
+      {
+        Segment child = segment.children.get(Integer.toString(index));
+        if (child == null)
+        {
+          parser.skipChildren();
+          continue;
+        }
+        if (visit(parser, child, values, resolved))
+        {
+          return true;
+        }
+        visitedPointers += child.pointerCount;
+      }
+      resolved[0] += segment.pointerCount - visitedPointers;
+      return resolved[0] == root.pointerCount;
+    }
+    resolved[0] += segment.pointerCount;
+    return resolved[0] == root.pointerCount;
+  }
+
+  /**
+   * adds the given value and the values of all requested pointers below it
+   */
+  private static void collect(JsonNode value, Segment segment, Map<String, JsonNode> values)
+  {
+    if (segment.pointer != null)
+    {
+      values.put(segment.pointer, value);
+    }
+    for ( Map.Entry<String, Segment> child : segment.children.entrySet() )
+    {
+      JsonNode childValue = value.isArray() ? value.get(child.getValue().index) : value.get(child.getKey());
+      if (childValue != null)
+      {
+        collect(childValue, child.getValue(), values);
+      }
+    }
+  }
+
+  private static ObjectMapper getObjectMapper()
+  {
+    return ObjectMapperUtil.getObjectMapper();
+  }
+
+  /**
+   * a single reference token of the requested pointers
+   */
+  private static class Segment
+  {
+
+    /**
+     * the array index that is represented by this token or -1 if the token is not a valid index
+     */
+    private final int index;
+
+    private final Map<String, Segment> children = new HashMap<>();
+
+    /**
+     * the requested pointer that ends with this token or null
+     */
+    private String pointer;
+
+    /**
+     * the number of requested pointers that end with this token or below it
+     */
+    private int pointerCount;
+
+    public Segment(int index)
+    {
+      this.index = index;
+    }
+  }
+}
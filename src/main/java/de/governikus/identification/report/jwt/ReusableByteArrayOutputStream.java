@@ -0,0 +1,39 @@
+package de.governikus.identification.report.jwt;
+
+import java.io.ByteArrayOutputStream;
+
+
+/**
+ * a {@link ByteArrayOutputStream} that gives access to its internal buffer so that the written bytes can be
+ * processed without copying them into a new array. Instances are meant to be reused by a single thread
+ */
+class ReusableByteArrayOutputStream extends ByteArrayOutputStream
+{
+
+  /**
+   * buffers that have grown beyond this size are not kept for reuse to prevent a single large report from
+   * permanently occupying memory
+   */
+  private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+  public ReusableByteArrayOutputStream()
+  {
+    super(4096);
+  }
+
+  /**
+   * @return the internal buffer. Only the first {@link #size()} bytes are valid
+   */
+  public byte[] getBuffer()
+  {
+    return buf;
+  }
+
+  /**
+   * @return true if the internal buffer is small enough to be kept for reuse
+   */
+  public boolean isReusable()
+  {
+    return buf.length <= MAX_RETAINED_CAPACITY;
+  }
+}
@@ -0,0 +1,148 @@
+package de.governikus.identification.report.jwt;
+
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.util.Base64URL;
+
+import lombok.Getter;
+
+
+/**
+ * holds the certificates of several issuers that are accepted for signature verification. The certificates
+ * are indexed by their sha-256 thumbprint that is also added into the x5t#S256 header of each JWS created by
+ * the {@link JwtHandler}. So the fitting verifier of an incoming JWS can be found with a single lookup.<br>
+ * <br>
+ * Certificates can be added and removed at any time e.g. during a key rotation. Reading the registry does not
+ * require any locks so verifications are never blocked by concurrent modifications.
+ */
+public class VerificationKeyRegistry
+{
+
+  /**
+   * the registered keys with the base64url encoded sha-256 thumbprint of their certificate as key
+   */
+  private final Map<String, VerificationKey> verificationKeys = new ConcurrentHashMap<>();
+
+  public VerificationKeyRegistry()
+  {}
+
+  /**
+   * @param certificates the certificates that should be registered initially
+   */
+  public VerificationKeyRegistry(Collection<X509Certificate> certificates)
+  {
+    certificates.forEach(this::addCertificate);
+  }
+
+  /**
+   * registers the given certificate. A previous registration of the same certificate is replaced
+   *
+   * @param certificate the certificate to accept for signature verification
+   * @return the base64url encoded sha-256 thumbprint under which the certificate was registered
+   */
+  public String addCertificate(X509Certificate certificate)
+  {
+    Base64URL thumbprint = JwsKeyUtil.getSha256Thumbprint(certificate);
+    JWSVerifier verifier = JwsKeyUtil.createVerifier(certificate.getPublicKey());
+    verificationKeys.put(thumbprint.toString(), new VerificationKey(thumbprint, certificate, verifier));
+    return thumbprint.toString();
+  }
+
+  /**
+   * removes the given certificate from this registry
+   *
+   * @param certificate the certificate that should not be accepted anymore
+   * @return true if the certificate was registered, false else
+   */
+  public boolean removeCertificate(X509Certificate certificate)
+  {
+    return removeCertificate(JwsKeyUtil.getSha256Thumbprint(certificate).toString());
+  }
+
+  /**
+   * removes the certificate with the given thumbprint from this registry
+   *
+   * @param thumbprint the base64url encoded sha-256 thumbprint of the certificate to remove
+   * @return true if the certificate was registered, false else
+   */
+  public boolean removeCertificate(String thumbprint)
+  {
+    return verificationKeys.remove(thumbprint) != null;
+  }
+
+  /**
+   * @param thumbprint the base64url encoded sha-256 thumbprint of a certificate
+   * @return true if a certificate with the given thumbprint is registered
+   */
+  public boolean containsCertificate(String thumbprint)
+  {
+    return thumbprint != null && verificationKeys.containsKey(thumbprint);
+  }
+
+  /**
+   * @param thumbprint the base64url encoded sha-256 thumbprint of a certificate
+   * @return the registered certificate with the given thumbprint
+   */
+  public Optional<X509Certificate> getCertificate(String thumbprint)
+  {
+    return Optional.ofNullable(thumbprint).map(verificationKeys::get).map(VerificationKey::getCertificate);
+  }
+
+  /**
+   * @return the number of registered certificates
+   */
+  public int size()
+  {
+    return verificationKeys.size();
+  }
+
+  /**
+   * @param thumbprint the sha-256 thumbprint of the x5t#S256 header
+   * @return the prebuilt verifier of the certificate with the given thumbprint or null if no such certificate
+   *         is registered
+   */
+  JWSVerifier getVerifier(Base64URL thumbprint)
+  {
+    if (thumbprint == null)
+    {
+      return null;
+    }
+    VerificationKey verificationKey = verificationKeys.get(thumbprint.toString());
+    return verificationKey == null ? null : verificationKey.getVerifier();
+  }
+
+  /**
+   * a registered certificate together with its prebuilt signature verifier
+   */
+  @Getter
+  private static class VerificationKey
+  {
+
+    /**
+     * the sha-256 thumbprint of the certificate
+     */
+    private final Base64URL thumbprint;
+
+    /**
+     * the registered certificate
+     */
+    private final X509Certificate certificate;
+
+    /**
+     * the verifier that was created for the public key of the certificate
+     */
+    private final JWSVerifier verifier;
+
+    public VerificationKey(Base64URL thumbprint, X509Certificate certificate, JWSVerifier verifier)
+    {
+      this.thumbprint = thumbprint;
+      this.certificate = certificate;
+      this.verifier = verifier;
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package de.governikus.identification.report.jwt;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import com.nimbusds.jose.JWSVerifier;
+
+import de.governikus.identification.report.utils.BoundedCache;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+
+/**
+ * remembers JWS whose signatures were already verified successfully so that the same token is not verified
+ * again if it is received several times e.g. due to retries or fan-out. The tokens are identified by the
+ * SHA-256 hash of their complete compact serialization so that a cache hit does not need any signature
+ * operation. The cache is bounded by its number of entries and by the age of its entries
+ */
+public class VerifiedTokenCache
+{
+
+  /**
+   * the default maximum number of cached tokens
+   */
+  public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+  /**
+   * the default maximum age of a cached token
+   */
+  public static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
+
+  /**
+   * the verified tokens by the hash of their compact serialization
+   */
+  private final BoundedCache<String, VerifiedToken> cache;
+
+  /**
+   * @param maximumSize the maximum number of cached tokens. Defaults to {@link #DEFAULT_MAXIMUM_SIZE}
+   * @param expireAfterWrite the maximum age of a cached token. Defaults to {@link #DEFAULT_EXPIRE_AFTER_WRITE}
+   */
+  @Builder
+  public VerifiedTokenCache(Integer maximumSize, Duration expireAfterWrite)
+  {
+    this.cache = new BoundedCache<>(Optional.ofNullable(maximumSize).orElse(DEFAULT_MAXIMUM_SIZE),
+                                    Optional.ofNullable(expireAfterWrite).orElse(DEFAULT_EXPIRE_AFTER_WRITE));
+  }
+
+  /**
+   * @return the number of verifications that were answered from the cache
+   */
+  public long getHitCount()
+  {
+    return cache.getHitCount();
+  }
+
+  /**
+   * @return the number of verifications that had to verify the signature
+   */
+  public long getMissCount()
+  {
+    return cache.getMissCount();
+  }
+
+  /**
+   * @return the ratio of cache hits to all verifications
+   */
+  public double getHitRate()
+  {
+    return cache.getHitRate();
+  }
+
+  /**
+   * @return the current number of cached tokens
+   */
+  public int size()
+  {
+    return cache.size();
+  }
+
+  /**
+   * removes all cached tokens
+   */
+  public void clear()
+  {
+    cache.clear();
+  }
+
+  /**
+   * @param key the hash of the token
+   * @param validator checks if the cached token can still be accepted. Tokens that are not accepted anymore are
+   *          removed from the cache
+   * @return the verified token or null if the token is not cached
+   */
+  VerifiedToken get(String key, Predicate<VerifiedToken> validator)
+  {
+    return cache.get(key, validator);
+  }
+
+  /**
+   * remembers a successfully verified token
+   *
+   * @param key the hash of the token
+   * @param plainJwtData the verified data of the token
+   * @param jwsVerifier the verifier that has verified the signature of the token
+   */
+  void put(String key, JwtHandler.PlainJwtData plainJwtData, JWSVerifier jwsVerifier)
+  {
+    cache.put(key, new VerifiedToken(plainJwtData, jwsVerifier));
+  }
+
+  /**
+   * @return the cache key of the given compact serialized JWS
+   */
+  static String getKey(String jws)
+  {
+    return getKey(ByteBuffer.wrap(jws.getBytes(StandardCharsets.US_ASCII)));
+  }
+
+  /**
+   * @return the cache key of the given ASCII bytes of a compact serialized JWS
+   */
+  static String getKey(byte[] jws)
+  {
+    return getKey(ByteBuffer.wrap(jws));
+  }
+
+  /**
+   * @return the cache key of the remaining ASCII bytes of a compact serialized JWS. The position of the buffer
+   *         is not changed
+   */
+  @SneakyThrows
+  static String getKey(ByteBuffer jws)
+  {
+    MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+    messageDigest.update(jws.duplicate());
+    return Base64.getEncoder().encodeToString(messageDigest.digest());
+  }
+
+  /**
+   * the verified data of a token together with the verifier that has verified its signature. The verifier is
+   * used to detect that the verification key has been removed or replaced since the token was cached
+   */
+  @Getter
+  static class VerifiedToken
+  {
+
+    private final JwtHandler.PlainJwtData plainJwtData;
+
+    private final JWSVerifier jwsVerifier;
+
+    public VerifiedToken(JwtHandler.PlainJwtData plainJwtData, JWSVerifier jwsVerifier)
+    {
+      this.plainJwtData = plainJwtData;
+      this.jwsVerifier = jwsVerifier;
+    }
+  }
+}
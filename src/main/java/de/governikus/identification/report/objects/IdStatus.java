@@ -1,5 +1,11 @@
 package de.governikus.identification.report.objects;
 
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 
 import lombok.AllArgsConstructor;
@@ -17,8 +23,36 @@ public enum IdStatus
 
   SUCCESS("success"), INCOMPLETE("incomplete"), FAILURE("failure"), UNKNOWN("unknown");
 
+  /**
+   * the constants by their values
+   */
+  private static final Map<String, IdStatus> BY_VALUE = Stream.of(values())
+                                                              .collect(Collectors.toUnmodifiableMap(IdStatus::value,
+                                                                                                    Function.identity()));
+
   private final String value;
 
+  /**
+   * used by jackson to identify the enum constant based on its value when deserializing a json string
+   *
+   * @param value the value of the status
+   * @return the status or null if the value is null
+   */
+  @JsonCreator
+  public static IdStatus forValue(String value)
+  {
+    if (value == null)
+    {
+      return null;
+    }
+    IdStatus idStatus = BY_VALUE.get(value);
+    if (idStatus == null)
+    {
+      throw new IllegalArgumentException(String.format("Cannot deserialize value for IdStatus '%s'", value));
+    }
+    return idStatus;
+  }
+
   @JsonValue
   public String value()
   {
@@ -1,24 +1,28 @@
 package de.governikus.identification.report.objects;
 
+import java.io.InputStream;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
-import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.generator.GenerateJsonCodec;
 import de.governikus.identification.report.objects.subjects.SubjectRef;
 import de.governikus.identification.report.utils.ObjectMapperUtil;
-import de.governikus.identification.report.validation.SchemaValidator;
+import de.governikus.identification.report.validation.ReportValidationResult;
+import de.governikus.identification.report.validation.ReportValidator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -37,9 +41,26 @@ import lombok.extern.slf4j.Slf4j;
 @AllArgsConstructor
 @NoArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
+@GenerateJsonCodec
 public class IdentificationReport<T extends SubjectRef>
 {
 
+  /**
+   * validates the report together with its subject reference within the calling thread
+   */
+  private static final ReportValidator REPORT_VALIDATOR = ReportValidator.builder().build();
+
+  /**
+   * reads reports without closing the given streams
+   */
+  private static final ObjectReader READER = ObjectMapperUtil.getReader(IdentificationReport.class)
+                                                             .without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+  /**
+   * the readers of {@link #READER} with a fixed type of the {@link #subjectRef}
+   */
+  private static final Map<Class<? extends SubjectRef>, ObjectReader> TYPED_READERS = new ConcurrentHashMap<>();
+
   /**
    * Must be unique to a single report. GUID is recommended here
    */
@@ -128,8 +149,35 @@ public class IdentificationReport<T extends SubjectRef>
   @SneakyThrows
   public static IdentificationReport<? extends SubjectRef> fromJson(String json)
   {
-    JsonNode node = ObjectMapperUtil.getObjectMapper().readTree(json);
-    return fromJson(node);
+    return getReader(null).readValue(json);
+  }
+
+  /**
+   * will parse the given UTF-8 encoded json into an identification report with an internal {@link #subjectRef}
+   * that is determined automatically by the inline value of {@link #subjectRefType}
+   *
+   * @param json the json bytes to parse evaluating the value of {@link #subjectRefType}
+   * @return the representational identification report
+   */
+  @JsonIgnore
+  @SneakyThrows
+  public static IdentificationReport<? extends SubjectRef> fromJson(byte[] json)
+  {
+    return getReader(null).readValue(json);
+  }
+
+  /**
+   * will parse the given json stream into an identification report with an internal {@link #subjectRef} that is
+   * determined automatically by the inline value of {@link #subjectRefType}. The stream is not closed
+   *
+   * @param json the json stream to parse evaluating the value of {@link #subjectRefType}
+   * @return the representational identification report
+   */
+  @JsonIgnore
+  @SneakyThrows
+  public static IdentificationReport<? extends SubjectRef> fromJson(InputStream json)
+  {
+    return getReader(null).readValue(json);
   }
 
   /**
@@ -143,36 +191,7 @@ public class IdentificationReport<T extends SubjectRef>
   @SneakyThrows
   public static <R extends SubjectRef> IdentificationReport<R> fromJson(JsonNode jsonNode)
   {
-    final String subjectRefKey = "subjectRef";
-    final String subjectRefTypeKey = "subjectRefType";
-
-    // 1. Determine the subjectRef type using the schema id
-    String subjectRefType = jsonNode.has(subjectRefTypeKey) ? jsonNode.get(subjectRefTypeKey).asText() : null;
-    Class<R> type = (Class<R>)SchemaConstants.getSubType(subjectRefType);
-
-    JsonNode subjectRefJson = jsonNode.get(subjectRefKey);
-
-    if (type == null && subjectRefJson != null)
-    {
-      throw new IllegalStateException(String.format("Unregistered schema with id '%s' found. Register the schema first with its corresponding subtype.",
-                                                    subjectRefType));
-    }
-
-    // 2. Remove subjectRef from the main node before deserialization
-    ObjectNode copy = jsonNode.deepCopy();
-    copy.remove(subjectRefKey);
-
-    IdentificationReport<R> identificationReport = ObjectMapperUtil.getObjectMapper()
-                                                                   .treeToValue(copy, IdentificationReport.class);
-
-    if (type == null)
-    {
-      return identificationReport;
-    }
-
-    R subjectRef = ObjectMapperUtil.getObjectMapper().treeToValue(subjectRefJson, type);
-    identificationReport.setSubjectRef(subjectRef);
-    return identificationReport;
+    return getReader(null).readValue(jsonNode);
   }
 
   /**
@@ -189,8 +208,39 @@ public class IdentificationReport<T extends SubjectRef>
   @SneakyThrows
   public static <T extends SubjectRef> IdentificationReport<T> fromJson(String json, Class<T> subjectRefType)
   {
-    JsonNode node = ObjectMapperUtil.getObjectMapper().readTree(json);
-    return fromJson(node, subjectRefType);
+    return getReader(subjectRefType).readValue(json);
+  }
+
+  /**
+   * will parse the given UTF-8 encoded json into an identification report with an internal {@link #subjectRef}
+   * of the given type
+   *
+   * @param json the json bytes to parse
+   * @param subjectRefType the type of the {@link #subjectRef}
+   * @return the representational identification report
+   * @param <T> a subtype of {@link SubjectRef}
+   */
+  @JsonIgnore
+  @SneakyThrows
+  public static <T extends SubjectRef> IdentificationReport<T> fromJson(byte[] json, Class<T> subjectRefType)
+  {
+    return getReader(subjectRefType).readValue(json);
+  }
+
+  /**
+   * will parse the given json stream into an identification report with an internal {@link #subjectRef} of the
+   * given type. The stream is not closed
+   *
+   * @param json the json stream to parse
+   * @param subjectRefType the type of the {@link #subjectRef}
+   * @return the representational identification report
+   * @param <T> a subtype of {@link SubjectRef}
+   */
+  @JsonIgnore
+  @SneakyThrows
+  public static <T extends SubjectRef> IdentificationReport<T> fromJson(InputStream json, Class<T> subjectRefType)
+  {
+    return getReader(subjectRefType).readValue(json);
   }
 
   /**
@@ -207,34 +257,51 @@ public class IdentificationReport<T extends SubjectRef>
   @SneakyThrows
   public static <T extends SubjectRef> IdentificationReport<T> fromJson(JsonNode jsonNode, Class<T> subjectRefType)
   {
-    final String subjectRefKey = "subjectRef";
-
-    // Extract and deserialize the subjectRef
-    JsonNode subjectRefNode = jsonNode.get(subjectRefKey);
-    T subjectRef = ObjectMapperUtil.getObjectMapper().treeToValue(subjectRefNode, subjectRefType);
-
-    // Remove subjectRef from the main node before deserialization
-    ObjectNode copy = jsonNode.deepCopy();
-    copy.remove(subjectRefKey);
-
-    // Deserialize the rest of the IdentificationReport
-    IdentificationReport<T> identificationReport = ObjectMapperUtil.getObjectMapper()
-                                                                   .treeToValue(copy, IdentificationReport.class);
+    return getReader(subjectRefType).readValue(jsonNode);
+  }
 
-    identificationReport.setSubjectRef(subjectRef);
-    return identificationReport;
+  /**
+   * @param subjectRefType the type of the {@link #subjectRef} or null if it should be resolved from the
+   *          {@link #subjectRefType}
+   * @return a reader that deserializes the report with the {@link IdentificationReportDeserializer}
+   */
+  static ObjectReader getReader(Class<? extends SubjectRef> subjectRefType)
+  {
+    if (subjectRefType == null)
+    {
+      return READER;
+    }
+    return TYPED_READERS.computeIfAbsent(subjectRefType,
+                                         type -> READER.withAttribute(IdentificationReportDeserializer.SUBJECT_REF_TYPE_ATTRIBUTE,
+                                                                      type));
   }
 
   /**
-   * verifies if this object matches against its schemas definition
+   * verifies if this object matches against its schemas definition. The {@link #subjectRef} is validated within
+   * the same pass and its errors are logged but do not fail the report. Use {@link #validateWithSubjectRef()}
+   * if an invalid subject reference should fail the report
    *
    * @return true if the schema validation succeeds, false else
    */
   public boolean validate()
   {
-    Optional.ofNullable(subjectRef).ifPresent(SubjectRef::validate);
-    return SchemaValidator.isJsonValid(SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION,
-                                       ObjectMapperUtil.getObjectMapper().valueToTree(this));
+    ReportValidationResult result = validateWithSubjectRef();
+    if (log.isInfoEnabled())
+    {
+      result.getSubjectRefErrors().forEach(error -> log.info(error.getMessage()));
+      result.getReportErrors().forEach(error -> log.info(error.getMessage()));
+    }
+    return result.getReportErrors().isEmpty();
+  }
+
+  /**
+   * validates this object together with its {@link #subjectRef} against their schemas definitions
+   *
+   * @return the combined result of the report and its subject reference
+   */
+  public ReportValidationResult validateWithSubjectRef()
+  {
+    return REPORT_VALIDATOR.validate(this);
   }
 
   /**
@@ -0,0 +1,218 @@
+package de.governikus.identification.report.objects;
+
+import java.io.IOException;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.BeanDeserializer;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBase;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.impl.BeanPropertyMap;
+import com.fasterxml.jackson.databind.deser.impl.ObjectIdReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.objects.subjects.SubjectRef;
+
+
+/**
+ * deserializes an {@link IdentificationReport} in a single pass over the parser. The type of the
+ * {@link IdentificationReport#getSubjectRef()} is resolved from the {@code subjectRefType} attribute with
+ * {@link SchemaConstants#getSubType(String)}. If the {@code subjectRefType} attribute follows the
+ * {@code subjectRef} attribute within the document only the tokens of the {@code subjectRef} are buffered
+ * until the type is known. All other attributes are read by the generated
+ * {@link IdentificationReportJsonDeserializer} and unknown attributes are handled by the default bean
+ * deserializer of the report
+ *
+ * @see Modifier
+ */
+public class IdentificationReportDeserializer extends BeanDeserializer
+{
+
+  /**
+   * the name of the {@link DeserializationContext} attribute that fixes the type of the subject reference
+   * regardless of the {@code subjectRefType} attribute
+   */
+  static final String SUBJECT_REF_TYPE_ATTRIBUTE = IdentificationReportDeserializer.class.getName() + ".subjectRefType";
+
+  private static final String SUBJECT_REF = "subjectRef";
+
+  /**
+   * reads the declared attributes of the report. It is resolved together with this deserializer
+   */
+  private final IdentificationReportJsonDeserializer propertyDeserializer;
+
+  /**
+   * @param src the default bean deserializer of the {@link IdentificationReport}
+   */
+  protected IdentificationReportDeserializer(BeanDeserializerBase src)
+  {
+    this(src, new IdentificationReportJsonDeserializer());
+  }
+
+  private IdentificationReportDeserializer(BeanDeserializerBase src,
+                                           IdentificationReportJsonDeserializer propertyDeserializer)
+  {
+    super(src);
+    this.propertyDeserializer = propertyDeserializer;
+  }
+
+  @Override
+  public void resolve(DeserializationContext ctxt) throws JsonMappingException
+  {
+    super.resolve(ctxt);
+    propertyDeserializer.resolve(ctxt);
+  }
+
+  @Override
+  public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException
+  {
+    final String firstName;
+    if (_nonStandardCreation)
+    {
+      return super.deserialize(p, ctxt);
+    }
+    else if (p.isExpectedStartObjectToken())
+    {
+      firstName = p.nextFieldName();
+    }
+    else if (p.hasToken(JsonToken.FIELD_NAME) || p.hasToken(JsonToken.END_OBJECT))
+    {
+      firstName = p.currentName();
+    }
+    else
+    {
+      return super.deserialize(p, ctxt);
+    }
+    IdentificationReport<SubjectRef> report = (IdentificationReport<SubjectRef>)_valueInstantiator.createUsingDefault(ctxt);
+    p.assignCurrentValue(report);
+    TokenBuffer bufferedSubjectRef = null;
+    for ( String name = firstName ; name != null ; name = p.nextFieldName() )
+    {
+      JsonToken token = p.nextToken();
+      if (!SUBJECT_REF.equals(name))
+      {
+        deserializeProperty(p, ctxt, report, name);
+      }
+      else if (token == JsonToken.VALUE_NULL)
+      {
+        report.setSubjectRef(null);
+      }
+      else
+      {
+        Class<? extends SubjectRef> type = getSubjectRefType(ctxt, report);
+        if (type == null)
+        {
+          bufferedSubjectRef = ctxt.bufferAsCopyOfValue(p);
+        }
+        else
+        {
+          report.setSubjectRef(ctxt.readValue(p, type));
+        }
+      }
+    }
+    if (bufferedSubjectRef != null)
+    {
+      Class<? extends SubjectRef> type = getSubjectRefType(ctxt, report);
+      if (type == null)
+      {
+        throw new IllegalStateException(String.format("Unregistered schema with id '%s' found. Register the schema first with its corresponding subtype.",
+                                                      report.getSubjectRefType()));
+      }
+      try (JsonParser bufferedParser = bufferedSubjectRef.asParserOnFirstToken())
+      {
+        report.setSubjectRef(ctxt.readValue(bufferedParser, type));
+      }
+    }
+    return report;
+  }
+
+  /**
+   * sets a single attribute of the report with the generated deserializer or with the default handling of the
+   * bean deserializer if the attribute is unknown
+   */
+  private void deserializeProperty(JsonParser p,
+                                   DeserializationContext ctxt,
+                                   IdentificationReport<SubjectRef> report,
+                                   String name)
+    throws IOException
+  {
+    try
+    {
+      if (!propertyDeserializer.deserializeProperty(p, ctxt, report, name))
+      {
+        handleUnknownVanilla(p, ctxt, report, name);
+      }
+    }
+    catch (Exception ex)
+    {
+      wrapAndThrow(ex, report, name, ctxt);
+    }
+  }
+
+  /**
+   * @return the type that was given for the whole deserialization or the type that is registered for the
+   *         {@code subjectRefType} that has been read so far
+   */
+  private static Class<? extends SubjectRef> getSubjectRefType(DeserializationContext ctxt,
+                                                               IdentificationReport<?> report)
+  {
+    Class<? extends SubjectRef> type = (Class<? extends SubjectRef>)ctxt.getAttribute(SUBJECT_REF_TYPE_ATTRIBUTE);
+    if (type != null)
+    {
+      return type;
+    }
+    return SchemaConstants.getSubType(report.getSubjectRefType());
+  }
+
+  @Override
+  public BeanDeserializer withObjectIdReader(ObjectIdReader oir)
+  {
+    return new IdentificationReportDeserializer(super.withObjectIdReader(oir), propertyDeserializer);
+  }
+
+  @Override
+  public BeanDeserializer withByNameInclusion(Set<String> ignorableProps, Set<String> includableProps)
+  {
+    return new IdentificationReportDeserializer(super.withByNameInclusion(ignorableProps, includableProps),
+                                                propertyDeserializer);
+  }
+
+  @Override
+  public BeanDeserializerBase withIgnoreAllUnknown(boolean ignoreUnknown)
+  {
+    return new IdentificationReportDeserializer(super.withIgnoreAllUnknown(ignoreUnknown), propertyDeserializer);
+  }
+
+  @Override
+  public BeanDeserializerBase withBeanProperties(BeanPropertyMap props)
+  {
+    return new IdentificationReportDeserializer(super.withBeanProperties(props), propertyDeserializer);
+  }
+
+  /**
+   * replaces the default bean deserializer of the {@link IdentificationReport} with the
+   * {@link IdentificationReportDeserializer}
+   */
+  public static class Modifier extends BeanDeserializerModifier
+  {
+
+    @Override
+    public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config,
+                                                  BeanDescription beanDesc,
+                                                  JsonDeserializer<?> deserializer)
+    {
+      if (beanDesc.getBeanClass() == IdentificationReport.class && deserializer instanceof BeanDeserializer)
+      {
+        return new IdentificationReportDeserializer((BeanDeserializer)deserializer);
+      }
+      return deserializer;
+    }
+  }
+}
@@ -0,0 +1,520 @@
+package de.governikus.identification.report.objects;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.objects.subjects.SubjectRef;
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+import lombok.SneakyThrows;
+
+
+/**
+ * a read-only view of an {@link IdentificationReport} that is backed by its UTF-8 encoded JSON document. The
+ * positions of the top-level attributes are indexed with a single pass over the document on first access but
+ * an attribute is only decoded when its getter is called. The {@link #getSubjectRef()}, the
+ * {@link #getDocumentReferences()} and unknown attributes remain undecoded unless they are requested. Each
+ * attribute is decoded at most once. The given bytes are not copied and must not be modified while the view
+ * is in use
+ */
+public class IdentificationReportView
+{
+
+  private static final String REPORT_ID = "reportId";
+
+  private static final String SERVER_IDENTITY = "serverIdentity";
+
+  private static final String REPORT_TIME = "reportTime";
+
+  private static final String IDENTIFICATION_TIME = "identificationTime";
+
+  private static final String TRUST_FRAMEWORK = "trustFramework";
+
+  private static final String LEVEL_OF_ASSURANCE = "levelOfAssurance";
+
+  private static final String ID_STATUS = "idStatus";
+
+  private static final String ID_STATEMENT = "idStatement";
+
+  private static final String SUBJECT_REF_TYPE = "subjectRefType";
+
+  private static final String SUBJECT_REF = "subjectRef";
+
+  private static final String CONTEXT_INFORMATION = "contextInformation";
+
+  private static final String DOCUMENT_REFERENCES = "documentReferences";
+
+  /**
+   * the attributes that are declared by the {@link IdentificationReport}
+   */
+  private static final Set<String> DECLARED_ATTRIBUTES = Set.of(REPORT_ID,
+                                                                SERVER_IDENTITY,
+                                                                REPORT_TIME,
+                                                                IDENTIFICATION_TIME,
+                                                                TRUST_FRAMEWORK,
+                                                                LEVEL_OF_ASSURANCE,
+                                                                ID_STATUS,
+                                                                ID_STATEMENT,
+                                                                SUBJECT_REF_TYPE,
+                                                                SUBJECT_REF,
+                                                                CONTEXT_INFORMATION,
+                                                                DOCUMENT_REFERENCES);
+
+  private static final ObjectReader CONTEXT_INFORMATION_READER = ObjectMapperUtil.getObjectMapper()
+                                                                                 .readerFor(new TypeReference<List<String>>()
+                                                                                 {});
+
+  private static final ObjectReader DOCUMENT_REFERENCES_READER = ObjectMapperUtil.getObjectMapper()
+                                                                                 .readerFor(new TypeReference<List<ObjectNode>>()
+                                                                                 {});
+
+  private final byte[] json;
+
+  private final int offset;
+
+  private final int length;
+
+  /**
+   * the positions of the top-level attributes. Created on first access
+   */
+  private volatile Map<String, Segment> index;
+
+  /**
+   * the attributes that have been decoded so far
+   */
+  private final Map<String, Optional<Object>> decodedValues = new ConcurrentHashMap<>();
+
+  private IdentificationReportView(byte[] json, int offset, int length)
+  {
+    Objects.checkFromIndexSize(offset, length, json.length);
+    this.json = json;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * creates a view of the given document. The document is not parsed until an attribute is accessed
+   *
+   * @param json the UTF-8 encoded JSON representation of a report
+   * @return the view of the report
+   */
+  public static IdentificationReportView fromJson(byte[] json)
+  {
+    return new IdentificationReportView(json, 0, json.length);
+  }
+
+  /**
+   * creates a view of a document within the given buffer. The document is not parsed until an attribute is
+   * accessed
+   *
+   * @param json the buffer that contains the UTF-8 encoded JSON representation of a report
+   * @param offset the position of the document within the buffer
+   * @param length the length of the document
+   * @return the view of the report
+   */
+  public static IdentificationReportView fromJson(byte[] json, int offset, int length)
+  {
+    return new IdentificationReportView(json, offset, length);
+  }
+
+  /**
+   * @see IdentificationReport#getReportId()
+   */
+  public String getReportId()
+  {
+    return getString(REPORT_ID);
+  }
+
+  /**
+   * @see IdentificationReport#getServerIdentity()
+   */
+  public String getServerIdentity()
+  {
+    return getString(SERVER_IDENTITY);
+  }
+
+  /**
+   * @see IdentificationReport#getReportTime()
+   */
+  public Instant getReportTime()
+  {
+    return getInstant(REPORT_TIME);
+  }
+
+  /**
+   * @see IdentificationReport#getIdentificationTime()
+   */
+  public Instant getIdentificationTime()
+  {
+    return getInstant(IDENTIFICATION_TIME);
+  }
+
+  /**
+   * @see IdentificationReport#getTrustFramework()
+   */
+  public String getTrustFramework()
+  {
+    return getString(TRUST_FRAMEWORK);
+  }
+
+  /**
+   * @return the level of assurance, {@link LevelOfAssurance#UNKNOWN} if the attribute is null or null if the
+   *         attribute is missing
+   * @see IdentificationReport#getLevelOfAssurance()
+   */
+  public LevelOfAssurance getLevelOfAssurance()
+  {
+    return getDecodedValue(LEVEL_OF_ASSURANCE, segment -> LevelOfAssurance.forValue(readString(segment)));
+  }
+
+  /**
+   * @see IdentificationReport#getIdStatus()
+   */
+  public IdStatus getIdStatus()
+  {
+    return getDecodedValue(ID_STATUS, segment -> IdStatus.forValue(readString(segment)));
+  }
+
+  /**
+   * @see IdentificationReport#getIdStatement()
+   */
+  public String getIdStatement()
+  {
+    return getString(ID_STATEMENT);
+  }
+
+  /**
+   * @see IdentificationReport#getSubjectRefType()
+   */
+  public String getSubjectRefType()
+  {
+    return getString(SUBJECT_REF_TYPE);
+  }
+
+  /**
+   * decodes the subject reference with the type that is registered for the {@link #getSubjectRefType()}
+   *
+   * @return the subject reference or null if the attribute is missing or null
+   * @throws IllegalStateException if no type is registered for the {@link #getSubjectRefType()}
+   * @see IdentificationReport#getSubjectRef()
+   */
+  public SubjectRef getSubjectRef()
+  {
+    Segment segment = getIndex().get(SUBJECT_REF);
+    if (segment == null || segment.token == JsonToken.VALUE_NULL)
+    {
+      return null;
+    }
+    Class<? extends SubjectRef> type = SchemaConstants.getSubType(getSubjectRefType());
+    if (type == null)
+    {
+      throw new IllegalStateException(String.format("Unregistered schema with id '%s' found. Register the schema first with its corresponding subtype.",
+                                                    getSubjectRefType()));
+    }
+    return getSubjectRef(type);
+  }
+
+  /**
+   * decodes the subject reference with the given type regardless of the {@link #getSubjectRefType()}
+   *
+   * @param subjectRefType the type of the subject reference
+   * @return the subject reference or null if the attribute is missing or null
+   * @param <T> a subtype of {@link SubjectRef}
+   */
+  public <T extends SubjectRef> T getSubjectRef(Class<T> subjectRefType)
+  {
+    return getDecodedValue(SUBJECT_REF,
+                           SUBJECT_REF + '#' + subjectRefType.getName(),
+                           segment -> readValue(ObjectMapperUtil.getReader(subjectRefType), segment));
+  }
+
+  /**
+   * @see IdentificationReport#getContextInformation()
+   */
+  public List<String> getContextInformation()
+  {
+    return getDecodedValue(CONTEXT_INFORMATION, segment -> readValue(CONTEXT_INFORMATION_READER, segment));
+  }
+
+  /**
+   * @see IdentificationReport#getDocumentReferences()
+   */
+  public List<ObjectNode> getDocumentReferences()
+  {
+    return getDecodedValue(DOCUMENT_REFERENCES, segment -> readValue(DOCUMENT_REFERENCES_READER, segment));
+  }
+
+  /**
+   * decodes all attributes that are not declared by the {@link IdentificationReport}
+   *
+   * @see IdentificationReport#getKeyValueMap()
+   */
+  public Map<String, Object> getKeyValueMap()
+  {
+    Map<String, Object> keyValueMap = new HashMap<>();
+    for ( String name : getIndex().keySet() )
+    {
+      if (!DECLARED_ATTRIBUTES.contains(name))
+      {
+        keyValueMap.put(name, getAttribute(name));
+      }
+    }
+    return keyValueMap;
+  }
+
+  /**
+   * decodes a single attribute of the report into its untyped representation
+   *
+   * @param name the name of the attribute
+   * @return the maps, lists and scalar values of the attribute or null if the attribute is missing or null
+   */
+  public Object getAttribute(String name)
+  {
+    return getDecodedValue(name,
+                           name + "#" + Object.class.getName(),
+                           segment -> readValue(ObjectMapperUtil.getReader(Object.class), segment));
+  }
+
+  /**
+   * @return the names of all top-level attributes of the report in the order of the document
+   */
+  public Set<String> getAttributeNames()
+  {
+    return Collections.unmodifiableSet(getIndex().keySet());
+  }
+
+  /**
+   * @return true if the report contains the attribute even if its value is null
+   */
+  public boolean hasAttribute(String name)
+  {
+    return getIndex().containsKey(name);
+  }
+
+  /**
+   * decodes the whole document
+   *
+   * @return the report with a subject reference of the type that is registered for the
+   *         {@link #getSubjectRefType()}
+   */
+  @SneakyThrows
+  public IdentificationReport<? extends SubjectRef> toReport()
+  {
+    return IdentificationReport.getReader(null).readValue(json, offset, length);
+  }
+
+  /**
+   * decodes the whole document
+   *
+   * @param subjectRefType the type of the subject reference
+   * @return the report with a subject reference of the given type
+   * @param <T> a subtype of {@link SubjectRef}
+   */
+  @SneakyThrows
+  public <T extends SubjectRef> IdentificationReport<T> toReport(Class<T> subjectRefType)
+  {
+    return IdentificationReport.getReader(subjectRefType).readValue(json, offset, length);
+  }
+
+  private String getString(String name)
+  {
+    return getDecodedValue(name, this::readString);
+  }
+
+  private Instant getInstant(String name)
+  {
+    Instant instant = getDecodedValue(name, segment -> readValue(ObjectMapperUtil.getReader(Instant.class), segment));
+    return instant == null ? null : instant.truncatedTo(ChronoUnit.MILLIS);
+  }
+
+  private <T> T getDecodedValue(String name, Decoder<T> decoder)
+  {
+    return getDecodedValue(name, name, decoder);
+  }
+
+  /**
+   * decodes the attribute on first access
+   *
+   * @param name the name of the attribute
+   * @param key the key of the decoded value
+   * @param decoder decodes the value of the attribute
+   * @return the decoded value or null if the attribute is missing
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T getDecodedValue(String name, String key, Decoder<T> decoder)
+  {
+    Segment segment = getIndex().get(name);
+    if (segment == null)
+    {
+      return null;
+    }
+    Optional<Object> value = decodedValues.get(key);
+    if (value == null)
+    {
+      value = Optional.ofNullable(decode(decoder, segment));
+      decodedValues.putIfAbsent(key, value);
+    }
+    // the value of a key is always created by a decoder of the same type
+    return (T)value.orElse(null);
+  }
+
+  @SneakyThrows
+  private static <T> T decode(Decoder<T> decoder, Segment segment)
+  {
+    return decoder.decode(segment);
+  }
+
+  /**
+   * reads a string without the overhead of an {@link ObjectReader}. Strings without escape sequences are
+   * decoded directly from the buffer. Other scalars are coerced into a string as the
+   * {@link IdentificationReport} does
+   */
+  private String readString(Segment segment) throws IOException
+  {
+    if (segment.token == JsonToken.VALUE_NULL)
+    {
+      return null;
+    }
+    if (segment.token != JsonToken.VALUE_STRING)
+    {
+      return readValue(ObjectMapperUtil.getReader(String.class), segment);
+    }
+    int contentStart = segment.start + 1;
+    int contentEnd = segment.end - 1;
+    boolean escaped = false;
+    for ( int i = contentStart ; i < contentEnd && !escaped ; i++ )
+    {
+      escaped = json[i] == '\\';
+    }
+    if (!escaped)
+    {
+      return new String(json, contentStart, contentEnd - contentStart, StandardCharsets.UTF_8);
+    }
+    try (JsonParser parser = getJsonFactory().createParser(json, segment.start, segment.end - segment.start))
+    {
+      parser.nextToken();
+      return parser.getText();
+    }
+  }
+
+  private <T> T readValue(ObjectReader reader, Segment segment) throws IOException
+  {
+    if (segment.token == JsonToken.VALUE_NULL)
+    {
+      return null;
+    }
+    return reader.readValue(json, segment.start, segment.end - segment.start);
+  }
+
+  /**
+   * @return the positions of the top-level attributes. The index is created once on first access
+   */
+  private Map<String, Segment> getIndex()
+  {
+    Map<String, Segment> currentIndex = index;
+    if (currentIndex == null)
+    {
+      synchronized (this)
+      {
+        currentIndex = index;
+        if (currentIndex == null)
+        {
+          currentIndex = createIndex();
+          index = currentIndex;
+        }
+      }
+    }
+    return currentIndex;
+  }
+
+  /**
+   * skips over the document and records the position of each top-level value. The values are tokenized but not
+   * decoded
+   */
+  @SneakyThrows
+  private Map<String, Segment> createIndex()
+  {
+    Map<String, Segment> attributes = new LinkedHashMap<>();
+    try (JsonParser parser = getJsonFactory().createParser(json, offset, length))
+    {
+      if (parser.nextToken() != JsonToken.START_OBJECT)
+      {
+        throw new IllegalArgumentException("The identification report must be a JSON object");
+      }
+      for ( String name = parser.nextFieldName() ; name != null ; name = parser.nextFieldName() )
+      {
+        JsonToken token = parser.nextToken();
+        int start = offset + (int)parser.currentTokenLocation().getByteOffset();
+        if (token.isStructStart())
+        {
+          parser.skipChildren();
+        }
+        else
+        {
+          parser.finishToken();
+        }
+        int end = offset + (int)parser.currentLocation().getByteOffset();
+        // the last occurrence of an attribute wins as it does when the report is deserialized
+        attributes.remove(name);
+        attributes.put(name, new Segment(token, start, end));
+      }
+    }
+    return Collections.unmodifiableMap(attributes);
+  }
+
+  private static JsonFactory getJsonFactory()
+  {
+    return ObjectMapperUtil.getObjectMapper().getFactory();
+  }
+
+  /**
+   * decodes a single attribute
+   */
+  @FunctionalInterface
+  private interface Decoder<T>
+  {
+
+    T decode(Segment segment) throws IOException;
+  }
+
+  /**
+   * the position of a value within the document
+   */
+  private static class Segment
+  {
+
+    /**
+     * the first token of the value
+     */
+    private final JsonToken token;
+
+    private final int start;
+
+    private final int end;
+
+    public Segment(JsonToken token, int start, int end)
+    {
+      this.token = token;
+      this.start = start;
+      this.end = end;
+    }
+  }
+}
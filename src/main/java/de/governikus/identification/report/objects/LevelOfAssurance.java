@@ -1,5 +1,10 @@
 package de.governikus.identification.report.objects;
 
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 
@@ -24,6 +29,13 @@ public enum LevelOfAssurance
   BSI_EID_LOW("http://bsi.bund.de/eID/LoA/normal"),
   UNKNOWN("unknown");
 
+  /**
+   * the constants by their values
+   */
+  private static final Map<String, LevelOfAssurance> BY_VALUE = Stream.of(values())
+                                                                      .collect(Collectors.toUnmodifiableMap(LevelOfAssurance::getValue,
+                                                                                                            Function.identity()));
+
   /**
    * the string value that is representing this level of assurance
    */
@@ -49,12 +61,10 @@ public enum LevelOfAssurance
     {
       return UNKNOWN;
     }
-    for ( LevelOfAssurance levelOfAssurance : values() )
+    LevelOfAssurance levelOfAssurance = BY_VALUE.get(value);
+    if (levelOfAssurance != null)
     {
-      if (levelOfAssurance.value.equals(value))
-      {
-        return levelOfAssurance;
-      }
+      return levelOfAssurance;
     }
     throw new IllegalStateException(String.format("Cannot deserialize value for LevelOfAssurance '%s'", value));
   }
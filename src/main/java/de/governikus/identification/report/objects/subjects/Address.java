@@ -2,6 +2,7 @@ package de.governikus.identification.report.objects.subjects;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 
+import de.governikus.identification.report.generator.GenerateJsonCodec;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,6 +18,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
+@GenerateJsonCodec
 public class Address
 {
 
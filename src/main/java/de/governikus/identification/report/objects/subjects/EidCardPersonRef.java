@@ -5,6 +5,8 @@ import java.util.Map;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.generator.GenerateJsonCodec;
+import de.governikus.identification.report.generator.IndexSubjectRefType;
 import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -19,6 +21,9 @@ import lombok.NoArgsConstructor;
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
+@GenerateJsonCodec
+@IndexSubjectRefType(location = SchemaConstants.Locations.EID_CARD_SCHEMA_LOCATION, aliases = "https://raw.githubusercontent.com/Governikus/IdentificationReport/2.0.0"
+                                                                                              + "/schema/eid-card.json")
 public class EidCardPersonRef extends SubjectRef
 {
 
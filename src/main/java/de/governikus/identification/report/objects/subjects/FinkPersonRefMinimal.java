@@ -3,6 +3,8 @@ package de.governikus.identification.report.objects.subjects;
 import java.util.Map;
 
 import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.generator.GenerateJsonCodec;
+import de.governikus.identification.report.generator.IndexSubjectRefType;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,6 +16,9 @@ import lombok.NoArgsConstructor;
  */
 @Data
 @NoArgsConstructor
+@GenerateJsonCodec
+@IndexSubjectRefType(location = SchemaConstants.Locations.FINK_USER_ACCOUNT_MINIMAL_SCHEMA_LOCATION, aliases = "https://raw.githubusercontent.com/Governikus/IdentificationReport/2.0.0"
+                                                                                                               + "/schema/fink-user-account-minimal.json")
 public class FinkPersonRefMinimal extends SubjectRef
 {
 
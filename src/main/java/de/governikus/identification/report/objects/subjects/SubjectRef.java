@@ -1,21 +1,18 @@
 package de.governikus.identification.report.objects.subjects;
 
-import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Scanner;
 
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.schema.JsonSchema;
 
-import de.governikus.identification.report.utils.ObjectMapperUtil;
+import de.governikus.identification.report.constants.SchemaConstants;
 import de.governikus.identification.report.validation.SchemaValidator;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import lombok.SneakyThrows;
 
 
 /**
@@ -27,8 +24,6 @@ import lombok.SneakyThrows;
 public abstract class SubjectRef
 {
 
-  private static final Map<Class<? extends SubjectRef>, String> TYPE_TO_SCHEMA_ID_MAP = new HashMap<>();
-
   /**
    * contains potentially additional attributes that are not defined within the schema
    */
@@ -57,31 +52,37 @@ public abstract class SubjectRef
   protected abstract String getSchemaLocation();
 
   /**
-   * the ID of the schema under {@link #getSchemaLocation()}
+   * @return the value of {@link #getSchemaLocation()} for the components that validate subjects of any type
+   */
+  @JsonIgnore
+  public final String getValidationSchemaLocation()
+  {
+    return getSchemaLocation();
+  }
+
+  /**
+   * the ID of the schema under {@link #getSchemaLocation()}. The ID is taken from the
+   * {@link SubjectRefTypeRegistry} if it is known there for the same location so that the schema does not have
+   * to be loaded
    */
-  @SneakyThrows
   @JsonIgnore
   public String getSchemaId()
   {
-    String schemaId = TYPE_TO_SCHEMA_ID_MAP.get(getClass());
-    if (schemaId != null)
+    SubjectRefType subjectRefType = SubjectRefTypeRegistry.getSubjectRefType(getClass());
+    if (subjectRefType != null && getSchemaLocation().equals(subjectRefType.getSchemaLocation()))
     {
-      return schemaId;
+      return subjectRefType.getSchemaId();
     }
-    String schemaLocation = getSchemaLocation();
-    try (InputStream inputStream = getClass().getResourceAsStream(schemaLocation))
-    {
-      if (inputStream == null)
-      {
-        throw new IllegalArgumentException("Schema not found in given location: " + schemaLocation);
-      }
-      Scanner s = new Scanner(inputStream).useDelimiter("\\A");
-      String jsonSchema = s.hasNext() ? s.next() : "";
-      JsonNode node = ObjectMapperUtil.getObjectMapper().reader().readTree(jsonSchema);
-      schemaId = node.get("$id").asText();
-      TYPE_TO_SCHEMA_ID_MAP.put(getClass(), schemaId);
-    }
-    return schemaId;
+    return getSchema().getSchemaNode().get("$id").asText();
+  }
+
+  /**
+   * @return the compiled schema under {@link #getSchemaLocation()}
+   */
+  @JsonIgnore
+  public JsonSchema getSchema()
+  {
+    return SchemaConstants.getSchema(getSchemaLocation());
   }
 
   /**
@@ -90,6 +91,6 @@ public abstract class SubjectRef
   @JsonIgnore
   public boolean validate()
   {
-    return SchemaValidator.isJsonValid(getSchemaLocation(), ObjectMapperUtil.getObjectMapper().valueToTree(this));
+    return SchemaValidator.isJsonValid(getSchemaLocation(), this);
   }
 }
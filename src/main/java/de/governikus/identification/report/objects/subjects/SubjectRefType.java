@@ -0,0 +1,57 @@
+package de.governikus.identification.report.objects.subjects;
+
+import java.util.List;
+
+import lombok.Getter;
+
+
+/**
+ * describes a subtype of {@link SubjectRef} together with the schema that defines it. The value of the
+ * {@code subjectRefType} attribute of a report is resolved to the subtype with the schema id or one of the
+ * aliases
+ *
+ * @see SubjectRefTypeRegistry
+ */
+@Getter
+public final class SubjectRefType
+{
+
+  /**
+   * the "$id" of the schema
+   */
+  private final String schemaId;
+
+  /**
+   * other identifiers that are used for the schema within the {@code subjectRefType} attribute
+   */
+  private final List<String> aliases;
+
+  /**
+   * the location of the schema or null if it is only known to the instances of the subtype
+   */
+  private final String schemaLocation;
+
+  /**
+   * the subtype of {@link SubjectRef}
+   */
+  private final Class<? extends SubjectRef> type;
+
+  /**
+   * @param schemaId the "$id" of the schema
+   * @param aliases other identifiers that are used for the schema within the {@code subjectRefType} attribute
+   * @param schemaLocation the location of the schema or null if it is only known to the instances of the
+   *          subtype
+   * @param type the subtype of {@link SubjectRef}
+   */
+  public SubjectRefType(String schemaId, List<String> aliases, String schemaLocation, Class<? extends SubjectRef> type)
+  {
+    if (schemaId == null || type == null)
+    {
+      throw new IllegalArgumentException("The schema id and the type of a subject reference must not be null");
+    }
+    this.schemaId = schemaId;
+    this.aliases = aliases == null ? List.of() : List.copyOf(aliases);
+    this.schemaLocation = schemaLocation;
+    this.type = type;
+  }
+}
@@ -0,0 +1,19 @@
+package de.governikus.identification.report.objects.subjects;
+
+import java.util.List;
+
+
+/**
+ * provides subtypes of {@link SubjectRef} to the {@link SubjectRefTypeRegistry}. Implementations are
+ * discovered with the {@link java.util.ServiceLoader} and must therefore be listed within
+ * {@code META-INF/services/de.governikus.identification.report.objects.subjects.SubjectRefTypeProvider}. The
+ * subtypes of this library are provided by an index that is generated from their schemas during the build
+ */
+public interface SubjectRefTypeProvider
+{
+
+  /**
+   * @return the provided subtypes together with their schemas
+   */
+  List<SubjectRefType> getSubjectRefTypes();
+}
@@ -0,0 +1,147 @@
+package de.governikus.identification.report.objects.subjects;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * the known subtypes of {@link SubjectRef} by their schema ids and by their classes. The registry is filled
+ * with the subtypes of all {@link SubjectRefTypeProvider}s that are found by the {@link ServiceLoader} when
+ * it is used first. All lookups read an immutable snapshot without any locking. A registration copies the
+ * snapshot, adds the new subtype and publishes the copy
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SubjectRefTypeRegistry
+{
+
+  /**
+   * the current state of the registry. Replaced as a whole on each registration
+   */
+  private static volatile Snapshot snapshot = Snapshot.EMPTY.with(loadProvidedTypes());
+
+  /**
+   * @param schemaId the schema id or one of its aliases as it is used within the {@code subjectRefType}
+   *          attribute
+   * @return the subtype that belongs to the given schema id or null if no subtype is registered for it
+   */
+  public static Class<? extends SubjectRef> getType(String schemaId)
+  {
+    if (schemaId == null)
+    {
+      return null;
+    }
+    SubjectRefType subjectRefType = snapshot.bySchemaId.get(schemaId);
+    return subjectRefType == null ? null : subjectRefType.getType();
+  }
+
+  /**
+   * @param type a subtype of {@link SubjectRef}
+   * @return the description of the given subtype or null if the subtype is not registered
+   */
+  public static SubjectRefType getSubjectRefType(Class<? extends SubjectRef> type)
+  {
+    return snapshot.byType.get(type);
+  }
+
+  /**
+   * @return all registered subtypes
+   */
+  public static Collection<SubjectRefType> getSubjectRefTypes()
+  {
+    return snapshot.byType.values();
+  }
+
+  /**
+   * adds the given subtype. A subtype that was registered before for the same schema id, alias or class is
+   * replaced
+   *
+   * @param subjectRefType the subtype to register
+   */
+  public static synchronized void register(SubjectRefType subjectRefType)
+  {
+    snapshot = snapshot.with(List.of(subjectRefType));
+  }
+
+  /**
+   * adds an identifier for the given subtype that is used within the {@code subjectRefType} attribute. A
+   * subtype that is not registered yet is registered with the identifier as its schema id and without a known
+   * schema location
+   *
+   * @param schemaId the identifier of the schema
+   * @param type the subtype of {@link SubjectRef}
+   */
+  public static synchronized void registerAlias(String schemaId, Class<? extends SubjectRef> type)
+  {
+    SubjectRefType registered = snapshot.byType.get(type);
+    if (registered == null)
+    {
+      register(new SubjectRefType(schemaId, List.of(), null, type));
+      return;
+    }
+    List<String> aliases = new ArrayList<>(registered.getAliases());
+    aliases.add(schemaId);
+    register(new SubjectRefType(registered.getSchemaId(), aliases, registered.getSchemaLocation(), type));
+  }
+
+  /**
+   * discovers the subtypes of all {@link SubjectRefTypeProvider}s
+   */
+  private static List<SubjectRefType> loadProvidedTypes()
+  {
+    List<SubjectRefType> subjectRefTypes = new ArrayList<>();
+    for ( SubjectRefTypeProvider provider : ServiceLoader.load(SubjectRefTypeProvider.class,
+                                                               SubjectRefTypeRegistry.class.getClassLoader()) )
+    {
+      subjectRefTypes.addAll(provider.getSubjectRefTypes());
+    }
+    return subjectRefTypes;
+  }
+
+  /**
+   * an immutable state of the registry
+   */
+  private static final class Snapshot
+  {
+
+    private static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of());
+
+    /**
+     * the subtypes by their schema ids and aliases
+     */
+    private final Map<String, SubjectRefType> bySchemaId;
+
+    /**
+     * the subtypes by their classes
+     */
+    private final Map<Class<? extends SubjectRef>, SubjectRefType> byType;
+
+    private Snapshot(Map<String, SubjectRefType> bySchemaId, Map<Class<? extends SubjectRef>, SubjectRefType> byType)
+    {
+      this.bySchemaId = bySchemaId;
+      this.byType = byType;
+    }
+
+    /**
+     * @return a copy of this snapshot that additionally contains the given subtypes
+     */
+    private Snapshot with(List<SubjectRefType> subjectRefTypes)
+    {
+      Map<String, SubjectRefType> newBySchemaId = new HashMap<>(bySchemaId);
+      Map<Class<? extends SubjectRef>, SubjectRefType> newByType = new HashMap<>(byType);
+      for ( SubjectRefType subjectRefType : subjectRefTypes )
+      {
+        newBySchemaId.put(subjectRefType.getSchemaId(), subjectRefType);
+        subjectRefType.getAliases().forEach(alias -> newBySchemaId.put(alias, subjectRefType));
+        newByType.put(subjectRefType.getType(), subjectRefType);
+      }
+      return new Snapshot(Map.copyOf(newBySchemaId), Map.copyOf(newByType));
+    }
+  }
+}
@@ -0,0 +1,244 @@
+package de.governikus.identification.report.utils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+
+/**
+ * a thread-safe least-recently-used cache that is bounded by its number of entries and optionally by the age
+ * of its entries. The cache counts its hits, misses and evictions so that its effectiveness can be monitored
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class BoundedCache<K, V>
+{
+
+  /**
+   * the maximum number of entries. The least recently used entry is evicted if this number is exceeded
+   */
+  private final int maximumSize;
+
+  /**
+   * the maximum age of an entry in nanoseconds or a non-positive value if entries do not expire
+   */
+  private final long expireAfterWriteNanos;
+
+  /**
+   * the source of the current time in nanoseconds
+   */
+  private final LongSupplier ticker;
+
+  /**
+   * the entries in access order. All accesses are guarded by the monitor of this map
+   */
+  private final LinkedHashMap<K, CacheEntry<V>> entries;
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  private final LongAdder evictionCount = new LongAdder();
+
+  /**
+   * @param maximumSize the maximum number of entries
+   * @param expireAfterWrite the maximum age of an entry or null if entries should not expire
+   */
+  public BoundedCache(int maximumSize, Duration expireAfterWrite)
+  {
+    this(maximumSize, expireAfterWrite, System::nanoTime);
+  }
+
+  /**
+   * @param maximumSize the maximum number of entries
+   * @param expireAfterWrite the maximum age of an entry or null if entries should not expire
+   * @param ticker the source of the current time in nanoseconds
+   */
+  BoundedCache(int maximumSize, Duration expireAfterWrite, LongSupplier ticker)
+  {
+    if (maximumSize < 1)
+    {
+      throw new IllegalArgumentException(String.format("Maximum size must be at least 1 but was '%s'", maximumSize));
+    }
+    this.maximumSize = maximumSize;
+    this.expireAfterWriteNanos = expireAfterWrite == null ? 0 : expireAfterWrite.toNanos();
+    this.ticker = ticker;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true)
+    {
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest)
+      {
+        boolean evict = size() > BoundedCache.this.maximumSize;
+        if (evict)
+        {
+          evictionCount.increment();
+        }
+        return evict;
+      }
+    };
+  }
+
+  /**
+   * @param key the key of the entry
+   * @return the cached value or null if no value is cached for the key or if the value has expired
+   */
+  public V get(K key)
+  {
+    return get(key, value -> true);
+  }
+
+  /**
+   * @param key the key of the entry
+   * @param validator checks if the cached value can still be used. The validator is called without holding the
+   *          lock of the cache so that slow checks do not block other threads. Values that are not valid
+   *          anymore are removed unless they were replaced in the meantime and the lookup is counted as a miss
+   * @return the cached value or null if no valid value is cached for the key or if the value has expired
+   */
+  public V get(K key, Predicate<? super V> validator)
+  {
+    CacheEntry<V> cacheEntry;
+    synchronized (entries)
+    {
+      cacheEntry = entries.get(key);
+      if (cacheEntry != null && isExpired(cacheEntry))
+      {
+        entries.remove(key);
+        evictionCount.increment();
+        cacheEntry = null;
+      }
+    }
+    if (cacheEntry != null && !validator.test(cacheEntry.value))
+    {
+      synchronized (entries)
+      {
+        if (entries.remove(key, cacheEntry))
+        {
+          evictionCount.increment();
+        }
+      }
+      cacheEntry = null;
+    }
+    if (cacheEntry == null)
+    {
+      missCount.increment();
+      return null;
+    }
+    hitCount.increment();
+    return cacheEntry.value;
+  }
+
+  /**
+   * adds or replaces the value of the given key
+   *
+   * @param key the key of the entry
+   * @param value the value to cache
+   */
+  public void put(K key, V value)
+  {
+    CacheEntry<V> cacheEntry = new CacheEntry<>(value, ticker.getAsLong());
+    synchronized (entries)
+    {
+      entries.put(key, cacheEntry);
+    }
+  }
+
+  /**
+   * removes the value of the given key
+   *
+   * @param key the key of the entry
+   */
+  public void remove(K key)
+  {
+    synchronized (entries)
+    {
+      entries.remove(key);
+    }
+  }
+
+  /**
+   * removes all entries. The statistics are not reset
+   */
+  public void clear()
+  {
+    synchronized (entries)
+    {
+      entries.clear();
+    }
+  }
+
+  /**
+   * @return the current number of entries including expired entries that were not yet accessed
+   */
+  public int size()
+  {
+    synchronized (entries)
+    {
+      return entries.size();
+    }
+  }
+
+  /**
+   * @return the number of lookups that returned a cached value
+   */
+  public long getHitCount()
+  {
+    return hitCount.sum();
+  }
+
+  /**
+   * @return the number of lookups that did not find a valid cached value
+   */
+  public long getMissCount()
+  {
+    return missCount.sum();
+  }
+
+  /**
+   * @return the number of entries that were removed because of the size limit, because they had expired or
+   *         because they were not valid anymore
+   */
+  public long getEvictionCount()
+  {
+    return evictionCount.sum();
+  }
+
+  /**
+   * @return the ratio of hits to all lookups or 0 if no lookup was done yet
+   */
+  public double getHitRate()
+  {
+    long hits = getHitCount();
+    long lookups = hits + getMissCount();
+    return lookups == 0 ? 0 : (double)hits / lookups;
+  }
+
+  /**
+   * @return true if the given entry is older than the configured maximum age
+   */
+  private boolean isExpired(CacheEntry<V> cacheEntry)
+  {
+    return expireAfterWriteNanos > 0 && ticker.getAsLong() - cacheEntry.createdAtNanos >= expireAfterWriteNanos;
+  }
+
+  /**
+   * a cached value together with its creation time
+   */
+  private static class CacheEntry<V>
+  {
+
+    private final V value;
+
+    private final long createdAtNanos;
+
+    public CacheEntry(V value, long createdAtNanos)
+    {
+      this.value = value;
+      this.createdAtNanos = createdAtNanos;
+    }
+  }
+}
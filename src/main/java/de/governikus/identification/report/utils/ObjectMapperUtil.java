@@ -1,32 +1,175 @@
 package de.governikus.identification.report.utils;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 
+import de.governikus.identification.report.objects.IdentificationReport;
+import de.governikus.identification.report.objects.IdentificationReportDeserializer;
+import de.governikus.identification.report.objects.JsonCodecModule;
+import de.governikus.identification.report.objects.subjects.SubjectRefType;
+import de.governikus.identification.report.objects.subjects.SubjectRefTypeRegistry;
 import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
 
 
 /**
- * Provide an instance of {@link ObjectMapper} that is already configured to correctly use java-8-time
+ * Provide an instance of {@link ObjectMapper} that is already configured to correctly use java-8-time and to
+ * deserialize identification reports with the {@link IdentificationReportDeserializer}. The report and its
+ * subject references are written and read by the serializers and deserializers of the {@link JsonCodecModule}
+ * that are generated during the build. The mapper is created once on first access and is safely published to
+ * all threads. Readers and writers for the {@link IdentificationReport} and all registered subject reference
+ * types are prebuilt so that the type does not have to be resolved on each call.<br>
+ * <br>
+ * If the system property {@value #BLACKBIRD_PROPERTY} is set to true and the optional dependency
+ * "com.fasterxml.jackson.module:jackson-module-blackbird" is present, the properties of the objects are
+ * accessed by generated lambdas instead of reflection
  */
+@Slf4j
 @UtilityClass
 public class ObjectMapperUtil
 {
 
-  private static ObjectMapper objectMapper;
+  /**
+   * the system property that enables the Blackbird module
+   */
+  public static final String BLACKBIRD_PROPERTY = "de.governikus.identification.report.jackson.blackbird";
 
   /**
    * Get the object mapper
    */
   public static ObjectMapper getObjectMapper()
   {
-    if (objectMapper == null)
+    return Holder.OBJECT_MAPPER;
+  }
+
+  /**
+   * @return true if the shared object mapper uses the Blackbird module
+   */
+  public static boolean isBlackbirdEnabled()
+  {
+    return Holder.BLACKBIRD_ENABLED;
+  }
+
+  /**
+   * @param type the type to read
+   * @return a cached reader of the shared object mapper for the given type
+   */
+  public static ObjectReader getReader(Class<?> type)
+  {
+    return Holder.READERS.computeIfAbsent(type, Holder.OBJECT_MAPPER::readerFor);
+  }
+
+  /**
+   * @param type the type to write
+   * @return a cached writer of the shared object mapper for the given type
+   */
+  public static ObjectWriter getWriter(Class<?> type)
+  {
+    return Holder.WRITERS.computeIfAbsent(type, Holder.OBJECT_MAPPER::writerFor);
+  }
+
+  /**
+   * creates a new object mapper with the configuration of the shared object mapper
+   *
+   * @param blackbird if the Blackbird module should be registered. Requires the optional Blackbird dependency
+   * @return the new object mapper
+   * @throws IllegalStateException if the Blackbird module is requested but the dependency is not present
+   */
+  public static ObjectMapper createObjectMapper(boolean blackbird)
+  {
+    ObjectMapper objectMapper = new ObjectMapper();
+    objectMapper.registerModule(new JavaTimeModule());
+    objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+    objectMapper.registerModule(new JsonCodecModule());
+    objectMapper.registerModule(new SimpleModule().setDeserializerModifier(new IdentificationReportDeserializer.Modifier()));
+    if (blackbird)
     {
-      objectMapper = new ObjectMapper();
-      objectMapper.registerModule(new JavaTimeModule());
-      objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+      if (!isBlackbirdAvailable())
+      {
+        throw new IllegalStateException("jackson-module-blackbird is not on the classpath");
+      }
+      BlackbirdSupport.register(objectMapper);
     }
     return objectMapper;
   }
+
+  /**
+   * @return true if the optional Blackbird dependency is present
+   */
+  public static boolean isBlackbirdAvailable()
+  {
+    try
+    {
+      Class.forName("com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+                    false,
+                    ObjectMapperUtil.class.getClassLoader());
+      return true;
+    }
+    catch (ClassNotFoundException ex)
+    {
+      return false;
+    }
+  }
+
+  /**
+   * the only class that references the optional Blackbird dependency. It must not be touched before
+   * {@link #isBlackbirdAvailable()} confirmed that the dependency is present
+   */
+  private static class BlackbirdSupport
+  {
+
+    private static void register(ObjectMapper objectMapper)
+    {
+      objectMapper.registerModule(new BlackbirdModule());
+    }
+  }
+
+  /**
+   * holds the shared instances. The JVM initializes this class exactly once on first access
+   */
+  private static class Holder
+  {
+
+    private static final boolean BLACKBIRD_ENABLED = isBlackbirdRequested();
+
+    private static final ObjectMapper OBJECT_MAPPER = createObjectMapper(BLACKBIRD_ENABLED);
+
+    private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+    static
+    {
+      READERS.put(IdentificationReport.class, OBJECT_MAPPER.readerFor(IdentificationReport.class));
+      WRITERS.put(IdentificationReport.class, OBJECT_MAPPER.writerFor(IdentificationReport.class));
+      for ( SubjectRefType subjectRefType : SubjectRefTypeRegistry.getSubjectRefTypes() )
+      {
+        READERS.put(subjectRefType.getType(), OBJECT_MAPPER.readerFor(subjectRefType.getType()));
+        WRITERS.put(subjectRefType.getType(), OBJECT_MAPPER.writerFor(subjectRefType.getType()));
+      }
+    }
+
+    private static boolean isBlackbirdRequested()
+    {
+      if (!Boolean.getBoolean(BLACKBIRD_PROPERTY))
+      {
+        return false;
+      }
+      if (!isBlackbirdAvailable())
+      {
+        log.warn("System property '{}' is set but jackson-module-blackbird is not on the classpath. Using reflection",
+                 BLACKBIRD_PROPERTY);
+        return false;
+      }
+      return true;
+    }
+  }
 }
@@ -0,0 +1,629 @@
+package de.governikus.identification.report.validation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.schema.ValidationMessage;
+
+import de.governikus.identification.report.objects.subjects.SubjectRef;
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+
+/**
+ * validates large numbers of identification reports that are stored as newline delimited json (one report per
+ * line) with several worker threads. The calling thread reads the lines and hands them in batches to the
+ * workers over a bounded queue so that the memory consumption does not depend on the size of the input. Each
+ * report is validated together with its subject reference by a {@link ReportValidator}. The failing lines are
+ * written to a failure file and all errors are aggregated into a {@link BulkValidationSummary}
+ */
+public class BulkReportValidator
+{
+
+  /**
+   * the extensions of the files that are read from a directory
+   */
+  private static final List<String> FILE_EXTENSIONS = List.of(".ndjson", ".jsonl");
+
+  /**
+   * the path under which the errors are counted once {@link #maxDistinctPaths} is reached
+   */
+  static final String OTHER_PATHS = "<other>";
+
+  private static final String SUBJECT_REF_PATH = "$.subjectRef";
+
+  private static final int DEFAULT_MAX_LINE_LENGTH = 1024 * 1024;
+
+  /**
+   * marks the end of the input for a single worker
+   */
+  private static final Batch END_OF_INPUT = new Batch(null, 0, List.of(), Map.of());
+
+  /**
+   * the number of worker threads
+   */
+  @Getter
+  private final int parallelism;
+
+  /**
+   * the number of lines that are handed to a worker at once
+   */
+  @Getter
+  private final int batchSize;
+
+  /**
+   * the number of batches that may wait for a worker
+   */
+  @Getter
+  private final int queueCapacity;
+
+  /**
+   * the maximum number of bytes of a line. Longer lines are counted as unreadable
+   */
+  @Getter
+  private final int maxLineLength;
+
+  /**
+   * the maximum number of distinct paths within {@link BulkValidationSummary#getErrorsByPath()}
+   */
+  @Getter
+  private final int maxDistinctPaths;
+
+  /**
+   * the type of the subject references of reports that do not name a registered {@code subjectRefType} or null
+   * if these subject references are not validated
+   */
+  @Getter
+  private final Class<? extends SubjectRef> defaultSubjectRefType;
+
+  private final ReportValidator reportValidator = ReportValidator.builder().build();
+
+  /**
+   * @param parallelism the number of worker threads. Defaults to the number of available processors
+   * @param batchSize the number of lines that are handed to a worker at once. Defaults to 100
+   * @param queueCapacity the number of batches that may wait for a worker. Defaults to twice the parallelism
+   * @param maxLineLength the maximum number of bytes of a line. Only this number of bytes of a longer line is
+   *          kept in memory, the line is counted as unreadable and written truncated to the failure file.
+   *          Defaults to 1 MiB
+   * @param maxDistinctPaths the maximum number of distinct paths within the summary. Defaults to 1000
+   * @param defaultSubjectRefType the type of the subject references of reports that do not name a registered
+   *          {@code subjectRefType}. If null these subject references are not validated
+   */
+  @Builder
+  public BulkReportValidator(Integer parallelism,
+                             Integer batchSize,
+                             Integer queueCapacity,
+                             Integer maxLineLength,
+                             Integer maxDistinctPaths,
+                             Class<? extends SubjectRef> defaultSubjectRefType)
+  {
+    this.parallelism = requirePositive("Parallelism",
+                                       Optional.ofNullable(parallelism)
+                                               .orElseGet(Runtime.getRuntime()::availableProcessors));
+    this.batchSize = requirePositive("Batch size", Optional.ofNullable(batchSize).orElse(100));
+    this.queueCapacity = requirePositive("Queue capacity",
+                                         Optional.ofNullable(queueCapacity).orElse(this.parallelism * 2));
+    this.maxLineLength = requirePositive("Maximum line length",
+                                         Optional.ofNullable(maxLineLength).orElse(DEFAULT_MAX_LINE_LENGTH));
+    this.maxDistinctPaths = requirePositive("Maximum number of distinct paths",
+                                            Optional.ofNullable(maxDistinctPaths).orElse(1000));
+    this.defaultSubjectRefType = defaultSubjectRefType;
+  }
+
+  /**
+   * validates all reports of the given file or of all files with the extension ".ndjson" or ".jsonl" within the
+   * given directory and its subdirectories
+   *
+   * @param input the file or directory to read
+   * @param failureFile the file that receives a json line for each failing report or null if the failures
+   *          should not be written. An existing file is replaced
+   * @return the aggregated result
+   */
+  @SneakyThrows
+  public BulkValidationSummary validate(Path input, Path failureFile)
+  {
+    List<Path> files = listFiles(input);
+    long start = System.nanoTime();
+    Statistics statistics = new Statistics();
+    BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+    AtomicInteger threadNumber = new AtomicInteger();
+    ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+      Thread thread = new Thread(runnable, "bulk-report-validator-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try (FailureWriter failureWriter = new FailureWriter(failureFile))
+    {
+      List<Future<?>> futures = new ArrayList<>();
+      for ( int i = 0 ; i < parallelism ; i++ )
+      {
+        futures.add(workers.submit(() -> work(queue, statistics, failureWriter)));
+      }
+      for ( Path file : files )
+      {
+        String source = Files.isDirectory(input) ? input.relativize(file).toString() : file.getFileName().toString();
+        readFile(source, file, queue);
+      }
+      for ( int i = 0 ; i < parallelism ; i++ )
+      {
+        queue.put(END_OF_INPUT);
+      }
+      for ( Future<?> future : futures )
+      {
+        awaitWorker(future);
+      }
+    }
+    finally
+    {
+      workers.shutdownNow();
+    }
+    return statistics.toSummary(Duration.ofNanos(System.nanoTime() - start));
+  }
+
+  /**
+   * @return the given file or the files of the given directory in a stable order
+   */
+  @SneakyThrows
+  private static List<Path> listFiles(Path input)
+  {
+    if (Files.isRegularFile(input))
+    {
+      return List.of(input);
+    }
+    if (!Files.isDirectory(input))
+    {
+      throw new IllegalArgumentException(String.format("Input '%s' does not exist", input));
+    }
+    try (Stream<Path> paths = Files.walk(input))
+    {
+      return paths.filter(Files::isRegularFile)
+                  .filter(path -> FILE_EXTENSIONS.stream().anyMatch(path.getFileName().toString()::endsWith))
+                  .sorted()
+                  .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * reads the lines of the given file and hands them to the workers. Blocks while the queue is full. Lines that
+   * are not valid UTF-8 or that are too long are handed over together with their error and are counted as
+   * unreadable by the workers
+   */
+  private void readFile(String source, Path file, BlockingQueue<Batch> queue) throws IOException, InterruptedException
+  {
+    try (LineReader reader = new LineReader(Files.newInputStream(file), maxLineLength))
+    {
+      List<String> lines = new ArrayList<>(batchSize);
+      Map<Integer, String> unreadableLines = new HashMap<>();
+      long firstLineNumber = 1;
+      while (reader.readLine())
+      {
+        if (reader.getError() != null)
+        {
+          unreadableLines.put(lines.size(), reader.getError());
+        }
+        lines.add(reader.getLine());
+        if (lines.size() == batchSize)
+        {
+          queue.put(new Batch(source, firstLineNumber, lines, unreadableLines));
+          firstLineNumber += lines.size();
+          lines = new ArrayList<>(batchSize);
+          unreadableLines = new HashMap<>();
+        }
+      }
+      if (!lines.isEmpty())
+      {
+        queue.put(new Batch(source, firstLineNumber, lines, unreadableLines));
+      }
+    }
+  }
+
+  /**
+   * validates the batches of the queue until the end of the input is reached
+   */
+  @SneakyThrows
+  private void work(BlockingQueue<Batch> queue, Statistics statistics, FailureWriter failureWriter)
+  {
+    for ( Batch batch = queue.take() ; batch != END_OF_INPUT ; batch = queue.take() )
+    {
+      for ( int i = 0 ; i < batch.lines.size() ; i++ )
+      {
+        String line = batch.lines.get(i);
+        String error = batch.unreadableLines.get(i);
+        if (error != null)
+        {
+          statistics.reportCount.increment();
+          statistics.unreadableCount.increment();
+          ObjectNode failure = failureWriter.createFailure(batch.source, batch.firstLineNumber + i, line);
+          failure.put("error", error);
+          failureWriter.write(failure);
+        }
+        else if (!line.isBlank())
+        {
+          validateLine(batch.source, batch.firstLineNumber + i, line, statistics, failureWriter);
+        }
+      }
+    }
+  }
+
+  /**
+   * validates a single report. Errors of a single line are recorded and do not abort the bulk validation
+   */
+  private void validateLine(String source,
+                            long lineNumber,
+                            String line,
+                            Statistics statistics,
+                            FailureWriter failureWriter)
+  {
+    statistics.reportCount.increment();
+    ReportValidationResult result;
+    try
+    {
+      JsonNode report = ObjectMapperUtil.getObjectMapper().readTree(line);
+      if (report == null || !report.isObject())
+      {
+        throw new IllegalArgumentException("Line does not contain a json object");
+      }
+      result = reportValidator.validate(report, defaultSubjectRefType);
+    }
+    catch (Exception ex)
+    {
+      statistics.unreadableCount.increment();
+      ObjectNode failure = failureWriter.createFailure(source, lineNumber, line);
+      failure.put("error", ex.getMessage());
+      failureWriter.write(failure);
+      return;
+    }
+    if (result.isValid())
+    {
+      return;
+    }
+    statistics.invalidCount.increment();
+    ObjectNode failure = failureWriter.createFailure(source, lineNumber, line);
+    ArrayNode errors = failure.putArray("errors");
+    addErrors(errors, "$", result.getReportErrors(), statistics);
+    addErrors(errors, SUBJECT_REF_PATH, result.getSubjectRefErrors(), statistics);
+    failureWriter.write(failure);
+  }
+
+  /**
+   * counts the given errors and adds them to the failure record
+   *
+   * @param root the path of the validated node within the report
+   */
+  private void addErrors(ArrayNode errors, String root, Set<ValidationMessage> messages, Statistics statistics)
+  {
+    for ( ValidationMessage message : messages )
+    {
+      String path = root + message.getInstanceLocation().toString().substring(1);
+      statistics.count(statistics.errorsByKeyword, message.getType(), Integer.MAX_VALUE);
+      statistics.count(statistics.errorsByPath, path.replaceAll("\\[\\d+]", "[*]"), maxDistinctPaths);
+      errors.addObject().put("keyword", message.getType()).put("path", path).put("message", message.getMessage());
+    }
+  }
+
+  /**
+   * waits for the given worker and rethrows its failure
+   */
+  private static void awaitWorker(Future<?> future) throws InterruptedException
+  {
+    try
+    {
+      future.get();
+    }
+    catch (ExecutionException ex)
+    {
+      if (ex.getCause() instanceof RuntimeException)
+      {
+        throw (RuntimeException)ex.getCause();
+      }
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+
+  private static int requirePositive(String name, int value)
+  {
+    if (value < 1)
+    {
+      throw new IllegalArgumentException(String.format("%s must be at least 1 but was '%s'", name, value));
+    }
+    return value;
+  }
+
+  /**
+   * consecutive lines of a single file
+   */
+  private static class Batch
+  {
+
+    private final String source;
+
+    private final long firstLineNumber;
+
+    private final List<String> lines;
+
+    /**
+     * the errors of the lines that could not be read by their index
+     */
+    private final Map<Integer, String> unreadableLines;
+
+    Batch(String source, long firstLineNumber, List<String> lines, Map<Integer, String> unreadableLines)
+    {
+      this.source = source;
+      this.firstLineNumber = firstLineNumber;
+      this.lines = lines;
+      this.unreadableLines = unreadableLines;
+    }
+  }
+
+  /**
+   * reads the lines of a stream and decodes each line separately so that a malformed line does not abort the
+   * reading of the following lines. Lines are terminated like in {@link BufferedReader#readLine()}. Only the
+   * first bytes of a line up to the maximum line length are kept, the rest of a longer line is skipped
+   */
+  private static class LineReader implements AutoCloseable
+  {
+
+    private final InputStream inputStream;
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                                                                 .onMalformedInput(CodingErrorAction.REPORT)
+                                                                 .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    private final byte[] buffer = new byte[8192];
+
+    private final int maxLineLength;
+
+    private int position;
+
+    private int limit;
+
+    private boolean skipLineFeed;
+
+    private byte[] lineBytes = new byte[256];
+
+    @Getter
+    private String line;
+
+    /**
+     * the reason why the current line cannot be read or null if the line was read completely
+     */
+    @Getter
+    private String error;
+
+    LineReader(InputStream inputStream, int maxLineLength)
+    {
+      this.inputStream = inputStream;
+      this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * reads the next line
+     *
+     * @return false if the end of the stream is reached
+     */
+    boolean readLine() throws IOException
+    {
+      int length = 0;
+      boolean empty = true;
+      boolean truncated = false;
+      while (true)
+      {
+        if (position == limit)
+        {
+          limit = Math.max(inputStream.read(buffer), 0);
+          position = 0;
+          if (limit == 0)
+          {
+            if (empty)
+            {
+              return false;
+            }
+            break;
+          }
+        }
+        byte b = buffer[position++];
+        if (skipLineFeed)
+        {
+          skipLineFeed = false;
+          if (b == '\n')
+          {
+            continue;
+          }
+        }
+        empty = false;
+        if (b == '\n')
+        {
+          break;
+        }
+        if (b == '\r')
+        {
+          skipLineFeed = true;
+          break;
+        }
+        if (length == maxLineLength)
+        {
+          truncated = true;
+          continue;
+        }
+        if (length == lineBytes.length)
+        {
+          lineBytes = Arrays.copyOf(lineBytes, (int)Math.min(length * 2L, maxLineLength));
+        }
+        lineBytes[length++] = b;
+      }
+      if (truncated)
+      {
+        line = new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+        error = String.format("Line exceeds the maximum length of %s bytes", maxLineLength);
+        return true;
+      }
+      try
+      {
+        line = decoder.decode(ByteBuffer.wrap(lineBytes, 0, length)).toString();
+        error = null;
+      }
+      catch (CharacterCodingException ex)
+      {
+        line = new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+        error = "Line is not valid UTF-8";
+      }
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      inputStream.close();
+    }
+  }
+
+  /**
+   * the counters that are shared by all workers
+   */
+  private static class Statistics
+  {
+
+    private final LongAdder reportCount = new LongAdder();
+
+    private final LongAdder invalidCount = new LongAdder();
+
+    private final LongAdder unreadableCount = new LongAdder();
+
+    private final Map<String, LongAdder> errorsByKeyword = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> errorsByPath = new ConcurrentHashMap<>();
+
+    /**
+     * increments the counter of the given key. The errors of new keys are counted under {@link #OTHER_PATHS} once
+     * the map contains the given maximum number of keys
+     */
+    private void count(Map<String, LongAdder> counters, String key, int maxKeys)
+    {
+      LongAdder counter = counters.get(key);
+      if (counter == null)
+      {
+        String effectiveKey = counters.size() < maxKeys ? key : OTHER_PATHS;
+        counter = counters.computeIfAbsent(effectiveKey, k -> new LongAdder());
+      }
+      counter.increment();
+    }
+
+    private BulkValidationSummary toSummary(Duration duration)
+    {
+      long reports = reportCount.sum();
+      long invalid = invalidCount.sum();
+      long unreadable = unreadableCount.sum();
+      return BulkValidationSummary.builder()
+                                  .reportCount(reports)
+                                  .validCount(reports - invalid - unreadable)
+                                  .invalidCount(invalid)
+                                  .unreadableCount(unreadable)
+                                  .errorsByKeyword(toSortedMap(errorsByKeyword))
+                                  .errorsByPath(toSortedMap(errorsByPath))
+                                  .duration(duration)
+                                  .build();
+    }
+
+    private static Map<String, Long> toSortedMap(Map<String, LongAdder> counters)
+    {
+      Map<String, Long> sortedMap = new TreeMap<>();
+      counters.forEach((key, counter) -> sortedMap.put(key, counter.sum()));
+      return sortedMap;
+    }
+  }
+
+  /**
+   * writes the failing lines as json objects, one per line. Does nothing if no file is given. A write error
+   * does not stop the workers but skips all further writes and is thrown on {@link #close()}
+   */
+  private static class FailureWriter implements AutoCloseable
+  {
+
+    private final BufferedWriter writer;
+
+    private volatile IOException writeError;
+
+    FailureWriter(Path failureFile) throws IOException
+    {
+      this.writer = failureFile == null ? null : Files.newBufferedWriter(failureFile, StandardCharsets.UTF_8);
+    }
+
+    ObjectNode createFailure(String source, long lineNumber, String line)
+    {
+      ObjectNode failure = ObjectMapperUtil.getObjectMapper().createObjectNode();
+      failure.put("source", source);
+      failure.put("line", lineNumber);
+      failure.put("content", line);
+      return failure;
+    }
+
+    void write(ObjectNode failure)
+    {
+      if (writer == null || writeError != null)
+      {
+        return;
+      }
+      try
+      {
+        String json = ObjectMapperUtil.getObjectMapper().writeValueAsString(failure);
+        synchronized (writer)
+        {
+          writer.write(json);
+          writer.newLine();
+        }
+      }
+      catch (IOException ex)
+      {
+        writeError = ex;
+      }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      if (writer == null)
+      {
+        return;
+      }
+      writer.close();
+      if (writeError != null)
+      {
+        throw writeError;
+      }
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package de.governikus.identification.report.validation;
+
+import java.time.Duration;
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Getter;
+
+
+/**
+ * the aggregated result of a bulk validation
+ *
+ * @see BulkReportValidator
+ */
+@Getter
+@Builder
+public class BulkValidationSummary
+{
+
+  /**
+   * the number of non-empty lines that were read
+   */
+  private final long reportCount;
+
+  /**
+   * the number of reports that match their schemas
+   */
+  private final long validCount;
+
+  /**
+   * the number of reports that do not match their schemas
+   */
+  private final long invalidCount;
+
+  /**
+   * the number of lines that could not be read as a json object or could not be validated
+   */
+  private final long unreadableCount;
+
+  /**
+   * the number of validation errors by their keyword, e.g. "required"
+   */
+  private final Map<String, Long> errorsByKeyword;
+
+  /**
+   * the number of validation errors by the location within the report. Array indices are replaced by "*"
+   */
+  private final Map<String, Long> errorsByPath;
+
+  /**
+   * the time the whole bulk validation took
+   */
+  private final Duration duration;
+
+  /**
+   * @return the number of reports that were validated per second
+   */
+  public double getReportsPerSecond()
+  {
+    long nanos = Math.max(1, duration.toNanos());
+    return reportCount * 1_000_000_000d / nanos;
+  }
+}
@@ -0,0 +1,516 @@
+package de.governikus.identification.report.validation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.schema.JsonNodePath;
+import com.networknt.schema.PathType;
+import com.networknt.schema.SchemaLocation;
+import com.networknt.schema.ValidationMessage;
+
+
+/**
+ * the base class of the validators that are generated from the bundled JSON schemas during the build. The
+ * generated validators check a json node with plain java code instead of interpreting the schema tree on each
+ * call. They report exactly the same {@link ValidationMessage}s in the same order as the networknt validator
+ * would do for the same schema with its default configuration. The schemas are selected by the
+ * {@code @CompileSchema} annotations of the {@link SchemaValidator}. The annotation and its processor are
+ * only needed during the build and are therefore not part of the jar.
+ */
+public abstract class CompiledSchemaValidator
+{
+
+  /**
+   * the location of the root node that is the start of each instance location
+   */
+  protected static final JsonNodePath ROOT_LOCATION = new JsonNodePath(PathType.LEGACY);
+
+  /**
+   * @return the location of the schema this validator was generated from
+   */
+  public abstract String getSchemaLocation();
+
+  /**
+   * validates the given json node against the schema this validator was generated from
+   *
+   * @param jsonNode the json node to validate
+   * @return set of validation errors (empty if valid)
+   */
+  public Set<ValidationMessage> validate(JsonNode jsonNode)
+  {
+    Set<ValidationMessage> errors = new LinkedHashSet<>();
+    validate(jsonNode, ROOT_LOCATION, errors);
+    return errors;
+  }
+
+  /**
+   * checks if the given json node matches the schema this validator was generated from. The validation stops at
+   * the first error and no messages are created
+   *
+   * @param jsonNode the json node to validate
+   * @return true if the node is valid
+   */
+  public boolean isValid(JsonNode jsonNode)
+  {
+    return validate(jsonNode, null, null);
+  }
+
+  /**
+   * validates the given json node until the first error is found. Only the message of this error is created
+   *
+   * @param jsonNode the json node to validate
+   * @return the first validation error or an empty optional if the node is valid
+   */
+  public Optional<ValidationMessage> getFirstError(JsonNode jsonNode)
+  {
+    Set<ValidationMessage> errors = createFirstErrorSet();
+    validate(jsonNode, ROOT_LOCATION, errors);
+    return errors.stream().findFirst();
+  }
+
+  /**
+   * validates the given json node against the root of the schema
+   *
+   * @param node the node to validate
+   * @param instanceLocation the location of the node within the validated document. May be null if no errors
+   *          are collected
+   * @param errors the set that collects all validation errors or null if only the validity is of interest. In
+   *          this case the validation stops at the first error and no messages are created. The validation also
+   *          stops as soon as a set of {@link #createFirstErrorSet()} contains an error
+   * @return true if the node is valid
+   */
+  protected abstract boolean validate(JsonNode node, JsonNodePath instanceLocation, Set<ValidationMessage> errors);
+
+  /**
+   * @return a set that keeps only the first validation error that is added
+   */
+  protected static Set<ValidationMessage> createFirstErrorSet()
+  {
+    return new FirstErrorSet();
+  }
+
+  /**
+   * @param errors the set that collects the validation errors
+   * @return true if no further errors are collected so that the validation can stop
+   */
+  protected static boolean isComplete(Set<ValidationMessage> errors)
+  {
+    return errors == null || errors instanceof FirstErrorSet && !errors.isEmpty();
+  }
+
+  /**
+   * @return the evaluation path that consists of the given property names and array indexes
+   */
+  protected static JsonNodePath evaluationPath(Object... elements)
+  {
+    JsonNodePath evaluationPath = new JsonNodePath(PathType.LEGACY);
+    for ( Object element : elements )
+    {
+      evaluationPath = element instanceof Integer ? evaluationPath.append((Integer)element)
+        : evaluationPath.append((String)element);
+    }
+    return evaluationPath;
+  }
+
+  /**
+   * @return the name of the json type of the given node as it is used within JSON schemas
+   */
+  protected static String getTypeName(JsonNode node)
+  {
+    switch (node.getNodeType())
+    {
+      case OBJECT:
+        return "object";
+      case ARRAY:
+        return "array";
+      case STRING:
+      case BINARY:
+        return "string";
+      case NUMBER:
+        return node.isIntegralNumber() ? "integer" : "number";
+      case BOOLEAN:
+        return "boolean";
+      case NULL:
+        return "null";
+      default:
+        return "unknown";
+    }
+  }
+
+  /**
+   * checks the "type" keyword
+   */
+  protected static boolean checkType(JsonNode node,
+                                     JsonNodePath instanceLocation,
+                                     JsonNodePath evaluationPath,
+                                     SchemaLocation schemaLocation,
+                                     String expectedType,
+                                     Set<ValidationMessage> errors)
+  {
+    String actualType = getTypeName(node);
+    if (actualType.equals(expectedType) || "number".equals(expectedType) && "integer".equals(actualType))
+    {
+      return true;
+    }
+    if (isComplete(errors))
+    {
+      return false;
+    }
+    errors.add(typeMessage(node, instanceLocation, evaluationPath, schemaLocation, actualType, expectedType));
+    return false;
+  }
+
+  /**
+   * checks the "required" keyword
+   */
+  protected static boolean checkRequired(JsonNode node,
+                                         JsonNodePath instanceLocation,
+                                         JsonNodePath evaluationPath,
+                                         SchemaLocation schemaLocation,
+                                         List<String> requiredProperties,
+                                         Set<ValidationMessage> errors)
+  {
+    if (!node.isObject())
+    {
+      return true;
+    }
+    boolean valid = true;
+    for ( String propertyName : requiredProperties )
+    {
+      if (node.get(propertyName) != null)
+      {
+        continue;
+      }
+      valid = false;
+      if (isComplete(errors))
+      {
+        break;
+      }
+      errors.add(requiredMessage(node, instanceLocation, evaluationPath, schemaLocation, propertyName));
+    }
+    return valid;
+  }
+
+  /**
+   * checks the "additionalProperties" keyword if it forbids any property that is not declared within the
+   * "properties" of the same schema
+   */
+  protected static boolean checkNoAdditionalProperties(JsonNode node,
+                                                       JsonNodePath instanceLocation,
+                                                       JsonNodePath evaluationPath,
+                                                       SchemaLocation schemaLocation,
+                                                       Set<String> declaredProperties,
+                                                       Set<ValidationMessage> errors)
+  {
+    if (!node.isObject())
+    {
+      return true;
+    }
+    boolean valid = true;
+    Iterator<String> propertyNames = node.fieldNames();
+    while (propertyNames.hasNext())
+    {
+      String propertyName = propertyNames.next();
+      if (declaredProperties.contains(propertyName))
+      {
+        continue;
+      }
+      valid = false;
+      if (isComplete(errors))
+      {
+        break;
+      }
+      errors.add(additionalPropertyMessage(node, instanceLocation, evaluationPath, schemaLocation, propertyName));
+    }
+    return valid;
+  }
+
+  /**
+   * checks the "enum" keyword of a schema that allows string values only
+   *
+   * @param enumDescription the list of allowed values as it is shown within the error message
+   */
+  protected static boolean checkEnum(JsonNode node,
+                                     JsonNodePath instanceLocation,
+                                     JsonNodePath evaluationPath,
+                                     SchemaLocation schemaLocation,
+                                     Set<String> allowedValues,
+                                     String enumDescription,
+                                     Set<ValidationMessage> errors)
+  {
+    if (node.isTextual() && allowedValues.contains(node.textValue()))
+    {
+      return true;
+    }
+    if (isComplete(errors))
+    {
+      return false;
+    }
+    errors.add(enumMessage(node, instanceLocation, evaluationPath, schemaLocation, enumDescription));
+    return false;
+  }
+
+  /**
+   * checks the "pattern" keyword. Like the networknt validator the pattern may match any part of the value
+   */
+  protected static boolean checkPattern(JsonNode node,
+                                        JsonNodePath instanceLocation,
+                                        JsonNodePath evaluationPath,
+                                        SchemaLocation schemaLocation,
+                                        Pattern pattern,
+                                        Set<ValidationMessage> errors)
+  {
+    if (!"string".equals(getTypeName(node)) || pattern.matcher(node.asText()).find())
+    {
+      return true;
+    }
+    if (isComplete(errors))
+    {
+      return false;
+    }
+    errors.add(patternMessage(node, instanceLocation, evaluationPath, schemaLocation, pattern));
+    return false;
+  }
+
+  /**
+   * checks the "oneOf" keyword. The evaluation of the subschemas stops as soon as a second subschema matches.
+   * If not exactly one subschema matches, the errors of all subschemas that did not match are reported after
+   * the "oneOf" error. The subschemas are evaluated without collecting any errors first because usually exactly
+   * one of them matches and the errors of the other subschemas are not reported in this case
+   */
+  protected static boolean checkOneOf(JsonNode node,
+                                      JsonNodePath instanceLocation,
+                                      JsonNodePath evaluationPath,
+                                      SchemaLocation schemaLocation,
+                                      List<Subschema> subschemas,
+                                      Set<ValidationMessage> errors)
+  {
+    int validCount = 0;
+    for ( int i = 0 ; i < subschemas.size() && validCount < 2 ; i++ )
+    {
+      validCount += subschemas.get(i).validate(node, null, null) ? 1 : 0;
+    }
+    if (validCount == 1)
+    {
+      return true;
+    }
+    if (isComplete(errors))
+    {
+      return false;
+    }
+    // the "oneOf" error comes first, so the errors of the subschemas are not needed for the first error only
+    boolean collectChildErrors = !(errors instanceof FirstErrorSet);
+    List<String> validIndexes = new ArrayList<>(2);
+    Set<ValidationMessage> childErrors = new LinkedHashSet<>();
+    for ( int i = 0 ; i < subschemas.size() && validIndexes.size() < 2 ; i++ )
+    {
+      Set<ValidationMessage> subschemaErrors = collectChildErrors ? new LinkedHashSet<>() : null;
+      if (subschemas.get(i).validate(node, instanceLocation, subschemaErrors))
+      {
+        validIndexes.add(Integer.toString(i));
+      }
+      else if (collectChildErrors)
+      {
+        childErrors.addAll(subschemaErrors);
+      }
+    }
+    errors.add(oneOfMessage(node, instanceLocation, evaluationPath, schemaLocation, validCount, validIndexes));
+    errors.addAll(childErrors);
+    return false;
+  }
+
+  /**
+   * @return the error of a failed "type" keyword
+   */
+  static ValidationMessage typeMessage(JsonNode node,
+                                       JsonNodePath instanceLocation,
+                                       JsonNodePath evaluationPath,
+                                       SchemaLocation schemaLocation,
+                                       String actualType,
+                                       String expectedType)
+  {
+    return ValidationMessage.builder()
+                            .type("type")
+                            .code("1029")
+                            .instanceNode(node)
+                            .instanceLocation(instanceLocation)
+                            .evaluationPath(evaluationPath)
+                            .schemaLocation(schemaLocation)
+                            .messageKey("type")
+                            .arguments(actualType, expectedType)
+                            .messageSupplier(() -> String.format("%s: %s found, %s expected",
+                                                                 instanceLocation,
+                                                                 actualType,
+                                                                 expectedType))
+                            .build();
+  }
+
+  /**
+   * @return the error of a "required" keyword for a single missing property
+   */
+  static ValidationMessage requiredMessage(JsonNode node,
+                                           JsonNodePath instanceLocation,
+                                           JsonNodePath evaluationPath,
+                                           SchemaLocation schemaLocation,
+                                           String propertyName)
+  {
+    return ValidationMessage.builder()
+                            .type("required")
+                            .code("1028")
+                            .instanceNode(node)
+                            .instanceLocation(instanceLocation)
+                            .evaluationPath(evaluationPath)
+                            .schemaLocation(schemaLocation)
+                            .property(propertyName)
+                            .messageKey("required")
+                            .arguments(propertyName)
+                            .messageSupplier(() -> String.format("%s: required property '%s' not found",
+                                                                 instanceLocation,
+                                                                 propertyName))
+                            .build();
+  }
+
+  /**
+   * @return the error of an "additionalProperties" keyword for a single property that is not allowed
+   */
+  static ValidationMessage additionalPropertyMessage(JsonNode node,
+                                                     JsonNodePath instanceLocation,
+                                                     JsonNodePath evaluationPath,
+                                                     SchemaLocation schemaLocation,
+                                                     String propertyName)
+  {
+    return ValidationMessage.builder()
+                            .type("additionalProperties")
+                            .code("1001")
+                            .instanceNode(node)
+                            .instanceLocation(instanceLocation)
+                            .evaluationPath(evaluationPath)
+                            .schemaLocation(schemaLocation)
+                            .property(propertyName)
+                            .messageKey("additionalProperties")
+                            .arguments(propertyName)
+                            .messageSupplier(() -> String.format("%s: property '%s' is not defined in the "
+                                                                 + "schema and the schema does not allow "
+                                                                 + "additional properties",
+                                                                 instanceLocation,
+                                                                 propertyName))
+                            .build();
+  }
+
+  /**
+   * @return the error of a failed "enum" keyword
+   */
+  static ValidationMessage enumMessage(JsonNode node,
+                                       JsonNodePath instanceLocation,
+                                       JsonNodePath evaluationPath,
+                                       SchemaLocation schemaLocation,
+                                       String enumDescription)
+  {
+    return ValidationMessage.builder()
+                            .type("enum")
+                            .code("1008")
+                            .instanceNode(node)
+                            .instanceLocation(instanceLocation)
+                            .evaluationPath(evaluationPath)
+                            .schemaLocation(schemaLocation)
+                            .messageKey("enum")
+                            .arguments(enumDescription)
+                            .messageSupplier(() -> String.format("%s: does not have a value in the enumeration %s",
+                                                                 instanceLocation,
+                                                                 enumDescription))
+                            .build();
+  }
+
+  /**
+   * @return the error of a failed "pattern" keyword
+   */
+  static ValidationMessage patternMessage(JsonNode node,
+                                          JsonNodePath instanceLocation,
+                                          JsonNodePath evaluationPath,
+                                          SchemaLocation schemaLocation,
+                                          Pattern pattern)
+  {
+    return ValidationMessage.builder()
+                            .type("pattern")
+                            .code("1023")
+                            .instanceNode(node)
+                            .instanceLocation(instanceLocation)
+                            .evaluationPath(evaluationPath)
+                            .schemaLocation(schemaLocation)
+                            .messageKey("pattern")
+                            .arguments(pattern.pattern())
+                            .messageSupplier(() -> String.format("%s: does not match the regex pattern %s",
+                                                                 instanceLocation,
+                                                                 pattern.pattern()))
+                            .build();
+  }
+
+  /**
+   * @param validCount the number of matching subschemas. The evaluation stops at the second match
+   * @param validIndexes the indexes of the matching subschemas
+   * @return the error of a failed "oneOf" keyword. The errors of the subschemas must be added separately
+   */
+  static ValidationMessage oneOfMessage(JsonNode node,
+                                        JsonNodePath instanceLocation,
+                                        JsonNodePath evaluationPath,
+                                        SchemaLocation schemaLocation,
+                                        int validCount,
+                                        List<String> validIndexes)
+  {
+    String indexes = validCount > 1 ? String.join(", ", validIndexes) : "";
+    return ValidationMessage.builder()
+                            .type("oneOf")
+                            .code("1022")
+                            .instanceNode(node)
+                            .instanceLocation(instanceLocation)
+                            .evaluationPath(evaluationPath)
+                            .schemaLocation(schemaLocation)
+                            .messageKey(validCount > 1 ? "oneOf.indexes" : "oneOf")
+                            .arguments(Integer.toString(validCount), indexes)
+                            .messageSupplier(() -> String.format("%s: must be valid to one and only one schema, "
+                                                                 + "but %s are valid%s",
+                                                                 instanceLocation,
+                                                                 validCount,
+                                                                 validCount > 1 ? " with indexes '" + indexes + "'"
+                                                                   : ""))
+                            .build();
+  }
+
+  /**
+   * a set that keeps only the first added validation error
+   */
+  private static class FirstErrorSet extends LinkedHashSet<ValidationMessage>
+  {
+
+    @Override
+    public boolean add(ValidationMessage validationMessage)
+    {
+      return isEmpty() && super.add(validationMessage);
+    }
+  }
+
+  /**
+   * a generated method that validates a node against a single subschema
+   */
+  @FunctionalInterface
+  protected interface Subschema
+  {
+
+    /**
+     * validates the given node against the subschema
+     *
+     * @param node the node to validate
+     * @param instanceLocation the location of the node within the validated document. May be null if no errors
+     *          are collected
+     * @param errors the set that collects all validation errors or null if only the validity is of interest
+     * @return true if the node is valid
+     */
+    boolean validate(JsonNode node, JsonNodePath instanceLocation, Set<ValidationMessage> errors);
+  }
+}
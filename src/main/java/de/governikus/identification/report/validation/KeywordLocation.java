@@ -0,0 +1,46 @@
+package de.governikus.identification.report.validation;
+
+import java.util.List;
+
+import com.networknt.schema.JsonNodePath;
+import com.networknt.schema.SchemaLocation;
+
+import lombok.Getter;
+
+
+/**
+ * the evaluation path and the schema location of a single keyword within a schema as they are reported within
+ * the validation messages
+ */
+@Getter
+final class KeywordLocation
+{
+
+  private final JsonNodePath evaluationPath;
+
+  private final SchemaLocation schemaLocation;
+
+  /**
+   * @param schemaId the id of the schema that contains the keyword
+   * @param elements the property names and array indexes that lead to the keyword
+   */
+  KeywordLocation(String schemaId, Object... elements)
+  {
+    this(schemaId, List.of(elements));
+  }
+
+  /**
+   * @param schemaId the id of the schema that contains the keyword
+   * @param elements the property names and array indexes that lead to the keyword
+   */
+  KeywordLocation(String schemaId, List<Object> elements)
+  {
+    this.evaluationPath = CompiledSchemaValidator.evaluationPath(elements.toArray());
+    StringBuilder pointer = new StringBuilder(schemaId).append('#');
+    for ( Object element : elements )
+    {
+      pointer.append('/').append(element.toString().replace("~", "~0").replace("/", "~1"));
+    }
+    this.schemaLocation = SchemaLocation.of(pointer.toString());
+  }
+}
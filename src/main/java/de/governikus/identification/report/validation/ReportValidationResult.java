@@ -0,0 +1,46 @@
+package de.governikus.identification.report.validation;
+
+import java.util.Set;
+
+import com.networknt.schema.ValidationMessage;
+
+import lombok.Builder;
+import lombok.Getter;
+
+
+/**
+ * the combined result of validating an identification report together with its subject reference
+ *
+ * @see ReportValidator
+ */
+@Getter
+@Builder
+public class ReportValidationResult
+{
+
+  /**
+   * the errors of the report against the identification report schema (empty if valid)
+   */
+  private final Set<ValidationMessage> reportErrors;
+
+  /**
+   * the location of the schema the subject reference was validated against or null if the report has no subject
+   * reference
+   */
+  private final String subjectRefSchemaLocation;
+
+  /**
+   * the errors of the subject reference against the schema under {@link #subjectRefSchemaLocation} (empty if
+   * valid or if the report has no subject reference). The instance locations are relative to the subject
+   * reference
+   */
+  private final Set<ValidationMessage> subjectRefErrors;
+
+  /**
+   * @return true if the report and its subject reference match their schemas
+   */
+  public boolean isValid()
+  {
+    return reportErrors.isEmpty() && subjectRefErrors.isEmpty();
+  }
+}
@@ -0,0 +1,269 @@
+package de.governikus.identification.report.validation;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.schema.ValidationMessage;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.objects.IdentificationReport;
+import de.governikus.identification.report.objects.subjects.SubjectRef;
+import de.governikus.identification.report.objects.subjects.SubjectRefType;
+import de.governikus.identification.report.objects.subjects.SubjectRefTypeRegistry;
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+
+/**
+ * validates an identification report together with its subject reference. The subject reference is validated
+ * against the schema of the type that is registered for the {@code subjectRefType} of the report or against
+ * its own schema if no type is registered. Both objects are validated by their typed fields if possible and
+ * the report is converted into a json tree at most once otherwise. The validations of the report and of the
+ * subject reference are independent of each other and run in parallel if an executor is given
+ */
+public class ReportValidator
+{
+
+  private static final String SUBJECT_REF = "subjectRef";
+
+  private static final String SUBJECT_REF_TYPE = "subjectRefType";
+
+  /**
+   * the schema locations of the registered subject reference types whose location is unknown to the registry
+   */
+  private static final Map<Class<? extends SubjectRef>, String> SUBJECT_REF_SCHEMA_LOCATIONS = new ConcurrentHashMap<>();
+
+  /**
+   * the executor that validates the subject reference while the calling thread validates the report or null if
+   * both are validated by the calling thread
+   */
+  @Getter
+  private final Executor executor;
+
+  /**
+   * @param executor the executor that validates the subject reference while the calling thread validates the
+   *          report. If null both are validated by the calling thread, which is the cheapest option for the
+   *          small bundled schemas
+   */
+  @Builder
+  public ReportValidator(Executor executor)
+  {
+    this.executor = executor;
+  }
+
+  /**
+   * validates the given report and its subject reference
+   *
+   * @param report the report to validate
+   * @return the combined result of the report and its subject reference
+   */
+  public ReportValidationResult validate(IdentificationReport<?> report)
+  {
+    SubjectRef subjectRef = report.getSubjectRef();
+    ReportTree reportTree = new ReportTree(report);
+    String subjectRefSchemaLocation = subjectRef == null ? null
+      : getSubjectRefSchemaLocation(report.getSubjectRefType(), subjectRef);
+
+    final Set<ValidationMessage> reportErrors;
+    final Set<ValidationMessage> subjectRefErrors;
+    if (subjectRef == null)
+    {
+      reportErrors = validateReport(report, reportTree);
+      subjectRefErrors = Set.of();
+    }
+    else if (executor == null)
+    {
+      reportErrors = validateReport(report, reportTree);
+      subjectRefErrors = validateSubjectRef(subjectRefSchemaLocation, subjectRef, reportTree);
+    }
+    else
+    {
+      CompletableFuture<Set<ValidationMessage>> subjectRefValidation = CompletableFuture.supplyAsync(() -> validateSubjectRef(subjectRefSchemaLocation,
+                                                                                                                              subjectRef,
+                                                                                                                              reportTree),
+                                                                                                     executor);
+      reportErrors = validateReport(report, reportTree);
+      subjectRefErrors = join(subjectRefValidation);
+    }
+    return ReportValidationResult.builder()
+                                 .reportErrors(reportErrors)
+                                 .subjectRefSchemaLocation(subjectRefSchemaLocation)
+                                 .subjectRefErrors(subjectRefErrors)
+                                 .build();
+  }
+
+  /**
+   * validates the given json tree of a report and its subject reference without binding it to the java objects.
+   * The subject reference is validated against the schema of the type that is registered for the
+   * {@code subjectRefType} of the report. It is not validated if no type is registered for it
+   *
+   * @param report the json tree of the report to validate
+   * @return the combined result of the report and its subject reference
+   */
+  public ReportValidationResult validate(JsonNode report)
+  {
+    return validate(report, null);
+  }
+
+  /**
+   * validates the given json tree of a report and its subject reference without binding it to the java objects.
+   * The subject reference is validated against the schema of the type that is registered for the
+   * {@code subjectRefType} of the report or against the schema of the given default type if no type is
+   * registered for it
+   *
+   * @param report the json tree of the report to validate
+   * @param defaultSubType the type of the subject reference if the report does not name a registered type. If
+   *          null such subject references are not validated
+   * @return the combined result of the report and its subject reference
+   */
+  public ReportValidationResult validate(JsonNode report, Class<? extends SubjectRef> defaultSubType)
+  {
+    JsonNode subjectRef = report.get(SUBJECT_REF);
+    Class<? extends SubjectRef> subType = Optional.ofNullable(report.get(SUBJECT_REF_TYPE))
+                                                  .filter(JsonNode::isTextual)
+                                                  .map(JsonNode::textValue)
+                                                  .map(SchemaConstants::getSubType)
+                                                  .orElse(defaultSubType);
+    String subjectRefSchemaLocation = subjectRef == null || subType == null ? null : getSchemaLocation(subType);
+    String reportSchemaLocation = SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION;
+
+    final Set<ValidationMessage> reportErrors;
+    final Set<ValidationMessage> subjectRefErrors;
+    if (subjectRefSchemaLocation == null)
+    {
+      reportErrors = SchemaValidator.validateJsonObject(reportSchemaLocation, report);
+      subjectRefErrors = Set.of();
+    }
+    else if (executor == null)
+    {
+      reportErrors = SchemaValidator.validateJsonObject(reportSchemaLocation, report);
+      subjectRefErrors = SchemaValidator.validateJsonObject(subjectRefSchemaLocation, subjectRef);
+    }
+    else
+    {
+      CompletableFuture<Set<ValidationMessage>> subjectRefValidation = CompletableFuture.supplyAsync(() -> SchemaValidator.validateJsonObject(subjectRefSchemaLocation,
+                                                                                                                                              subjectRef),
+                                                                                                     executor);
+      reportErrors = SchemaValidator.validateJsonObject(reportSchemaLocation, report);
+      subjectRefErrors = join(subjectRefValidation);
+    }
+    return ReportValidationResult.builder()
+                                 .reportErrors(reportErrors)
+                                 .subjectRefSchemaLocation(subjectRefSchemaLocation)
+                                 .subjectRefErrors(subjectRefErrors)
+                                 .build();
+  }
+
+  private static Set<ValidationMessage> validateReport(IdentificationReport<?> report, ReportTree reportTree)
+  {
+    String schemaLocation = SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION;
+    Set<ValidationMessage> errors = TypedObjectValidator.validate(schemaLocation, report);
+    if (errors != null)
+    {
+      return errors;
+    }
+    return SchemaValidator.validateJsonObject(schemaLocation, reportTree.get());
+  }
+
+  private static Set<ValidationMessage> validateSubjectRef(String schemaLocation,
+                                                           SubjectRef subjectRef,
+                                                           ReportTree reportTree)
+  {
+    Set<ValidationMessage> errors = TypedObjectValidator.validate(schemaLocation, subjectRef);
+    if (errors != null)
+    {
+      return errors;
+    }
+    return SchemaValidator.validateJsonObject(schemaLocation, reportTree.get().get(SUBJECT_REF));
+  }
+
+  /**
+   * @return the schema location of the type that is registered for the given subject reference type or the
+   *         schema location of the subject reference itself if no other type is registered
+   */
+  private static String getSubjectRefSchemaLocation(String subjectRefType, SubjectRef subjectRef)
+  {
+    Class<? extends SubjectRef> subType = SchemaConstants.getSubType(subjectRefType);
+    if (subType == null || subType == subjectRef.getClass())
+    {
+      return subjectRef.getValidationSchemaLocation();
+    }
+    return getSchemaLocation(subType);
+  }
+
+  /**
+   * @return the schema location of the given subtype as it is known to the {@link SubjectRefTypeRegistry}.
+   *         Subtypes without a known location must provide a no-arguments constructor
+   */
+  private static String getSchemaLocation(Class<? extends SubjectRef> subType)
+  {
+    SubjectRefType registeredType = SubjectRefTypeRegistry.getSubjectRefType(subType);
+    if (registeredType != null && registeredType.getSchemaLocation() != null)
+    {
+      return registeredType.getSchemaLocation();
+    }
+    return SUBJECT_REF_SCHEMA_LOCATIONS.computeIfAbsent(subType, ReportValidator::instantiateSchemaLocation);
+  }
+
+  /**
+   * @return the schema location of a new instance of the given subtype
+   */
+  @SneakyThrows
+  private static String instantiateSchemaLocation(Class<? extends SubjectRef> subType)
+  {
+    return subType.getDeclaredConstructor().newInstance().getValidationSchemaLocation();
+  }
+
+  /**
+   * waits for the given validation and rethrows its runtime exceptions unwrapped
+   */
+  private static Set<ValidationMessage> join(CompletableFuture<Set<ValidationMessage>> validation)
+  {
+    try
+    {
+      return validation.join();
+    }
+    catch (CompletionException ex)
+    {
+      if (ex.getCause() instanceof RuntimeException)
+      {
+        throw (RuntimeException)ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * converts the report into a json tree on first access. The report and the subject reference validation share
+   * the same tree even if they run in different threads
+   */
+  private static class ReportTree
+  {
+
+    private final IdentificationReport<?> report;
+
+    private JsonNode tree;
+
+    ReportTree(IdentificationReport<?> report)
+    {
+      this.report = report;
+    }
+
+    synchronized JsonNode get()
+    {
+      if (tree == null)
+      {
+        tree = ObjectMapperUtil.getObjectMapper().valueToTree(report);
+      }
+      return tree;
+    }
+  }
+}
@@ -1,22 +1,44 @@
 package de.governikus.identification.report.validation;
 
 import java.util.Locale;
+import java.util.Optional;
 import java.util.Set;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.networknt.schema.ExecutionConfig;
 import com.networknt.schema.JsonSchema;
+import com.networknt.schema.OutputFormat;
 import com.networknt.schema.ValidationMessage;
 
 import de.governikus.identification.report.constants.SchemaConstants;
 import de.governikus.identification.report.utils.ObjectMapperUtil;
+import de.governikus.identification.report.generator.CompileSchema;
 import lombok.extern.slf4j.Slf4j;
 
 
+/**
+ * validates json objects against the JSON schemas. The bundled schemas are compiled into plain java
+ * validators during the build, all other schemas are evaluated by the networknt validator. Besides the full
+ * validation that collects all messages there are cheaper modes that only decide if an object is valid
+ * ({@code isValid}) or that stop at the first error ({@code getFirstError})
+ */
 @Slf4j
+@CompileSchema(location = SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION, className = "IdentificationReportSchemaValidator")
+@CompileSchema(location = SchemaConstants.Locations.EID_CARD_SCHEMA_LOCATION, className = "EidCardPersonRefSchemaValidator")
+@CompileSchema(location = SchemaConstants.Locations.FINK_USER_ACCOUNT_MINIMAL_SCHEMA_LOCATION, className = "FinkPersonRefMinimalSchemaValidator")
 public class SchemaValidator
 {
 
+  /**
+   * the configuration of the networknt validator that renders the messages in english. It is never modified and
+   * therefore shared by all validations
+   */
+  private static final ExecutionConfig EXECUTION_CONFIG = createExecutionConfig(false);
+
+  /**
+   * the configuration of the networknt validator that stops at the first error
+   */
+  private static final ExecutionConfig FAIL_FAST_EXECUTION_CONFIG = createExecutionConfig(true);
 
   /**
    * Validates a POJO against a JSON schema from the given location.
@@ -27,8 +49,9 @@ public class SchemaValidator
    */
   public static boolean isJsonValid(String schemaLocation, Object pojo)
   {
-    JsonNode node = ObjectMapperUtil.getObjectMapper().valueToTree(pojo);
-    return isJsonValid(schemaLocation, node);
+    Set<ValidationMessage> errors = validateJsonObject(schemaLocation, pojo);
+    logErrors(errors);
+    return errors.isEmpty();
   }
 
   /**
@@ -41,12 +64,115 @@ public class SchemaValidator
   public static boolean isJsonValid(String schemaLocation, JsonNode jsonNode)
   {
     Set<ValidationMessage> errors = validateJsonObject(schemaLocation, jsonNode);
-    errors.forEach(error -> log.info(error.getMessage()));
+    logErrors(errors);
     return errors.isEmpty();
   }
 
   /**
-   * Validates a POJO and returns the set of validation messages.
+   * Checks if a POJO matches the JSON schema from the given location. Other than
+   * {@link #isJsonValid(String, Object)} nothing is logged and no messages are rendered.
+   *
+   * @param schemaLocation the schemas location that is used to validate the json object
+   * @param pojo the object that should be validated
+   * @return true if the object matches the schema definitions
+   */
+  public static boolean isValid(String schemaLocation, Object pojo)
+  {
+    Boolean valid = TypedObjectValidator.isValid(schemaLocation, pojo);
+    if (valid != null)
+    {
+      return valid;
+    }
+    JsonNode node = ObjectMapperUtil.getObjectMapper().valueToTree(pojo);
+    return isValid(schemaLocation, node);
+  }
+
+  /**
+   * Checks if a JsonNode matches the JSON schema from the given location. The validation stops at the first
+   * error, nothing is logged and no messages are created.
+   *
+   * @param schemaLocation the schemas location that is used to validate the json object
+   * @param jsonNode the json node to validate
+   * @return true if the object matches the schema definitions
+   */
+  public static boolean isValid(String schemaLocation, JsonNode jsonNode)
+  {
+    CompiledSchemaValidator compiledSchemaValidator = CompiledSchemaValidators.get(schemaLocation);
+    if (compiledSchemaValidator != null)
+    {
+      return compiledSchemaValidator.isValid(jsonNode);
+    }
+    return isValid(SchemaConstants.getSchema(schemaLocation), jsonNode);
+  }
+
+  /**
+   * Uses the given JSON schema to check the json node. The validation stops at the first error.
+   *
+   * @param schema used to validate the json node with the existing schema
+   * @param jsonNode the json node that should be validated
+   * @return true if the json node matches the schema definitions
+   */
+  public static boolean isValid(JsonSchema schema, JsonNode jsonNode)
+  {
+    return schema.validate(jsonNode,
+                           OutputFormat.BOOLEAN,
+                           executionContext -> executionContext.setExecutionConfig(FAIL_FAST_EXECUTION_CONFIG));
+  }
+
+  /**
+   * Validates a POJO and returns the first validation message. Use this if a single reason is enough to reject
+   * the object. The validation stops at the first error.
+   *
+   * @param schemaLocation the schemas location
+   * @param pojo the object to validate
+   * @return the first validation error or an empty optional if the object is valid
+   */
+  public static Optional<ValidationMessage> getFirstError(String schemaLocation, Object pojo)
+  {
+    Set<ValidationMessage> firstError = TypedObjectValidator.getFirstError(schemaLocation, pojo);
+    if (firstError != null)
+    {
+      return firstError.stream().findFirst();
+    }
+    JsonNode node = ObjectMapperUtil.getObjectMapper().valueToTree(pojo);
+    return getFirstError(schemaLocation, node);
+  }
+
+  /**
+   * Validates a JsonNode and returns the first validation message. The validation stops at the first error.
+   *
+   * @param schemaLocation the schemas location
+   * @param jsonNode the json node to validate
+   * @return the first validation error or an empty optional if the json node is valid
+   */
+  public static Optional<ValidationMessage> getFirstError(String schemaLocation, JsonNode jsonNode)
+  {
+    CompiledSchemaValidator compiledSchemaValidator = CompiledSchemaValidators.get(schemaLocation);
+    if (compiledSchemaValidator != null)
+    {
+      return compiledSchemaValidator.getFirstError(jsonNode);
+    }
+    return getFirstError(SchemaConstants.getSchema(schemaLocation), jsonNode);
+  }
+
+  /**
+   * Uses the given JSON schema to validate the json node. The validation stops at the first error.
+   *
+   * @param schema used to validate the json node with the existing schema
+   * @param jsonNode the json node that should be validated
+   * @return the first validation error or an empty optional if the json node is valid
+   */
+  public static Optional<ValidationMessage> getFirstError(JsonSchema schema, JsonNode jsonNode)
+  {
+    return schema.validate(jsonNode,
+                           executionContext -> executionContext.setExecutionConfig(FAIL_FAST_EXECUTION_CONFIG))
+                 .stream()
+                 .findFirst();
+  }
+
+  /**
+   * Validates a POJO and returns the set of validation messages. The objects of this library are validated by
+   * their typed fields, all other objects are serialized into a json tree first.
    *
    * @param schemaLocation the schemas location
    * @param pojo the object to validate
@@ -54,6 +180,11 @@ public class SchemaValidator
    */
   public static Set<ValidationMessage> validateJsonObject(String schemaLocation, Object pojo)
   {
+    Set<ValidationMessage> errors = TypedObjectValidator.validate(schemaLocation, pojo);
+    if (errors != null)
+    {
+      return errors;
+    }
     JsonNode node = ObjectMapperUtil.getObjectMapper().valueToTree(pojo);
     return validateJsonObject(schemaLocation, node);
   }
@@ -67,12 +198,13 @@ public class SchemaValidator
    */
   public static Set<ValidationMessage> validateJsonObject(String schemaLocation, JsonNode jsonNode)
   {
+    CompiledSchemaValidator compiledSchemaValidator = CompiledSchemaValidators.get(schemaLocation);
+    if (compiledSchemaValidator != null)
+    {
+      return compiledSchemaValidator.validate(jsonNode);
+    }
     JsonSchema schema = SchemaConstants.getSchema(schemaLocation);
-    return schema.validate(jsonNode, executionContext -> {
-      ExecutionConfig executionConfig = new ExecutionConfig();
-      executionConfig.setLocale(Locale.US);
-      executionContext.setExecutionConfig(executionConfig);
-    });
+    return schema.validate(jsonNode, executionContext -> executionContext.setExecutionConfig(EXECUTION_CONFIG));
   }
 
   /**
@@ -86,4 +218,23 @@ public class SchemaValidator
   {
     return schema.validate(jsonNode);
   }
+
+  /**
+   * logs the messages of the given errors. The messages are only rendered if they are actually logged
+   */
+  private static void logErrors(Set<ValidationMessage> errors)
+  {
+    if (log.isInfoEnabled())
+    {
+      errors.forEach(error -> log.info(error.getMessage()));
+    }
+  }
+
+  private static ExecutionConfig createExecutionConfig(boolean failFast)
+  {
+    ExecutionConfig executionConfig = new ExecutionConfig();
+    executionConfig.setLocale(Locale.US);
+    executionConfig.setFailFast(failFast);
+    return executionConfig;
+  }
 }
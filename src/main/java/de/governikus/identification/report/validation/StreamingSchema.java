@@ -0,0 +1,264 @@
+package de.governikus.identification.report.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+
+/**
+ * a subschema that is prepared for the validation of a json token stream. It supports the same keywords as
+ * the validators that are generated during the build. The errors of each keyword are collected within a slot
+ * of their own so that they can be reported in the order of the networknt validator although the tokens are
+ * read in the order of the document: the "properties" keyword has one slot for each declared property in the
+ * order of the schema, followed by one slot for each other keyword in the order of the schema
+ *
+ * @see StreamingSchemaValidator
+ */
+@Getter(AccessLevel.PACKAGE)
+final class StreamingSchema
+{
+
+  /**
+   * keywords that never produce a validation error
+   */
+  private static final Set<String> ANNOTATION_KEYWORDS = Set.of("$schema",
+                                                                "$id",
+                                                                "$comment",
+                                                                "title",
+                                                                "description",
+                                                                "default",
+                                                                "examples",
+                                                                "format");
+
+  /**
+   * the types that can be checked by the streaming validation
+   */
+  private static final Set<String> SUPPORTED_TYPES = Set.of("object", "array", "string", "number", "boolean", "null");
+
+  /**
+   * the subschemas of the declared properties
+   */
+  private final Map<String, StreamingSchema> properties = new HashMap<>();
+
+  /**
+   * the slots of the declared properties
+   */
+  private final Map<String, Integer> propertySlots = new HashMap<>();
+
+  private String type;
+
+  private KeywordLocation typeLocation;
+
+  private int typeSlot;
+
+  private List<String> required = Collections.emptyList();
+
+  private KeywordLocation requiredLocation;
+
+  private int requiredSlot;
+
+  /**
+   * true if "additionalProperties" is false
+   */
+  private boolean additionalPropertiesForbidden;
+
+  private KeywordLocation additionalPropertiesLocation;
+
+  private int additionalPropertiesSlot;
+
+  private Set<String> enumValues;
+
+  /**
+   * the allowed values of the enum as the networknt validator shows them within its error message
+   */
+  private String enumDescription;
+
+  private KeywordLocation enumLocation;
+
+  private int enumSlot;
+
+  private Pattern pattern;
+
+  private KeywordLocation patternLocation;
+
+  private int patternSlot;
+
+  private StreamingSchema items;
+
+  private int itemsSlot;
+
+  private final List<StreamingSchema> oneOf = new ArrayList<>();
+
+  private KeywordLocation oneOfLocation;
+
+  private int oneOfSlot;
+
+  /**
+   * the number of slots that are used for the errors of this subschema
+   */
+  private int slotCount;
+
+  /**
+   * @param schemaId the id of the root schema
+   * @param subschema the subschema to prepare
+   * @param path the property names and array indexes that lead to the subschema
+   * @throws IllegalArgumentException if the subschema uses a keyword that is not supported
+   */
+  private StreamingSchema(String schemaId, JsonNode subschema, List<Object> path)
+  {
+    if (!subschema.isObject())
+    {
+      throw new IllegalArgumentException(String.format("Unsupported subschema at '%s'", path));
+    }
+    for ( String keyword : getOrderedKeywords(subschema) )
+    {
+      if (ANNOTATION_KEYWORDS.contains(keyword))
+      {
+        continue;
+      }
+      JsonNode value = subschema.get(keyword);
+      List<Object> keywordPath = append(path, keyword);
+      KeywordLocation keywordLocation = new KeywordLocation(schemaId, keywordPath);
+      switch (keyword)
+      {
+        case "properties":
+          for ( Map.Entry<String, JsonNode> property : value.properties() )
+          {
+            properties.put(property.getKey(),
+                           new StreamingSchema(schemaId, property.getValue(), append(keywordPath, property.getKey())));
+            propertySlots.put(property.getKey(), slotCount++);
+          }
+          break;
+        case "type":
+          if (!value.isTextual() || !SUPPORTED_TYPES.contains(value.textValue()))
+          {
+            throw new IllegalArgumentException(String.format("Unsupported type at '%s'", keywordPath));
+          }
+          type = value.textValue();
+          typeLocation = keywordLocation;
+          typeSlot = slotCount++;
+          break;
+        case "required":
+          required = getStrings(value);
+          requiredLocation = keywordLocation;
+          requiredSlot = slotCount++;
+          break;
+        case "additionalProperties":
+          if (!value.isBoolean())
+          {
+            throw new IllegalArgumentException(String.format("Unsupported additionalProperties at '%s'", keywordPath));
+          }
+          additionalPropertiesForbidden = !value.booleanValue();
+          additionalPropertiesLocation = keywordLocation;
+          additionalPropertiesSlot = slotCount++;
+          break;
+        case "enum":
+          enumValues = new HashSet<>(getStrings(value));
+          StringJoiner description = new StringJoiner(", ", "[", "]");
+          value.forEach(enumValue -> description.add(enumValue.toString()));
+          enumDescription = description.toString();
+          enumLocation = keywordLocation;
+          enumSlot = slotCount++;
+          break;
+        case "pattern":
+          pattern = Pattern.compile(value.textValue());
+          patternLocation = keywordLocation;
+          patternSlot = slotCount++;
+          break;
+        case "items":
+          items = new StreamingSchema(schemaId, value, keywordPath);
+          itemsSlot = slotCount++;
+          break;
+        case "oneOf":
+          if (!value.isArray() || value.isEmpty())
+          {
+            throw new IllegalArgumentException(String.format("Unsupported oneOf at '%s'", keywordPath));
+          }
+          for ( int i = 0 ; i < value.size() ; i++ )
+          {
+            oneOf.add(new StreamingSchema(schemaId, value.get(i), append(keywordPath, i)));
+          }
+          oneOfLocation = keywordLocation;
+          oneOfSlot = slotCount++;
+          break;
+        default:
+          throw new IllegalArgumentException(String.format("Unsupported keyword at '%s'", keywordPath));
+      }
+    }
+  }
+
+  /**
+   * prepares the given root schema for the validation of json token streams
+   *
+   * @param schema the root schema
+   * @return the prepared schema
+   * @throws IllegalArgumentException if the schema has no "$id" or uses a keyword that is not supported
+   */
+  static StreamingSchema of(JsonNode schema)
+  {
+    JsonNode id = schema.get("$id");
+    if (id == null || !id.isTextual())
+    {
+      throw new IllegalArgumentException("The schema must declare an '$id'");
+    }
+    return new StreamingSchema(id.textValue(), schema, new ArrayList<>());
+  }
+
+  /**
+   * @return true if the members of an object must be read to validate it against this subschema
+   */
+  boolean isObjectMembersRequired()
+  {
+    return !properties.isEmpty() || !required.isEmpty() || additionalPropertiesForbidden;
+  }
+
+  /**
+   * @return the keywords of the subschema with "properties" moved to the front
+   */
+  private static List<String> getOrderedKeywords(JsonNode subschema)
+  {
+    List<String> keywords = new ArrayList<>();
+    subschema.fieldNames().forEachRemaining(keywords::add);
+    if (keywords.remove("properties"))
+    {
+      keywords.add(0, "properties");
+    }
+    return keywords;
+  }
+
+  private static List<String> getStrings(JsonNode values)
+  {
+    if (!values.isArray())
+    {
+      throw new IllegalArgumentException("Expected an array of strings but found " + values);
+    }
+    List<String> strings = new ArrayList<>();
+    for ( JsonNode value : values )
+    {
+      if (!value.isTextual())
+      {
+        throw new IllegalArgumentException("Expected an array of strings but found " + values);
+      }
+      strings.add(value.textValue());
+    }
+    return strings;
+  }
+
+  private static List<Object> append(List<Object> path, Object element)
+  {
+    List<Object> appended = new ArrayList<>(path);
+    appended.add(element);
+    return appended;
+  }
+}
@@ -0,0 +1,667 @@
+package de.governikus.identification.report.validation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.networknt.schema.JsonNodePath;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.ValidationMessage;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * validates raw json input against a JSON schema directly on the token stream of the parser. No tree or
+ * object is built, the input is read in a single pass and the memory that is used for the validation is
+ * bounded by the nesting depth of the document instead of its size. Malformed input and input that exceeds
+ * the configured limits is rejected with a {@link com.fasterxml.jackson.core.JsonProcessingException} as soon
+ * as the parser reaches the offending token. Duplicate property names are treated as malformed input because
+ * they would be silently overwritten when the document is read into a tree.<br>
+ * <br>
+ * The validation supports the same keywords as the validators that are generated during the build and reports
+ * the same {@link ValidationMessage}s in the same order as the networknt validator would do for the same
+ * document.
+ */
+@Slf4j
+public class StreamingSchemaValidator
+{
+
+  /**
+   * the default maximum nesting depth of the validated documents
+   */
+  public static final int DEFAULT_MAX_NESTING_DEPTH = 64;
+
+  /**
+   * the default maximum length of the validated documents in bytes
+   */
+  public static final long DEFAULT_MAX_DOCUMENT_LENGTH = 1024 * 1024;
+
+  /**
+   * the default maximum length of a single string value
+   */
+  public static final int DEFAULT_MAX_STRING_LENGTH = 64 * 1024;
+
+  /**
+   * the prepared schemas mapped to their locations. A prepared schema is replaced as soon as
+   * {@link SchemaConstants#getSchema(String)} returns another version of the schema e.g. because it was
+   * reloaded by a {@link de.governikus.identification.report.constants.FileSystemSchemaSource}
+   */
+  private static final Map<String, PreparedSchema> SCHEMAS = new ConcurrentHashMap<>();
+
+  /**
+   * the location of the schema the documents are validated against
+   */
+  @Getter
+  private final String schemaLocation;
+
+  /**
+   * the maximum length of a single string value
+   */
+  @Getter
+  private final int maxStringLength;
+
+  /**
+   * creates the parsers that enforce the configured limits
+   */
+  private final JsonFactory jsonFactory;
+
+  /**
+   * @param schemaLocation the location of the schema the documents are validated against. Defaults to the
+   *          identification report schema
+   * @param maxNestingDepth the maximum nesting depth of the documents. Defaults to
+   *          {@value #DEFAULT_MAX_NESTING_DEPTH}
+   * @param maxDocumentLength the maximum length of the documents in bytes. Defaults to
+   *          {@value #DEFAULT_MAX_DOCUMENT_LENGTH}
+   * @param maxStringLength the maximum length of a single string value. Defaults to
+   *          {@value #DEFAULT_MAX_STRING_LENGTH}
+   * @throws IllegalArgumentException if the schema uses a keyword that is not supported by the streaming
+   *           validation
+   */
+  @Builder
+  public StreamingSchemaValidator(String schemaLocation,
+                                  Integer maxNestingDepth,
+                                  Long maxDocumentLength,
+                                  Integer maxStringLength)
+  {
+    this.schemaLocation = Optional.ofNullable(schemaLocation)
+                                  .orElse(SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION);
+    getSchema();
+    this.maxStringLength = Optional.ofNullable(maxStringLength).orElse(DEFAULT_MAX_STRING_LENGTH);
+    StreamReadConstraints constraints = StreamReadConstraints.builder()
+                                                             .maxNestingDepth(Optional.ofNullable(maxNestingDepth)
+                                                                                      .orElse(DEFAULT_MAX_NESTING_DEPTH))
+                                                             .maxDocumentLength(Optional.ofNullable(maxDocumentLength)
+                                                                                        .orElse(DEFAULT_MAX_DOCUMENT_LENGTH))
+                                                             .maxStringLength(this.maxStringLength)
+                                                             .build();
+    this.jsonFactory = JsonFactory.builder()
+                                  .streamReadConstraints(constraints)
+                                  .enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION)
+                                  .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+                                  .build();
+  }
+
+  /**
+   * validates the json document that is read from the given stream. The stream is not closed
+   *
+   * @param inputStream the stream that contains a single json document
+   * @return set of validation errors (empty if valid)
+   * @throws com.fasterxml.jackson.core.JsonProcessingException if the document is malformed or exceeds the
+   *           configured limits
+   * @throws IOException if the stream cannot be read
+   */
+  public Set<ValidationMessage> validate(InputStream inputStream) throws IOException
+  {
+    try (JsonParser parser = jsonFactory.createParser(inputStream))
+    {
+      return validate(parser);
+    }
+  }
+
+  /**
+   * validates the given json document
+   *
+   * @param json the utf-8 encoded json document
+   * @return set of validation errors (empty if valid)
+   * @throws com.fasterxml.jackson.core.JsonProcessingException if the document is malformed or exceeds the
+   *           configured limits
+   */
+  public Set<ValidationMessage> validate(byte[] json) throws IOException
+  {
+    try (JsonParser parser = jsonFactory.createParser(json))
+    {
+      return validate(parser);
+    }
+  }
+
+  /**
+   * reads exactly one json document from the parser and validates it against the schema
+   */
+  private Set<ValidationMessage> validate(JsonParser parser) throws IOException
+  {
+    if (parser.nextToken() == null)
+    {
+      throw new JsonParseException(parser, "No json document found");
+    }
+    Set<ValidationMessage> errors = new LinkedHashSet<>();
+    List<Evaluation> evaluations = new ArrayList<>();
+    Evaluation.expand(getSchema(), CompiledSchemaValidator.ROOT_LOCATION, null, 0, errors, evaluations);
+    validateValue(parser, evaluations);
+    if (parser.nextToken() != null)
+    {
+      throw new JsonParseException(parser, "Unexpected content after the json document");
+    }
+    return errors;
+  }
+
+  /**
+   * @return the prepared version of the schema that is currently returned by
+   *         {@link SchemaConstants#getSchema(String)}. If a reloaded version uses a keyword that is not
+   *         supported by the streaming validation the previous version stays in use
+   * @throws IllegalArgumentException if the first version of the schema uses an unsupported keyword
+   */
+  private StreamingSchema getSchema()
+  {
+    JsonSchema jsonSchema = SchemaConstants.getSchema(schemaLocation);
+    PreparedSchema preparedSchema = SCHEMAS.get(schemaLocation);
+    if (preparedSchema != null && preparedSchema.getSource() == jsonSchema)
+    {
+      return preparedSchema.getSchema();
+    }
+    StreamingSchema streamingSchema;
+    try
+    {
+      streamingSchema = StreamingSchema.of(jsonSchema.getSchemaNode());
+    }
+    catch (IllegalArgumentException ex)
+    {
+      if (preparedSchema == null)
+      {
+        throw ex;
+      }
+      log.warn("Keeping previous version of schema '{}' for streaming validation: {}", schemaLocation, ex.getMessage());
+      return preparedSchema.getSchema();
+    }
+    SCHEMAS.put(schemaLocation, new PreparedSchema(jsonSchema, streamingSchema));
+    return streamingSchema;
+  }
+
+  /**
+   * validates the value that starts at the current token against all given evaluations. When this method
+   * returns the parser is positioned on the last token of the value
+   *
+   * @param evaluations the evaluations of all subschemas that apply to the value. Never empty
+   */
+  private void validateValue(JsonParser parser, List<Evaluation> evaluations) throws IOException
+  {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_STRING)
+    {
+      checkStringLength(parser);
+    }
+    String typeName = getTypeName(token);
+    for ( Evaluation evaluation : evaluations )
+    {
+      evaluation.checkValue(parser, token, typeName);
+    }
+    if (token == JsonToken.START_OBJECT)
+    {
+      validateObject(parser, evaluations);
+    }
+    else if (token == JsonToken.START_ARRAY)
+    {
+      validateArray(parser, evaluations);
+    }
+    // the subschemas of a "oneOf" follow the evaluation they belong to and must be finished before it
+    for ( int i = evaluations.size() - 1 ; i >= 0 ; i-- )
+    {
+      evaluations.get(i).finish();
+    }
+  }
+
+  /**
+   * validates the members of an object. Members without any subschema are skipped
+   */
+  private void validateObject(JsonParser parser, List<Evaluation> evaluations) throws IOException
+  {
+    List<Evaluation> objectEvaluations = new ArrayList<>(evaluations.size());
+    for ( Evaluation evaluation : evaluations )
+    {
+      if (evaluation.getSchema().isObjectMembersRequired())
+      {
+        objectEvaluations.add(evaluation);
+      }
+    }
+    if (objectEvaluations.isEmpty())
+    {
+      skipValue(parser);
+      return;
+    }
+    JsonNodePath objectLocation = evaluations.get(0).getInstanceLocation();
+    while (parser.nextToken() == JsonToken.FIELD_NAME)
+    {
+      String propertyName = parser.currentName();
+      parser.nextToken();
+      List<Evaluation> propertyEvaluations = new ArrayList<>();
+      JsonNodePath propertyLocation = objectLocation.append(propertyName);
+      for ( Evaluation evaluation : objectEvaluations )
+      {
+        evaluation.checkProperty(propertyName, propertyLocation, propertyEvaluations);
+      }
+      if (propertyEvaluations.isEmpty())
+      {
+        skipValue(parser);
+      }
+      else
+      {
+        validateValue(parser, propertyEvaluations);
+      }
+    }
+    for ( Evaluation evaluation : objectEvaluations )
+    {
+      evaluation.checkRequired();
+    }
+  }
+
+  /**
+   * validates the elements of an array. Elements without any subschema are skipped
+   */
+  private void validateArray(JsonParser parser, List<Evaluation> evaluations) throws IOException
+  {
+    List<Evaluation> arrayEvaluations = new ArrayList<>(evaluations.size());
+    for ( Evaluation evaluation : evaluations )
+    {
+      if (evaluation.getSchema().getItems() != null)
+      {
+        arrayEvaluations.add(evaluation);
+      }
+    }
+    if (arrayEvaluations.isEmpty())
+    {
+      skipValue(parser);
+      return;
+    }
+    JsonNodePath arrayLocation = evaluations.get(0).getInstanceLocation();
+    int index = 0;
+    while (parser.nextToken() != JsonToken.END_ARRAY)
+    {
+      List<Evaluation> itemEvaluations = new ArrayList<>();
+      JsonNodePath itemLocation = arrayLocation.append(index++);
+      for ( Evaluation evaluation : arrayEvaluations )
+      {
+        StreamingSchema schema = evaluation.getSchema();
+        Evaluation.expand(schema.getItems(), itemLocation, evaluation, schema.getItemsSlot(), null, itemEvaluations);
+      }
+      validateValue(parser, itemEvaluations);
+    }
+  }
+
+  /**
+   * skips the value that starts at the current token and checks the length of each skipped string
+   */
+  private void skipValue(JsonParser parser) throws IOException
+  {
+    int depth = 0;
+    JsonToken token = parser.currentToken();
+    while (true)
+    {
+      if (token.isStructStart())
+      {
+        depth++;
+      }
+      else if (token.isStructEnd())
+      {
+        depth--;
+      }
+      else if (token == JsonToken.VALUE_STRING)
+      {
+        checkStringLength(parser);
+      }
+      if (depth == 0)
+      {
+        return;
+      }
+      token = parser.nextToken();
+    }
+  }
+
+  /**
+   * the parser checks the length of a string only if it is read into a string object, so the length of all
+   * other strings is checked here
+   */
+  private void checkStringLength(JsonParser parser) throws IOException
+  {
+    int length = parser.getTextLength();
+    if (length > maxStringLength)
+    {
+      throw new StreamConstraintsException(String.format("String value length (%d) exceeds the maximum allowed (%d)",
+                                                         length,
+                                                         maxStringLength),
+                                           parser.currentTokenLocation());
+    }
+  }
+
+  /**
+   * @return the name of the json type of the value that starts with the given token as it is used within JSON
+   *         schemas
+   */
+  private static String getTypeName(JsonToken token)
+  {
+    switch (token)
+    {
+      case START_OBJECT:
+        return "object";
+      case START_ARRAY:
+        return "array";
+      case VALUE_STRING:
+        return "string";
+      case VALUE_NUMBER_INT:
+        return "integer";
+      case VALUE_NUMBER_FLOAT:
+        return "number";
+      case VALUE_TRUE:
+      case VALUE_FALSE:
+        return "boolean";
+      case VALUE_NULL:
+        return "null";
+      default:
+        return "unknown";
+    }
+  }
+
+  /**
+   * @return the value of a scalar token as json node for the validation messages or null for objects and arrays
+   */
+  private static JsonNode getInstanceNode(JsonParser parser, JsonToken token) throws IOException
+  {
+    switch (token)
+    {
+      case VALUE_STRING:
+        return JsonNodeFactory.instance.textNode(parser.getText());
+      case VALUE_NUMBER_INT:
+        return JsonNodeFactory.instance.numberNode(parser.getBigIntegerValue());
+      case VALUE_NUMBER_FLOAT:
+        return JsonNodeFactory.instance.numberNode(parser.getDoubleValue());
+      case VALUE_TRUE:
+      case VALUE_FALSE:
+        return JsonNodeFactory.instance.booleanNode(token == JsonToken.VALUE_TRUE);
+      case VALUE_NULL:
+        return JsonNodeFactory.instance.nullNode();
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * the evaluation of a single value against a single subschema. The errors are collected within the slots of
+   * the keywords and handed over to the target when the value has been read completely
+   */
+  private static final class Evaluation
+  {
+
+    @Getter
+    private final StreamingSchema schema;
+
+    @Getter
+    private final JsonNodePath instanceLocation;
+
+    /**
+     * the evaluation of the parent value whose slot receives the errors of this evaluation or null if the errors
+     * are added to the {@link #target}
+     */
+    private final Evaluation parent;
+
+    private final int parentSlot;
+
+    private final Set<ValidationMessage> target;
+
+    /**
+     * the errors of each keyword. Created on the first error only
+     */
+    private Set<ValidationMessage>[] slots;
+
+    /**
+     * marks the required properties that were found within an object
+     */
+    private boolean[] requiredFound;
+
+    /**
+     * the evaluations of the "oneOf" subschemas. Each of them collects its errors within a target of its own
+     */
+    private List<Evaluation> oneOf;
+
+    private Evaluation(StreamingSchema schema,
+                       JsonNodePath instanceLocation,
+                       Evaluation parent,
+                       int parentSlot,
+                       Set<ValidationMessage> target)
+    {
+      this.schema = schema;
+      this.instanceLocation = instanceLocation;
+      this.parent = parent;
+      this.parentSlot = parentSlot;
+      this.target = target;
+    }
+
+    /**
+     * adds the evaluation of the given subschema and the evaluations of its "oneOf" subschemas to the given list
+     *
+     * @param parent the evaluation whose slot receives the errors or null if the errors are added to the target
+     * @return the added evaluation
+     */
+    static Evaluation expand(StreamingSchema schema,
+                             JsonNodePath instanceLocation,
+                             Evaluation parent,
+                             int parentSlot,
+                             Set<ValidationMessage> target,
+                             List<Evaluation> evaluations)
+    {
+      Evaluation evaluation = new Evaluation(schema, instanceLocation, parent, parentSlot, target);
+      evaluations.add(evaluation);
+      if (!schema.getOneOf().isEmpty())
+      {
+        evaluation.oneOf = new ArrayList<>(schema.getOneOf().size());
+        for ( StreamingSchema subschema : schema.getOneOf() )
+        {
+          evaluation.oneOf.add(expand(subschema, instanceLocation, null, 0, new LinkedHashSet<>(), evaluations));
+        }
+      }
+      return evaluation;
+    }
+
+    /**
+     * checks the keywords that can be evaluated on the first token of a value
+     */
+    void checkValue(JsonParser parser, JsonToken token, String typeName) throws IOException
+    {
+      String type = schema.getType();
+      if (type != null && !type.equals(typeName) && !("number".equals(type) && "integer".equals(typeName)))
+      {
+        addError(schema.getTypeSlot(),
+                 CompiledSchemaValidator.typeMessage(getInstanceNode(parser, token),
+                                                     instanceLocation,
+                                                     schema.getTypeLocation().getEvaluationPath(),
+                                                     schema.getTypeLocation().getSchemaLocation(),
+                                                     typeName,
+                                                     type));
+      }
+      if (schema.getEnumValues() != null
+          && (token != JsonToken.VALUE_STRING || !schema.getEnumValues().contains(parser.getText())))
+      {
+        addError(schema.getEnumSlot(),
+                 CompiledSchemaValidator.enumMessage(getInstanceNode(parser, token),
+                                                     instanceLocation,
+                                                     schema.getEnumLocation().getEvaluationPath(),
+                                                     schema.getEnumLocation().getSchemaLocation(),
+                                                     schema.getEnumDescription()));
+      }
+      if (schema.getPattern() != null && token == JsonToken.VALUE_STRING
+          && !schema.getPattern().matcher(parser.getText()).find())
+      {
+        addError(schema.getPatternSlot(),
+                 CompiledSchemaValidator.patternMessage(getInstanceNode(parser, token),
+                                                        instanceLocation,
+                                                        schema.getPatternLocation().getEvaluationPath(),
+                                                        schema.getPatternLocation().getSchemaLocation(),
+                                                        schema.getPattern()));
+      }
+    }
+
+    /**
+     * checks a single member of an object and adds the evaluations of its value to the given list
+     */
+    void checkProperty(String propertyName, JsonNodePath propertyLocation, List<Evaluation> propertyEvaluations)
+    {
+      int requiredIndex = schema.getRequired().indexOf(propertyName);
+      if (requiredIndex >= 0)
+      {
+        if (requiredFound == null)
+        {
+          requiredFound = new boolean[schema.getRequired().size()];
+        }
+        requiredFound[requiredIndex] = true;
+      }
+      StreamingSchema propertySchema = schema.getProperties().get(propertyName);
+      if (propertySchema != null)
+      {
+        expand(propertySchema,
+               propertyLocation,
+               this,
+               schema.getPropertySlots().get(propertyName),
+               null,
+               propertyEvaluations);
+      }
+      else if (schema.isAdditionalPropertiesForbidden())
+      {
+        addError(schema.getAdditionalPropertiesSlot(),
+                 CompiledSchemaValidator.additionalPropertyMessage(null,
+                                                                   instanceLocation,
+                                                                   schema.getAdditionalPropertiesLocation()
+                                                                         .getEvaluationPath(),
+                                                                   schema.getAdditionalPropertiesLocation()
+                                                                         .getSchemaLocation(),
+                                                                   propertyName));
+      }
+    }
+
+    /**
+     * checks the "required" keyword after all members of an object have been read
+     */
+    void checkRequired()
+    {
+      List<String> required = schema.getRequired();
+      for ( int i = 0 ; i < required.size() ; i++ )
+      {
+        if (requiredFound == null || !requiredFound[i])
+        {
+          addError(schema.getRequiredSlot(),
+                   CompiledSchemaValidator.requiredMessage(null,
+                                                           instanceLocation,
+                                                           schema.getRequiredLocation().getEvaluationPath(),
+                                                           schema.getRequiredLocation().getSchemaLocation(),
+                                                           required.get(i)));
+        }
+      }
+    }
+
+    /**
+     * resolves the "oneOf" keyword and hands the collected errors over in the order of the keywords. Like the
+     * networknt validator, only the errors of the subschemas up to the second matching one are reported
+     */
+    void finish()
+    {
+      if (oneOf != null)
+      {
+        List<String> validIndexes = new ArrayList<>(2);
+        List<ValidationMessage> childErrors = new ArrayList<>();
+        for ( int i = 0 ; i < oneOf.size() && validIndexes.size() < 2 ; i++ )
+        {
+          Set<ValidationMessage> subschemaErrors = oneOf.get(i).target;
+          if (subschemaErrors.isEmpty())
+          {
+            validIndexes.add(Integer.toString(i));
+          }
+          else
+          {
+            childErrors.addAll(subschemaErrors);
+          }
+        }
+        if (validIndexes.size() != 1)
+        {
+          addError(schema.getOneOfSlot(),
+                   CompiledSchemaValidator.oneOfMessage(null,
+                                                        instanceLocation,
+                                                        schema.getOneOfLocation().getEvaluationPath(),
+                                                        schema.getOneOfLocation().getSchemaLocation(),
+                                                        validIndexes.size(),
+                                                        validIndexes));
+          childErrors.forEach(error -> addError(schema.getOneOfSlot(), error));
+        }
+      }
+      if (slots == null)
+      {
+        return;
+      }
+      Set<ValidationMessage> errors = parent == null ? target : parent.getSlot(parentSlot);
+      for ( Set<ValidationMessage> slot : slots )
+      {
+        if (slot != null)
+        {
+          errors.addAll(slot);
+        }
+      }
+    }
+
+    private void addError(int slot, ValidationMessage error)
+    {
+      getSlot(slot).add(error);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<ValidationMessage> getSlot(int slot)
+    {
+      if (slots == null)
+      {
+        slots = new Set[schema.getSlotCount()];
+      }
+      if (slots[slot] == null)
+      {
+        slots[slot] = new LinkedHashSet<>();
+      }
+      return slots[slot];
+    }
+  }
+
+  /**
+   * a schema that is prepared for the streaming validation together with the version it was prepared from
+   */
+  @Getter
+  @AllArgsConstructor
+  private static class PreparedSchema
+  {
+
+    private final JsonSchema source;
+
+    private final StreamingSchema schema;
+  }
+}
@@ -0,0 +1,582 @@
+package de.governikus.identification.report.validation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.networknt.schema.JsonNodePath;
+import com.networknt.schema.SchemaLocation;
+import com.networknt.schema.ValidationMessage;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.objects.IdentificationReport;
+import de.governikus.identification.report.objects.subjects.Address;
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
+import de.governikus.identification.report.objects.subjects.FinkPersonRefMinimal;
+
+
+/**
+ * validates the objects of this library by their typed fields instead of serializing them into a json tree
+ * first. Most keywords of the bundled schemas are already guaranteed by the java types: the time stamps are
+ * always serialized as "date-time" strings, the enums only hold values of the schema enumerations and all
+ * declared properties are strings, lists or objects. So only the required fields, serialized null values, the
+ * "dateOfBirth" pattern, the "oneOf" of the address and the flattened entries of the
+ * {@link IdentificationReport#getKeyValueMap()} and
+ * {@link de.governikus.identification.report.objects.subjects.SubjectRef#getAdditionalProperties()} maps are
+ * checked. The reported messages are the same and in the same order as the {@link CompiledSchemaValidator}s
+ * report them for the serialized object. If an entry of a flattened map overrides a declared property or if
+ * an object is a subclass with unknown properties, no typed validation is done and the object must be
+ * validated as json tree
+ */
+final class TypedObjectValidator
+{
+
+  /**
+   * the location of the root node that is the start of each instance location
+   */
+  private static final JsonNodePath ROOT_LOCATION = CompiledSchemaValidator.ROOT_LOCATION;
+
+  private static final String REPORT_ID = SchemaConstants.Ids.IDENTIFICATION_REPORT_2_0_ID;
+
+  private static final String EID_CARD_ID = SchemaConstants.Ids.EID_CARD_PERSON_REF_ID;
+
+  private static final String FINK_ID = SchemaConstants.Ids.FINK_PERSON_REF_MINIMAL_ID;
+
+  /**
+   * the declared properties of the identification report schema
+   */
+  private static final Set<String> REPORT_PROPERTIES = Set.of("reportId",
+                                                              "serverIdentity",
+                                                              "reportTime",
+                                                              "identificationTime",
+                                                              "idStatus",
+                                                              "idStatement",
+                                                              "trustFramework",
+                                                              "subjectRefType",
+                                                              "subjectRef",
+                                                              "contextInformation",
+                                                              "documentReferences",
+                                                              "levelOfAssurance");
+
+  private static final KeywordLocation CONTEXT_INFORMATION_ITEMS_TYPE = new KeywordLocation(REPORT_ID, "properties",
+                                                                                            "contextInformation",
+                                                                                            "items", "type");
+
+  private static final KeywordLocation DOCUMENT_REFERENCES_ITEMS_TYPE = new KeywordLocation(REPORT_ID, "properties",
+                                                                                            "documentReferences",
+                                                                                            "items", "type");
+
+  /**
+   * the declared properties of a document reference in the order of the schema
+   */
+  private static final List<String> DOCUMENT_REFERENCE_PROPERTIES = List.of("documentId",
+                                                                            "documentName",
+                                                                            "digestAlgorithm",
+                                                                            "digest");
+
+  private static final Set<String> DOCUMENT_REFERENCE_PROPERTY_NAMES = Set.copyOf(DOCUMENT_REFERENCE_PROPERTIES);
+
+  /**
+   * the "type" keywords of the {@link #DOCUMENT_REFERENCE_PROPERTIES}
+   */
+  private static final List<KeywordLocation> DOCUMENT_REFERENCE_PROPERTY_TYPES = List.of(documentReferenceKeyword("documentId"),
+                                                                                         documentReferenceKeyword("documentName"),
+                                                                                         documentReferenceKeyword("digestAlgorithm"),
+                                                                                         documentReferenceKeyword("digest"));
+
+  private static final KeywordLocation DOCUMENT_REFERENCES_ITEMS_ADDITIONAL_PROPERTIES = new KeywordLocation(REPORT_ID,
+                                                                                                             "properties",
+                                                                                                             "documentReferences",
+                                                                                                             "items",
+                                                                                                             "additionalProperties");
+
+  private static final KeywordLocation REPORT_REQUIRED = new KeywordLocation(REPORT_ID, "required");
+
+  /**
+   * the declared properties of the eID card schema
+   */
+  private static final Set<String> EID_CARD_PROPERTIES = Set.of("restrictedId",
+                                                                "givenName",
+                                                                "familyName",
+                                                                "dateOfBirth",
+                                                                "placeOfBirth",
+                                                                "birthName",
+                                                                "placeOfResidence");
+
+  private static final Pattern DATE_OF_BIRTH_PATTERN = Pattern.compile("^((0?[1-9]|[12][0-9]|3[01])-)?((0?[1-9]|1[0-2])-)?[0-9]{4}$");
+
+  private static final KeywordLocation DATE_OF_BIRTH_PATTERN_KEYWORD = new KeywordLocation(EID_CARD_ID, "properties",
+                                                                                           "dateOfBirth", "pattern");
+
+  private static final KeywordLocation PLACE_OF_RESIDENCE_ONE_OF = new KeywordLocation(EID_CARD_ID, "properties",
+                                                                                       "placeOfResidence", "oneOf");
+
+  /**
+   * the properties that are allowed by the subschemas of the "oneOf" of the place of residence
+   */
+  private static final List<Set<String>> PLACE_OF_RESIDENCE_ALTERNATIVES = List.of(Set.of("street",
+                                                                                          "city",
+                                                                                          "state",
+                                                                                          "country",
+                                                                                          "zipCode"),
+                                                                                   Set.of("freeTextPlace"),
+                                                                                   Set.of("noPlaceInfo"));
+
+  /**
+   * the "additionalProperties" keywords of the {@link #PLACE_OF_RESIDENCE_ALTERNATIVES}
+   */
+  private static final List<KeywordLocation> PLACE_OF_RESIDENCE_ADDITIONAL_PROPERTIES = List.of(placeOfResidenceKeyword(0),
+                                                                                                placeOfResidenceKeyword(1),
+                                                                                                placeOfResidenceKeyword(2));
+
+  private static final KeywordLocation EID_CARD_REQUIRED = new KeywordLocation(EID_CARD_ID, "required");
+
+  private static final KeywordLocation EID_CARD_ADDITIONAL_PROPERTIES = new KeywordLocation(EID_CARD_ID,
+                                                                                            "additionalProperties");
+
+  /**
+   * the declared properties of the minimal fink schema
+   */
+  private static final Set<String> FINK_PROPERTIES = Set.of("givenName", "familyName");
+
+  private static final KeywordLocation FINK_GIVEN_NAME_TYPE = new KeywordLocation(FINK_ID, "properties", "givenName",
+                                                                                  "type");
+
+  private static final KeywordLocation FINK_FAMILY_NAME_TYPE = new KeywordLocation(FINK_ID, "properties", "familyName",
+                                                                                   "type");
+
+  private static final KeywordLocation FINK_ADDITIONAL_PROPERTIES = new KeywordLocation(FINK_ID,
+                                                                                        "additionalProperties");
+
+  private TypedObjectValidator()
+  {}
+
+  /**
+   * validates the given object against the schema under the given location
+   *
+   * @param schemaLocation the location of the schema to validate against
+   * @param pojo the object to validate
+   * @return the set of validation errors (empty if valid) or null if the object cannot be validated by its
+   *         typed fields and must be validated as json tree
+   */
+  static Set<ValidationMessage> validate(String schemaLocation, Object pojo)
+  {
+    Set<ValidationMessage> errors = new LinkedHashSet<>();
+    return validate(schemaLocation, pojo, errors) == null ? null : errors;
+  }
+
+  /**
+   * validates the given object against the schema under the given location until the first error is found. Only
+   * the message of this error is created
+   *
+   * @param schemaLocation the location of the schema to validate against
+   * @param pojo the object to validate
+   * @return a set with the first validation error (empty if valid) or null if the object cannot be validated by
+   *         its typed fields and must be validated as json tree
+   */
+  static Set<ValidationMessage> getFirstError(String schemaLocation, Object pojo)
+  {
+    Set<ValidationMessage> errors = CompiledSchemaValidator.createFirstErrorSet();
+    return validate(schemaLocation, pojo, errors) == null ? null : errors;
+  }
+
+  /**
+   * checks if the given object matches the schema under the given location. The validation stops at the first
+   * error and no messages are created
+   *
+   * @param schemaLocation the location of the schema to validate against
+   * @param pojo the object to validate
+   * @return true if the object is valid or null if the object cannot be validated by its typed fields and must
+   *         be validated as json tree
+   */
+  static Boolean isValid(String schemaLocation, Object pojo)
+  {
+    return validate(schemaLocation, pojo, null);
+  }
+
+  /**
+   * @param errors the set that collects the validation errors or null if only the validity is of interest. In
+   *          this case the validation stops at the first error and no messages are created
+   * @return true if the object is valid or null if the object must be validated as json tree
+   */
+  private static Boolean validate(String schemaLocation, Object pojo, Set<ValidationMessage> errors)
+  {
+    if (pojo == null)
+    {
+      return null;
+    }
+    Class<?> type = pojo.getClass();
+    if (type == IdentificationReport.class
+        && SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION.equals(schemaLocation))
+    {
+      return validateReport((IdentificationReport<?>)pojo, errors);
+    }
+    if (type == EidCardPersonRef.class && SchemaConstants.Locations.EID_CARD_SCHEMA_LOCATION.equals(schemaLocation))
+    {
+      return validateEidCardPersonRef((EidCardPersonRef)pojo, errors);
+    }
+    if (type == FinkPersonRefMinimal.class
+        && SchemaConstants.Locations.FINK_USER_ACCOUNT_MINIMAL_SCHEMA_LOCATION.equals(schemaLocation))
+    {
+      return validateFinkPersonRefMinimal((FinkPersonRefMinimal)pojo, errors);
+    }
+    return null;
+  }
+
+  /**
+   * validates the report without its subject reference. The subject reference only needs to be an object
+   */
+  private static Boolean validateReport(IdentificationReport<?> report, Set<ValidationMessage> errors)
+  {
+    if (overridesDeclaredProperty(report.getKeyValueMap(), REPORT_PROPERTIES))
+    {
+      return null;
+    }
+    boolean valid = true;
+    List<String> contextInformation = report.getContextInformation();
+    if (contextInformation != null)
+    {
+      JsonNodePath listLocation = errors == null ? null : ROOT_LOCATION.append("contextInformation");
+      for ( int i = 0 ; i < contextInformation.size() ; i++ )
+      {
+        if (contextInformation.get(i) == null)
+        {
+          valid = false;
+          if (CompiledSchemaValidator.isComplete(errors))
+          {
+            return false;
+          }
+          addNullTypeError(listLocation.append(i), CONTEXT_INFORMATION_ITEMS_TYPE, "string", errors);
+        }
+      }
+    }
+    List<ObjectNode> documentReferences = report.getDocumentReferences();
+    if (documentReferences != null)
+    {
+      JsonNodePath listLocation = errors == null ? null : ROOT_LOCATION.append("documentReferences");
+      for ( int i = 0 ; i < documentReferences.size() ; i++ )
+      {
+        ObjectNode documentReference = documentReferences.get(i);
+        JsonNodePath instanceLocation = errors == null ? null : listLocation.append(i);
+        if (documentReference == null)
+        {
+          valid = false;
+          if (CompiledSchemaValidator.isComplete(errors))
+          {
+            return false;
+          }
+          addNullTypeError(instanceLocation, DOCUMENT_REFERENCES_ITEMS_TYPE, "object", errors);
+        }
+        else if (!validateDocumentReference(documentReference, instanceLocation, errors))
+        {
+          valid = false;
+          if (CompiledSchemaValidator.isComplete(errors))
+          {
+            return false;
+          }
+        }
+      }
+    }
+    // the required checks do not create any message if only the validity is of interest
+    valid &= checkRequired(report.getReportId(), "reportId", REPORT_REQUIRED, errors);
+    valid &= checkRequired(report.getServerIdentity(), "serverIdentity", REPORT_REQUIRED, errors);
+    valid &= checkRequired(report.getReportTime(), "reportTime", REPORT_REQUIRED, errors);
+    valid &= checkRequired(report.getIdentificationTime(), "identificationTime", REPORT_REQUIRED, errors);
+    valid &= checkRequired(report.getLevelOfAssurance(), "levelOfAssurance", REPORT_REQUIRED, errors);
+    return valid;
+  }
+
+  /**
+   * the document references are already json objects, so they are validated like the json tree
+   *
+   * @return true if the document reference is valid
+   */
+  private static boolean validateDocumentReference(ObjectNode documentReference,
+                                                   JsonNodePath instanceLocation,
+                                                   Set<ValidationMessage> errors)
+  {
+    boolean valid = true;
+    for ( int i = 0 ; i < DOCUMENT_REFERENCE_PROPERTIES.size() ; i++ )
+    {
+      String propertyName = DOCUMENT_REFERENCE_PROPERTIES.get(i);
+      JsonNode property = documentReference.get(propertyName);
+      if (property != null)
+      {
+        KeywordLocation keywordLocation = DOCUMENT_REFERENCE_PROPERTY_TYPES.get(i);
+        valid &= CompiledSchemaValidator.checkType(property,
+                                                   errors == null ? null : instanceLocation.append(propertyName),
+                                                   keywordLocation.getEvaluationPath(),
+                                                   keywordLocation.getSchemaLocation(),
+                                                   "string",
+                                                   errors);
+        if (!valid && CompiledSchemaValidator.isComplete(errors))
+        {
+          return false;
+        }
+      }
+    }
+    return CompiledSchemaValidator.checkNoAdditionalProperties(documentReference,
+                                                               instanceLocation,
+                                                               DOCUMENT_REFERENCES_ITEMS_ADDITIONAL_PROPERTIES.getEvaluationPath(),
+                                                               DOCUMENT_REFERENCES_ITEMS_ADDITIONAL_PROPERTIES.getSchemaLocation(),
+                                                               DOCUMENT_REFERENCE_PROPERTY_NAMES,
+                                                               errors)
+           && valid;
+  }
+
+  private static Boolean validateEidCardPersonRef(EidCardPersonRef personRef, Set<ValidationMessage> errors)
+  {
+    Map<String, Object> additionalProperties = personRef.getAdditionalProperties();
+    Address placeOfResidence = personRef.getPlaceOfResidence();
+    if (overridesDeclaredProperty(additionalProperties, EID_CARD_PROPERTIES)
+        || placeOfResidence != null && placeOfResidence.getClass() != Address.class)
+    {
+      return null;
+    }
+    boolean valid = true;
+    String dateOfBirth = personRef.getDateOfBirth();
+    if (dateOfBirth != null && !DATE_OF_BIRTH_PATTERN.matcher(dateOfBirth).find())
+    {
+      if (CompiledSchemaValidator.isComplete(errors))
+      {
+        return false;
+      }
+      valid = false;
+      errors.add(CompiledSchemaValidator.patternMessage(TextNode.valueOf(dateOfBirth),
+                                                        ROOT_LOCATION.append("dateOfBirth"),
+                                                        DATE_OF_BIRTH_PATTERN_KEYWORD.getEvaluationPath(),
+                                                        DATE_OF_BIRTH_PATTERN_KEYWORD.getSchemaLocation(),
+                                                        DATE_OF_BIRTH_PATTERN));
+    }
+    if (placeOfResidence != null && !validatePlaceOfResidence(placeOfResidence, errors))
+    {
+      if (CompiledSchemaValidator.isComplete(errors))
+      {
+        return false;
+      }
+      valid = false;
+    }
+    valid &= checkRequired(personRef.getRestrictedId(), "restrictedId", EID_CARD_REQUIRED, errors);
+    valid &= checkNoAdditionalProperties(additionalProperties, EID_CARD_ADDITIONAL_PROPERTIES, errors);
+    return valid;
+  }
+
+  /**
+   * checks the "oneOf" of the address. All address properties are strings so a subschema matches if the address
+   * has no other properties than the ones of the subschema. Like the json validation, the evaluation stops at
+   * the second matching subschema
+   *
+   * @return true if exactly one subschema matches
+   */
+  private static boolean validatePlaceOfResidence(Address address, Set<ValidationMessage> errors)
+  {
+    List<String> propertyNames = getPropertyNames(address);
+    List<String> validIndexes = new ArrayList<>(2);
+    int evaluatedAlternatives = 0;
+    while (evaluatedAlternatives < PLACE_OF_RESIDENCE_ALTERNATIVES.size() && validIndexes.size() < 2)
+    {
+      if (PLACE_OF_RESIDENCE_ALTERNATIVES.get(evaluatedAlternatives).containsAll(propertyNames))
+      {
+        validIndexes.add(Integer.toString(evaluatedAlternatives));
+      }
+      evaluatedAlternatives++;
+    }
+    if (validIndexes.size() == 1)
+    {
+      return true;
+    }
+    if (CompiledSchemaValidator.isComplete(errors))
+    {
+      return false;
+    }
+    JsonNodePath instanceLocation = ROOT_LOCATION.append("placeOfResidence");
+    errors.add(CompiledSchemaValidator.oneOfMessage(null,
+                                                    instanceLocation,
+                                                    PLACE_OF_RESIDENCE_ONE_OF.getEvaluationPath(),
+                                                    PLACE_OF_RESIDENCE_ONE_OF.getSchemaLocation(),
+                                                    validIndexes.size(),
+                                                    validIndexes));
+    if (CompiledSchemaValidator.isComplete(errors))
+    {
+      return false;
+    }
+    for ( int i = 0 ; i < evaluatedAlternatives ; i++ )
+    {
+      Set<String> allowedProperties = PLACE_OF_RESIDENCE_ALTERNATIVES.get(i);
+      KeywordLocation keywordLocation = PLACE_OF_RESIDENCE_ADDITIONAL_PROPERTIES.get(i);
+      for ( String propertyName : propertyNames )
+      {
+        if (!allowedProperties.contains(propertyName))
+        {
+          errors.add(CompiledSchemaValidator.additionalPropertyMessage(null,
+                                                                       instanceLocation,
+                                                                       keywordLocation.getEvaluationPath(),
+                                                                       keywordLocation.getSchemaLocation(),
+                                                                       propertyName));
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the names of the properties that are serialized for the given address in the order of the
+   *         serialization
+   */
+  private static List<String> getPropertyNames(Address address)
+  {
+    List<String> propertyNames = new ArrayList<>();
+    addIfPresent(propertyNames, "street", address.getStreet());
+    addIfPresent(propertyNames, "city", address.getCity());
+    addIfPresent(propertyNames, "state", address.getState());
+    addIfPresent(propertyNames, "locality", address.getLocality());
+    addIfPresent(propertyNames, "region", address.getRegion());
+    addIfPresent(propertyNames, "country", address.getCountry());
+    addIfPresent(propertyNames, "zipCode", address.getZipCode());
+    addIfPresent(propertyNames, "noPlaceInfo", address.getNoPlaceInfo());
+    addIfPresent(propertyNames, "freeTextPlace", address.getFreeTextPlace());
+    return propertyNames;
+  }
+
+  private static void addIfPresent(List<String> propertyNames, String propertyName, Object value)
+  {
+    if (value != null)
+    {
+      propertyNames.add(propertyName);
+    }
+  }
+
+  /**
+   * the minimal fink person is serialized with its null values, so these are reported as type errors
+   */
+  private static Boolean validateFinkPersonRefMinimal(FinkPersonRefMinimal personRef, Set<ValidationMessage> errors)
+  {
+    Map<String, Object> additionalProperties = personRef.getAdditionalProperties();
+    if (overridesDeclaredProperty(additionalProperties, FINK_PROPERTIES))
+    {
+      return null;
+    }
+    boolean valid = true;
+    if (personRef.getGivenName() == null)
+    {
+      if (CompiledSchemaValidator.isComplete(errors))
+      {
+        return false;
+      }
+      valid = false;
+      addNullTypeError(ROOT_LOCATION.append("givenName"), FINK_GIVEN_NAME_TYPE, "string", errors);
+    }
+    if (personRef.getFamilyName() == null)
+    {
+      if (CompiledSchemaValidator.isComplete(errors))
+      {
+        return false;
+      }
+      valid = false;
+      addNullTypeError(ROOT_LOCATION.append("familyName"), FINK_FAMILY_NAME_TYPE, "string", errors);
+    }
+    return checkNoAdditionalProperties(additionalProperties, FINK_ADDITIONAL_PROPERTIES, errors) && valid;
+  }
+
+  /**
+   * @return true if the flattened map replaces the value of a declared property within the json structure
+   */
+  private static boolean overridesDeclaredProperty(Map<String, Object> flattenedMap, Set<String> declaredProperties)
+  {
+    if (flattenedMap == null || flattenedMap.isEmpty())
+    {
+      return false;
+    }
+    for ( String propertyName : flattenedMap.keySet() )
+    {
+      if (declaredProperties.contains(propertyName))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void addNullTypeError(JsonNodePath instanceLocation,
+                                       KeywordLocation keywordLocation,
+                                       String expectedType,
+                                       Set<ValidationMessage> errors)
+  {
+    errors.add(CompiledSchemaValidator.typeMessage(NullNode.getInstance(),
+                                                   instanceLocation,
+                                                   keywordLocation.getEvaluationPath(),
+                                                   keywordLocation.getSchemaLocation(),
+                                                   "null",
+                                                   expectedType));
+  }
+
+  /**
+   * @return true if the given value of a required property is present
+   */
+  private static boolean checkRequired(Object value,
+                                       String propertyName,
+                                       KeywordLocation keywordLocation,
+                                       Set<ValidationMessage> errors)
+  {
+    if (value != null)
+    {
+      return true;
+    }
+    if (!CompiledSchemaValidator.isComplete(errors))
+    {
+      errors.add(CompiledSchemaValidator.requiredMessage(null,
+                                                         ROOT_LOCATION,
+                                                         keywordLocation.getEvaluationPath(),
+                                                         keywordLocation.getSchemaLocation(),
+                                                         propertyName));
+    }
+    return false;
+  }
+
+  /**
+   * each entry of the flattened map is an additional property of the root object that is not allowed
+   *
+   * @return true if the flattened map is empty
+   */
+  private static boolean checkNoAdditionalProperties(Map<String, Object> flattenedMap,
+                                                     KeywordLocation keywordLocation,
+                                                     Set<ValidationMessage> errors)
+  {
+    if (flattenedMap == null || flattenedMap.isEmpty())
+    {
+      return true;
+    }
+    for ( String propertyName : flattenedMap.keySet() )
+    {
+      if (CompiledSchemaValidator.isComplete(errors))
+      {
+        break;
+      }
+      errors.add(CompiledSchemaValidator.additionalPropertyMessage(null,
+                                                                   ROOT_LOCATION,
+                                                                   keywordLocation.getEvaluationPath(),
+                                                                   keywordLocation.getSchemaLocation(),
+                                                                   propertyName));
+    }
+    return false;
+  }
+
+  private static KeywordLocation documentReferenceKeyword(String propertyName)
+  {
+    return new KeywordLocation(REPORT_ID, "properties", "documentReferences", "items", "properties", propertyName,
+                               "type");
+  }
+
+  private static KeywordLocation placeOfResidenceKeyword(int alternative)
+  {
+    return new KeywordLocation(EID_CARD_ID, "properties", "placeOfResidence", "oneOf", alternative,
+                               "additionalProperties");
+  }
+}
@@ -0,0 +1,230 @@
+package de.governikus.identification.report.validation;
+
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.ValidationMessage;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.utils.BoundedCache;
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+
+/**
+ * remembers the validation results of json objects so that documents that are delivered and validated several
+ * times are evaluated against the schema only once. The documents are identified by the schema location and
+ * the SHA-256 hash of their canonical serialization in which all properties are sorted by name. Therefore
+ * documents that only differ in the order of their properties share the same entry and the messages of such a
+ * document are in the order of the document that was validated first. Results of schemas that have been
+ * reloaded since the validation are discarded. The cache is bounded by its number of entries and by the age
+ * of its entries
+ */
+public class ValidationCache
+{
+
+  /**
+   * the default maximum number of cached validation results
+   */
+  public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+  /**
+   * the default maximum age of a cached validation result
+   */
+  public static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
+
+  /**
+   * writes the canonical serialization of json trees and objects with all properties sorted by name
+   */
+  private static final ObjectWriter CANONICAL_WRITER = createCanonicalWriter();
+
+  /**
+   * the validation errors by the schema location and the hash of the validated document
+   */
+  private final BoundedCache<String, CachedResult> cache;
+
+  /**
+   * @param maximumSize the maximum number of cached validation results. Defaults to
+   *          {@link #DEFAULT_MAXIMUM_SIZE}
+   * @param expireAfterWrite the maximum age of a cached validation result. Defaults to
+   *          {@link #DEFAULT_EXPIRE_AFTER_WRITE}
+   */
+  @Builder
+  public ValidationCache(Integer maximumSize, Duration expireAfterWrite)
+  {
+    this.cache = new BoundedCache<>(Optional.ofNullable(maximumSize).orElse(DEFAULT_MAXIMUM_SIZE),
+                                    Optional.ofNullable(expireAfterWrite).orElse(DEFAULT_EXPIRE_AFTER_WRITE));
+  }
+
+  /**
+   * validates a POJO with {@link SchemaValidator#validateJsonObject(String, Object)} unless the result for the
+   * same content is already cached
+   *
+   * @param schemaLocation the schemas location
+   * @param pojo the object to validate
+   * @return unmodifiable set of validation errors (empty if valid)
+   */
+  public Set<ValidationMessage> validateJsonObject(String schemaLocation, Object pojo)
+  {
+    String key = getKey(schemaLocation, pojo);
+    JsonSchema schema = SchemaConstants.getSchema(schemaLocation);
+    CachedResult cachedResult = cache.get(key, result -> result.getSchema() == schema);
+    if (cachedResult == null)
+    {
+      Set<ValidationMessage> errors = SchemaValidator.validateJsonObject(schemaLocation, pojo);
+      cachedResult = new CachedResult(Collections.unmodifiableSet(new LinkedHashSet<>(errors)), schema);
+      cache.put(key, cachedResult);
+    }
+    return cachedResult.getErrors();
+  }
+
+  /**
+   * validates a JsonNode with {@link SchemaValidator#validateJsonObject(String, JsonNode)} unless the result
+   * for the same content is already cached
+   *
+   * @param schemaLocation the schemas location
+   * @param jsonNode the json node to validate
+   * @return unmodifiable set of validation errors (empty if valid)
+   */
+  public Set<ValidationMessage> validateJsonObject(String schemaLocation, JsonNode jsonNode)
+  {
+    String key = getKey(schemaLocation, jsonNode);
+    JsonSchema schema = SchemaConstants.getSchema(schemaLocation);
+    CachedResult cachedResult = cache.get(key, result -> result.getSchema() == schema);
+    if (cachedResult == null)
+    {
+      Set<ValidationMessage> errors = SchemaValidator.validateJsonObject(schemaLocation, jsonNode);
+      cachedResult = new CachedResult(Collections.unmodifiableSet(new LinkedHashSet<>(errors)), schema);
+      cache.put(key, cachedResult);
+    }
+    return cachedResult.getErrors();
+  }
+
+  /**
+   * @param schemaLocation the schemas location
+   * @param pojo the object to validate
+   * @return true if the object matches the schema definitions
+   */
+  public boolean isValid(String schemaLocation, Object pojo)
+  {
+    return validateJsonObject(schemaLocation, pojo).isEmpty();
+  }
+
+  /**
+   * @param schemaLocation the schemas location
+   * @param jsonNode the json node to validate
+   * @return true if the json node matches the schema definitions
+   */
+  public boolean isValid(String schemaLocation, JsonNode jsonNode)
+  {
+    return validateJsonObject(schemaLocation, jsonNode).isEmpty();
+  }
+
+  /**
+   * @return the number of validations that were answered from the cache
+   */
+  public long getHitCount()
+  {
+    return cache.getHitCount();
+  }
+
+  /**
+   * @return the number of validations that had to evaluate the schema
+   */
+  public long getMissCount()
+  {
+    return cache.getMissCount();
+  }
+
+  /**
+   * @return the number of results that were removed because of the size limit, because they had expired or
+   *         because their schema was reloaded
+   */
+  public long getEvictionCount()
+  {
+    return cache.getEvictionCount();
+  }
+
+  /**
+   * @return the ratio of cache hits to all validations
+   */
+  public double getHitRate()
+  {
+    return cache.getHitRate();
+  }
+
+  /**
+   * @return the current number of cached validation results
+   */
+  public int size()
+  {
+    return cache.size();
+  }
+
+  /**
+   * removes all cached validation results
+   */
+  public void clear()
+  {
+    cache.clear();
+  }
+
+  /**
+   * @return the cache key of the given document. The canonical serialization is streamed into the hash and is
+   *         never held in memory
+   */
+  @SneakyThrows
+  static String getKey(String schemaLocation, Object document)
+  {
+    MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+    try (OutputStream outputStream = new DigestOutputStream(OutputStream.nullOutputStream(), messageDigest))
+    {
+      CANONICAL_WRITER.writeValue(outputStream, document);
+    }
+    return schemaLocation + '#' + Base64.getEncoder().encodeToString(messageDigest.digest());
+  }
+
+  private static ObjectWriter createCanonicalWriter()
+  {
+    ObjectMapper objectMapper = ObjectMapperUtil.getObjectMapper().copy();
+    objectMapper.setConfig(objectMapper.getSerializationConfig()
+                                       .with(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                                       .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                                       .with(JsonNodeFeature.WRITE_PROPERTIES_SORTED));
+    return objectMapper.writer();
+  }
+
+  /**
+   * the errors of a document together with the schema instance it was validated with
+   */
+  @Getter
+  private static class CachedResult
+  {
+
+    private final Set<ValidationMessage> errors;
+
+    private final JsonSchema schema;
+
+    public CachedResult(Set<ValidationMessage> errors, JsonSchema schema)
+    {
+      this.errors = errors;
+      this.schema = schema;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package de.governikus.identification.report.constants;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.schema.JsonSchema;
+
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+import de.governikus.identification.report.validation.SchemaValidator;
+import de.governikus.identification.report.validation.StreamingSchemaValidator;
+import lombok.SneakyThrows;
+
+
+/**
+ * verifies that schemas are loaded from a directory of the filesystem and that changed schemas are reloaded
+ */
+public class FileSystemSchemaSourceTest
+{
+
+  private static final String SCHEMA_LOCATION = "/subjects/person-ref.json";
+
+  @TempDir
+  Path directory;
+
+  @AfterEach
+  public void removeSchemaSource()
+  {
+    SchemaConstants.setFileSystemSchemaSource(null);
+  }
+
+  /**
+   * verifies that the schemas of the directory are used by the schema validator and that the schemas that are
+   * shipped with this library cannot be replaced
+   */
+  @SneakyThrows
+  @Test
+  public void testSchemasAreLoadedFromDirectory()
+  {
+    writeSchema(SCHEMA_LOCATION, "givenName");
+    writeSchema(SchemaConstants.Locations.FINK_USER_ACCOUNT_MINIMAL_SCHEMA_LOCATION, "unknown");
+    try (
+      FileSystemSchemaSource schemaSource = FileSystemSchemaSource.builder().directory(directory).watch(false).build())
+    {
+      SchemaConstants.setFileSystemSchemaSource(schemaSource);
+      JsonSchema schema = SchemaConstants.getSchema(SCHEMA_LOCATION);
+      Assertions.assertSame(schema, schemaSource.getSchema(SCHEMA_LOCATION));
+      Assertions.assertEquals("urn:test:givenName", schema.getSchemaNode().get("$id").asText());
+      Assertions.assertTrue(SchemaValidator.isValid(SCHEMA_LOCATION, readJson("{\"givenName\": \"Max\"}")));
+      Assertions.assertFalse(SchemaValidator.isValid(SCHEMA_LOCATION, readJson("{\"familyName\": \"Muster\"}")));
+
+      Assertions.assertEquals(SchemaConstants.Ids.FINK_PERSON_REF_MINIMAL_ID,
+                              SchemaConstants.getSchema(SchemaConstants.Locations.FINK_USER_ACCOUNT_MINIMAL_SCHEMA_LOCATION)
+                                             .getSchemaNode()
+                                             .get("$id")
+                                             .asText());
+      Assertions.assertNull(schemaSource.getSchema("/subjects/unknown.json"));
+      Assertions.assertThrows(IllegalArgumentException.class, () -> schemaSource.getSchema("/../outside.json"));
+    }
+  }
+
+  /**
+   * verifies that changed schemas are replaced, that invalid changes keep the previous version and that deleted
+   * schemas are removed
+   */
+  @SneakyThrows
+  @Test
+  public void testChangedSchemasAreReloaded()
+  {
+    writeSchema(SCHEMA_LOCATION, "givenName");
+    try (FileSystemSchemaSource schemaSource = FileSystemSchemaSource.builder().directory(directory).build())
+    {
+      JsonSchema firstVersion = schemaSource.getSchema(SCHEMA_LOCATION);
+
+      writeSchema(SCHEMA_LOCATION, "familyName");
+      waitFor(() -> schemaSource.getSchema(SCHEMA_LOCATION) != firstVersion);
+      JsonSchema secondVersion = schemaSource.getSchema(SCHEMA_LOCATION);
+      Assertions.assertEquals("urn:test:familyName", secondVersion.getSchemaNode().get("$id").asText());
+
+      Files.writeString(directory.resolve("subjects/person-ref.json"), "{", StandardCharsets.UTF_8);
+      Thread.sleep(500);
+      Assertions.assertSame(secondVersion, schemaSource.getSchema(SCHEMA_LOCATION));
+
+      Files.delete(directory.resolve("subjects/person-ref.json"));
+      waitFor(() -> schemaSource.getSchema(SCHEMA_LOCATION) == null);
+    }
+  }
+
+  /**
+   * verifies that a schema that was missing on its first lookup is found after it has been created and that the
+   * streaming validator follows reloaded schemas
+   */
+  @SneakyThrows
+  @Test
+  public void testCreatedSchemasAreFound()
+  {
+    try (FileSystemSchemaSource schemaSource = FileSystemSchemaSource.builder().directory(directory).build())
+    {
+      SchemaConstants.setFileSystemSchemaSource(schemaSource);
+      Assertions.assertNull(schemaSource.getSchema(SCHEMA_LOCATION));
+      Assertions.assertNull(schemaSource.getSchema(SCHEMA_LOCATION));
+
+      writeSchema(SCHEMA_LOCATION, "givenName");
+      waitFor(() -> schemaSource.getSchema(SCHEMA_LOCATION) != null);
+      StreamingSchemaValidator validator = StreamingSchemaValidator.builder().schemaLocation(SCHEMA_LOCATION).build();
+      byte[] json = "{\"givenName\": \"Max\"}".getBytes(StandardCharsets.UTF_8);
+      Assertions.assertTrue(validator.validate(json).isEmpty());
+
+      JsonSchema firstVersion = schemaSource.getSchema(SCHEMA_LOCATION);
+      writeSchema(SCHEMA_LOCATION, "familyName");
+      waitFor(() -> schemaSource.getSchema(SCHEMA_LOCATION) != firstVersion);
+      Assertions.assertEquals(1, validator.validate(json).size());
+    }
+  }
+
+  /**
+   * writes a schema that requires the given property
+   */
+  @SneakyThrows
+  private void writeSchema(String schemaLocation, String requiredProperty)
+  {
+    Path file = directory.resolve(schemaLocation.substring(1));
+    Files.createDirectories(file.getParent());
+    String schema = String.format("{\"$schema\": \"https://json-schema.org/draft/2020-12/schema\", "
+                                  + "\"$id\": \"urn:test:%s\", \"type\": \"object\", \"required\": [\"%s\"]}",
+                                  requiredProperty,
+                                  requiredProperty);
+    Files.writeString(file, schema, StandardCharsets.UTF_8);
+  }
+
+  @SneakyThrows
+  private static void waitFor(BooleanSupplier condition)
+  {
+    long deadline = System.currentTimeMillis() + 20_000;
+    while (!condition.getAsBoolean())
+    {
+      Assertions.assertTrue(System.currentTimeMillis() < deadline, "condition was not met in time");
+      Thread.sleep(20);
+    }
+  }
+
+  @SneakyThrows
+  private static JsonNode readJson(String json)
+  {
+    return ObjectMapperUtil.getObjectMapper().readTree(json);
+  }
+}
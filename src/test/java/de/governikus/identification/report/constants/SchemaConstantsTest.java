@@ -1,14 +1,23 @@
 package de.governikus.identification.report.constants;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.schema.JsonSchema;
 
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
 import de.governikus.identification.report.utils.ObjectMapperUtil;
 import lombok.SneakyThrows;
 
@@ -46,4 +55,48 @@ public class SchemaConstantsTest
     Assertions.assertEquals(schemaJson.get("$id").asText(), schemaId);
   }
 
+  /**
+   * verifies that concurrent first requests of the same schema all receive the same compiled instance
+   */
+  @SneakyThrows
+  @Test
+  public void testConcurrentGetSchemaReturnsSingleInstance()
+  {
+    final String schemaLocation = SchemaConstants.Locations.FINK_USER_ACCOUNT_MINIMAL_SCHEMA_LOCATION;
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    try
+    {
+      CountDownLatch startSignal = new CountDownLatch(1);
+      List<Future<JsonSchema>> futures = new ArrayList<>();
+      for ( int i = 0 ; i < 32 ; i++ )
+      {
+        futures.add(executorService.submit(() -> {
+          startSignal.await();
+          return SchemaConstants.getSchema(schemaLocation);
+        }));
+      }
+      startSignal.countDown();
+      for ( Future<JsonSchema> future : futures )
+      {
+        Assertions.assertSame(SchemaConstants.getSchema(schemaLocation), future.get());
+      }
+    }
+    finally
+    {
+      executorService.shutdown();
+    }
+  }
+
+  /**
+   * verifies that the warm-up compiles all schemas and reports its completion
+   */
+  @Test
+  public void testWarmUp()
+  {
+    SchemaConstants.warmUp();
+    Assertions.assertTrue(SchemaConstants.isWarmedUp());
+    Assertions.assertNotNull(SchemaConstants.getSchema(SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION));
+    Assertions.assertSame(new EidCardPersonRef().getSchema(),
+                          SchemaConstants.getSchema(SchemaConstants.Locations.EID_CARD_SCHEMA_LOCATION));
+  }
 }
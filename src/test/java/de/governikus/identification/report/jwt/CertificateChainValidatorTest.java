@@ -0,0 +1,283 @@
+package de.governikus.identification.report.jwt;
+
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPrivateKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.util.Base64;
+import com.nimbusds.jose.util.Base64URL;
+
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.setup.KeystoreEntry;
+import lombok.SneakyThrows;
+
+
+/**
+ * verifies the acceptance of JWS whose x5c header chains to a trust anchor
+ */
+public class CertificateChainValidatorTest implements FileReferences
+{
+
+  private static final String ROOT_CA_ALIAS = "unit-test-root-ca";
+
+  private static final String LEAF_ALIAS = "unit-test-chain-leaf";
+
+  private static final String KEY_AGREEMENT_LEAF_ALIAS = "unit-test-key-agreement-leaf";
+
+  /**
+   * verifies that a JWS with a trusted chain is accepted and that the chain is validated only once
+   */
+  @Test
+  public void testTrustedChainIsValidatedOnce()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    final String content = readResourceFile(IDENTIFICATION_REPORT_2_0);
+    CertificateChainValidator validator = CertificateChainValidator.builder()
+                                                                   .trustAnchors(Collections.singletonList(getCertificate(keyStore,
+                                                                                                                          ROOT_CA_ALIAS)))
+                                                                   .build();
+    JwtHandler jwtHandler = JwtHandler.builder().certificateChainValidator(validator).build();
+    String jws = createJwsWithChain(keyStore, LEAF_ALIAS, content);
+
+    JwtHandler.PlainJwtData plainJwtData = jwtHandler.handleJwt(jws);
+    Assertions.assertEquals(content, plainJwtData.getBody().toString());
+    Assertions.assertTrue(jwtHandler.verifyJws(createJwsWithChain(keyStore, LEAF_ALIAS, "{}")).isVerified());
+    Assertions.assertEquals(1, validator.getCacheMissCount());
+    Assertions.assertEquals(1, validator.getCacheHitCount());
+
+    String[] parts = jws.split("\\.");
+    String manipulatedJws = parts[0] + "." + parts[1].substring(1) + "." + parts[2];
+    Assertions.assertFalse(jwtHandler.verifyJws(manipulatedJws).isVerified());
+  }
+
+  /**
+   * verifies that JWS are rejected if their chain does not lead to a trust anchor
+   */
+  @Test
+  public void testUntrustedChainIsRejected()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    CertificateChainValidator validator = CertificateChainValidator.builder()
+                                                                   .trustAnchors(Collections.singletonList(getCertificate(keyStore,
+                                                                                                                          ROOT_CA_ALIAS)))
+                                                                   .build();
+    JwtHandler jwtHandler = JwtHandler.builder().certificateChainValidator(validator).build();
+
+    JwsVerificationResult result = jwtHandler.verifyJws(createJwsWithChain(keyStore, "goldfish-ec", "{}"));
+    Assertions.assertEquals(JwsVerificationResult.ErrorCode.UNKNOWN_KEY, result.getErrorCode());
+    Assertions.assertEquals(JwsVerificationResult.ErrorCode.UNKNOWN_KEY,
+                            jwtHandler.verifyJws(getJwtHandler(keyStore, "goldfish-ec").createJws("{}"))
+                                      .getErrorCode());
+  }
+
+  /**
+   * verifies that a chain is not accepted after its leaf certificate has expired
+   */
+  @Test
+  public void testExpiredChainIsRejected()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    X509Certificate leaf = getCertificate(keyStore, LEAF_ALIAS);
+    Clock afterExpiration = Clock.fixed(leaf.getNotAfter().toInstant().plus(Duration.ofDays(1)), ZoneOffset.UTC);
+    CertificateChainValidator validator = CertificateChainValidator.builder()
+                                                                   .trustAnchors(Collections.singletonList(getCertificate(keyStore,
+                                                                                                                          ROOT_CA_ALIAS)))
+                                                                   .clock(afterExpiration)
+                                                                   .build();
+    JwtHandler jwtHandler = JwtHandler.builder().certificateChainValidator(validator).build();
+
+    JwsVerificationResult result = jwtHandler.verifyJws(createJwsWithChain(keyStore, LEAF_ALIAS, "{}"));
+    Assertions.assertEquals(JwsVerificationResult.ErrorCode.UNKNOWN_KEY, result.getErrorCode());
+  }
+
+  /**
+   * verifies that a cached chain is validated again once its maximum age is reached
+   */
+  @Test
+  public void testCachedChainExpiresAfterWrite()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    AtomicReference<Instant> now = new AtomicReference<>(Instant.now());
+    Clock clock = new Clock()
+    {
+
+      @Override
+      public ZoneId getZone()
+      {
+        return ZoneOffset.UTC;
+      }
+
+      @Override
+      public Clock withZone(ZoneId zone)
+      {
+        return this;
+      }
+
+      @Override
+      public Instant instant()
+      {
+        return now.get();
+      }
+    };
+    CertificateChainValidator validator = CertificateChainValidator.builder()
+                                                                   .trustAnchors(Collections.singletonList(getCertificate(keyStore,
+                                                                                                                          ROOT_CA_ALIAS)))
+                                                                   .expireAfterWrite(Duration.ofMinutes(1))
+                                                                   .clock(clock)
+                                                                   .build();
+    JwtHandler jwtHandler = JwtHandler.builder().certificateChainValidator(validator).build();
+
+    Assertions.assertTrue(jwtHandler.verifyJws(createJwsWithChain(keyStore, LEAF_ALIAS, "{}")).isVerified());
+    now.set(now.get().plusSeconds(59));
+    Assertions.assertTrue(jwtHandler.verifyJws(createJwsWithChain(keyStore, LEAF_ALIAS, "{}")).isVerified());
+    Assertions.assertEquals(1, validator.getCacheMissCount());
+    now.set(now.get().plusSeconds(1));
+    Assertions.assertTrue(jwtHandler.verifyJws(createJwsWithChain(keyStore, LEAF_ALIAS, "{}")).isVerified());
+    Assertions.assertEquals(2, validator.getCacheMissCount());
+  }
+
+  /**
+   * verifies that cached chains expire by default if the revocation status is checked and that a maximum age
+   * that would keep revoked chains forever is rejected
+   */
+  @Test
+  public void testRevocationRequiresBoundedExpireAfterWrite()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    List<X509Certificate> trustAnchors = Collections.singletonList(getCertificate(keyStore, ROOT_CA_ALIAS));
+
+    Assertions.assertNull(CertificateChainValidator.builder().trustAnchors(trustAnchors).build().getExpireAfterWrite());
+    Assertions.assertEquals(CertificateChainValidator.DEFAULT_REVOCATION_EXPIRE_AFTER_WRITE,
+                            CertificateChainValidator.builder()
+                                                     .trustAnchors(trustAnchors)
+                                                     .revocationEnabled(true)
+                                                     .build()
+                                                     .getExpireAfterWrite());
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> CertificateChainValidator.builder()
+                                                           .trustAnchors(trustAnchors)
+                                                           .revocationEnabled(true)
+                                                           .expireAfterWrite(Duration.ZERO)
+                                                           .build());
+  }
+
+  /**
+   * verifies that a leaf certificate whose key usage does not permit digital signatures is rejected although
+   * its chain is trusted
+   */
+  @Test
+  public void testLeafWithoutDigitalSignatureIsRejected()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    CertificateChainValidator validator = CertificateChainValidator.builder()
+                                                                   .trustAnchors(Collections.singletonList(getCertificate(keyStore,
+                                                                                                                          ROOT_CA_ALIAS)))
+                                                                   .build();
+    JwtHandler jwtHandler = JwtHandler.builder().certificateChainValidator(validator).build();
+
+    JwsVerificationResult result = jwtHandler.verifyJws(createJwsWithChain(keyStore, KEY_AGREEMENT_LEAF_ALIAS, "{}"));
+    Assertions.assertEquals(JwsVerificationResult.ErrorCode.UNKNOWN_KEY, result.getErrorCode());
+    Assertions.assertTrue(jwtHandler.verifyJws(createJwsWithChain(keyStore, LEAF_ALIAS, "{}")).isVerified());
+  }
+
+  /**
+   * verifies that a JWS is rejected if its x5t#S256 header does not match the leaf certificate of its x5c
+   * header
+   */
+  @SneakyThrows
+  @Test
+  public void testMismatchingThumbprintIsRejected()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    CertificateChainValidator validator = CertificateChainValidator.builder()
+                                                                   .trustAnchors(Collections.singletonList(getCertificate(keyStore,
+                                                                                                                          ROOT_CA_ALIAS)))
+                                                                   .build();
+    JwtHandler jwtHandler = JwtHandler.builder().certificateChainValidator(validator).build();
+    Base64URL leafThumbprint = getSha256Thumbprint(getCertificate(keyStore, LEAF_ALIAS));
+    Base64URL rootThumbprint = getSha256Thumbprint(getCertificate(keyStore, ROOT_CA_ALIAS));
+
+    Assertions.assertTrue(jwtHandler.verifyJws(createJwsWithChain(keyStore, LEAF_ALIAS, leafThumbprint, "{}"))
+                                    .isVerified());
+    JwsVerificationResult result = jwtHandler.verifyJws(createJwsWithChain(keyStore, LEAF_ALIAS, rootThumbprint, "{}"));
+    Assertions.assertEquals(JwsVerificationResult.ErrorCode.UNKNOWN_KEY, result.getErrorCode());
+  }
+
+  /**
+   * creates an ES256 JWS whose x5c header contains the certificate chain of the given keystore entry
+   */
+  private String createJwsWithChain(KeyStore keyStore, String alias, String content)
+  {
+    return createJwsWithChain(keyStore, alias, null, content);
+  }
+
+  /**
+   * creates an ES256 JWS whose x5c header contains the certificate chain of the given keystore entry
+   *
+   * @param x5tS256 the optional x5t#S256 header
+   */
+  @SneakyThrows
+  private String createJwsWithChain(KeyStore keyStore, String alias, Base64URL x5tS256, String content)
+  {
+    List<Base64> x5c = new ArrayList<>();
+    for ( Certificate certificate : keyStore.getCertificateChain(alias) )
+    {
+      x5c.add(Base64.encode(certificate.getEncoded()));
+    }
+    JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.ES256).x509CertChain(x5c)
+                                                                .x509CertSHA256Thumbprint(x5tS256)
+                                                                .build();
+    JWSObject jwsObject = new JWSObject(header, new Payload(content));
+    jwsObject.sign(new ECDSASigner((ECPrivateKey)getKeystoreEntry(alias).getPrivateKey(keyStore)));
+    return jwsObject.serialize();
+  }
+
+  /**
+   * @return a handler with the key material of the given keystore entry
+   */
+  private JwtHandler getJwtHandler(KeyStore keyStore, String alias)
+  {
+    KeystoreEntry keystoreEntry = getKeystoreEntry(alias);
+    PrivateKey privateKey = keystoreEntry.getPrivateKey(keyStore);
+    return new JwtHandler(privateKey, keystoreEntry.getCertificate(keyStore));
+  }
+
+  @SneakyThrows
+  private static Base64URL getSha256Thumbprint(X509Certificate certificate)
+  {
+    return Base64URL.encode(MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded()));
+  }
+
+  private X509Certificate getCertificate(KeyStore keyStore, String alias)
+  {
+    return getKeystoreEntry(alias).getCertificate(keyStore);
+  }
+
+  private KeystoreEntry getKeystoreEntry(String alias)
+  {
+    return getUnitTestKeystoreEntries().stream()
+                                       .filter(entry -> entry.getAlias().equals(alias))
+                                       .findAny()
+                                       .orElseThrow();
+  }
+}
@@ -0,0 +1,58 @@
+package de.governikus.identification.report.jwt;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+
+/**
+ * verifies the scanning of compact serialized JWS
+ */
+public class CompactJwsTest
+{
+
+  /**
+   * verifies that tokens that do not have the structure of a compact JWS are rejected
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"", "abcd", "abcd.efgh", "abcd.efgh.ijkl.mnop", ".efgh.ijkl", "abcd.efgh.", "ab+d.efgh.ijkl",
+                          "abcd.ef=h.ijkl", "abcde.efgh.ijkl", "abcd.efgh.ijklm", "abcd.äfgh.ijkl"})
+  public void testMalformedTokensAreRejected(String token)
+  {
+    Assertions.assertNull(CompactJws.parse(token));
+    Assertions.assertNull(CompactJws.parse(token.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * verifies that the parts of a token are found within strings and byte arrays
+   */
+  @Test
+  public void testPartsAreFound()
+  {
+    String token = "eyJhbGciOiJSUzUxMiJ9.e30.c2lnbmF0dXJl";
+    for ( CompactJws compactJws : new CompactJws[]{CompactJws.parse(token),
+                                                   CompactJws.parse(token.getBytes(StandardCharsets.US_ASCII))} )
+    {
+      Assertions.assertEquals("eyJhbGciOiJSUzUxMiJ9", compactJws.getEncodedHeader().toString());
+      Assertions.assertEquals("{\"alg\":\"RS512\"}", compactJws.getDecodedHeader());
+      Assertions.assertEquals("e30", compactJws.getEncodedPayload().toString());
+      Assertions.assertEquals("c2lnbmF0dXJl", compactJws.getEncodedSignature().toString());
+      Assertions.assertArrayEquals("eyJhbGciOiJSUzUxMiJ9.e30".getBytes(StandardCharsets.US_ASCII),
+                                   compactJws.getSigningInput());
+    }
+  }
+
+  /**
+   * verifies that an empty payload is accepted
+   */
+  @Test
+  public void testEmptyPayloadIsAccepted()
+  {
+    CompactJws compactJws = CompactJws.parse("eyJhbGciOiJSUzUxMiJ9..c2lnbmF0dXJl");
+    Assertions.assertNotNull(compactJws);
+    Assertions.assertEquals("", compactJws.getEncodedPayload().toString());
+  }
+}
@@ -0,0 +1,175 @@
+package de.governikus.identification.report.jwt;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.text.ParseException;
+import java.util.Base64;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.RSASSASigner;
+
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.setup.KeystoreEntry;
+import lombok.SneakyThrows;
+
+
+/**
+ * verifies that the {@link JwsHeaderScanner} never rejects a header that nimbus can parse
+ */
+public class JwsHeaderScannerTest implements FileReferences
+{
+
+  /**
+   * the parameters whose contents are not checked by the scanner
+   */
+  private static final Pattern LEFT_TO_NIMBUS = Pattern.compile("\"(jku|x5u|jwk)\"");
+
+  /**
+   * verifies that the scanner and the nimbus parser agree on the given header
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"{\"alg\":\"RS512\"}", " { \"alg\" : \"ES256\" , \"typ\" : null } ",
+                          "{\"alg\":\"PS256\",\"x5t#S256\":\"abc\",\"x5c\":[\"MIIB\",\"MIIC\"],\"kid\":\"1\"}",
+                          "{\"alg\":\"RS256\",\"b64\":false,\"crit\":[\"b64\"]}",
+                          "{\"alg\":\"RS256\",\"custom\":{\"nested\":[1,-2.5e3,true,null,\"\\u00fc\\n\"]}}",
+                          "{\"alg\":\"RS256\",\"x5u\":\"https://example.com/certs?id=1#main\"}",
+                          "{\"alg\":\"RS256\",\"jku\":\"keys/set.json\"}", "{x}", "{\"alg\":1}", "{\"alg\":\"none\"}",
+                          "{\"alg\":\"RSA-OAEP\",\"enc\":\"A128GCM\"}", "{}", "[]", "\"alg\"", "", "{\"alg\":\"RS256\"",
+                          "{\"alg\":\"RS256\"}}", "{\"alg\":\"RS256\",}", "{\"alg\":\"RS256\",\"alg\":\"RS512\"}",
+                          "{\"alg\":\"RS256\",\"custom\":{\"a\":1,\"a\":2}}", "{'alg':'RS256'}",
+                          "{\"alg\":\"RS256\",\"custom\":01}", "{\"alg\":\"RS256\",\"custom\":1e999}",
+                          "{\"alg\":\"RS256\",\"custom\":NaN}", "{\"alg\":\"RS256\",\"custom\":\"\\x\"}",
+                          "{\"alg\":\"RS256\",\"custom\":\"\t\"}", "{\"alg\":\"RS256\",\"custom\":tru}",
+                          "{\"alg\":\"RS256\",\"typ\":1}", "{\"alg\":\"RS256\",\"x5t#S256\":[]}",
+                          "{\"alg\":\"RS256\",\"x5c\":[1]}", "{\"alg\":\"RS256\",\"x5c\":[null]}",
+                          "{\"alg\":\"RS256\",\"b64\":\"false\"}", "{\"alg\":\"RS256\",\"b64\":null}",
+                          "{\"alg\":\"RS256\",\"crit\":\"b64\"}", "{\"alg\":\"RS256\",\"crit\":[1]}",
+                          "{\"alg\":\"RS256\",\"jwk\":\"key\"}", "{\"alg\":\"RS256\",\"x5u\":\"https://[::1]/\"}",
+                          "{\"alg\":\"RS256\",\"jku\":\"https://example.com/\u00e4\"}",
+                          "{\"alg\":\"RS256\",\"crit\":[]}", "{\"alg\":\"RS256\",\"crit\":[\"exp\"]}",
+                          "{\"alg\":\"RS256\",\"custom\":[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]}"})
+  public void testScannerMatchesNimbus(String header)
+  {
+    Assertions.assertEquals(isParsedByNimbus(header), JwsHeaderScanner.isValid(header), header);
+  }
+
+  /**
+   * verifies that the headers whose parameter contents are left to nimbus pass the scanner
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"{\"alg\":\"RS256\",\"x5u\":\"::\"}", "{\"alg\":\"RS256\",\"jku\":\"a b\"}",
+                          "{\"alg\":\"RS256\",\"jwk\":{}}"})
+  public void testParameterContentsAreLeftToNimbus(String header)
+  {
+    Assertions.assertFalse(isParsedByNimbus(header));
+    Assertions.assertTrue(JwsHeaderScanner.isValid(header));
+  }
+
+  /**
+   * verifies that deeply nested headers are left to nimbus instead of being scanned completely
+   */
+  @Test
+  public void testDeeplyNestedHeaderIsLeftToNimbus()
+  {
+    String header = "{\"alg\":\"RS256\",\"custom\":" + "[".repeat(5_000) + "]".repeat(5_000) + "}";
+    Assertions.assertTrue(JwsHeaderScanner.isValid(header));
+  }
+
+  /**
+   * verifies with randomly modified headers that the scanner accepts exactly the headers that nimbus accepts.
+   * Headers that nimbus rejects because of the contents of a parameter that is left to nimbus are skipped
+   */
+  @Test
+  public void testModifiedHeadersMatchNimbus()
+  {
+    String[] headers = {"{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"1\"}",
+                        "{\"alg\":\"ES256\",\"x5t#S256\":\"abc\",\"x5c\":[\"MIIB\"],\"crit\":[\"b64\"],\"b64\":false}",
+                        "{\"alg\":\"PS256\",\"custom\":{\"list\":[1,-2.5e3,true,null,\"\\u00fc\"]}}"};
+    String alphabet = "{}[]\":,\\ -.0123456789eEtrufalsn\tx#";
+    Random random = new Random(42);
+    for ( int i = 0 ; i < 20_000 ; i++ )
+    {
+      StringBuilder header = new StringBuilder(headers[random.nextInt(headers.length)]);
+      for ( int modifications = 1 + random.nextInt(3) ; modifications > 0 ; modifications-- )
+      {
+        int position = random.nextInt(header.length());
+        char character = alphabet.charAt(random.nextInt(alphabet.length()));
+        switch (random.nextInt(3))
+        {
+          case 0:
+            header.deleteCharAt(position);
+            break;
+          case 1:
+            header.insert(position, character);
+            break;
+          default:
+            header.setCharAt(position, character);
+        }
+      }
+      String modifiedHeader = header.toString();
+      boolean parsedByNimbus = isParsedByNimbus(modifiedHeader);
+      if (parsedByNimbus || !LEFT_TO_NIMBUS.matcher(modifiedHeader).find())
+      {
+        Assertions.assertEquals(parsedByNimbus, JwsHeaderScanner.isValid(modifiedHeader), modifiedHeader);
+      }
+    }
+  }
+
+  /**
+   * verifies that a signed token with an IPv6 literal within its x5u header is verified
+   */
+  @SneakyThrows
+  @Test
+  public void testSignedTokenWithIpv6UriIsVerified()
+  {
+    KeyStore keyStore = getUnitTestKeystore();
+    KeystoreEntry keystoreEntry = getUnitTestKeystoreEntries().get(0);
+    JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).x509CertURL(new URI("https://[::1]/cert.pem")).build();
+    JWSObject jwsObject = new JWSObject(header, new Payload("{}"));
+    jwsObject.sign(new RSASSASigner(keystoreEntry.getPrivateKey(keyStore)));
+
+    JwtHandler jwtHandler = new JwtHandler(null, keystoreEntry.getCertificate(keyStore));
+    Assertions.assertTrue(jwtHandler.verifyJws(jwsObject.serialize()).isVerified());
+  }
+
+  /**
+   * verifies that a token with a syntactically broken JSON header is rejected as malformed
+   */
+  @Test
+  public void testBrokenHeaderIsRejectedAsMalformed()
+  {
+    JwtHandler jwtHandler = new JwtHandler(null, null);
+    for ( String header : new String[]{"{x}", "{\"alg\":1}"} )
+    {
+      String encodedHeader = Base64.getUrlEncoder()
+                                   .withoutPadding()
+                                   .encodeToString(header.getBytes(StandardCharsets.UTF_8));
+      JwsVerificationResult verificationResult = jwtHandler.verifyJws(encodedHeader + ".e30.c2lnbmF0dXJl");
+      Assertions.assertEquals(JwsVerificationResult.ErrorCode.MALFORMED, verificationResult.getErrorCode());
+    }
+  }
+
+  private static boolean isParsedByNimbus(String header)
+  {
+    try
+    {
+      JWSHeader.parse(header);
+      return true;
+    }
+    catch (ParseException ex)
+    {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,209 @@
+package de.governikus.identification.report.jwt;
+
+import java.security.KeyStore;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.governikus.identification.report.objects.IdentificationReport;
+import de.governikus.identification.report.objects.LevelOfAssurance;
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.setup.KeystoreEntry;
+
+
+/**
+ * verifies the parallel processing of JWS batches
+ */
+public class JwtBatchProcessorTest implements FileReferences
+{
+
+  /**
+   * verifies that the signed bodies are returned in the order of the input
+   */
+  @Test
+  public void testBatchSigningPreservesOrder()
+  {
+    JwtHandler jwtHandler = getJwtHandler();
+    try (JwtBatchProcessor batchProcessor = JwtBatchProcessor.builder().jwtHandler(jwtHandler).parallelism(4).build())
+    {
+
+      List<String> bodies = IntStream.range(0, 150).mapToObj(i -> "{\"index\":" + i + "}").collect(Collectors.toList());
+      List<JwsSigningResult> results = batchProcessor.createJws(bodies.stream());
+
+      Assertions.assertEquals(bodies.size(), results.size());
+      for ( int i = 0 ; i < bodies.size() ; i++ )
+      {
+        JwsSigningResult result = results.get(i);
+        Assertions.assertTrue(result.isSuccessful());
+        Assertions.assertEquals(i, result.getIndex());
+        Assertions.assertEquals(bodies.get(i), jwtHandler.handleJwt(result.getJws()).getBody().toString());
+      }
+    }
+  }
+
+  /**
+   * verifies that a failing element does not abort the remaining elements of the batch
+   */
+  @Test
+  public void testSingleFailureDoesNotAbortBatch()
+  {
+    try (JwtBatchProcessor batchProcessor = JwtBatchProcessor.builder().jwtHandler(getJwtHandler()).build())
+    {
+
+      List<JwsSigningResult> results = batchProcessor.createJws(Arrays.asList("first", null, "third"));
+
+      Assertions.assertTrue(results.get(0).isSuccessful());
+      Assertions.assertFalse(results.get(1).isSuccessful());
+      Assertions.assertNull(results.get(1).getJws());
+      Assertions.assertNotNull(results.get(1).getError());
+      Assertions.assertTrue(results.get(2).isSuccessful());
+    }
+  }
+
+  /**
+   * verifies that identification reports are serialized and signed
+   */
+  @Test
+  public void testSignReports()
+  {
+    JwtHandler jwtHandler = getJwtHandler();
+    try (JwtBatchProcessor batchProcessor = JwtBatchProcessor.builder().jwtHandler(jwtHandler).parallelism(2).build())
+    {
+
+      List<IdentificationReport<?>> reports = IntStream.range(0, 20)
+                                                       .mapToObj(i -> IdentificationReport.builder()
+                                                                                          .reportId(String.valueOf(i))
+                                                                                          .serverIdentity("localhost")
+                                                                                          .reportTime(Instant.now())
+                                                                                          .identificationTime(Instant.now())
+                                                                                          .levelOfAssurance(LevelOfAssurance.EIDAS_HIGH)
+                                                                                          .build())
+                                                       .collect(Collectors.toList());
+      List<JwsSigningResult> results = batchProcessor.createJwsFromReports(reports);
+
+      for ( int i = 0 ; i < reports.size() ; i++ )
+      {
+        String body = jwtHandler.handleJwt(results.get(i).getJws()).getBody().toString();
+        Assertions.assertEquals(String.valueOf(i), IdentificationReport.fromJson(body).getReportId());
+      }
+    }
+  }
+
+  /**
+   * verifies that valid and invalid JWS are reported with their individual results
+   */
+  @Test
+  public void testBatchVerification()
+  {
+    JwtHandler jwtHandler = getJwtHandler();
+    try (JwtBatchProcessor batchProcessor = JwtBatchProcessor.builder().jwtHandler(jwtHandler).parallelism(4).build())
+    {
+
+      String validJws = jwtHandler.createJws("{\"hello\":\"world\"}");
+      String[] parts = validJws.split("\\.");
+      String manipulatedJws = parts[0] + "." + jwtHandler.createJws("{}").split("\\.")[1] + "." + parts[2];
+      String ecJws = getJwtHandler(3).createJws("{}");
+
+      List<JwsVerificationResult> results = batchProcessor.verifyJws(Arrays.asList(validJws,
+                                                                                   "garbage",
+                                                                                   "a.b",
+                                                                                   "a.b.c!",
+                                                                                   "e30.e30.e30",
+                                                                                   manipulatedJws,
+                                                                                   ecJws,
+                                                                                   null));
+
+      Assertions.assertTrue(results.get(0).isVerified());
+      Assertions.assertEquals("{\"hello\":\"world\"}", results.get(0).getPlainJwtData().getBody().toString());
+      Assertions.assertEquals(JwsVerificationResult.ErrorCode.MALFORMED, results.get(1).getErrorCode());
+      Assertions.assertEquals(JwsVerificationResult.ErrorCode.MALFORMED, results.get(2).getErrorCode());
+      Assertions.assertEquals(JwsVerificationResult.ErrorCode.MALFORMED, results.get(3).getErrorCode());
+      Assertions.assertEquals(JwsVerificationResult.ErrorCode.MALFORMED, results.get(4).getErrorCode());
+      Assertions.assertEquals(JwsVerificationResult.ErrorCode.INVALID_SIGNATURE, results.get(5).getErrorCode());
+      Assertions.assertEquals(JwsVerificationResult.ErrorCode.UNSUPPORTED_ALGORITHM, results.get(6).getErrorCode());
+      Assertions.assertEquals(JwsVerificationResult.ErrorCode.MALFORMED, results.get(7).getErrorCode());
+      for ( int i = 0 ; i < results.size() ; i++ )
+      {
+        Assertions.assertEquals(i, results.get(i).getIndex());
+        if (i > 0)
+        {
+          Assertions.assertNull(results.get(i).getPlainJwtData());
+          Assertions.assertNotNull(results.get(i).getReason());
+        }
+      }
+    }
+  }
+
+  /**
+   * verifies that all batches of a processor are executed by the same threads and that a closed processor
+   * rejects further batches
+   */
+  @Test
+  public void testThreadsAreReusedUntilClosed()
+  {
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    JwtHandler jwtHandler = getJwtHandler();
+    JwtHandler recordingJwtHandler = new JwtHandler(null, null)
+    {
+
+      @Override
+      public String createJws(String body)
+      {
+        threads.add(Thread.currentThread());
+        return jwtHandler.createJws(body);
+      }
+    };
+    JwtBatchProcessor batchProcessor = JwtBatchProcessor.builder()
+                                                        .jwtHandler(recordingJwtHandler)
+                                                        .parallelism(2)
+                                                        .build();
+    List<String> bodies = IntStream.range(0, 100).mapToObj(i -> "{}").collect(Collectors.toList());
+    for ( int i = 0 ; i < 5 ; i++ )
+    {
+      Assertions.assertTrue(batchProcessor.createJws(bodies).stream().allMatch(JwsSigningResult::isSuccessful));
+    }
+    threads.remove(Thread.currentThread());
+    Assertions.assertTrue(threads.size() <= 2, threads::toString);
+
+    batchProcessor.close();
+    Assertions.assertThrows(RejectedExecutionException.class, () -> batchProcessor.verifyJws(bodies));
+  }
+
+  /**
+   * verifies that a JWS is rejected with an error code if no verification key is known
+   */
+  @Test
+  public void testVerificationWithoutKey()
+  {
+    String jws = getJwtHandler().createJws("{}");
+    JwsVerificationResult result = JwtHandler.builder().build().verifyJws(jws);
+    Assertions.assertFalse(result.isVerified());
+    Assertions.assertEquals(JwsVerificationResult.ErrorCode.UNKNOWN_KEY, result.getErrorCode());
+  }
+
+  /**
+   * @return a handler with an RSA key
+   */
+  private JwtHandler getJwtHandler()
+  {
+    return getJwtHandler(0);
+  }
+
+  /**
+   * @return a handler with the key of the given keystore entry
+   */
+  private JwtHandler getJwtHandler(int keystoreEntryIndex)
+  {
+    KeyStore keyStore = getUnitTestKeystore();
+    KeystoreEntry keystoreEntry = getUnitTestKeystoreEntries().get(keystoreEntryIndex);
+    return new JwtHandler(keystoreEntry.getPrivateKey(keyStore), keystoreEntry.getCertificate(keyStore));
+  }
+}
@@ -0,0 +1,118 @@
+package de.governikus.identification.report.jwt;
+
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.governikus.identification.report.setup.Benchmark;
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.setup.KeystoreEntry;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * compares the latency and the allocation per signature of the {@link JwtHandler} with and without a reused
+ * signing context and the throughput of the supported key types. This test is excluded from the default build
+ * and must be executed explicitly
+ *
+ * <pre>
+ * mvn test -Dtest=JwtHandlerPerformanceTest
+ * </pre>
+ */
+@Slf4j
+public class JwtHandlerPerformanceTest implements FileReferences
+{
+
+  private static final int WARMUP_ITERATIONS = 500;
+
+  private static final int ITERATIONS = 1_000;
+
+  /**
+   * measures the signature creation with a new signing context per call and with a shared signing context
+   */
+  @Test
+  public void testSigningContextReuse()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    final String content = readResourceFile(IDENTIFICATION_REPORT_2_0);
+
+    for ( KeystoreEntry keystoreEntry : getUnitTestKeystoreEntries() )
+    {
+      PrivateKey privateKey = keystoreEntry.getPrivateKey(keyStore);
+      if (privateKey == null)
+      {
+        continue;
+      }
+      X509Certificate certificate = keystoreEntry.getCertificate(keyStore);
+      String keyDescription = String.format("%s-%s (%s)",
+                                            keystoreEntry.getKeyAlgorithm(),
+                                            keystoreEntry.getKeyLength(),
+                                            keystoreEntry.getAlias());
+
+      JwtHandler perCallHandler = JwtHandler.builder()
+                                            .privateKey(privateKey)
+                                            .certificate(certificate)
+                                            .reuseSigningContext(false)
+                                            .build();
+      JwtHandler reusingHandler = JwtHandler.builder()
+                                            .privateKey(privateKey)
+                                            .certificate(certificate)
+                                            .reuseSigningContext(true)
+                                            .build();
+
+      Benchmark.Result before = Benchmark.run("createJws per-call context " + keyDescription,
+                                              WARMUP_ITERATIONS,
+                                              ITERATIONS,
+                                              () -> perCallHandler.createJws(content));
+      Benchmark.Result after = Benchmark.run("createJws reused context   " + keyDescription,
+                                             WARMUP_ITERATIONS,
+                                             ITERATIONS,
+                                             () -> reusingHandler.createJws(content));
+      log.info(before.toString());
+      log.info(after.toString());
+      Assertions.assertTrue(after.getBytesPerOperation() < before.getBytesPerOperation());
+    }
+  }
+
+  /**
+   * compares the signature creation and verification throughput of all supported key types on the same hardware
+   */
+  @Test
+  public void testKeyTypeThroughput()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    final String content = readResourceFile(IDENTIFICATION_REPORT_2_0);
+
+    for ( KeystoreEntry keystoreEntry : getUnitTestKeystoreEntries() )
+    {
+      PrivateKey privateKey = keystoreEntry.getPrivateKey(keyStore);
+      if (privateKey == null)
+      {
+        continue;
+      }
+      JwtHandler jwtHandler = new JwtHandler(privateKey, keystoreEntry.getCertificate(keyStore));
+      String keyDescription = String.format("%s-%s (%s)",
+                                            keystoreEntry.getKeyAlgorithm(),
+                                            keystoreEntry.getKeyLength(),
+                                            keystoreEntry.getAlias());
+      String jws = jwtHandler.createJws(content);
+
+      Benchmark.Result signing = Benchmark.run("createJws " + keyDescription,
+                                               WARMUP_ITERATIONS,
+                                               ITERATIONS,
+                                               () -> jwtHandler.createJws(content));
+      Benchmark.Result verification = Benchmark.run("verifyJws " + keyDescription,
+                                                    WARMUP_ITERATIONS,
+                                                    ITERATIONS,
+                                                    () -> jwtHandler.verifyJws(jws));
+      log.info(String.format("%s: %.0f signatures/s, %.0f verifications/s",
+                             keyDescription,
+                             signing.getOperationsPerSecond(),
+                             verification.getOperationsPerSecond()));
+      Assertions.assertTrue(jwtHandler.verifyJws(jws).isVerified());
+    }
+  }
+}
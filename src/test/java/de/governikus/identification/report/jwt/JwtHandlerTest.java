@@ -1,17 +1,35 @@
 package de.governikus.identification.report.jwt;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.util.Base64URL;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
 
+import de.governikus.identification.report.objects.IdentificationReport;
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
 import de.governikus.identification.report.setup.FileReferences;
 import de.governikus.identification.report.setup.KeystoreEntry;
+import lombok.SneakyThrows;
 
 
 /**
@@ -55,10 +73,219 @@ public class JwtHandlerTest implements FileReferences
             JwtHandler.PlainJwtData plainJwtData = jwtHandler.handleJwt(jws);
             Assertions.assertEquals(content, plainJwtData.getBody().toString());
           }));
+          dynamicTestList.add(DynamicTest.dynamicTest(testName + " without reusing the signing context", () -> {
+            JwtHandler nonReusingJwtHandler = JwtHandler.builder()
+                                                        .privateKey(privateKey)
+                                                        .certificate(certificate)
+                                                        .reuseSigningContext(false)
+                                                        .build();
+            String jws = nonReusingJwtHandler.createJws(content);
+            JwtHandler.PlainJwtData plainJwtData = jwtHandler.handleJwt(jws);
+            Assertions.assertEquals(content, plainJwtData.getBody().toString());
+          }));
         }
       }
     }
 
     return dynamicTestList;
   }
+
+  /**
+   * verifies that a single handler with a shared signing context can be used by several threads at once
+   */
+  @Test
+  public void testSharedSigningContextIsThreadSafe()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    final String content = readResourceFile(IDENTIFICATION_REPORT_2_0);
+    KeystoreEntry keystoreEntry = getUnitTestKeystoreEntries().get(0);
+    JwtHandler jwtHandler = new JwtHandler(keystoreEntry.getPrivateKey(keyStore),
+                                           keystoreEntry.getCertificate(keyStore));
+
+    List<String> signedJwts = IntStream.range(0, 200)
+                                       .parallel()
+                                       .mapToObj(i -> jwtHandler.createJws(content + i))
+                                       .collect(Collectors.toList());
+
+    for ( int i = 0 ; i < signedJwts.size() ; i++ )
+    {
+      JwtHandler.PlainJwtData plainJwtData = jwtHandler.handleJwt(signedJwts.get(i));
+      Assertions.assertEquals(content + i, plainJwtData.getBody().toString());
+    }
+  }
+
+  /**
+   * verifies that tokens given as bytes or buffers are verified the same way as tokens given as string
+   */
+  @Test
+  public void testVerifyJwsFromBytes()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    final String content = readResourceFile(IDENTIFICATION_REPORT_2_0);
+    KeystoreEntry keystoreEntry = getUnitTestKeystoreEntries().get(3);
+    JwtHandler jwtHandler = new JwtHandler(keystoreEntry.getPrivateKey(keyStore),
+                                           keystoreEntry.getCertificate(keyStore));
+    byte[] jws = jwtHandler.createJws(content).getBytes(StandardCharsets.US_ASCII);
+
+    Assertions.assertEquals(content, jwtHandler.handleJwt(jws).getBody().toString());
+
+    // the token is embedded within a larger buffer e.g. a network frame
+    ByteBuffer frame = ByteBuffer.allocate(jws.length + 10);
+    frame.put(new byte[5]).put(jws).put(new byte[5]);
+    frame.position(5).limit(5 + jws.length);
+    Assertions.assertEquals(content, jwtHandler.verifyJws(frame.slice()).getPlainJwtData().getBody().toString());
+    Assertions.assertEquals(5, frame.position());
+
+    ByteBuffer directBuffer = ByteBuffer.allocateDirect(jws.length);
+    directBuffer.put(jws).flip();
+    Assertions.assertTrue(jwtHandler.verifyJws(directBuffer).isVerified());
+
+    jws[jws.length - 2] = (byte)(jws[jws.length - 2] == 'A' ? 'B' : 'A');
+    Assertions.assertFalse(jwtHandler.verifyJws(jws).isVerified());
+  }
+
+  /**
+   * verifies that a report can be signed directly into bytes and into a stream
+   */
+  @Test
+  public void testCreateJwsFromReport()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    IdentificationReport<?> report = IdentificationReport.fromJson(readResourceFile(IDENTIFICATION_REPORT_WITH_EID_CARD_SUBJECT_2_0),
+                                                                   EidCardPersonRef.class);
+    KeystoreEntry keystoreEntry = getUnitTestKeystoreEntries().get(0);
+    JwtHandler jwtHandler = new JwtHandler(keystoreEntry.getPrivateKey(keyStore),
+                                           keystoreEntry.getCertificate(keyStore));
+
+    byte[] jws = jwtHandler.createJws(report);
+    String body = jwtHandler.handleJwt(jws).getBody().toString();
+    Assertions.assertEquals(report.toJson(), IdentificationReport.fromJson(body, EidCardPersonRef.class).toJson());
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    jwtHandler.writeJws(report, outputStream);
+    Assertions.assertEquals(body, jwtHandler.handleJwt(outputStream.toByteArray()).getBody().toString());
+  }
+
+  /**
+   * verifies that detached and unencoded payloads can be signed and verified with RSA, EC and Ed25519 keys
+   */
+  @TestFactory
+  public List<DynamicTest> testDetachedPayload()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    final String content = readResourceFile(IDENTIFICATION_REPORT_WITH_EID_CARD_SUBJECT_2_0);
+    final byte[] payload = content.getBytes(StandardCharsets.UTF_8);
+    List<DynamicTest> dynamicTests = new ArrayList<>();
+    for ( int keystoreEntryIndex : new int[]{0, 3, 5, 6} )
+    {
+      KeystoreEntry keystoreEntry = getUnitTestKeystoreEntries().get(keystoreEntryIndex);
+      JwtHandler jwtHandler = new JwtHandler(keystoreEntry.getPrivateKey(keyStore),
+                                             keystoreEntry.getCertificate(keyStore));
+      for ( JwsPayloadMode payloadMode : new JwsPayloadMode[]{JwsPayloadMode.DETACHED,
+                                                              JwsPayloadMode.UNENCODED_DETACHED} )
+      {
+        dynamicTests.add(DynamicTest.dynamicTest(keystoreEntry.getAlias() + " - " + payloadMode, () -> {
+          String jws = jwtHandler.createJws(content, payloadMode);
+          String[] parts = jws.split("\\.", -1);
+          Assertions.assertEquals(3, parts.length);
+          Assertions.assertEquals("", parts[1]);
+
+          JwtHandler.PlainJwtData plainJwtData = jwtHandler.handleDetachedJwt(jws, payload);
+          Assertions.assertEquals(content, plainJwtData.getBody().toString());
+          Assertions.assertEquals(payloadMode.isEncoded(),
+                                  ((JWSHeader)plainJwtData.getHeader()).isBase64URLEncodePayload());
+
+          byte[] manipulatedPayload = payload.clone();
+          manipulatedPayload[10] = (byte)(manipulatedPayload[10] + 1);
+          Assertions.assertEquals(JwsVerificationResult.ErrorCode.INVALID_SIGNATURE,
+                                  jwtHandler.verifyDetachedJws(jws, manipulatedPayload).getErrorCode());
+
+          String attachedJws = jwtHandler.createJws(content);
+          Assertions.assertEquals(JwsVerificationResult.ErrorCode.MALFORMED,
+                                  jwtHandler.verifyDetachedJws(attachedJws, payload).getErrorCode());
+          Assertions.assertFalse(jwtHandler.verifyJws(jws).isVerified());
+        }));
+      }
+    }
+    return dynamicTests;
+  }
+
+  /**
+   * verifies that payloads of all lengths around the block and chunk boundaries of the base64url encoding are
+   * encoded correctly and that the signatures over attached and detached payloads are accepted by nimbus
+   */
+  @Test
+  public void testPayloadEncodingBoundaries()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    KeystoreEntry keystoreEntry = getUnitTestKeystoreEntries().get(3);
+    JwtHandler jwtHandler = new JwtHandler(keystoreEntry.getPrivateKey(keyStore),
+                                           keystoreEntry.getCertificate(keyStore));
+    Random random = new Random(42);
+    for ( int length : new int[]{0, 1, 2, 3, 4, 3071, 3072, 3073, 3074, 6144, 10_000} )
+    {
+      byte[] payload = new byte[length];
+      random.nextBytes(payload);
+      String jws = jwtHandler.createJws(payload, JwsPayloadMode.ENCODED);
+      Assertions.assertEquals(Base64URL.encode(payload).toString(), jws.split("\\.", -1)[1], "length " + length);
+      Assertions.assertTrue(jwtHandler.verifyJws(jws).isVerified(), "length " + length);
+
+      String detachedJws = jwtHandler.createJws(payload, JwsPayloadMode.DETACHED);
+      Assertions.assertTrue(jwtHandler.verifyDetachedJws(detachedJws, payload).isVerified(), "length " + length);
+    }
+  }
+
+  /**
+   * verifies that a detached payload is verified with the algorithms of nimbus that are not used for signing
+   * here
+   */
+  @SneakyThrows
+  @Test
+  public void testDetachedPayloadWithRsaPss()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    final String content = readResourceFile(IDENTIFICATION_REPORT_2_0);
+    KeystoreEntry keystoreEntry = getUnitTestKeystoreEntries().get(0);
+    JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.PS256), new Payload(content));
+    jwsObject.sign(new RSASSASigner(keystoreEntry.getPrivateKey(keyStore)));
+    String jws = jwsObject.serialize(true);
+    JwtHandler jwtHandler = new JwtHandler(null, keystoreEntry.getCertificate(keyStore));
+
+    Assertions.assertEquals(content,
+                            jwtHandler.handleDetachedJwt(jws, content.getBytes(StandardCharsets.UTF_8))
+                                      .getBody()
+                                      .toString());
+    Assertions.assertEquals(JwsVerificationResult.ErrorCode.INVALID_SIGNATURE,
+                            jwtHandler.verifyDetachedJws(jws, "{}".getBytes(StandardCharsets.UTF_8)).getErrorCode());
+  }
+
+  /**
+   * verifies that Ed25519 keys create EdDSA signatures with a thumbprint header that are accepted by a handler
+   * that knows the certificate only from its verification key registry
+   */
+  @Test
+  public void testEd25519Signature()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    final String content = readResourceFile(IDENTIFICATION_REPORT_2_0);
+    KeystoreEntry keystoreEntry = getUnitTestKeystoreEntries().get(6);
+    X509Certificate certificate = keystoreEntry.getCertificate(keyStore);
+    JwtHandler jwtHandler = new JwtHandler(keystoreEntry.getPrivateKey(keyStore), certificate);
+
+    String jws = jwtHandler.createJws(content);
+    JwtHandler.PlainJwtData plainJwtData = jwtHandler.handleJwt(jws);
+    JWSHeader header = (JWSHeader)plainJwtData.getHeader();
+    Assertions.assertEquals(JWSAlgorithm.EdDSA, header.getAlgorithm());
+    Assertions.assertEquals(JwsKeyUtil.getSha256Thumbprint(certificate), header.getX509CertSHA256Thumbprint());
+    Assertions.assertEquals(content, plainJwtData.getBody().toString());
+
+    VerificationKeyRegistry registry = new VerificationKeyRegistry(Collections.singletonList(certificate));
+    JwtHandler verifyingHandler = JwtHandler.builder().verificationKeyRegistry(registry).build();
+    Assertions.assertTrue(verifyingHandler.verifyJws(jws).isVerified());
+
+    String[] parts = jws.split("\\.");
+    String manipulatedJws = parts[0] + "." + jwtHandler.createJws("{}").split("\\.")[1] + "." + parts[2];
+    Assertions.assertEquals(JwsVerificationResult.ErrorCode.INVALID_SIGNATURE,
+                            verifyingHandler.verifyJws(manipulatedJws).getErrorCode());
+  }
 }
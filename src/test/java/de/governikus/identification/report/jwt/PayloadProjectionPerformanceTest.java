@@ -0,0 +1,70 @@
+package de.governikus.identification.report.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.nimbusds.jose.Payload;
+
+import de.governikus.identification.report.objects.IdentificationReport;
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
+import de.governikus.identification.report.setup.Benchmark;
+import de.governikus.identification.report.setup.FileReferences;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * compares the extraction of single values from a verified payload by a fully deserialized report with the
+ * extraction by a {@link PayloadProjection}. This test is excluded from the default build and must be
+ * executed explicitly
+ *
+ * <pre>
+ * mvn test -Dtest=PayloadProjectionPerformanceTest
+ * </pre>
+ */
+@Slf4j
+public class PayloadProjectionPerformanceTest implements FileReferences
+{
+
+  private static final int WARMUP_ITERATIONS = 20_000;
+
+  private static final int ITERATIONS = 100_000;
+
+  /**
+   * measures the extraction of the report id and the restricted id of the subject
+   */
+  @Test
+  public void testExtraction()
+  {
+    Payload payload = new Payload(readResourceFile(IDENTIFICATION_REPORT_2_0).getBytes(StandardCharsets.UTF_8));
+    PayloadProjection projection = PayloadProjection.builder()
+                                                    .pointers(List.of("/reportId", "/subjectRef/restrictedId"))
+                                                    .build();
+    Assertions.assertEquals(fromReport(payload), fromProjection(projection, payload));
+
+    Benchmark.Result report = Benchmark.run("extract from deserialized report",
+                                            WARMUP_ITERATIONS,
+                                            ITERATIONS,
+                                            () -> fromReport(payload));
+    Benchmark.Result projected = Benchmark.run("extract with projection",
+                                               WARMUP_ITERATIONS,
+                                               ITERATIONS,
+                                               () -> fromProjection(projection, payload));
+    log.info(report.toString());
+    log.info(projected.toString());
+  }
+
+  private static String fromReport(Payload payload)
+  {
+    IdentificationReport<EidCardPersonRef> report = IdentificationReport.fromJson(payload.toBytes(),
+                                                                                  EidCardPersonRef.class);
+    return report.getReportId() + "|" + report.getSubjectRef().getRestrictedId();
+  }
+
+  private static String fromProjection(PayloadProjection projection, Payload payload)
+  {
+    return String.join("|", projection.extract(payload).values().stream().map(value -> value.textValue()).toList());
+  }
+}
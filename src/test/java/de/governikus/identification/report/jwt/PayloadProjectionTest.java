@@ -0,0 +1,104 @@
+package de.governikus.identification.report.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.setup.KeystoreEntry;
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+import lombok.SneakyThrows;
+
+
+/**
+ * verifies that the values of JSON pointers are extracted from payloads without parsing the whole payload
+ */
+public class PayloadProjectionTest implements FileReferences
+{
+
+  /**
+   * verifies that the extracted values of a verified payload are equal to the values of the parsed payload
+   */
+  @SneakyThrows
+  @Test
+  public void testExtractFromVerifiedPayload()
+  {
+    KeyStore keyStore = getUnitTestKeystore();
+    KeystoreEntry keystoreEntry = getUnitTestKeystoreEntries().stream()
+                                                              .filter(entry -> entry.getPrivateKey(keyStore) != null)
+                                                              .findFirst()
+                                                              .orElseThrow();
+    JwtHandler jwtHandler = new JwtHandler(keystoreEntry.getPrivateKey(keyStore),
+                                           keystoreEntry.getCertificate(keyStore));
+    String content = readResourceFile(IDENTIFICATION_REPORT_2_0);
+    JwtHandler.PlainJwtData plainJwtData = jwtHandler.handleJwt(jwtHandler.createJws(content));
+
+    List<String> pointers = List.of("/reportId",
+                                    "/subjectRef/restrictedId",
+                                    "/subjectRef/placeOfResidence",
+                                    "/subjectRef/placeOfResidence/city",
+                                    "/levelOfAssurance",
+                                    "/missing",
+                                    "/subjectRef/missing");
+    PayloadProjection projection = PayloadProjection.builder().pointers(pointers).build();
+    Map<String, JsonNode> values = projection.extract(plainJwtData.getBody());
+
+    JsonNode report = ObjectMapperUtil.getObjectMapper().readTree(content);
+    Assertions.assertEquals(List.of("/reportId",
+                                    "/subjectRef/restrictedId",
+                                    "/subjectRef/placeOfResidence",
+                                    "/subjectRef/placeOfResidence/city",
+                                    "/levelOfAssurance"),
+                            List.copyOf(values.keySet()));
+    for ( Map.Entry<String, JsonNode> value : values.entrySet() )
+    {
+      Assertions.assertEquals(report.at(value.getKey()), value.getValue());
+    }
+  }
+
+  /**
+   * verifies that the scan stops as soon as all pointers are found so that the rest of the payload is never
+   * read
+   */
+  @Test
+  public void testScanStopsWhenAllPointersAreFound()
+  {
+    PayloadProjection projection = PayloadProjection.builder()
+                                                    .pointers(List.of("/subjectRef/restrictedId", "/reportId"))
+                                                    .build();
+    byte[] json = "{\"subjectRef\":{\"givenName\":\"Max\",\"restrictedId\":\"2\"},\"reportId\":\"1\",\"broken\":".getBytes(StandardCharsets.UTF_8);
+    Assertions.assertEquals(Map.of("/reportId", new TextNode("1"), "/subjectRef/restrictedId", new TextNode("2")),
+                            projection.extract(json));
+  }
+
+  /**
+   * verifies array indices, duplicate attributes and the whole document as pointer targets
+   */
+  @SneakyThrows
+  @Test
+  public void testArraysDuplicatesAndRoot()
+  {
+    byte[] json = "{\"list\":[{\"a\":1},{\"a\":2}],\"key\":\"first\",\"key\":\"second\"}".getBytes(StandardCharsets.UTF_8);
+    Map<String, JsonNode> values = PayloadProjection.builder()
+                                                    .pointers(List.of("/list/1/a", "/list/5", "/key"))
+                                                    .build()
+                                                    .extract(json);
+    Assertions.assertEquals(2, values.get("/list/1/a").intValue());
+    Assertions.assertFalse(values.containsKey("/list/5"));
+    Assertions.assertEquals("first", values.get("/key").textValue());
+
+    JsonNode document = PayloadProjection.builder().pointers(List.of("")).build().extract(json).get("");
+    Assertions.assertEquals(ObjectMapperUtil.getObjectMapper().readTree(json), document);
+
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> PayloadProjection.builder().pointers(List.of("reportId")).build());
+    Assertions.assertThrows(IllegalArgumentException.class, () -> PayloadProjection.builder().build());
+  }
+}
@@ -0,0 +1,108 @@
+package de.governikus.identification.report.jwt;
+
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.setup.KeystoreEntry;
+
+
+/**
+ * verifies the selection of verification keys by the x5t#S256 header
+ */
+public class VerificationKeyRegistryTest implements FileReferences
+{
+
+  /**
+   * verifies that JWS of several issuers are verified with the certificate that matches their thumbprint header
+   */
+  @Test
+  public void testVerifyJwsOfSeveralIssuers()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    final String content = readResourceFile(IDENTIFICATION_REPORT_2_0);
+    List<KeystoreEntry> signingEntries = getSigningEntries(keyStore);
+
+    VerificationKeyRegistry registry = new VerificationKeyRegistry(signingEntries.stream()
+                                                                                 .map(entry -> entry.getCertificate(keyStore))
+                                                                                 .collect(Collectors.toList()));
+    Assertions.assertEquals(signingEntries.size(), registry.size());
+    JwtHandler verifyingHandler = JwtHandler.builder().verificationKeyRegistry(registry).build();
+
+    for ( KeystoreEntry keystoreEntry : signingEntries )
+    {
+      JwtHandler signingHandler = new JwtHandler(keystoreEntry.getPrivateKey(keyStore),
+                                                 keystoreEntry.getCertificate(keyStore));
+      String jws = signingHandler.createJws(content);
+      JwtHandler.PlainJwtData plainJwtData = verifyingHandler.handleJwt(jws);
+      Assertions.assertEquals(content, plainJwtData.getBody().toString());
+    }
+  }
+
+  /**
+   * verifies that a JWS is not accepted anymore after its certificate was removed from the registry
+   */
+  @Test
+  public void testRemovedCertificateIsNotAccepted()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    final String content = readResourceFile(IDENTIFICATION_REPORT_2_0);
+    KeystoreEntry keystoreEntry = getSigningEntries(keyStore).get(0);
+    X509Certificate certificate = keystoreEntry.getCertificate(keyStore);
+
+    VerificationKeyRegistry registry = new VerificationKeyRegistry();
+    String thumbprint = registry.addCertificate(certificate);
+    Assertions.assertTrue(registry.containsCertificate(thumbprint));
+    Assertions.assertEquals(certificate, registry.getCertificate(thumbprint).orElse(null));
+
+    JwtHandler verifyingHandler = JwtHandler.builder().verificationKeyRegistry(registry).build();
+    String jws = new JwtHandler(keystoreEntry.getPrivateKey(keyStore), certificate).createJws(content);
+    Assertions.assertDoesNotThrow(() -> verifyingHandler.handleJwt(jws));
+
+    Assertions.assertTrue(registry.removeCertificate(certificate));
+    Assertions.assertFalse(registry.containsCertificate(thumbprint));
+    Assertions.assertThrows(IllegalStateException.class, () -> verifyingHandler.handleJwt(jws));
+  }
+
+  /**
+   * verifies that a JWS whose thumbprint is unknown to the registry is verified with the handlers own
+   * certificate
+   */
+  @Test
+  public void testFallbackToHandlerCertificate()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    final String content = readResourceFile(IDENTIFICATION_REPORT_2_0);
+    KeystoreEntry keystoreEntry = getSigningEntries(keyStore).get(0);
+    X509Certificate certificate = keystoreEntry.getCertificate(keyStore);
+
+    JwtHandler verifyingHandler = JwtHandler.builder()
+                                            .certificate(certificate)
+                                            .verificationKeyRegistry(new VerificationKeyRegistry())
+                                            .build();
+    String jws = new JwtHandler(keystoreEntry.getPrivateKey(keyStore), certificate).createJws(content);
+    Assertions.assertEquals(content, verifyingHandler.handleJwt(jws).getBody().toString());
+  }
+
+  /**
+   * @return all keystore entries that have a private key
+   */
+  private List<KeystoreEntry> getSigningEntries(KeyStore keyStore)
+  {
+    List<KeystoreEntry> signingEntries = new ArrayList<>();
+    for ( KeystoreEntry keystoreEntry : getUnitTestKeystoreEntries() )
+    {
+      if (keystoreEntry.getPrivateKey(keyStore) != null)
+      {
+        signingEntries.add(keystoreEntry);
+      }
+    }
+    return signingEntries;
+  }
+}
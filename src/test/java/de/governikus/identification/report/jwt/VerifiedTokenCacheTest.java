@@ -0,0 +1,82 @@
+package de.governikus.identification.report.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.setup.KeystoreEntry;
+
+
+/**
+ * verifies that already verified tokens are answered from the cache
+ */
+public class VerifiedTokenCacheTest implements FileReferences
+{
+
+  /**
+   * verifies that a repeated token is a cache hit and that invalid tokens are never cached
+   */
+  @Test
+  public void testRepeatedTokenIsCacheHit()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    final String content = readResourceFile(IDENTIFICATION_REPORT_2_0);
+    KeystoreEntry keystoreEntry = getUnitTestKeystoreEntries().get(0);
+    VerifiedTokenCache verifiedTokenCache = VerifiedTokenCache.builder().maximumSize(10).build();
+    JwtHandler jwtHandler = JwtHandler.builder()
+                                      .privateKey(keystoreEntry.getPrivateKey(keyStore))
+                                      .certificate(keystoreEntry.getCertificate(keyStore))
+                                      .verifiedTokenCache(verifiedTokenCache)
+                                      .build();
+    String jws = jwtHandler.createJws(content);
+
+    Assertions.assertEquals(content, jwtHandler.handleJwt(jws).getBody().toString());
+    Assertions.assertEquals(0, verifiedTokenCache.getHitCount());
+    Assertions.assertEquals(1, verifiedTokenCache.getMissCount());
+
+    Assertions.assertEquals(content, jwtHandler.handleJwt(jws).getBody().toString());
+    Assertions.assertEquals(content,
+                            jwtHandler.handleJwt(jws.getBytes(StandardCharsets.US_ASCII)).getBody().toString());
+    Assertions.assertEquals(2, verifiedTokenCache.getHitCount());
+    Assertions.assertEquals(1, verifiedTokenCache.size());
+
+    String manipulatedJws = jws.substring(0, jws.length() - 2) + (jws.endsWith("A") ? "BB" : "AA");
+    Assertions.assertFalse(jwtHandler.verifyJws(manipulatedJws).isVerified());
+    Assertions.assertFalse(jwtHandler.verifyJws(manipulatedJws).isVerified());
+    Assertions.assertEquals(1, verifiedTokenCache.size());
+    Assertions.assertEquals(2, verifiedTokenCache.getHitCount());
+  }
+
+  /**
+   * verifies that a cached token is not accepted anymore after its certificate was removed from the registry
+   */
+  @Test
+  public void testRemovedCertificateInvalidatesCachedToken()
+  {
+    final KeyStore keyStore = getUnitTestKeystore();
+    KeystoreEntry keystoreEntry = getUnitTestKeystoreEntries().get(3);
+    X509Certificate certificate = keystoreEntry.getCertificate(keyStore);
+    String jws = new JwtHandler(keystoreEntry.getPrivateKey(keyStore), certificate).createJws("{}");
+
+    VerificationKeyRegistry registry = new VerificationKeyRegistry();
+    registry.addCertificate(certificate);
+    VerifiedTokenCache verifiedTokenCache = VerifiedTokenCache.builder().build();
+    JwtHandler verifyingHandler = JwtHandler.builder()
+                                            .verificationKeyRegistry(registry)
+                                            .verifiedTokenCache(verifiedTokenCache)
+                                            .build();
+
+    Assertions.assertTrue(verifyingHandler.verifyJws(jws).isVerified());
+    Assertions.assertTrue(verifyingHandler.verifyJws(jws).isVerified());
+    Assertions.assertEquals(1, verifiedTokenCache.getHitCount());
+
+    registry.removeCertificate(certificate);
+    JwsVerificationResult result = verifyingHandler.verifyJws(jws);
+    Assertions.assertEquals(JwsVerificationResult.ErrorCode.UNKNOWN_KEY, result.getErrorCode());
+    Assertions.assertEquals(1, verifiedTokenCache.getHitCount());
+  }
+}
@@ -0,0 +1,107 @@
+package de.governikus.identification.report.objects;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
+import de.governikus.identification.report.objects.subjects.FinkPersonRefMinimal;
+import de.governikus.identification.report.objects.subjects.SubjectRef;
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+import lombok.SneakyThrows;
+
+
+/**
+ * verifies that reports are deserialized in a single pass regardless of the position of the subjectRefType
+ */
+public class IdentificationReportDeserializerTest implements FileReferences
+{
+
+  /**
+   * verifies that the subject reference is resolved if the subjectRefType precedes or follows it and that all
+   * supported inputs lead to the same report
+   */
+  @SneakyThrows
+  @Test
+  public void testSubjectRefTypeIsResolvedInAnyOrder()
+  {
+    ObjectNode report = readReport(FINK_USER_ACCOUNT_MINIMAL_REPORT);
+    report.put("customAttribute", "custom");
+    ObjectNode typeFirst = ObjectMapperUtil.getObjectMapper().createObjectNode();
+    typeFirst.put("subjectRefType", SchemaConstants.Ids.FINK_PERSON_REF_MINIMAL_ID);
+    typeFirst.setAll(report);
+    ObjectNode typeLast = report.deepCopy();
+    typeLast.put("subjectRefType", SchemaConstants.Ids.FINK_PERSON_REF_MINIMAL_ID);
+
+    IdentificationReport<? extends SubjectRef> expected = IdentificationReport.fromJson(typeFirst.toString());
+    Assertions.assertEquals(FinkPersonRefMinimal.class, expected.getSubjectRef().getClass());
+    Assertions.assertEquals("Max", ((FinkPersonRefMinimal)expected.getSubjectRef()).getGivenName());
+    Assertions.assertEquals("custom", expected.getKeyValueMap().get("customAttribute"));
+    Assertions.assertEquals(LevelOfAssurance.EIDAS_HIGH, expected.getLevelOfAssurance());
+
+    Assertions.assertEquals(expected, IdentificationReport.fromJson(typeLast.toString()));
+    Assertions.assertEquals(expected, IdentificationReport.fromJson(typeLast));
+    Assertions.assertEquals(expected,
+                            IdentificationReport.fromJson(typeLast.toString().getBytes(StandardCharsets.UTF_8)));
+    AtomicBoolean closed = new AtomicBoolean();
+    ByteArrayInputStream inputStream = new ByteArrayInputStream(typeLast.toString().getBytes(StandardCharsets.UTF_8))
+    {
+
+      @Override
+      public void close()
+      {
+        closed.set(true);
+      }
+    };
+    Assertions.assertEquals(expected, IdentificationReport.fromJson(inputStream));
+    Assertions.assertFalse(closed.get());
+  }
+
+  /**
+   * verifies that a given subject reference type takes precedence over the subjectRefType attribute
+   */
+  @Test
+  public void testGivenTypeIsUsed()
+  {
+    ObjectNode report = readReport(IDENTIFICATION_REPORT_2_0);
+    report.put("subjectRefType", SchemaConstants.Ids.FINK_PERSON_REF_MINIMAL_ID);
+    byte[] json = report.toString().getBytes(StandardCharsets.UTF_8);
+
+    IdentificationReport<EidCardPersonRef> identificationReport = IdentificationReport.fromJson(json,
+                                                                                                EidCardPersonRef.class);
+    Assertions.assertEquals("1", identificationReport.getSubjectRef().getRestrictedId());
+    Assertions.assertEquals(identificationReport,
+                            IdentificationReport.fromJson(new ByteArrayInputStream(json), EidCardPersonRef.class));
+    Assertions.assertEquals(SchemaConstants.Ids.FINK_PERSON_REF_MINIMAL_ID, identificationReport.getSubjectRefType());
+  }
+
+  /**
+   * verifies that a subject reference without a registered type is rejected and that a report without a subject
+   * reference does not need a type
+   */
+  @Test
+  public void testUnregisteredSubjectRefTypeIsRejected()
+  {
+    ObjectNode report = readReport(IDENTIFICATION_REPORT_2_0);
+    report.put("subjectRefType", "urn:unknown");
+    Assertions.assertThrows(IllegalStateException.class, () -> IdentificationReport.fromJson(report.toString()));
+
+    report.remove("subjectRef");
+    Assertions.assertNull(IdentificationReport.fromJson(report.toString()).getSubjectRef());
+    report.putNull("subjectRef");
+    Assertions.assertNull(IdentificationReport.fromJson(report.toString()).getSubjectRef());
+  }
+
+  @SneakyThrows
+  private ObjectNode readReport(String resource)
+  {
+    return (ObjectNode)ObjectMapperUtil.getObjectMapper().readTree(readResourceFile(resource));
+  }
+}
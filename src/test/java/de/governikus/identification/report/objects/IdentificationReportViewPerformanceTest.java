@@ -0,0 +1,63 @@
+package de.governikus.identification.report.objects;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
+import de.governikus.identification.report.objects.subjects.SubjectRef;
+import de.governikus.identification.report.setup.Benchmark;
+import de.governikus.identification.report.setup.FileReferences;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * compares the routing of a report by its status, level of assurance and subject reference type with a fully
+ * deserialized report and with the lazy {@link IdentificationReportView}. This test is excluded from the
+ * default build and must be executed explicitly
+ *
+ * <pre>
+ * mvn test -Dtest=IdentificationReportViewPerformanceTest
+ * </pre>
+ */
+@Slf4j
+public class IdentificationReportViewPerformanceTest implements FileReferences
+{
+
+  private static final int WARMUP_ITERATIONS = 20_000;
+
+  private static final int ITERATIONS = 100_000;
+
+  /**
+   * measures the access of the attributes that are needed to route a report
+   */
+  @Test
+  public void testRouting()
+  {
+    byte[] json = readResourceFile(IDENTIFICATION_REPORT_2_0).getBytes(StandardCharsets.UTF_8);
+    Assertions.assertEquals(route(IdentificationReport.fromJson(json, EidCardPersonRef.class)),
+                            route(IdentificationReportView.fromJson(json)));
+
+    Benchmark.Result report = Benchmark.run("route deserialized report",
+                                            WARMUP_ITERATIONS,
+                                            ITERATIONS,
+                                            () -> route(IdentificationReport.fromJson(json, EidCardPersonRef.class)));
+    Benchmark.Result view = Benchmark.run("route report view",
+                                          WARMUP_ITERATIONS,
+                                          ITERATIONS,
+                                          () -> route(IdentificationReportView.fromJson(json)));
+    log.info(report.toString());
+    log.info(view.toString());
+  }
+
+  private static String route(IdentificationReport<? extends SubjectRef> report)
+  {
+    return report.getIdStatus() + "|" + report.getLevelOfAssurance() + "|" + report.getSubjectRefType();
+  }
+
+  private static String route(IdentificationReportView view)
+  {
+    return view.getIdStatus() + "|" + view.getLevelOfAssurance() + "|" + view.getSubjectRefType();
+  }
+}
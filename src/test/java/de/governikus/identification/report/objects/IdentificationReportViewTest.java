@@ -0,0 +1,121 @@
+package de.governikus.identification.report.objects;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
+import de.governikus.identification.report.objects.subjects.FinkPersonRefMinimal;
+import de.governikus.identification.report.objects.subjects.SubjectRef;
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+import lombok.SneakyThrows;
+
+
+/**
+ * verifies that the lazy view of a report returns the same attributes as the deserialized report
+ */
+public class IdentificationReportViewTest implements FileReferences
+{
+
+  /**
+   * verifies that all attributes of the view are equal to the attributes of the deserialized report
+   */
+  @Test
+  public void testAttributesMatchTheReport()
+  {
+    ObjectNode reportNode = readReport(IDENTIFICATION_REPORT_2_0);
+    reportNode.put("subjectRefType", SchemaConstants.Ids.EID_CARD_PERSON_REF_ID);
+    reportNode.put("idStatus", "success");
+    reportNode.putArray("contextInformation").add("context");
+    reportNode.put("customAttribute", "custom");
+    reportNode.putObject("customObject").put("nested", 1);
+    byte[] json = reportNode.toString().getBytes(StandardCharsets.UTF_8);
+
+    IdentificationReport<? extends SubjectRef> report = IdentificationReport.fromJson(json);
+    IdentificationReportView view = IdentificationReportView.fromJson(json);
+    Assertions.assertEquals(report.getReportId(), view.getReportId());
+    Assertions.assertEquals(report.getServerIdentity(), view.getServerIdentity());
+    Assertions.assertEquals(report.getReportTime(), view.getReportTime());
+    Assertions.assertEquals(report.getIdentificationTime(), view.getIdentificationTime());
+    Assertions.assertEquals(report.getTrustFramework(), view.getTrustFramework());
+    Assertions.assertEquals(report.getLevelOfAssurance(), view.getLevelOfAssurance());
+    Assertions.assertEquals(IdStatus.SUCCESS, view.getIdStatus());
+    Assertions.assertEquals(report.getIdStatement(), view.getIdStatement());
+    Assertions.assertEquals(report.getSubjectRefType(), view.getSubjectRefType());
+    Assertions.assertEquals(report.getSubjectRef(), view.getSubjectRef());
+    Assertions.assertSame(view.getSubjectRef(), view.getSubjectRef());
+    Assertions.assertEquals(report.getContextInformation(), view.getContextInformation());
+    Assertions.assertEquals(report.getDocumentReferences(), view.getDocumentReferences());
+    Assertions.assertEquals(report.getKeyValueMap(), view.getKeyValueMap());
+    Assertions.assertEquals(Map.of("nested", 1), view.getAttribute("customObject"));
+    Assertions.assertEquals(report, view.toReport());
+    Assertions.assertEquals(report, view.toReport(EidCardPersonRef.class));
+  }
+
+  /**
+   * verifies that a report within a larger buffer is read from its own bounds
+   */
+  @Test
+  public void testReportWithinBuffer()
+  {
+    byte[] report = readResourceFile(FINK_USER_ACCOUNT_MINIMAL_REPORT).getBytes(StandardCharsets.UTF_8);
+    byte[] prefix = "[\"preceding\",".getBytes(StandardCharsets.UTF_8);
+    byte[] buffer = new byte[prefix.length + report.length + 1];
+    System.arraycopy(prefix, 0, buffer, 0, prefix.length);
+    System.arraycopy(report, 0, buffer, prefix.length, report.length);
+    buffer[buffer.length - 1] = ']';
+
+    IdentificationReportView view = IdentificationReportView.fromJson(buffer, prefix.length, report.length);
+    Assertions.assertEquals("be4f9806-0b5f-45c3-a008-96fd2750f8cb", view.getReportId());
+    Assertions.assertEquals(LevelOfAssurance.EIDAS_HIGH, view.getLevelOfAssurance());
+    Assertions.assertEquals("Max", view.getSubjectRef(FinkPersonRefMinimal.class).getGivenName());
+    Assertions.assertEquals(IdentificationReport.fromJson(report, FinkPersonRefMinimal.class),
+                            view.toReport(FinkPersonRefMinimal.class));
+    Assertions.assertEquals(List.of("reportId",
+                                    "serverIdentity",
+                                    "reportTime",
+                                    "identificationTime",
+                                    "subjectRef",
+                                    "idStatement",
+                                    "levelOfAssurance"),
+                            List.copyOf(view.getAttributeNames()));
+  }
+
+  /**
+   * verifies that missing, null, escaped and coerced attributes are returned as the deserialized report returns
+   * them
+   */
+  @Test
+  public void testMissingAndNullAttributes()
+  {
+    byte[] json = ("{\"levelOfAssurance\":null,\"idStatus\":null,\"subjectRef\":{},\"subjectRefType\":\"urn:unknown\","
+                   + "\"reportId\":\"\\\"quoted\\\" \\u00fc\",\"idStatement\":\"\u00fcber\",\"trustFramework\":5}").getBytes(StandardCharsets.UTF_8);
+    IdentificationReportView view = IdentificationReportView.fromJson(json);
+    Assertions.assertEquals(LevelOfAssurance.UNKNOWN, view.getLevelOfAssurance());
+    Assertions.assertNull(view.getIdStatus());
+    Assertions.assertNull(view.getServerIdentity());
+    Assertions.assertNull(view.getContextInformation());
+    Assertions.assertTrue(view.hasAttribute("idStatus"));
+    Assertions.assertFalse(view.hasAttribute("serverIdentity"));
+    Assertions.assertEquals("\"quoted\" \u00fc", view.getReportId());
+    Assertions.assertEquals("\u00fcber", view.getIdStatement());
+    Assertions.assertEquals("5", view.getTrustFramework());
+    Assertions.assertThrows(IllegalStateException.class, view::getSubjectRef);
+
+    IdentificationReportView invalidView = IdentificationReportView.fromJson("[]".getBytes(StandardCharsets.UTF_8));
+    Assertions.assertThrows(IllegalArgumentException.class, invalidView::getReportId);
+  }
+
+  @SneakyThrows
+  private ObjectNode readReport(String resource)
+  {
+    return (ObjectNode)ObjectMapperUtil.getObjectMapper().readTree(readResourceFile(resource));
+  }
+}
@@ -0,0 +1,167 @@
+package de.governikus.identification.report.objects;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import de.governikus.identification.report.objects.subjects.Address;
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
+import de.governikus.identification.report.objects.subjects.FinkPersonRefMinimal;
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.SneakyThrows;
+
+
+/**
+ * verifies that the generated serializers and deserializers produce the same results as the reflection based
+ * bean serializers and deserializers of jackson
+ */
+public class JsonCodecModuleTest implements FileReferences
+{
+
+  /**
+   * verifies that reports and subject references are written exactly as the bean serializer writes them
+   */
+  @SneakyThrows
+  @Test
+  public void testSerializationMatchesReflection()
+  {
+    IdentificationReport<EidCardPersonRef> eidReport = IdentificationReport.fromJson(readResourceFile(IDENTIFICATION_REPORT_2_0),
+                                                                                     EidCardPersonRef.class);
+    eidReport.add("customAttribute", List.of("a", "b"));
+    eidReport.add("nullAttribute", null);
+    eidReport.getSubjectRef().add("customSubjectAttribute", 5);
+    eidReport.setIdStatus(IdStatus.SUCCESS);
+    eidReport.setContextInformation(List.of("context"));
+    IdentificationReport<FinkPersonRefMinimal> finkReport = IdentificationReport.fromJson(readResourceFile(FINK_USER_ACCOUNT_MINIMAL_REPORT),
+                                                                                          FinkPersonRefMinimal.class);
+    finkReport.getSubjectRef().setGivenName(null);
+    Address address = Address.builder().street("Hochschulring 4").city("Bremen").build();
+
+    for ( boolean sorted : List.of(false, true) )
+    {
+      ObjectMapper generated = configure(ObjectMapperUtil.getObjectMapper().copy(), sorted);
+      ObjectMapper reflection = configure(createReflectionMapper(), sorted);
+      for ( Object value : List.of(eidReport,
+                                   finkReport,
+                                   eidReport.getSubjectRef(),
+                                   finkReport.getSubjectRef(),
+                                   address) )
+      {
+        Assertions.assertEquals(reflection.writeValueAsString(value), generated.writeValueAsString(value));
+      }
+    }
+  }
+
+  /**
+   * verifies that subject references and addresses are read as the bean deserializer reads them
+   */
+  @SneakyThrows
+  @Test
+  public void testDeserializationMatchesReflection()
+  {
+    ObjectMapper reflection = createReflectionMapper();
+    String eidCardPersonRef = "{\"restrictedId\":\"1\",\"givenName\":\"Max\",\"familyName\":null,"
+                              + "\"placeOfResidence\":{\"street\":\"Hochschulring 4\",\"zipCode\":\"28359\"},"
+                              + "\"custom\":{\"nested\":[1,2]}}";
+    Assertions.assertEquals(reflection.readValue(eidCardPersonRef, EidCardPersonRef.class),
+                            ObjectMapperUtil.getReader(EidCardPersonRef.class).readValue(eidCardPersonRef));
+
+    String finkPersonRef = "{\"givenName\":\"Max\",\"familyName\":\"Mustermann\",\"custom\":null}";
+    Assertions.assertEquals(reflection.readValue(finkPersonRef, FinkPersonRefMinimal.class),
+                            ObjectMapperUtil.getReader(FinkPersonRefMinimal.class).readValue(finkPersonRef));
+
+    String address = "{\"street\":\"Hochschulring 4\",\"unknown\":\"value\"}";
+    Assertions.assertThrows(UnrecognizedPropertyException.class, () -> reflection.readValue(address, Address.class));
+    Assertions.assertThrows(UnrecognizedPropertyException.class,
+                            () -> ObjectMapperUtil.getReader(Address.class).readValue(address));
+  }
+
+  /**
+   * verifies that the enum values are resolved by their JSON value and that unknown values are rejected
+   */
+  @Test
+  public void testEnumValues()
+  {
+    for ( LevelOfAssurance levelOfAssurance : LevelOfAssurance.values() )
+    {
+      Assertions.assertEquals(levelOfAssurance, LevelOfAssurance.forValue(levelOfAssurance.getValue()));
+    }
+    for ( IdStatus idStatus : IdStatus.values() )
+    {
+      Assertions.assertEquals(idStatus, IdStatus.forValue(idStatus.value()));
+    }
+    Assertions.assertEquals(LevelOfAssurance.UNKNOWN, LevelOfAssurance.forValue(null));
+    Assertions.assertNull(IdStatus.forValue(null));
+    Assertions.assertThrows(IllegalStateException.class, () -> LevelOfAssurance.forValue("unknown-value"));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> IdStatus.forValue("unknown-value"));
+
+    String report = "{\"reportId\":\"1\",\"idStatus\":\"incomplete\",\"levelOfAssurance\":null}";
+    IdentificationReport<FinkPersonRefMinimal> identificationReport = IdentificationReport.fromJson(report,
+                                                                                                    FinkPersonRefMinimal.class);
+    Assertions.assertEquals(IdStatus.INCOMPLETE, identificationReport.getIdStatus());
+    Assertions.assertEquals(LevelOfAssurance.UNKNOWN, identificationReport.getLevelOfAssurance());
+    Assertions.assertThrows(JsonMappingException.class,
+                            () -> ObjectMapperUtil.getReader(IdentificationReport.class)
+                                                  .readValue("{\"idStatus\":\"unknown-value\"}"));
+  }
+
+  /**
+   * verifies that subclasses of the generated types are still written with all of their properties
+   */
+  @SneakyThrows
+  @Test
+  public void testSubclassesAreNotAffected()
+  {
+    ExtendedFinkPersonRef extendedFinkPersonRef = new ExtendedFinkPersonRef();
+    extendedFinkPersonRef.setGivenName("Max");
+    extendedFinkPersonRef.setNickname("Maxi");
+    Assertions.assertEquals(createReflectionMapper().writeValueAsString(extendedFinkPersonRef),
+                            ObjectMapperUtil.getObjectMapper().writeValueAsString(extendedFinkPersonRef));
+  }
+
+  private static ObjectMapper configure(ObjectMapper objectMapper, boolean sorted)
+  {
+    if (sorted)
+    {
+      objectMapper.setConfig(objectMapper.getSerializationConfig()
+                                         .with(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                                         .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS));
+    }
+    return objectMapper;
+  }
+
+  /**
+   * @return a mapper with the configuration of the shared mapper but without the generated module
+   */
+  private static ObjectMapper createReflectionMapper()
+  {
+    ObjectMapper objectMapper = new ObjectMapper();
+    objectMapper.registerModule(new JavaTimeModule());
+    objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+    objectMapper.registerModule(new SimpleModule().setDeserializerModifier(new IdentificationReportDeserializer.Modifier()));
+    return objectMapper;
+  }
+
+  /**
+   * a subject reference type that is not known to the generator
+   */
+  @Data
+  @EqualsAndHashCode(callSuper = true)
+  public static class ExtendedFinkPersonRef extends FinkPersonRefMinimal
+  {
+
+    private String nickname;
+  }
+}
@@ -0,0 +1,82 @@
+package de.governikus.identification.report.objects.subjects;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+
+
+/**
+ * verifies that the subject reference types are discovered from the index that is generated during the build
+ */
+public class SubjectRefTypeRegistryTest
+{
+
+  /**
+   * verifies that the generated index contains the schema ids of the schemas and the legacy identifiers
+   */
+  @Test
+  public void testGeneratedIndexIsLoaded()
+  {
+    SubjectRefType eidCard = SubjectRefTypeRegistry.getSubjectRefType(EidCardPersonRef.class);
+    Assertions.assertEquals(SchemaConstants.Ids.EID_CARD_PERSON_REF_ID, eidCard.getSchemaId());
+    Assertions.assertEquals(SchemaConstants.Locations.EID_CARD_SCHEMA_LOCATION, eidCard.getSchemaLocation());
+    Assertions.assertEquals(eidCard.getSchemaId(),
+                            SchemaConstants.getSchema(eidCard.getSchemaLocation()).getSchemaNode().get("$id").asText());
+
+    SubjectRefType fink = SubjectRefTypeRegistry.getSubjectRefType(FinkPersonRefMinimal.class);
+    Assertions.assertEquals(SchemaConstants.Ids.FINK_PERSON_REF_MINIMAL_ID, fink.getSchemaId());
+    Assertions.assertEquals(SchemaConstants.Locations.FINK_USER_ACCOUNT_MINIMAL_SCHEMA_LOCATION,
+                            fink.getSchemaLocation());
+
+    Assertions.assertEquals(EidCardPersonRef.class,
+                            SchemaConstants.getSubType(SchemaConstants.Ids.EID_CARD_PERSON_REF_ID));
+    Assertions.assertEquals(EidCardPersonRef.class,
+                            SchemaConstants.getSubType("https://raw.githubusercontent.com/Governikus/"
+                                                       + "IdentificationReport/2.0.0/schema/eid-card.json"));
+    Assertions.assertEquals(FinkPersonRefMinimal.class,
+                            SchemaConstants.getSubType("https://raw.githubusercontent.com/Governikus/"
+                                                       + "IdentificationReport/2.0.0/schema/"
+                                                       + "fink-user-account-minimal.json"));
+    Assertions.assertNull(SchemaConstants.getSubType(null));
+    Assertions.assertNull(SchemaConstants.getSubType("urn:unknown"));
+  }
+
+  /**
+   * verifies that registrations do not change the collections that were read before and that aliases are added
+   * to the already registered subtype
+   */
+  @Test
+  public void testRegistrationIsCopyOnWrite()
+  {
+    Collection<SubjectRefType> before = SubjectRefTypeRegistry.getSubjectRefTypes();
+    SubjectRefTypeRegistry.register(new SubjectRefType("urn:test:custom", List.of(), null, CustomPersonRef.class));
+    SchemaConstants.addSchemaSubTypeReference("urn:test:custom-alias", CustomPersonRef.class);
+
+    Assertions.assertFalse(before.stream().anyMatch(type -> type.getType() == CustomPersonRef.class));
+    Assertions.assertEquals(before.size() + 1, SubjectRefTypeRegistry.getSubjectRefTypes().size());
+    Assertions.assertEquals(CustomPersonRef.class, SchemaConstants.getSubType("urn:test:custom"));
+    Assertions.assertEquals(CustomPersonRef.class, SchemaConstants.getSubType("urn:test:custom-alias"));
+    SubjectRefType custom = SubjectRefTypeRegistry.getSubjectRefType(CustomPersonRef.class);
+    Assertions.assertEquals("urn:test:custom", custom.getSchemaId());
+    Assertions.assertEquals(List.of("urn:test:custom-alias"), custom.getAliases());
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> new SubjectRefType(null, List.of(), null, CustomPersonRef.class));
+  }
+
+  /**
+   * a subtype that is not part of the generated index
+   */
+  public static class CustomPersonRef extends SubjectRef
+  {
+
+    @Override
+    protected String getSchemaLocation()
+    {
+      return SchemaConstants.Locations.FINK_USER_ACCOUNT_MINIMAL_SCHEMA_LOCATION;
+    }
+  }
+}
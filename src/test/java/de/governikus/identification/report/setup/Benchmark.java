@@ -0,0 +1,95 @@
+package de.governikus.identification.report.setup;
+
+import java.lang.management.ManagementFactory;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+
+/**
+ * a very small micro benchmark helper that measures the average latency and the average number of allocated
+ * bytes of a single operation on the current thread. It is used by the performance tests that are excluded
+ * from the default surefire run and must be executed explicitly e.g. with
+ * {@code mvn test -Dtest=JwtHandlerPerformanceTest}
+ */
+public final class Benchmark
+{
+
+  private Benchmark()
+  {}
+
+  /**
+   * executes the given operation several times to warm up the JIT and measures it afterwards
+   *
+   * @param name the name of the benchmark that is printed within the result
+   * @param warmupIterations the number of iterations that are not measured
+   * @param iterations the number of measured iterations
+   * @param operation the operation to measure
+   * @return the measured result
+   */
+  public static Result run(String name, int warmupIterations, int iterations, Runnable operation)
+  {
+    for ( int i = 0 ; i < warmupIterations ; i++ )
+    {
+      operation.run();
+    }
+    com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long allocatedBytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+    long start = System.nanoTime();
+    for ( int i = 0 ; i < iterations ; i++ )
+    {
+      operation.run();
+    }
+    long duration = System.nanoTime() - start;
+    long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytesBefore;
+    return new Result(name, iterations, duration / iterations, allocatedBytes / iterations);
+  }
+
+  /**
+   * the result of a single benchmark run
+   */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Result
+  {
+
+    /**
+     * the name of the benchmark
+     */
+    private final String name;
+
+    /**
+     * the number of measured operations
+     */
+    private final int iterations;
+
+    /**
+     * the average latency of a single operation in nanoseconds
+     */
+    private final long nanosPerOperation;
+
+    /**
+     * the average number of allocated bytes of a single operation
+     */
+    private final long bytesPerOperation;
+
+    /**
+     * @return the number of operations per second on a single thread
+     */
+    public double getOperationsPerSecond()
+    {
+      return nanosPerOperation == 0 ? 0 : 1_000_000_000d / nanosPerOperation;
+    }
+
+    @Override
+    public String toString()
+    {
+      return String.format("%-60s %12d ns/op %12d B/op %12.1f ops/s",
+                           name,
+                           nanosPerOperation,
+                           bytesPerOperation,
+                           getOperationsPerSecond());
+    }
+  }
+}
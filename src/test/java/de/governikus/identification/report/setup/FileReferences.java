@@ -98,6 +98,13 @@ public interface FileReferences
                          new KeystoreEntry("goldfish-ec", "123456", "EC", 256),
                          new KeystoreEntry("localhost-ec", "123456", "EC", 384),
                          new KeystoreEntry("unit-test-ec", "unit-test", "EC", 521),
+                         // edwards curve keys
+                         new KeystoreEntry("unit-test-ed25519", "unit-test", "EdDSA", 255),
+                         // ca and a leaf certificate that was issued by the ca
+                         new KeystoreEntry("unit-test-root-ca", "unit-test", "EC", 256),
+                         new KeystoreEntry("unit-test-chain-leaf", "unit-test", "EC", 256),
+                         // a leaf certificate of the ca whose key usage is restricted to key agreement
+                         new KeystoreEntry("unit-test-key-agreement-leaf", "unit-test", "EC", 256),
                          // certificate entries without private keys
                          new KeystoreEntry("cert-ec", null, "EC", 256),
                          new KeystoreEntry("cert-rsa", null, "RSA", 2048));
@@ -0,0 +1,143 @@
+package de.governikus.identification.report.setup;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import lombok.SneakyThrows;
+
+
+/**
+ * creates valid json documents for each bundled schema and mutations of them that are used to cross-check the
+ * different validation paths against each other
+ */
+public class JsonMutations implements FileReferences
+{
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  /**
+   * the values that replace each node of the valid documents one after another
+   */
+  private static final List<String> REPLACEMENTS = List.of("null",
+                                                           "1",
+                                                           "1.5",
+                                                           "12345678901234567890123",
+                                                           "true",
+                                                           "\"\"",
+                                                           "\"x2000\"",
+                                                           "\"31-12-2000\"",
+                                                           "\"success\"",
+                                                           "[]",
+                                                           "[null, 1, \"a\", {}, {\"unknown\": 1}]",
+                                                           "{}",
+                                                           "{\"unknown\": 1}",
+                                                           "{\"freeTextPlace\": \"Berlin\"}",
+                                                           "{\"noPlaceInfo\": 5}",
+                                                           "{\"freeTextPlace\": \"Berlin\", \"zipCode\": 1}");
+
+  /**
+   * @return valid documents mapped to the location of the schema they match
+   */
+  public List<Map.Entry<String, JsonNode>> getValidDocuments()
+  {
+    JsonNode report = readJson(IDENTIFICATION_REPORT_2_0);
+    ObjectNode fullReport = report.deepCopy();
+    fullReport.put("idStatus", "success");
+    fullReport.putArray("contextInformation").add("first").add("second");
+    fullReport.putArray("documentReferences").addObject();
+    ObjectNode freeTextPlace = report.get("subjectRef").deepCopy();
+    freeTextPlace.putObject("placeOfResidence").put("freeTextPlace", "Berlin");
+    ObjectNode noPlaceInfo = report.get("subjectRef").deepCopy();
+    noPlaceInfo.putObject("placeOfResidence").put("noPlaceInfo", "no address in germany");
+
+    return List.of(Map.entry(SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION, report),
+                   Map.entry(SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION, fullReport),
+                   Map.entry(SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION,
+                             readJson(IDENTIFICATION_REPORT_WITH_EID_CARD_SUBJECT_2_0)),
+                   Map.entry(SchemaConstants.Locations.EID_CARD_SCHEMA_LOCATION, report.get("subjectRef")),
+                   Map.entry(SchemaConstants.Locations.EID_CARD_SCHEMA_LOCATION, freeTextPlace),
+                   Map.entry(SchemaConstants.Locations.EID_CARD_SCHEMA_LOCATION, noPlaceInfo),
+                   Map.entry(SchemaConstants.Locations.FINK_USER_ACCOUNT_MINIMAL_SCHEMA_LOCATION,
+                             readJson(FINK_USER_ACCOUNT_MINIMAL_REPORT).get("subjectRef")));
+  }
+
+  /**
+   * @return the given document followed by documents in which each node is replaced by each of the
+   *         {@link #REPLACEMENTS}, in which each property is removed and in which each object has an unknown
+   *         property
+   */
+  public List<JsonNode> getMutations(JsonNode document)
+  {
+    List<JsonNode> mutations = new ArrayList<>();
+    mutations.add(document);
+    for ( String replacement : REPLACEMENTS )
+    {
+      mutations.add(readJson(replacement.getBytes()));
+    }
+    addMutations(document, JsonPointer.empty(), mutations);
+    return mutations;
+  }
+
+  /**
+   * adds the mutations of the node at the given position and of all of its children
+   */
+  private void addMutations(JsonNode document, JsonPointer pointer, List<JsonNode> mutations)
+  {
+    JsonNode node = document.at(pointer);
+    if (node.isObject())
+    {
+      JsonNode withUnknownProperty = document.deepCopy();
+      ((ObjectNode)withUnknownProperty.at(pointer)).put("unknownProperty", "value");
+      mutations.add(withUnknownProperty);
+      Iterator<String> propertyNames = node.fieldNames();
+      while (propertyNames.hasNext())
+      {
+        String propertyName = propertyNames.next();
+        JsonNode withoutProperty = document.deepCopy();
+        ((ObjectNode)withoutProperty.at(pointer)).remove(propertyName);
+        mutations.add(withoutProperty);
+        for ( String replacement : REPLACEMENTS )
+        {
+          JsonNode replaced = document.deepCopy();
+          ((ObjectNode)replaced.at(pointer)).set(propertyName, readJson(replacement.getBytes()));
+          mutations.add(replaced);
+        }
+        addMutations(document, pointer.appendProperty(propertyName), mutations);
+      }
+    }
+    else if (node.isArray())
+    {
+      for ( int i = 0 ; i < node.size() ; i++ )
+      {
+        for ( String replacement : REPLACEMENTS )
+        {
+          JsonNode replaced = document.deepCopy();
+          ((ArrayNode)replaced.at(pointer)).set(i, readJson(replacement.getBytes()));
+          mutations.add(replaced);
+        }
+        addMutations(document, pointer.appendIndex(i), mutations);
+      }
+    }
+  }
+
+  @SneakyThrows
+  private JsonNode readJson(String resourcePath)
+  {
+    return OBJECT_MAPPER.readTree(readResourceFile(resourcePath));
+  }
+
+  @SneakyThrows
+  private JsonNode readJson(byte[] json)
+  {
+    return OBJECT_MAPPER.readTree(json);
+  }
+}
@@ -0,0 +1,95 @@
+package de.governikus.identification.report.utils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import lombok.SneakyThrows;
+
+
+/**
+ * verifies the eviction and the statistics of the {@link BoundedCache}
+ */
+public class BoundedCacheTest
+{
+
+  /**
+   * verifies that the least recently used entry is evicted if the maximum size is exceeded
+   */
+  @Test
+  public void testEvictLeastRecentlyUsedEntry()
+  {
+    BoundedCache<String, Integer> cache = new BoundedCache<>(2, null);
+    cache.put("a", 1);
+    cache.put("b", 2);
+    Assertions.assertEquals(1, cache.get("a"));
+    cache.put("c", 3);
+
+    Assertions.assertEquals(2, cache.size());
+    Assertions.assertNull(cache.get("b"));
+    Assertions.assertEquals(1, cache.get("a"));
+    Assertions.assertEquals(3, cache.get("c"));
+    Assertions.assertEquals(3, cache.getHitCount());
+    Assertions.assertEquals(1, cache.getMissCount());
+    Assertions.assertEquals(1, cache.getEvictionCount());
+    Assertions.assertEquals(0.75, cache.getHitRate());
+  }
+
+  /**
+   * verifies that entries are not returned anymore after they have expired
+   */
+  @Test
+  public void testExpireEntries()
+  {
+    AtomicLong nanoTime = new AtomicLong();
+    BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ofSeconds(10), nanoTime::get);
+    cache.put("a", 1);
+    nanoTime.addAndGet(Duration.ofSeconds(9).toNanos());
+    Assertions.assertEquals(1, cache.get("a"));
+    nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+    Assertions.assertNull(cache.get("a"));
+    Assertions.assertEquals(0, cache.size());
+    Assertions.assertEquals(1, cache.getEvictionCount());
+  }
+
+  /**
+   * verifies that the validator is called without holding the lock of the cache and that an invalid value does
+   * not remove a value that replaced it in the meantime
+   */
+  @SneakyThrows
+  @Test
+  public void testValidatorRunsOutsideOfTheLock()
+  {
+    BoundedCache<String, Integer> cache = new BoundedCache<>(10, null);
+    cache.put("a", 1);
+    cache.put("b", 2);
+    CountDownLatch validatorStarted = new CountDownLatch(1);
+    CountDownLatch replaced = new CountDownLatch(1);
+    CompletableFuture<Integer> lookup = CompletableFuture.supplyAsync(() -> cache.get("a", value -> {
+      validatorStarted.countDown();
+      await(replaced);
+      return false;
+    }));
+
+    validatorStarted.await();
+    Assertions.assertEquals(2, cache.get("b"));
+    cache.put("a", 3);
+    replaced.countDown();
+
+    Assertions.assertNull(lookup.get(10, TimeUnit.SECONDS));
+    Assertions.assertEquals(3, cache.get("a"));
+    Assertions.assertEquals(0, cache.getEvictionCount());
+    Assertions.assertEquals(1, cache.getMissCount());
+  }
+
+  @SneakyThrows
+  private static void await(CountDownLatch latch)
+  {
+    Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS));
+  }
+}
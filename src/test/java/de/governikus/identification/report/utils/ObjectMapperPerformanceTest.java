@@ -0,0 +1,128 @@
+package de.governikus.identification.report.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import de.governikus.identification.report.objects.IdentificationReport;
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
+import de.governikus.identification.report.setup.Benchmark;
+import de.governikus.identification.report.setup.FileReferences;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * compares the serialization and deserialization of a report with the reflection based bean serializers, with
+ * the Blackbird module and with the serializers and deserializers that are generated during the build. This
+ * test is excluded from the default build and must be executed explicitly
+ *
+ * <pre>
+ * mvn test -Dtest=ObjectMapperPerformanceTest
+ * </pre>
+ */
+@Slf4j
+public class ObjectMapperPerformanceTest implements FileReferences
+{
+
+  private static final int WARMUP_ITERATIONS = 20_000;
+
+  private static final int ITERATIONS = 100_000;
+
+  /**
+   * measures the serialization of a report
+   */
+  @Test
+  public void testSerialization()
+  {
+    IdentificationReport<EidCardPersonRef> report = IdentificationReport.fromJson(readResourceFile(IDENTIFICATION_REPORT_2_0),
+                                                                                  EidCardPersonRef.class);
+    ObjectWriter reflectionWriter = createBeanObjectMapper(false).writerFor(IdentificationReport.class);
+    ObjectWriter blackbirdWriter = createBeanObjectMapper(true).writerFor(IdentificationReport.class);
+    ObjectWriter generatedWriter = ObjectMapperUtil.createObjectMapper(false).writerFor(IdentificationReport.class);
+
+    Benchmark.Result reflection = Benchmark.run("serialize with reflection",
+                                                WARMUP_ITERATIONS,
+                                                ITERATIONS,
+                                                () -> writeValueAsBytes(reflectionWriter, report));
+    Benchmark.Result blackbird = Benchmark.run("serialize with blackbird",
+                                               WARMUP_ITERATIONS,
+                                               ITERATIONS,
+                                               () -> writeValueAsBytes(blackbirdWriter, report));
+    Benchmark.Result generated = Benchmark.run("serialize with generated serializers",
+                                               WARMUP_ITERATIONS,
+                                               ITERATIONS,
+                                               () -> writeValueAsBytes(generatedWriter, report));
+    log.info(reflection.toString());
+    log.info(blackbird.toString());
+    log.info(generated.toString());
+    Assertions.assertArrayEquals(writeValueAsBytes(reflectionWriter, report),
+                                 writeValueAsBytes(generatedWriter, report));
+  }
+
+  /**
+   * measures the deserialization of a report
+   */
+  @Test
+  public void testDeserialization()
+  {
+    byte[] json = readResourceFile(IDENTIFICATION_REPORT_2_0).getBytes();
+    ObjectReader reflectionReader = createBeanObjectMapper(false).readerFor(EidCardPersonRef.class);
+    ObjectReader blackbirdReader = createBeanObjectMapper(true).readerFor(EidCardPersonRef.class);
+    ObjectMapper objectMapper = ObjectMapperUtil.createObjectMapper(false);
+    ObjectReader generatedReader = objectMapper.readerFor(EidCardPersonRef.class);
+    byte[] subjectRef = writeValueAsBytes(objectMapper.writer(),
+                                          IdentificationReport.fromJson(json, EidCardPersonRef.class).getSubjectRef());
+
+    Benchmark.Result reflection = Benchmark.run("deserialize with reflection",
+                                                WARMUP_ITERATIONS,
+                                                ITERATIONS,
+                                                () -> readValue(reflectionReader, subjectRef));
+    Benchmark.Result blackbird = Benchmark.run("deserialize with blackbird",
+                                               WARMUP_ITERATIONS,
+                                               ITERATIONS,
+                                               () -> readValue(blackbirdReader, subjectRef));
+    Benchmark.Result generated = Benchmark.run("deserialize with generated deserializers",
+                                               WARMUP_ITERATIONS,
+                                               ITERATIONS,
+                                               () -> readValue(generatedReader, subjectRef));
+    log.info(reflection.toString());
+    log.info(blackbird.toString());
+    log.info(generated.toString());
+    Assertions.assertEquals((Object)readValue(reflectionReader, subjectRef), readValue(generatedReader, subjectRef));
+  }
+
+  @SneakyThrows
+  private static byte[] writeValueAsBytes(ObjectWriter writer, Object value)
+  {
+    return writer.writeValueAsBytes(value);
+  }
+
+  /**
+   * @return a mapper that accesses the properties of the objects with the bean serializers and deserializers of
+   *         jackson
+   */
+  private static ObjectMapper createBeanObjectMapper(boolean blackbird)
+  {
+    ObjectMapper objectMapper = new ObjectMapper();
+    objectMapper.registerModule(new JavaTimeModule());
+    objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+    if (blackbird)
+    {
+      objectMapper.registerModule(new BlackbirdModule());
+    }
+    return objectMapper;
+  }
+
+  @SneakyThrows
+  private static EidCardPersonRef readValue(ObjectReader reader, byte[] json)
+  {
+    return reader.readValue(json);
+  }
+}
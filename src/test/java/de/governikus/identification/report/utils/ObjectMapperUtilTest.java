@@ -0,0 +1,186 @@
+package de.governikus.identification.report.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.objects.IdentificationReport;
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
+import de.governikus.identification.report.objects.subjects.FinkPersonRefMinimal;
+import de.governikus.identification.report.setup.FileReferences;
+import lombok.SneakyThrows;
+
+
+/**
+ * verifies that the shared object mapper is created once and that the readers and writers are cached
+ */
+public class ObjectMapperUtilTest implements FileReferences
+{
+
+  /**
+   * verifies that concurrent first accesses see the same object mapper
+   */
+  @SneakyThrows
+  @Test
+  public void testObjectMapperIsCreatedOnce()
+  {
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    try
+    {
+      List<Callable<ObjectMapper>> tasks = IntStream.range(0, 64)
+                                                    .mapToObj(i -> (Callable<ObjectMapper>)ObjectMapperUtil::getObjectMapper)
+                                                    .collect(Collectors.toList());
+      Set<ObjectMapper> objectMappers = executorService.invokeAll(tasks)
+                                                       .stream()
+                                                       .map(ObjectMapperUtilTest::get)
+                                                       .collect(Collectors.toSet());
+      Assertions.assertEquals(Set.of(ObjectMapperUtil.getObjectMapper()), objectMappers);
+    }
+    finally
+    {
+      executorService.shutdownNow();
+    }
+  }
+
+  /**
+   * verifies that the readers and writers of the report and the registered subject reference types are reused
+   */
+  @Test
+  public void testReadersAndWritersAreCached()
+  {
+    for ( Class<?> type : List.of(IdentificationReport.class, EidCardPersonRef.class, FinkPersonRefMinimal.class) )
+    {
+      Assertions.assertSame(ObjectMapperUtil.getReader(type), ObjectMapperUtil.getReader(type));
+      Assertions.assertSame(ObjectMapperUtil.getWriter(type), ObjectMapperUtil.getWriter(type));
+    }
+  }
+
+  /**
+   * verifies that a mapper with the Blackbird module reads and writes the same reports as the shared mapper
+   */
+  @SneakyThrows
+  @Test
+  public void testBlackbirdMapperIsCompatible()
+  {
+    Assertions.assertTrue(ObjectMapperUtil.isBlackbirdAvailable());
+    ObjectMapper blackbirdMapper = ObjectMapperUtil.createObjectMapper(true);
+    IdentificationReport<EidCardPersonRef> report = IdentificationReport.fromJson(readResourceFile(IDENTIFICATION_REPORT_2_0),
+                                                                                  EidCardPersonRef.class);
+
+    String json = ObjectMapperUtil.getWriter(IdentificationReport.class).writeValueAsString(report);
+    Assertions.assertEquals(json, blackbirdMapper.writerFor(IdentificationReport.class).writeValueAsString(report));
+    Assertions.assertEquals(report.getSubjectRef(),
+                            blackbirdMapper.readValue(blackbirdMapper.writeValueAsString(report.getSubjectRef()),
+                                                      EidCardPersonRef.class));
+  }
+
+  /**
+   * verifies that the shared mapper works if the optional Blackbird dependency is not on the classpath
+   */
+  @SneakyThrows
+  @Test
+  public void testWithoutBlackbirdOnClasspath()
+  {
+    ObjectNode reportNode = (ObjectNode)ObjectMapperUtil.getObjectMapper()
+                                                        .readTree(readResourceFile(IDENTIFICATION_REPORT_2_0));
+    reportNode.put("subjectRefType", SchemaConstants.Ids.EID_CARD_PERSON_REF_ID);
+    String json = reportNode.toString();
+    ClassLoader classLoader = new WithoutBlackbirdClassLoader(getClass().getClassLoader());
+    Class<?> objectMapperUtil = classLoader.loadClass(ObjectMapperUtil.class.getName());
+    Assertions.assertNotSame(ObjectMapperUtil.class, objectMapperUtil);
+    Assertions.assertFalse((boolean)objectMapperUtil.getMethod("isBlackbirdAvailable").invoke(null));
+
+    ObjectMapper objectMapper = (ObjectMapper)objectMapperUtil.getMethod("getObjectMapper").invoke(null);
+    Class<?> reportType = classLoader.loadClass(IdentificationReport.class.getName());
+    Object report = objectMapper.readValue(json, reportType);
+    Assertions.assertEquals(ObjectMapperUtil.getObjectMapper().readTree(json),
+                            objectMapper.readTree(objectMapper.writeValueAsString(report)));
+
+    InvocationTargetException exception = Assertions.assertThrows(InvocationTargetException.class,
+                                                                  () -> objectMapperUtil.getMethod("createObjectMapper",
+                                                                                                   boolean.class)
+                                                                                        .invoke(null, true));
+    Assertions.assertInstanceOf(IllegalStateException.class, exception.getCause());
+  }
+
+  @SneakyThrows
+  private static <T> T get(Future<T> future)
+  {
+    return future.get();
+  }
+
+  /**
+   * loads the classes of this library itself and hides the Blackbird module as if the optional dependency was
+   * not present. All other classes are loaded by the parent
+   */
+  private static class WithoutBlackbirdClassLoader extends ClassLoader
+  {
+
+    private static final String LIBRARY_PACKAGE = "de.governikus.identification.report.";
+
+    private static final String BLACKBIRD_PACKAGE = "com.fasterxml.jackson.module.blackbird.";
+
+    public WithoutBlackbirdClassLoader(ClassLoader parent)
+    {
+      super(parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+    {
+      synchronized (getClassLoadingLock(name))
+      {
+        if (name.startsWith(BLACKBIRD_PACKAGE))
+        {
+          throw new ClassNotFoundException(name);
+        }
+        if (!name.startsWith(LIBRARY_PACKAGE))
+        {
+          return super.loadClass(name, resolve);
+        }
+        Class<?> loadedClass = findLoadedClass(name);
+        if (loadedClass == null)
+        {
+          loadedClass = defineLibraryClass(name);
+        }
+        if (resolve)
+        {
+          resolveClass(loadedClass);
+        }
+        return loadedClass;
+      }
+    }
+
+    private Class<?> defineLibraryClass(String name) throws ClassNotFoundException
+    {
+      try (InputStream inputStream = getParent().getResourceAsStream(name.replace('.', '/') + ".class"))
+      {
+        if (inputStream == null)
+        {
+          throw new ClassNotFoundException(name);
+        }
+        byte[] bytes = inputStream.readAllBytes();
+        return defineClass(name, bytes, 0, bytes.length);
+      }
+      catch (IOException ex)
+      {
+        throw new ClassNotFoundException(name, ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package de.governikus.identification.report.validation;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+import lombok.SneakyThrows;
+
+
+/**
+ * verifies that reports are validated line by line and that the errors are aggregated
+ */
+public class BulkReportValidatorTest implements FileReferences
+{
+
+  @TempDir
+  Path directory;
+
+  /**
+   * verifies that all files of a directory are validated and that the failing lines are written together with
+   * their errors
+   */
+  @SneakyThrows
+  @Test
+  public void testDirectoryIsValidated()
+  {
+    ObjectNode report = readReport();
+    ObjectNode invalidReport = report.deepCopy();
+    invalidReport.remove("reportId");
+    ObjectNode invalidSubjectRef = report.deepCopy();
+    ((ObjectNode)invalidSubjectRef.get("subjectRef")).remove("restrictedId");
+    // the eid card attributes are not allowed by the fink schema that is named by the subjectRefType
+    ObjectNode finkReport = report.deepCopy();
+    finkReport.put("subjectRefType", SchemaConstants.Ids.FINK_PERSON_REF_MINIMAL_ID);
+
+    List<String> validLines = new ArrayList<>();
+    for ( int i = 0 ; i < 250 ; i++ )
+    {
+      validLines.add(report.toString());
+    }
+    writeLines("reports/a.ndjson", validLines);
+    writeLines("reports/nested/b.jsonl",
+               List.of(report.toString(),
+                       "",
+                       invalidReport.toString(),
+                       "{ not json",
+                       invalidSubjectRef.toString(),
+                       finkReport.toString()));
+    writeLines("reports/ignored.txt", List.of("{ not json"));
+    Path failureFile = directory.resolve("failures.ndjson");
+
+    BulkReportValidator bulkReportValidator = BulkReportValidator.builder()
+                                                                 .parallelism(3)
+                                                                 .batchSize(7)
+                                                                 .queueCapacity(2)
+                                                                 .defaultSubjectRefType(EidCardPersonRef.class)
+                                                                 .build();
+    BulkValidationSummary summary = bulkReportValidator.validate(directory.resolve("reports"), failureFile);
+
+    Assertions.assertEquals(255, summary.getReportCount());
+    Assertions.assertEquals(251, summary.getValidCount());
+    Assertions.assertEquals(3, summary.getInvalidCount());
+    Assertions.assertEquals(1, summary.getUnreadableCount());
+    Assertions.assertEquals(2, summary.getErrorsByKeyword().get("required"));
+    Assertions.assertEquals(5, summary.getErrorsByKeyword().get("additionalProperties"));
+    Assertions.assertEquals(1, summary.getErrorsByPath().get("$"));
+    Assertions.assertEquals(6, summary.getErrorsByPath().get("$.subjectRef"));
+    Assertions.assertTrue(summary.getReportsPerSecond() > 0);
+
+    List<String> failureLines = Files.readAllLines(failureFile, StandardCharsets.UTF_8);
+    Assertions.assertEquals(4, failureLines.size());
+    JsonNode failure = failureLines.stream()
+                                   .map(this::readJson)
+                                   .filter(node -> node.get("line").asLong() == 3)
+                                   .findAny()
+                                   .orElseThrow();
+    Assertions.assertEquals(Path.of("nested", "b.jsonl").toString(), failure.get("source").asText());
+    Assertions.assertEquals(invalidReport.toString(), failure.get("content").asText());
+    Assertions.assertEquals("required", failure.get("errors").get(0).get("keyword").asText());
+  }
+
+  /**
+   * verifies that the number of distinct paths within the summary is bounded
+   */
+  @SneakyThrows
+  @Test
+  public void testDistinctPathsAreBounded()
+  {
+    ObjectNode report = readReport();
+    List<String> lines = new ArrayList<>();
+    for ( String property : List.of("reportTime", "identificationTime", "levelOfAssurance") )
+    {
+      ObjectNode invalidReport = report.deepCopy();
+      invalidReport.put(property, 1);
+      lines.add(invalidReport.toString());
+    }
+    writeLines("reports.ndjson", lines);
+
+    BulkValidationSummary summary = BulkReportValidator.builder()
+                                                       .maxDistinctPaths(2)
+                                                       .build()
+                                                       .validate(directory.resolve("reports.ndjson"), null);
+    Assertions.assertEquals(3, summary.getInvalidCount());
+    Assertions.assertEquals(3, summary.getErrorsByPath().size());
+    Assertions.assertTrue(summary.getErrorsByPath().containsKey(BulkReportValidator.OTHER_PATHS));
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> BulkReportValidator.builder().build().validate(directory.resolve("missing"), null));
+  }
+
+  /**
+   * verifies that a line that is not valid UTF-8 is counted as unreadable and does not abort the validation
+   */
+  @SneakyThrows
+  @Test
+  public void testInvalidUtf8LineIsUnreadable()
+  {
+    byte[] report = readReport().toString().getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    content.write(report);
+    content.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    content.write(new byte[]{'{', '"', (byte)0xC3, '(', '"', '}', '\n'});
+    content.write(report);
+    Path input = directory.resolve("reports.ndjson");
+    Files.write(input, content.toByteArray());
+    Path failureFile = directory.resolve("failures.ndjson");
+
+    BulkValidationSummary summary = BulkReportValidator.builder().batchSize(1).build().validate(input, failureFile);
+
+    Assertions.assertEquals(3, summary.getReportCount());
+    Assertions.assertEquals(2, summary.getValidCount());
+    Assertions.assertEquals(1, summary.getUnreadableCount());
+    List<String> failureLines = Files.readAllLines(failureFile, StandardCharsets.UTF_8);
+    Assertions.assertEquals(1, failureLines.size());
+    JsonNode failure = readJson(failureLines.get(0));
+    Assertions.assertEquals(2, failure.get("line").asLong());
+    Assertions.assertEquals("{\"\uFFFD(\"}", failure.get("content").asText());
+    Assertions.assertEquals("Line is not valid UTF-8", failure.get("error").asText());
+  }
+
+  /**
+   * checks that only the first bytes of an over-long line are kept and that the following lines are still read
+   */
+  @SneakyThrows
+  @Test
+  public void testOverLongLineIsUnreadable()
+  {
+    byte[] report = readReport().toString().getBytes(StandardCharsets.UTF_8);
+    int maxLineLength = report.length + 10;
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    content.write(report);
+    content.write('\n');
+    content.write("x".repeat(maxLineLength * 3).getBytes(StandardCharsets.UTF_8));
+    content.write('\n');
+    content.write(report);
+    Path input = directory.resolve("reports.ndjson");
+    Files.write(input, content.toByteArray());
+    Path failureFile = directory.resolve("failures.ndjson");
+
+    BulkValidationSummary summary = BulkReportValidator.builder()
+                                                       .batchSize(1)
+                                                       .maxLineLength(maxLineLength)
+                                                       .build()
+                                                       .validate(input, failureFile);
+
+    Assertions.assertEquals(3, summary.getReportCount());
+    Assertions.assertEquals(2, summary.getValidCount());
+    Assertions.assertEquals(1, summary.getUnreadableCount());
+    List<String> failureLines = Files.readAllLines(failureFile, StandardCharsets.UTF_8);
+    Assertions.assertEquals(1, failureLines.size());
+    JsonNode failure = readJson(failureLines.get(0));
+    Assertions.assertEquals(2, failure.get("line").asLong());
+    Assertions.assertEquals("x".repeat(maxLineLength), failure.get("content").asText());
+    Assertions.assertEquals("Line exceeds the maximum length of " + maxLineLength + " bytes",
+                            failure.get("error").asText());
+  }
+
+  @SneakyThrows
+  private void writeLines(String file, List<String> lines)
+  {
+    Path path = directory.resolve(file);
+    Files.createDirectories(path.getParent());
+    Files.write(path, lines, StandardCharsets.UTF_8);
+  }
+
+  @SneakyThrows
+  private ObjectNode readReport()
+  {
+    return (ObjectNode)readJson(readResourceFile(IDENTIFICATION_REPORT_2_0));
+  }
+
+  @SneakyThrows
+  private JsonNode readJson(String json)
+  {
+    return ObjectMapperUtil.getObjectMapper().readTree(json);
+  }
+}
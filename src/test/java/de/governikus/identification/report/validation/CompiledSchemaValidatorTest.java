@@ -0,0 +1,160 @@
+package de.governikus.identification.report.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.schema.ExecutionConfig;
+import com.networknt.schema.JsonNodePath;
+import com.networknt.schema.SchemaLocation;
+import com.networknt.schema.ValidationMessage;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.setup.JsonMutations;
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+
+
+/**
+ * cross-checks the validators that are generated from the bundled schemas against the networknt validator
+ */
+public class CompiledSchemaValidatorTest
+{
+
+  private final JsonMutations jsonMutations = new JsonMutations();
+
+  /**
+   * verifies that each bundled schema has a generated validator and that unknown schemas are not compiled
+   */
+  @Test
+  public void testBundledSchemasAreCompiled()
+  {
+    for ( String schemaLocation : List.of(SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION,
+                                          SchemaConstants.Locations.EID_CARD_SCHEMA_LOCATION,
+                                          SchemaConstants.Locations.FINK_USER_ACCOUNT_MINIMAL_SCHEMA_LOCATION) )
+    {
+      CompiledSchemaValidator compiledSchemaValidator = CompiledSchemaValidators.get(schemaLocation);
+      Assertions.assertNotNull(compiledSchemaValidator, schemaLocation);
+      Assertions.assertEquals(schemaLocation, compiledSchemaValidator.getSchemaLocation());
+    }
+    Assertions.assertNull(CompiledSchemaValidators.get("/unknown-schema.json"));
+    Assertions.assertNull(CompiledSchemaValidators.get(null));
+  }
+
+  /**
+   * verifies that the first error is the first error of the full validation and that no further messages are
+   * created once it is found
+   */
+  @Test
+  public void testValidationStopsAtFirstError()
+  {
+    CompiledSchemaValidator compiledSchemaValidator = CompiledSchemaValidators.get(SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION);
+    ObjectNode report = ObjectMapperUtil.getObjectMapper().createObjectNode().put("reportId", 1).put("idStatus", "x");
+    Set<ValidationMessage> errors = compiledSchemaValidator.validate(report);
+    Assertions.assertTrue(errors.size() > 2);
+    Assertions.assertEquals(errors.stream().findFirst(), compiledSchemaValidator.getFirstError(report));
+    Assertions.assertTrue(compiledSchemaValidator.getFirstError(report.removeAll()).isPresent());
+
+    Set<ValidationMessage> firstError = CompiledSchemaValidator.createFirstErrorSet();
+    JsonNodePath evaluationPath = CompiledSchemaValidator.evaluationPath("required");
+    SchemaLocation schemaLocation = SchemaLocation.of("https://example.com/schema#/required");
+    Assertions.assertFalse(CompiledSchemaValidator.checkRequired(report,
+                                                                 CompiledSchemaValidator.ROOT_LOCATION,
+                                                                 evaluationPath,
+                                                                 schemaLocation,
+                                                                 List.of("a", "b", "c"),
+                                                                 firstError));
+    Assertions.assertEquals(1, firstError.size());
+    Assertions.assertTrue(CompiledSchemaValidator.isComplete(firstError));
+
+    // the subschemas of a failed "oneOf" are not validated again to collect their errors
+    AtomicInteger collectingValidations = new AtomicInteger();
+    CompiledSchemaValidator.Subschema subschema = (node, instanceLocation, subschemaErrors) -> {
+      if (subschemaErrors != null)
+      {
+        collectingValidations.incrementAndGet();
+      }
+      return false;
+    };
+    firstError = CompiledSchemaValidator.createFirstErrorSet();
+    Assertions.assertFalse(CompiledSchemaValidator.checkOneOf(report,
+                                                              CompiledSchemaValidator.ROOT_LOCATION,
+                                                              CompiledSchemaValidator.evaluationPath("oneOf"),
+                                                              SchemaLocation.of("https://example.com/schema#/oneOf"),
+                                                              List.of(subschema, subschema),
+                                                              firstError));
+    Assertions.assertEquals(1, firstError.size());
+    Assertions.assertEquals(0, collectingValidations.get());
+  }
+
+  /**
+   * mutates each node of valid documents and verifies that the generated validators report exactly the same
+   * messages in the same order as the networknt validator
+   */
+  @TestFactory
+  public List<DynamicTest> testCompiledValidatorsMatchNetworknt()
+  {
+    List<DynamicTest> dynamicTests = new ArrayList<>();
+    for ( Map.Entry<String, JsonNode> validDocument : jsonMutations.getValidDocuments() )
+    {
+      dynamicTests.add(crossCheck(validDocument.getKey(), validDocument.getValue()));
+    }
+    return dynamicTests;
+  }
+
+  /**
+   * creates a test that validates the given document and all of its mutations with both validators
+   */
+  private DynamicTest crossCheck(String schemaLocation, JsonNode document)
+  {
+    String name = schemaLocation.substring(schemaLocation.lastIndexOf('/') + 1);
+    return DynamicTest.dynamicTest(name, () -> {
+      CompiledSchemaValidator compiledSchemaValidator = CompiledSchemaValidators.get(schemaLocation);
+      List<JsonNode> mutations = jsonMutations.getMutations(document);
+      int invalidDocuments = 0;
+      for ( JsonNode mutation : mutations )
+      {
+        List<ValidationMessage> expected = validateWithNetworknt(schemaLocation, mutation);
+        List<ValidationMessage> actual = new ArrayList<>(compiledSchemaValidator.validate(mutation));
+        String json = mutation.toString();
+        Assertions.assertEquals(expected, actual, json);
+        Assertions.assertEquals(getDescriptions(expected), getDescriptions(actual), json);
+        invalidDocuments += expected.isEmpty() ? 0 : 1;
+      }
+      Assertions.assertTrue(SchemaValidator.validateJsonObject(schemaLocation, document).isEmpty());
+      Assertions.assertTrue(invalidDocuments > mutations.size() / 5);
+    });
+  }
+
+  /**
+   * @return the messages of the networknt validator in the order they were reported
+   */
+  private List<ValidationMessage> validateWithNetworknt(String schemaLocation, JsonNode jsonNode)
+  {
+    return new ArrayList<>(SchemaConstants.getSchema(schemaLocation).validate(jsonNode, executionContext -> {
+      ExecutionConfig executionConfig = new ExecutionConfig();
+      executionConfig.setLocale(Locale.US);
+      executionContext.setExecutionConfig(executionConfig);
+    }));
+  }
+
+  /**
+   * @return the properties of the messages that are not part of {@link ValidationMessage#equals(Object)}
+   */
+  private List<String> getDescriptions(List<ValidationMessage> validationMessages)
+  {
+    return validationMessages.stream()
+                             .map(message -> message.getMessage() + " | " + message.getSchemaLocation())
+                             .collect(Collectors.toList());
+  }
+}
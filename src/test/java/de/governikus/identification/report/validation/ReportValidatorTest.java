@@ -0,0 +1,125 @@
+package de.governikus.identification.report.validation;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.objects.IdentificationReport;
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
+import de.governikus.identification.report.setup.FileReferences;
+
+
+/**
+ * verifies the combined validation of a report and its subject reference
+ */
+public class ReportValidatorTest implements FileReferences
+{
+
+  private static final String REPORT_LOCATION = SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION;
+
+  private static final String EID_CARD_LOCATION = SchemaConstants.Locations.EID_CARD_SCHEMA_LOCATION;
+
+  private static final String FINK_LOCATION = SchemaConstants.Locations.FINK_USER_ACCOUNT_MINIMAL_SCHEMA_LOCATION;
+
+  /**
+   * verifies that a valid report with a valid subject reference is accepted
+   */
+  @Test
+  public void testValidReport()
+  {
+    IdentificationReport<EidCardPersonRef> report = readReport();
+    ReportValidationResult result = ReportValidator.builder().build().validate(report);
+
+    Assertions.assertTrue(result.isValid());
+    Assertions.assertTrue(result.getReportErrors().isEmpty());
+    Assertions.assertTrue(result.getSubjectRefErrors().isEmpty());
+    Assertions.assertEquals(EID_CARD_LOCATION, result.getSubjectRefSchemaLocation());
+    Assertions.assertTrue(report.validate());
+    Assertions.assertTrue(report.validateWithSubjectRef().isValid());
+  }
+
+  /**
+   * verifies that an invalid subject reference fails the combined result and that the errors of the report and
+   * of the subject reference are the same as if both were validated on their own
+   */
+  @Test
+  public void testInvalidSubjectRefFailsReport()
+  {
+    IdentificationReport<EidCardPersonRef> report = readReport();
+    report.getSubjectRef().setRestrictedId(null);
+    report.getSubjectRef().add("unknown", "value");
+    ReportValidationResult result = ReportValidator.builder().build().validate(report);
+
+    Assertions.assertFalse(result.isValid());
+    Assertions.assertTrue(result.getReportErrors().isEmpty());
+    Assertions.assertEquals(new ArrayList<>(SchemaValidator.validateJsonObject(EID_CARD_LOCATION,
+                                                                               report.getSubjectRef())),
+                            new ArrayList<>(result.getSubjectRefErrors()));
+    Assertions.assertEquals(2, result.getSubjectRefErrors().size());
+    Assertions.assertTrue(report.validate());
+    Assertions.assertFalse(report.validateWithSubjectRef().isValid());
+
+    report.setReportId(null);
+    report.getKeyValueMap().put("serverIdentity", 5);
+    result = ReportValidator.builder().build().validate(report);
+    Assertions.assertEquals(new ArrayList<>(SchemaValidator.validateJsonObject(REPORT_LOCATION, report)),
+                            new ArrayList<>(result.getReportErrors()));
+    Assertions.assertEquals(2, result.getReportErrors().size());
+    Assertions.assertEquals(2, result.getSubjectRefErrors().size());
+  }
+
+  /**
+   * verifies that the subject reference is validated against the schema of the type that is registered for the
+   * subject reference type of the report
+   */
+  @Test
+  public void testSubjectRefSchemaIsResolvedFromSubjectRefType()
+  {
+    IdentificationReport<EidCardPersonRef> report = readReport();
+    report.setSubjectRefType("https://raw.githubusercontent.com/Governikus/IdentificationReport/2.0.0"
+                             + "/schema/fink-user-account-minimal.json");
+    ReportValidationResult result = ReportValidator.builder().build().validate(report);
+
+    Assertions.assertEquals(FINK_LOCATION, result.getSubjectRefSchemaLocation());
+    Assertions.assertEquals(new ArrayList<>(SchemaValidator.validateJsonObject(FINK_LOCATION, report.getSubjectRef())),
+                            new ArrayList<>(result.getSubjectRefErrors()));
+    Assertions.assertFalse(result.isValid());
+  }
+
+  /**
+   * verifies that the parallel validation has the same result as the validation within the calling thread
+   */
+  @Test
+  public void testParallelValidation()
+  {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try
+    {
+      ReportValidator parallelValidator = ReportValidator.builder().executor(executor).build();
+      IdentificationReport<EidCardPersonRef> report = readReport();
+      Assertions.assertTrue(parallelValidator.validate(report).isValid());
+
+      report.setReportId(null);
+      report.getSubjectRef().setRestrictedId(null);
+      ReportValidationResult expected = ReportValidator.builder().build().validate(report);
+      ReportValidationResult actual = parallelValidator.validate(report);
+      Assertions.assertFalse(actual.isValid());
+      Assertions.assertEquals(new ArrayList<>(expected.getReportErrors()), new ArrayList<>(actual.getReportErrors()));
+      Assertions.assertEquals(new ArrayList<>(expected.getSubjectRefErrors()),
+                              new ArrayList<>(actual.getSubjectRefErrors()));
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+
+  private IdentificationReport<EidCardPersonRef> readReport()
+  {
+    return IdentificationReport.fromJson(readResourceFile(IDENTIFICATION_REPORT_2_0), EidCardPersonRef.class);
+  }
+}
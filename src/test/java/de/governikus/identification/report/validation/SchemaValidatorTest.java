@@ -0,0 +1,86 @@
+package de.governikus.identification.report.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.ValidationMessage;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.objects.IdentificationReport;
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.setup.JsonMutations;
+
+
+/**
+ * verifies that the cheaper validation modes come to the same decision as the full validation
+ */
+public class SchemaValidatorTest implements FileReferences
+{
+
+  private final JsonMutations jsonMutations = new JsonMutations();
+
+  /**
+   * mutates each node of valid documents and verifies that the validity check and the first error match the
+   * full validation for the compiled validators and for the networknt validator
+   */
+  @TestFactory
+  public List<DynamicTest> testValidationModesMatchFullValidation()
+  {
+    List<DynamicTest> dynamicTests = new ArrayList<>();
+    for ( Map.Entry<String, JsonNode> validDocument : jsonMutations.getValidDocuments() )
+    {
+      String schemaLocation = validDocument.getKey();
+      String name = schemaLocation.substring(schemaLocation.lastIndexOf('/') + 1);
+      dynamicTests.add(DynamicTest.dynamicTest(name, () -> {
+        JsonSchema schema = SchemaConstants.getSchema(schemaLocation);
+        for ( JsonNode mutation : jsonMutations.getMutations(validDocument.getValue()) )
+        {
+          String json = mutation.toString();
+          Set<ValidationMessage> errors = SchemaValidator.validateJsonObject(schemaLocation, mutation);
+
+          Assertions.assertEquals(errors.isEmpty(), SchemaValidator.isValid(schemaLocation, mutation), json);
+          Assertions.assertEquals(errors.stream().findFirst(),
+                                  SchemaValidator.getFirstError(schemaLocation, mutation),
+                                  json);
+
+          Assertions.assertEquals(errors.isEmpty(), SchemaValidator.isValid(schema, mutation), json);
+          Optional<ValidationMessage> firstError = SchemaValidator.getFirstError(schema, mutation);
+          Assertions.assertEquals(errors.isEmpty(), firstError.isEmpty(), json);
+        }
+      }));
+    }
+    return dynamicTests;
+  }
+
+  /**
+   * verifies the validation modes for the objects of this library
+   */
+  @Test
+  public void testValidationModesForObjects()
+  {
+    String schemaLocation = SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION;
+    IdentificationReport<EidCardPersonRef> report = IdentificationReport.fromJson(readResourceFile(IDENTIFICATION_REPORT_WITH_EID_CARD_SUBJECT_2_0),
+                                                                                  EidCardPersonRef.class);
+    Assertions.assertTrue(SchemaValidator.isValid(schemaLocation, report));
+    Assertions.assertTrue(SchemaValidator.getFirstError(schemaLocation, report).isEmpty());
+
+    report.setReportId(null);
+    report.setServerIdentity(null);
+    Assertions.assertFalse(SchemaValidator.isValid(schemaLocation, report));
+    Optional<ValidationMessage> firstError = SchemaValidator.getFirstError(schemaLocation, report);
+    Assertions.assertTrue(firstError.isPresent());
+    Assertions.assertEquals(SchemaValidator.validateJsonObject(schemaLocation, (Object)report).iterator().next(),
+                            firstError.get());
+  }
+}
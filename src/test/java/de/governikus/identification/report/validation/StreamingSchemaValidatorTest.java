@@ -0,0 +1,133 @@
+package de.governikus.identification.report.validation;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.schema.ValidationMessage;
+
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.setup.JsonMutations;
+
+
+/**
+ * verifies the validation of raw json input on the token stream
+ */
+public class StreamingSchemaValidatorTest implements FileReferences
+{
+
+  private final JsonMutations jsonMutations = new JsonMutations();
+
+  /**
+   * mutates each node of valid documents and verifies that the streaming validation reports exactly the same
+   * messages in the same order as the validation of the json tree
+   */
+  @TestFactory
+  public List<DynamicTest> testStreamingValidationMatchesTreeValidation()
+  {
+    List<DynamicTest> dynamicTests = new ArrayList<>();
+    for ( Map.Entry<String, JsonNode> validDocument : jsonMutations.getValidDocuments() )
+    {
+      String schemaLocation = validDocument.getKey();
+      String name = schemaLocation.substring(schemaLocation.lastIndexOf('/') + 1);
+      dynamicTests.add(DynamicTest.dynamicTest(name, () -> {
+        StreamingSchemaValidator streamingValidator = StreamingSchemaValidator.builder()
+                                                                              .schemaLocation(schemaLocation)
+                                                                              .build();
+        for ( JsonNode mutation : jsonMutations.getMutations(validDocument.getValue()) )
+        {
+          String json = mutation.toString();
+          List<ValidationMessage> expected = new ArrayList<>(SchemaValidator.validateJsonObject(schemaLocation,
+                                                                                                mutation));
+          List<ValidationMessage> actual = new ArrayList<>(streamingValidator.validate(json.getBytes(StandardCharsets.UTF_8)));
+          Assertions.assertEquals(expected, actual, json);
+          Assertions.assertEquals(getDescriptions(expected), getDescriptions(actual), json);
+        }
+      }));
+    }
+    return dynamicTests;
+  }
+
+  /**
+   * verifies that a report is validated from a stream and that the stream is not closed
+   */
+  @Test
+  public void testValidateInputStream() throws Exception
+  {
+    byte[] report = readResourceFile(IDENTIFICATION_REPORT_WITH_EID_CARD_SUBJECT_2_0).getBytes(StandardCharsets.UTF_8);
+    boolean[] closed = new boolean[1];
+    ByteArrayInputStream inputStream = new ByteArrayInputStream(report)
+    {
+
+      @Override
+      public void close()
+      {
+        closed[0] = true;
+      }
+    };
+
+    Assertions.assertTrue(StreamingSchemaValidator.builder().build().validate(inputStream).isEmpty());
+    Assertions.assertFalse(closed[0]);
+  }
+
+  /**
+   * verifies that malformed input is rejected
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"", " ", "{", "{\"reportId\": }", "{\"reportId\": \"1\"}}", "{} {}", "[1, 2",
+                          "{\"reportId\": \"1\", \"reportId\": \"2\"}"})
+  public void testMalformedInputIsRejected(String json)
+  {
+    StreamingSchemaValidator streamingValidator = StreamingSchemaValidator.builder().build();
+    Assertions.assertThrows(JsonProcessingException.class,
+                            () -> streamingValidator.validate(json.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * verifies that input that exceeds the configured limits is rejected
+   */
+  @Test
+  public void testOversizedInputIsRejected()
+  {
+    byte[] report = readResourceFile(IDENTIFICATION_REPORT_2_0).getBytes(StandardCharsets.UTF_8);
+    StreamingSchemaValidator tooShort = StreamingSchemaValidator.builder()
+                                                                .maxDocumentLength((long)report.length / 2)
+                                                                .build();
+    Assertions.assertThrows(StreamConstraintsException.class,
+                            () -> tooShort.validate(new ByteArrayInputStream(report)));
+
+    byte[] deeplyNested = ("{\"custom\": " + "[".repeat(10) + "]".repeat(10) + "}").getBytes(StandardCharsets.UTF_8);
+    StreamingSchemaValidator flat = StreamingSchemaValidator.builder().maxNestingDepth(5).build();
+    Assertions.assertThrows(StreamConstraintsException.class, () -> flat.validate(deeplyNested));
+
+    byte[] longString = ("{\"reportId\": \"" + "a".repeat(100) + "\"}").getBytes(StandardCharsets.UTF_8);
+    StreamingSchemaValidator shortStrings = StreamingSchemaValidator.builder().maxStringLength(50).build();
+    Assertions.assertThrows(StreamConstraintsException.class, () -> shortStrings.validate(longString));
+    byte[] longSkippedString = ("{\"custom\": [\"" + "a".repeat(100) + "\"]}").getBytes(StandardCharsets.UTF_8);
+    Assertions.assertThrows(StreamConstraintsException.class, () -> shortStrings.validate(longSkippedString));
+  }
+
+  /**
+   * @return the properties of the messages that are not part of {@link ValidationMessage#equals(Object)}
+   */
+  private List<String> getDescriptions(List<ValidationMessage> validationMessages)
+  {
+    return validationMessages.stream()
+                             .map(message -> message.getMessage() + " | " + message.getSchemaLocation() + " | "
+                                             + message.getProperty())
+                             .collect(Collectors.toList());
+  }
+}
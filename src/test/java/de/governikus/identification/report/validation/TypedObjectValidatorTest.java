@@ -0,0 +1,263 @@
+package de.governikus.identification.report.validation;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.schema.ValidationMessage;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.objects.IdStatus;
+import de.governikus.identification.report.objects.IdentificationReport;
+import de.governikus.identification.report.objects.LevelOfAssurance;
+import de.governikus.identification.report.objects.subjects.Address;
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
+import de.governikus.identification.report.objects.subjects.FinkPersonRefMinimal;
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+
+
+/**
+ * cross-checks the validation of the typed fields against the validation of the serialized json tree
+ */
+public class TypedObjectValidatorTest
+{
+
+  private static final String REPORT_LOCATION = SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION;
+
+  private static final String EID_CARD_LOCATION = SchemaConstants.Locations.EID_CARD_SCHEMA_LOCATION;
+
+  private static final String FINK_LOCATION = SchemaConstants.Locations.FINK_USER_ACCOUNT_MINIMAL_SCHEMA_LOCATION;
+
+  /**
+   * verifies that reports with all kinds of missing, null and unknown values are validated by their typed
+   * fields with the same result as their json tree
+   */
+  @Test
+  public void testReportMatchesTreeValidation()
+  {
+    List<Consumer<IdentificationReport<EidCardPersonRef>>> mutations = new ArrayList<>();
+    mutations.add(report -> {});
+    mutations.add(report -> report.setReportId(null));
+    mutations.add(report -> report.setServerIdentity(null));
+    mutations.add(report -> report.setReportTime(null));
+    mutations.add(report -> report.setIdentificationTime(null));
+    mutations.add(report -> report.setLevelOfAssurance(null));
+    mutations.add(report -> report.setIdStatus(null));
+    mutations.add(report -> report.setSubjectRef(null));
+    mutations.add(report -> report.setContextInformation(Arrays.asList("first", null, "third", null)));
+    mutations.add(report -> report.setDocumentReferences(Arrays.asList(null, documentReference())));
+    mutations.add(report -> report.getDocumentReferences().get(0).put("unknown", "value").put("digest", 5));
+    mutations.add(report -> report.getDocumentReferences().get(0).putNull("documentName"));
+    mutations.add(report -> report.getKeyValueMap().put("custom", List.of(1, 2)));
+    mutations.add(report -> report.setKeyValueMap(null));
+    mutations.add(report -> {
+      report.setReportId(null);
+      report.setLevelOfAssurance(null);
+      report.setContextInformation(Arrays.asList((String)null));
+      report.getDocumentReferences().add(null);
+    });
+    for ( LevelOfAssurance levelOfAssurance : LevelOfAssurance.values() )
+    {
+      mutations.add(report -> report.setLevelOfAssurance(levelOfAssurance));
+    }
+    for ( IdStatus idStatus : IdStatus.values() )
+    {
+      mutations.add(report -> report.setIdStatus(idStatus));
+    }
+
+    for ( Consumer<IdentificationReport<EidCardPersonRef>> mutation : mutations )
+    {
+      IdentificationReport<EidCardPersonRef> report = report();
+      mutation.accept(report);
+      assertTypedValidationMatchesTree(REPORT_LOCATION, report);
+    }
+    assertTypedValidationMatchesTree(REPORT_LOCATION, IdentificationReport.builder().build());
+  }
+
+  /**
+   * verifies that eID card subjects with all kinds of addresses, birth dates and unknown values are validated
+   * by their typed fields with the same result as their json tree
+   */
+  @Test
+  public void testEidCardPersonRefMatchesTreeValidation()
+  {
+    List<Address> addresses = Arrays.asList(null,
+                                            new Address(),
+                                            Address.builder().street("street").city("city").zipCode("12345").build(),
+                                            Address.builder().freeTextPlace("Berlin").build(),
+                                            Address.builder().noPlaceInfo("no address in germany").build(),
+                                            Address.builder().locality("locality").region("region").build(),
+                                            Address.builder().city("city").freeTextPlace("Berlin").build(),
+                                            new Address("street", "city", "state", "locality", "region", "country",
+                                                        "12345", "no place", "free text"));
+    List<String> datesOfBirth = Arrays.asList(null, "01-01-1999", "1-1999", "1999", "x2000", "31-12-2000x", "");
+
+    for ( Address address : addresses )
+    {
+      for ( String dateOfBirth : datesOfBirth )
+      {
+        EidCardPersonRef personRef = eidCardPersonRef();
+        personRef.setPlaceOfResidence(address);
+        personRef.setDateOfBirth(dateOfBirth);
+        assertTypedValidationMatchesTree(EID_CARD_LOCATION, personRef);
+      }
+    }
+
+    EidCardPersonRef withoutRestrictedId = eidCardPersonRef();
+    withoutRestrictedId.setRestrictedId(null);
+    assertTypedValidationMatchesTree(EID_CARD_LOCATION, withoutRestrictedId);
+
+    EidCardPersonRef withAdditionalProperties = eidCardPersonRef();
+    withAdditionalProperties.setAdditionalProperties(additionalProperties());
+    assertTypedValidationMatchesTree(EID_CARD_LOCATION, withAdditionalProperties);
+
+    EidCardPersonRef emptyPersonRef = new EidCardPersonRef();
+    emptyPersonRef.setAdditionalProperties(null);
+    assertTypedValidationMatchesTree(EID_CARD_LOCATION, emptyPersonRef);
+  }
+
+  /**
+   * verifies that fink subjects with null and unknown values are validated by their typed fields with the same
+   * result as their json tree
+   */
+  @Test
+  public void testFinkPersonRefMinimalMatchesTreeValidation()
+  {
+    assertTypedValidationMatchesTree(FINK_LOCATION, new FinkPersonRefMinimal("Max", "Mustermann", null));
+    assertTypedValidationMatchesTree(FINK_LOCATION, new FinkPersonRefMinimal(null, "Mustermann", null));
+    assertTypedValidationMatchesTree(FINK_LOCATION, new FinkPersonRefMinimal(null, null, null));
+    assertTypedValidationMatchesTree(FINK_LOCATION, new FinkPersonRefMinimal("Max", null, additionalProperties()));
+  }
+
+  /**
+   * verifies that flattened entries that override declared properties and objects that are validated against a
+   * different schema are validated as json tree
+   */
+  @Test
+  public void testFallbackToTreeValidation()
+  {
+    IdentificationReport<EidCardPersonRef> report = report();
+    report.getKeyValueMap().put("reportId", 5);
+    assertTreeValidation(REPORT_LOCATION, report);
+
+    report = report();
+    report.setReportId(null);
+    report.getKeyValueMap().put("reportId", "override");
+    assertTreeValidation(REPORT_LOCATION, report);
+
+    EidCardPersonRef personRef = eidCardPersonRef();
+    personRef.getAdditionalProperties().put("dateOfBirth", "x2000");
+    assertTreeValidation(EID_CARD_LOCATION, personRef);
+
+    FinkPersonRefMinimal finkPersonRef = new FinkPersonRefMinimal(null, "Mustermann", new LinkedHashMap<>());
+    finkPersonRef.add("givenName", "Max");
+    assertTreeValidation(FINK_LOCATION, finkPersonRef);
+
+    assertTreeValidation(FINK_LOCATION, eidCardPersonRef());
+    assertTreeValidation(EID_CARD_LOCATION, report());
+  }
+
+  /**
+   * asserts that the object was validated by its typed fields with the same result as its json tree
+   */
+  private void assertTypedValidationMatchesTree(String schemaLocation, Object pojo)
+  {
+    JsonNode jsonNode = ObjectMapperUtil.getObjectMapper().valueToTree(pojo);
+    Assertions.assertNotNull(TypedObjectValidator.validate(schemaLocation, pojo), jsonNode.toString());
+    List<ValidationMessage> expected = new ArrayList<>(SchemaValidator.validateJsonObject(schemaLocation, jsonNode));
+    List<ValidationMessage> actual = new ArrayList<>(SchemaValidator.validateJsonObject(schemaLocation, pojo));
+    Assertions.assertEquals(expected, actual, jsonNode.toString());
+    Assertions.assertEquals(getDescriptions(expected), getDescriptions(actual), jsonNode.toString());
+    Assertions.assertEquals(expected.isEmpty(),
+                            TypedObjectValidator.isValid(schemaLocation, pojo),
+                            jsonNode.toString());
+    Assertions.assertEquals(expected.isEmpty(), SchemaValidator.isValid(schemaLocation, pojo), jsonNode.toString());
+    Assertions.assertEquals(expected.stream().findFirst(),
+                            SchemaValidator.getFirstError(schemaLocation, pojo),
+                            jsonNode.toString());
+  }
+
+  /**
+   * asserts that the object is not validated by its typed fields and that the result matches its json tree
+   */
+  private void assertTreeValidation(String schemaLocation, Object pojo)
+  {
+    JsonNode jsonNode = ObjectMapperUtil.getObjectMapper().valueToTree(pojo);
+    Assertions.assertNull(TypedObjectValidator.validate(schemaLocation, pojo), jsonNode.toString());
+    Assertions.assertNull(TypedObjectValidator.isValid(schemaLocation, pojo), jsonNode.toString());
+    Assertions.assertEquals(SchemaValidator.validateJsonObject(schemaLocation, jsonNode),
+                            SchemaValidator.validateJsonObject(schemaLocation, pojo));
+  }
+
+  /**
+   * @return the properties of the messages that are not part of {@link ValidationMessage#equals(Object)}
+   */
+  private List<String> getDescriptions(List<ValidationMessage> validationMessages)
+  {
+    return validationMessages.stream()
+                             .map(message -> message.getMessage() + " | " + message.getSchemaLocation() + " | "
+                                             + message.getProperty())
+                             .collect(Collectors.toList());
+  }
+
+  private IdentificationReport<EidCardPersonRef> report()
+  {
+    return IdentificationReport.<EidCardPersonRef> builder()
+                               .reportId("a0b1c2d3")
+                               .serverIdentity("https://localhost")
+                               .reportTime(Instant.now())
+                               .identificationTime(Instant.now())
+                               .levelOfAssurance(LevelOfAssurance.BSI_EID_HIGH)
+                               .idStatus(IdStatus.SUCCESS)
+                               .idStatement("ok")
+                               .trustFramework("eID")
+                               .subjectRefType(SchemaConstants.Ids.EID_CARD_PERSON_REF_ID)
+                               .subjectRef(eidCardPersonRef())
+                               .contextInformation(List.of("context"))
+                               .documentReferences(new ArrayList<>(List.of(documentReference())))
+                               .keyValueMap(new LinkedHashMap<>(Map.of("custom", "value")))
+                               .build();
+  }
+
+  private ObjectNode documentReference()
+  {
+    return ObjectMapperUtil.getObjectMapper()
+                           .createObjectNode()
+                           .put("documentId", "1")
+                           .put("documentName", "document.pdf")
+                           .put("digestAlgorithm", "SHA-256")
+                           .put("digest", "abc");
+  }
+
+  private EidCardPersonRef eidCardPersonRef()
+  {
+    return EidCardPersonRef.builder()
+                           .restrictedId("1234567890")
+                           .givenName("Max")
+                           .familyName("Mustermann")
+                           .dateOfBirth("01-01-1999")
+                           .placeOfBirth("Bremen")
+                           .birthName("Liebmann")
+                           .placeOfResidence(Address.builder().freeTextPlace("Berlin").build())
+                           .build();
+  }
+
+  private Map<String, Object> additionalProperties()
+  {
+    Map<String, Object> additionalProperties = new LinkedHashMap<>();
+    additionalProperties.put("unknown", "value");
+    additionalProperties.put("empty", null);
+    additionalProperties.put("number", 5);
+    return additionalProperties;
+  }
+}
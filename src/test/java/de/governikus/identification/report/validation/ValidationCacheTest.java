@@ -0,0 +1,128 @@
+package de.governikus.identification.report.validation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.schema.ValidationMessage;
+
+import de.governikus.identification.report.constants.SchemaConstants;
+import de.governikus.identification.report.objects.IdentificationReport;
+import de.governikus.identification.report.objects.subjects.EidCardPersonRef;
+import de.governikus.identification.report.setup.FileReferences;
+import de.governikus.identification.report.utils.ObjectMapperUtil;
+import lombok.SneakyThrows;
+
+
+/**
+ * verifies that repeated validations of the same content are answered from the cache
+ */
+public class ValidationCacheTest implements FileReferences
+{
+
+  private static final String REPORT_LOCATION = SchemaConstants.Locations.IDENTIFICATION_REPORT_SCHEMA_LOCATION;
+
+  /**
+   * verifies that the same content is a cache hit even if its properties are in another order and that the
+   * cached results are the same as the results of the schema validator
+   */
+  @Test
+  public void testRepeatedContentIsCacheHit()
+  {
+    ValidationCache validationCache = ValidationCache.builder().build();
+    JsonNode report = readReport();
+    ObjectNode invalidReport = report.deepCopy();
+    invalidReport.remove("reportId");
+
+    Assertions.assertTrue(validationCache.isValid(REPORT_LOCATION, report));
+    Assertions.assertEquals(new ArrayList<>(SchemaValidator.validateJsonObject(REPORT_LOCATION, invalidReport)),
+                            new ArrayList<>(validationCache.validateJsonObject(REPORT_LOCATION, invalidReport)));
+    Assertions.assertEquals(0, validationCache.getHitCount());
+    Assertions.assertEquals(2, validationCache.getMissCount());
+
+    Assertions.assertTrue(validationCache.isValid(REPORT_LOCATION, readReport()));
+    Assertions.assertTrue(validationCache.isValid(REPORT_LOCATION, reverse(report)));
+    Set<ValidationMessage> cachedErrors = validationCache.validateJsonObject(REPORT_LOCATION, invalidReport.deepCopy());
+    Assertions.assertEquals(new ArrayList<>(SchemaValidator.validateJsonObject(REPORT_LOCATION, invalidReport)),
+                            new ArrayList<>(cachedErrors));
+    Assertions.assertThrows(UnsupportedOperationException.class, cachedErrors::clear);
+    Assertions.assertEquals(3, validationCache.getHitCount());
+    Assertions.assertEquals(2, validationCache.getMissCount());
+    Assertions.assertEquals(0.6, validationCache.getHitRate(), 0.0001);
+    Assertions.assertEquals(2, validationCache.size());
+  }
+
+  /**
+   * verifies that objects and their json trees are cached under the same key and that the schema location is
+   * part of the key
+   */
+  @Test
+  public void testObjectsAndSchemaLocations()
+  {
+    ValidationCache validationCache = ValidationCache.builder().build();
+    IdentificationReport<EidCardPersonRef> report = IdentificationReport.fromJson(readReport(), EidCardPersonRef.class);
+    JsonNode subjectRef = report.toJson().get("subjectRef");
+
+    Assertions.assertTrue(validationCache.isValid(REPORT_LOCATION, report));
+    Assertions.assertTrue(validationCache.isValid(REPORT_LOCATION, report.toJson()));
+    Assertions.assertEquals(1, validationCache.getHitCount());
+
+    Assertions.assertFalse(validationCache.isValid(REPORT_LOCATION, subjectRef));
+    Assertions.assertTrue(validationCache.isValid(SchemaConstants.Locations.EID_CARD_SCHEMA_LOCATION, subjectRef));
+    Assertions.assertTrue(validationCache.isValid(SchemaConstants.Locations.EID_CARD_SCHEMA_LOCATION,
+                                                  report.getSubjectRef()));
+    Assertions.assertEquals(2, validationCache.getHitCount());
+    Assertions.assertEquals(3, validationCache.getMissCount());
+  }
+
+  /**
+   * verifies that the least recently used results are evicted if the cache is full
+   */
+  @Test
+  public void testSizeIsBounded()
+  {
+    ValidationCache validationCache = ValidationCache.builder().maximumSize(1).build();
+    JsonNode report = readReport();
+    ObjectNode otherReport = report.deepCopy();
+    otherReport.put("reportId", "other");
+
+    validationCache.isValid(REPORT_LOCATION, report);
+    validationCache.isValid(REPORT_LOCATION, otherReport);
+    validationCache.isValid(REPORT_LOCATION, report);
+    Assertions.assertEquals(0, validationCache.getHitCount());
+    Assertions.assertEquals(3, validationCache.getMissCount());
+    Assertions.assertEquals(2, validationCache.getEvictionCount());
+    Assertions.assertEquals(1, validationCache.size());
+
+    validationCache.clear();
+    Assertions.assertEquals(0, validationCache.size());
+  }
+
+  /**
+   * @return a copy of the given object with its properties in reverse order
+   */
+  private ObjectNode reverse(JsonNode node)
+  {
+    List<String> propertyNames = new ArrayList<>();
+    Iterator<String> iterator = node.fieldNames();
+    iterator.forEachRemaining(propertyNames::add);
+    ObjectNode reversed = ObjectMapperUtil.getObjectMapper().createObjectNode();
+    for ( int i = propertyNames.size() - 1 ; i >= 0 ; i-- )
+    {
+      reversed.set(propertyNames.get(i), node.get(propertyNames.get(i)));
+    }
+    return reversed;
+  }
+
+  @SneakyThrows
+  private JsonNode readReport()
+  {
+    return ObjectMapperUtil.getObjectMapper().readTree(readResourceFile(IDENTIFICATION_REPORT_2_0));
+  }
+}